@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Report of the beans that are created inline in the instance supplier of their single
+ * consumer, and that the generated bootstrap does not register.
+ *
+ * @author Stephane Nicoll
+ * @see ContextBootstrapGenerator#setInlineSingleUseBeans(boolean)
+ */
+public final class BeanInliningReport {
+
+	private final Map<String, String> inlinedBeans;
+
+	BeanInliningReport(Map<String, String> inlinedBeans) {
+		this.inlinedBeans = Collections.unmodifiableMap(new LinkedHashMap<>(inlinedBeans));
+	}
+
+	/**
+	 * Return the name of the inlined beans, mapped to the name of the bean that creates
+	 * them.
+	 * @return the inlined beans and their consumer
+	 */
+	public Map<String, String> getInlinedBeans() {
+		return this.inlinedBeans;
+	}
+
+	/**
+	 * Return the number of registry entries that inlining has removed.
+	 * @return the number of beans that are no longer registered
+	 */
+	public int getRemovedRegistrationCount() {
+		return this.inlinedBeans.size();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Inlined %d single-use bean(s)", getRemovedRegistrationCount()));
+		this.inlinedBeans.forEach((beanName, consumer) -> sb.append(String.format("%n\t%s -> %s", beanName, consumer)));
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanReference;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compute the beans of a {@link BeanFactory} that are reachable from a set of roots, so
+ * that the generated bootstrap does not register beans that nothing uses.
+ * <p>
+ * The reference graph is built from the dependencies the source bean factory has
+ * registered while resolving constructor and factory method arguments, as well as
+ * injected fields and methods, completed by factory beans, {@code depends-on} and bean
+ * references of the bean definitions. Injection points that are resolved lazily, such as
+ * {@code ObjectProvider} or {@code @Lazy}, and the injection points of beans that have
+ * not been instantiated reference every candidate of their type. Roots are the beans that
+ * are looked up by the container rather than injected: post-processors, listeners,
+ * lifecycle components, runners, web handlers and infrastructure beans, such as the
+ * binder of {@code @ConfigurationProperties} beans, by default. Non-lazy singletons with
+ * an initialization callback are roots as well, as they are typically created for their
+ * side effect, such as a database initializer. Beans that are looked up programmatically
+ * must be declared as roots.
+ *
+ * @author Stephane Nicoll
+ * @see ContextBootstrapGenerator#setBeanReachability(BeanReachability)
+ */
+public final class BeanReachability {
+
+	private static final List<String> DEFAULT_ROOT_TYPES = Collections.unmodifiableList(Arrays.asList(
+			"org.springframework.beans.factory.config.BeanPostProcessor",
+			"org.springframework.beans.factory.config.BeanFactoryPostProcessor",
+			"org.springframework.beans.factory.SmartInitializingSingleton",
+			"org.springframework.context.ApplicationListener", "org.springframework.context.Lifecycle",
+			"org.springframework.boot.ApplicationRunner", "org.springframework.boot.CommandLineRunner",
+			"org.springframework.boot.web.servlet.ServletContextInitializer",
+			"org.springframework.boot.web.server.WebServerFactoryCustomizer", "javax.servlet.Servlet",
+			"javax.servlet.Filter", "java.util.EventListener", "org.springframework.web.servlet.HandlerMapping",
+			"org.springframework.web.servlet.HandlerAdapter",
+			"org.springframework.web.servlet.HandlerExceptionResolver", "org.springframework.web.servlet.ViewResolver",
+			"org.springframework.web.servlet.function.RouterFunction",
+			"org.springframework.web.reactive.HandlerMapping", "org.springframework.web.reactive.HandlerAdapter",
+			"org.springframework.web.reactive.HandlerResult",
+			"org.springframework.web.reactive.function.server.RouterFunction",
+			"org.springframework.web.server.WebFilter", "org.springframework.web.server.WebExceptionHandler"));
+
+	private static final List<String> DEFAULT_ROOT_ANNOTATIONS = Collections.unmodifiableList(Arrays.asList(
+			"org.springframework.stereotype.Controller", "org.springframework.web.bind.annotation.RequestMapping",
+			"org.springframework.context.event.EventListener", "org.springframework.scheduling.annotation.Scheduled",
+			"org.springframework.messaging.handler.annotation.MessageMapping",
+			"org.springframework.jms.annotation.JmsListener",
+			"org.springframework.boot.actuate.endpoint.annotation.Endpoint"));
+
+	private static final List<String> DEFAULT_ROOT_BEAN_NAMES = Collections
+			.unmodifiableList(Arrays.asList(AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME,
+					AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+					AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME));
+
+	private static final String POST_CONSTRUCT_ANNOTATION = "javax.annotation.PostConstruct";
+
+	private static final List<String> INJECTION_ANNOTATIONS = Collections.unmodifiableList(Arrays.asList(
+			Autowired.class.getName(), Value.class.getName(), "javax.inject.Inject", "javax.annotation.Resource"));
+
+	private static final boolean bufferingApplicationStartupPresent = ClassUtils.isPresent(
+			"org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup",
+			BeanReachability.class.getClassLoader());
+
+	private final Set<String> rootTypes;
+
+	private final Set<String> rootAnnotations;
+
+	private final Set<String> rootBeanNames;
+
+	private BeanReachability(Set<String> rootTypes, Set<String> rootAnnotations, Set<String> rootBeanNames) {
+		this.rootTypes = rootTypes;
+		this.rootAnnotations = rootAnnotations;
+		this.rootBeanNames = rootBeanNames;
+	}
+
+	/**
+	 * Create a new instance with the default roots: infrastructure callbacks, listeners,
+	 * lifecycle components, runners, web handlers and beans with the
+	 * {@link BeanDefinition#ROLE_INFRASTRUCTURE infrastructure role}.
+	 * @return a new instance
+	 */
+	public static BeanReachability withDefaultRoots() {
+		return new BeanReachability(new LinkedHashSet<>(DEFAULT_ROOT_TYPES),
+				new LinkedHashSet<>(DEFAULT_ROOT_ANNOTATIONS), new LinkedHashSet<>(DEFAULT_ROOT_BEAN_NAMES));
+	}
+
+	/**
+	 * Return a new instance that also considers the beans matching the specified types as
+	 * roots. Types that are not present on the classpath are ignored.
+	 * @param typeNames the fully qualified names of the root types
+	 * @return a new instance
+	 */
+	public BeanReachability withRootTypes(String... typeNames) {
+		Set<String> rootTypes = new LinkedHashSet<>(this.rootTypes);
+		rootTypes.addAll(Arrays.asList(typeNames));
+		return new BeanReachability(rootTypes, this.rootAnnotations, this.rootBeanNames);
+	}
+
+	/**
+	 * Return a new instance that also considers the beans whose type, or one of its
+	 * methods, is annotated with one of the specified annotations as roots.
+	 * @param annotationNames the fully qualified names of the root annotations
+	 * @return a new instance
+	 */
+	public BeanReachability withRootAnnotations(String... annotationNames) {
+		Set<String> rootAnnotations = new LinkedHashSet<>(this.rootAnnotations);
+		rootAnnotations.addAll(Arrays.asList(annotationNames));
+		return new BeanReachability(this.rootTypes, rootAnnotations, this.rootBeanNames);
+	}
+
+	/**
+	 * Return a new instance that also considers the beans with the specified names as
+	 * roots.
+	 * @param beanNames the names of the root beans
+	 * @return a new instance
+	 */
+	public BeanReachability withRootBeanNames(String... beanNames) {
+		Set<String> rootBeanNames = new LinkedHashSet<>(this.rootBeanNames);
+		rootBeanNames.addAll(Arrays.asList(beanNames));
+		return new BeanReachability(this.rootTypes, this.rootAnnotations, rootBeanNames);
+	}
+
+	/**
+	 * Analyze the specified {@link ConfigurableListableBeanFactory} and report the
+	 * selected beans that are not reachable from the roots.
+	 * @param beanFactory the bean factory to analyze
+	 * @param selector the selector of the beans to consider
+	 * @return a report of the beans that can be removed
+	 */
+	public BeanReachabilityReport analyze(ConfigurableListableBeanFactory beanFactory,
+			BeanDefinitionSelector selector) {
+		Set<String> candidates = new LinkedHashSet<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			if (selector.select(beanName, beanFactory.getMergedBeanDefinition(beanName))) {
+				candidates.add(beanName);
+			}
+		}
+		List<Class<?>> rootTypes = new ArrayList<>();
+		for (String rootType : this.rootTypes) {
+			Class<?> resolvedRootType = resolveClass(rootType, beanFactory.getBeanClassLoader());
+			if (resolvedRootType != null) {
+				rootTypes.add(resolvedRootType);
+			}
+		}
+		Set<String> reachable = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>();
+		for (String candidate : candidates) {
+			if (isRoot(beanFactory, candidate, rootTypes)) {
+				queue.add(candidate);
+			}
+		}
+		while (!queue.isEmpty()) {
+			String beanName = queue.poll();
+			if (reachable.add(beanName)) {
+				for (String dependency : getDependencies(beanFactory, beanName)) {
+					if (candidates.contains(dependency) && !reachable.contains(dependency)) {
+						queue.add(dependency);
+					}
+				}
+			}
+		}
+		Map<String, Duration> startupTimes = getStartupTimes(beanFactory);
+		List<BeanReachabilityReport.RemovedBean> removedBeans = new ArrayList<>();
+		for (String candidate : candidates) {
+			if (!reachable.contains(candidate)) {
+				Class<?> type = ClassUtils
+						.getUserClass(beanFactory.getMergedBeanDefinition(candidate).getResolvableType().toClass());
+				long estimatedSize = (beanFactory.containsSingleton(candidate))
+						? estimateShallowSize(beanFactory.getSingleton(candidate).getClass()) : 0;
+				removedBeans.add(new BeanReachabilityReport.RemovedBean(candidate, type, estimatedSize,
+						(startupTimes != null) ? startupTimes.getOrDefault(candidate, Duration.ZERO) : null));
+			}
+		}
+		return new BeanReachabilityReport(candidates.size(), removedBeans);
+	}
+
+	private boolean isRoot(ConfigurableListableBeanFactory beanFactory, String beanName, List<Class<?>> rootTypes) {
+		if (this.rootBeanNames.contains(beanName)) {
+			return true;
+		}
+		BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
+		// Infrastructure beans are typically looked up by name by the container
+		if (beanDefinition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+			return true;
+		}
+		Class<?> type = beanFactory.getType(beanName, false);
+		if (type == null) {
+			return true;
+		}
+		type = ClassUtils.getUserClass(type);
+		for (Class<?> rootType : rootTypes) {
+			if (rootType.isAssignableFrom(type)) {
+				return true;
+			}
+		}
+		return hasInitializationCallback(beanDefinition, type) || hasRootAnnotation(type)
+				|| hasRootAnnotation(getFactoryMethod(beanDefinition));
+	}
+
+	private boolean hasInitializationCallback(BeanDefinition beanDefinition, Class<?> type) {
+		if (!beanDefinition.isSingleton() || beanDefinition.isLazyInit()) {
+			return false;
+		}
+		if (InitializingBean.class.isAssignableFrom(type) || SmartInitializingSingleton.class.isAssignableFrom(type)
+				|| StringUtils.hasLength(beanDefinition.getInitMethodName())) {
+			return true;
+		}
+		boolean[] match = new boolean[1];
+		ReflectionUtils.doWithMethods(type, (method) -> match[0] = true, (method) -> !match[0]
+				&& MergedAnnotations.from(method, SearchStrategy.TYPE_HIERARCHY).isPresent(POST_CONSTRUCT_ANNOTATION));
+		return match[0];
+	}
+
+	private boolean hasRootAnnotation(Class<?> type) {
+		MergedAnnotations annotations = MergedAnnotations.from(type, SearchStrategy.TYPE_HIERARCHY);
+		if (this.rootAnnotations.stream().anyMatch(annotations::isPresent)) {
+			return true;
+		}
+		boolean[] match = new boolean[1];
+		ReflectionUtils.doWithMethods(type, (method) -> match[0] = true,
+				(method) -> !match[0] && hasRootAnnotation(method));
+		return match[0];
+	}
+
+	private boolean hasRootAnnotation(Method method) {
+		if (method == null) {
+			return false;
+		}
+		MergedAnnotations annotations = MergedAnnotations.from(method, SearchStrategy.TYPE_HIERARCHY);
+		return this.rootAnnotations.stream().anyMatch(annotations::isPresent);
+	}
+
+	private Set<String> getDependencies(ConfigurableListableBeanFactory beanFactory, String beanName) {
+		Set<String> dependencies = new LinkedHashSet<>(Arrays.asList(beanFactory.getDependenciesForBean(beanName)));
+		BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
+		if (beanDefinition.getFactoryBeanName() != null) {
+			dependencies.add(beanDefinition.getFactoryBeanName());
+		}
+		if (beanDefinition.getDependsOn() != null) {
+			dependencies.addAll(Arrays.asList(beanDefinition.getDependsOn()));
+		}
+		for (ValueHolder valueHolder : beanDefinition.getConstructorArgumentValues().getIndexedArgumentValues()
+				.values()) {
+			addBeanReference(dependencies, valueHolder.getValue());
+		}
+		for (ValueHolder valueHolder : beanDefinition.getConstructorArgumentValues().getGenericArgumentValues()) {
+			addBeanReference(dependencies, valueHolder.getValue());
+		}
+		for (PropertyValue propertyValue : beanDefinition.getPropertyValues().getPropertyValues()) {
+			addBeanReference(dependencies, propertyValue.getValue());
+		}
+		boolean instantiated = beanFactory.containsSingleton(beanName);
+		for (InjectionPoint injectionPoint : getInjectionPoints(beanFactory, beanName)) {
+			if (!instantiated || injectionPoint.deferred) {
+				Class<?> dependencyType = injectionPoint.getDependencyType();
+				if (dependencyType != Object.class) {
+					dependencies.addAll(Arrays.asList(beanFactory.getBeanNamesForType(dependencyType, true, false)));
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	private void addBeanReference(Set<String> dependencies, Object value) {
+		if (value instanceof BeanReference) {
+			dependencies.add(((BeanReference) value).getBeanName());
+		}
+	}
+
+	private List<InjectionPoint> getInjectionPoints(ConfigurableListableBeanFactory beanFactory, String beanName) {
+		List<InjectionPoint> injectionPoints = new ArrayList<>();
+		BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
+		for (Executable executable : getCandidateExecutables(beanFactory, beanName, beanDefinition)) {
+			for (int i = 0; i < executable.getParameterCount(); i++) {
+				MethodParameter parameter = MethodParameter.forExecutable(executable, i);
+				injectionPoints.add(new InjectionPoint(ResolvableType.forMethodParameter(parameter),
+						isLazy(executable.getParameters()[i])));
+			}
+		}
+		Class<?> type = beanFactory.getType(beanName, false);
+		if (type != null) {
+			ReflectionUtils.doWithFields(ClassUtils.getUserClass(type),
+					(field) -> injectionPoints.add(new InjectionPoint(ResolvableType.forField(field), isLazy(field))),
+					this::isInjected);
+			ReflectionUtils.doWithMethods(ClassUtils.getUserClass(type), (method) -> {
+				for (int i = 0; i < method.getParameterCount(); i++) {
+					injectionPoints.add(new InjectionPoint(ResolvableType.forMethodParameter(method, i),
+							isLazy(method) || isLazy(method.getParameters()[i])));
+				}
+			}, this::isInjected);
+		}
+		return injectionPoints;
+	}
+
+	private List<Executable> getCandidateExecutables(ConfigurableListableBeanFactory beanFactory, String beanName,
+			BeanDefinition beanDefinition) {
+		Method factoryMethod = getFactoryMethod(beanDefinition);
+		if (factoryMethod != null) {
+			return Collections.singletonList(factoryMethod);
+		}
+		String factoryMethodName = beanDefinition.getFactoryMethodName();
+		if (factoryMethodName != null) {
+			Class<?> factoryClass = (beanDefinition.getFactoryBeanName() != null)
+					? beanFactory.getType(beanDefinition.getFactoryBeanName(), false)
+					: resolveClass(beanDefinition.getBeanClassName(), beanFactory.getBeanClassLoader());
+			List<Executable> methods = new ArrayList<>();
+			if (factoryClass != null) {
+				ReflectionUtils.doWithMethods(ClassUtils.getUserClass(factoryClass), methods::add,
+						(method) -> method.getName().equals(factoryMethodName));
+			}
+			return methods;
+		}
+		Class<?> type = beanFactory.getType(beanName, false);
+		if (type == null) {
+			return Collections.emptyList();
+		}
+		Constructor<?>[] constructors = ClassUtils.getUserClass(type).getDeclaredConstructors();
+		return Arrays.asList(constructors);
+	}
+
+	private Method getFactoryMethod(BeanDefinition beanDefinition) {
+		return (beanDefinition instanceof RootBeanDefinition)
+				? ((RootBeanDefinition) beanDefinition).getResolvedFactoryMethod() : null;
+	}
+
+	private boolean isInjected(Field field) {
+		return INJECTION_ANNOTATIONS.stream().anyMatch((annotation) -> isAnnotated(field, annotation));
+	}
+
+	private boolean isInjected(Method method) {
+		return method.getParameterCount() > 0
+				&& INJECTION_ANNOTATIONS.stream().anyMatch((annotation) -> isAnnotated(method, annotation));
+	}
+
+	private boolean isLazy(AnnotatedElement element) {
+		return MergedAnnotations.from(element).isPresent(Lazy.class);
+	}
+
+	private boolean isAnnotated(AnnotatedElement element, String annotationName) {
+		return MergedAnnotations.from(element).isPresent(annotationName);
+	}
+
+	private Map<String, Duration> getStartupTimes(ConfigurableListableBeanFactory beanFactory) {
+		if (bufferingApplicationStartupPresent) {
+			return StartupTimes.get(beanFactory);
+		}
+		return null;
+	}
+
+	/**
+	 * Estimate the shallow size of an instance of the specified type, assuming a 64-bit
+	 * JVM with compressed references.
+	 * @param type the type of the instance
+	 * @return the estimated size, in bytes
+	 */
+	static long estimateShallowSize(Class<?> type) {
+		long size = 12;
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					size += getFieldSize(field.getType());
+				}
+			}
+		}
+		return (size + 7) / 8 * 8;
+	}
+
+	private static int getFieldSize(Class<?> fieldType) {
+		if (fieldType == long.class || fieldType == double.class) {
+			return 8;
+		}
+		if (fieldType == int.class || fieldType == float.class) {
+			return 4;
+		}
+		if (fieldType == short.class || fieldType == char.class) {
+			return 2;
+		}
+		if (fieldType == byte.class || fieldType == boolean.class) {
+			return 1;
+		}
+		return 4;
+	}
+
+	private static Class<?> resolveClass(String className, ClassLoader classLoader) {
+		if (className == null || !ClassUtils.isPresent(className, classLoader)) {
+			return null;
+		}
+		return ClassUtils.resolveClassName(className, classLoader);
+	}
+
+	/**
+	 * An injection point of a bean.
+	 */
+	private static final class InjectionPoint {
+
+		private final ResolvableType type;
+
+		private final boolean deferred;
+
+		InjectionPoint(ResolvableType type, boolean lazy) {
+			this.type = type;
+			Class<?> rawType = type.toClass();
+			this.deferred = lazy || ObjectFactory.class.isAssignableFrom(rawType) || rawType == Optional.class
+					|| rawType.getName().equals("javax.inject.Provider");
+		}
+
+		Class<?> getDependencyType() {
+			ResolvableType target = this.type;
+			if (this.deferred && target.hasGenerics()) {
+				target = target.getGeneric(0);
+			}
+			if (target.isArray()) {
+				return target.getComponentType().toClass();
+			}
+			if (Collection.class.isAssignableFrom(target.toClass())) {
+				return target.asCollection().getGeneric(0).toClass();
+			}
+			if (Map.class.isAssignableFrom(target.toClass())) {
+				return target.asMap().getGeneric(1).toClass();
+			}
+			return target.toClass();
+		}
+
+	}
+
+	/**
+	 * Extract the time spent instantiating each bean from a buffered startup timeline,
+	 * excluding the time spent instantiating its dependencies.
+	 */
+	private static final class StartupTimes {
+
+		private static final String BEAN_INSTANTIATION_STEP = "spring.beans.instantiate";
+
+		static Map<String, Duration> get(ConfigurableListableBeanFactory beanFactory) {
+			if (!(beanFactory.getApplicationStartup() instanceof BufferingApplicationStartup)) {
+				return null;
+			}
+			List<TimelineEvent> events = ((BufferingApplicationStartup) beanFactory.getApplicationStartup())
+					.getBufferedTimeline().getEvents();
+			Map<Long, Duration> selfTimes = new HashMap<>();
+			for (TimelineEvent event : events) {
+				selfTimes.merge(event.getStartupStep().getId(), event.getDuration(), Duration::plus);
+				Long parentId = event.getStartupStep().getParentId();
+				if (parentId != null) {
+					selfTimes.merge(parentId, event.getDuration().negated(), Duration::plus);
+				}
+			}
+			Map<String, Duration> startupTimes = new HashMap<>();
+			for (TimelineEvent event : events) {
+				StartupStep step = event.getStartupStep();
+				if (BEAN_INSTANTIATION_STEP.equals(step.getName())) {
+					for (StartupStep.Tag tag : step.getTags()) {
+						if ("beanName".equals(tag.getKey())) {
+							startupTimes.merge(tag.getValue(), selfTimes.get(step.getId()), Duration::plus);
+						}
+					}
+				}
+			}
+			return startupTimes;
+		}
+
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Report of the beans that a {@link BeanReachability} analysis has found unreachable, and
+ * that the generated bootstrap does not register.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BeanReachabilityReport {
+
+	private final int candidateCount;
+
+	private final List<RemovedBean> removedBeans;
+
+	private final Set<String> removedBeanNames;
+
+	BeanReachabilityReport(int candidateCount, List<RemovedBean> removedBeans) {
+		this.candidateCount = candidateCount;
+		this.removedBeans = Collections.unmodifiableList(removedBeans);
+		this.removedBeanNames = removedBeans.stream().map(RemovedBean::getBeanName).collect(Collectors.toSet());
+	}
+
+	/**
+	 * Return the number of beans that were considered.
+	 * @return the number of candidate beans
+	 */
+	public int getCandidateCount() {
+		return this.candidateCount;
+	}
+
+	/**
+	 * Return the beans that are not reachable, in registration order.
+	 * @return the removed beans
+	 */
+	public List<RemovedBean> getRemovedBeans() {
+		return this.removedBeans;
+	}
+
+	/**
+	 * Specify if the bean with the specified name is not reachable.
+	 * @param beanName the name of a bean
+	 * @return {@code true} if the bean has been removed
+	 */
+	public boolean isRemoved(String beanName) {
+		return this.removedBeanNames.contains(beanName);
+	}
+
+	/**
+	 * Return the estimated memory that is saved by not instantiating the removed beans.
+	 * Only the shallow size of the instances is accounted for.
+	 * @return the estimated memory saved, in bytes
+	 */
+	public long getEstimatedMemorySaved() {
+		return this.removedBeans.stream().mapToLong(RemovedBean::getEstimatedSize).sum();
+	}
+
+	/**
+	 * Return the estimated startup time that is saved by not instantiating the removed
+	 * beans, or {@code null} if the source context did not buffer its startup steps.
+	 * @return the estimated startup time saved or {@code null}
+	 */
+	public Duration getEstimatedStartupTimeSaved() {
+		Duration total = Duration.ZERO;
+		for (RemovedBean removedBean : this.removedBeans) {
+			if (removedBean.getEstimatedStartupTime() == null) {
+				return null;
+			}
+			total = total.plus(removedBean.getEstimatedStartupTime());
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Removed %d unreachable bean(s) out of %d", this.removedBeans.size(),
+				this.candidateCount));
+		sb.append(String.format(", estimated memory saved: %d bytes", getEstimatedMemorySaved()));
+		Duration startupTime = getEstimatedStartupTimeSaved();
+		if (startupTime != null) {
+			sb.append(String.format(", estimated startup time saved: %d ms", startupTime.toMillis()));
+		}
+		for (RemovedBean removedBean : this.removedBeans) {
+			sb.append(String.format("%n\t%s (%s)", removedBean.getBeanName(), removedBean.getType().getName()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * A bean that is not reachable.
+	 */
+	public static final class RemovedBean {
+
+		private final String beanName;
+
+		private final Class<?> type;
+
+		private final long estimatedSize;
+
+		private final Duration estimatedStartupTime;
+
+		RemovedBean(String beanName, Class<?> type, long estimatedSize, Duration estimatedStartupTime) {
+			this.beanName = beanName;
+			this.type = type;
+			this.estimatedSize = estimatedSize;
+			this.estimatedStartupTime = estimatedStartupTime;
+		}
+
+		/**
+		 * Return the name of the bean.
+		 * @return the bean name
+		 */
+		public String getBeanName() {
+			return this.beanName;
+		}
+
+		/**
+		 * Return the type of the bean.
+		 * @return the bean type
+		 */
+		public Class<?> getType() {
+			return this.type;
+		}
+
+		/**
+		 * Return the estimated shallow size of the bean instance, or {@code 0} if the
+		 * bean was not instantiated.
+		 * @return the estimated size, in bytes
+		 */
+		public long getEstimatedSize() {
+			return this.estimatedSize;
+		}
+
+		/**
+		 * Return the time spent instantiating the bean, excluding its dependencies, or
+		 * {@code null} if the source context did not buffer its startup steps.
+		 * @return the estimated startup time or {@code null}
+		 */
+		public Duration getEstimatedStartupTime() {
+			return this.estimatedStartupTime;
+		}
+
+	}
+
+}
@@ -18,15 +18,22 @@ package org.springframework.context.bootstrap.generator;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import javax.lang.model.element.Modifier;
 
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
@@ -37,15 +44,38 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.bootstrap.generator.bean.AbstractBeanValueWriter;
+import org.springframework.context.bootstrap.generator.bean.AopProxyResolver;
+import org.springframework.context.bootstrap.generator.bean.ArgumentValueWriter;
+import org.springframework.context.bootstrap.generator.bean.AwareMethodsResolver;
+import org.springframework.context.bootstrap.generator.bean.BeanCollectionResolver;
+import org.springframework.context.bootstrap.generator.bean.BeanFamilyRegistrationGenerator;
+import org.springframework.context.bootstrap.generator.bean.BeanFamilyResolver;
 import org.springframework.context.bootstrap.generator.bean.BeanRegistrationGenerator;
 import org.springframework.context.bootstrap.generator.bean.BeanValueWriter;
 import org.springframework.context.bootstrap.generator.bean.BeanValueWriterSupplier;
+import org.springframework.context.bootstrap.generator.bean.ConfigurationPropertiesBindingResolver;
+import org.springframework.context.bootstrap.generator.bean.FactoryBeanResolver;
 import org.springframework.context.bootstrap.generator.bean.GenericBeanRegistrationGenerator;
+import org.springframework.context.bootstrap.generator.bean.InlinedBeanResolver;
+import org.springframework.context.bootstrap.generator.bean.LazyProxyResolver;
+import org.springframework.context.bootstrap.generator.bean.LifecycleMethodsResolver;
+import org.springframework.context.bootstrap.generator.bean.MemberInjectionResolver;
+import org.springframework.context.bootstrap.generator.bean.ResolvableTypeWriter;
+import org.springframework.context.bootstrap.generator.bean.ScopedProxyResolver;
 import org.springframework.context.bootstrap.generator.bean.SimpleBeanRegistrationGenerator;
+import org.springframework.context.bootstrap.generator.bean.TransactionAttributeSourceResolver;
+import org.springframework.context.bootstrap.generator.bean.ValueExpressionWriter;
+import org.springframework.context.bootstrap.generator.processor.condition.BootstrapConditionsProcessor;
 import org.springframework.context.bootstrap.generator.processor.event.EventListenerProcessor;
+import org.springframework.context.bootstrap.generator.processor.plan.BeanPostProcessorPlanProcessor;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * A simple experiment to generate a bootstrap class that represents the state of a fully
@@ -55,12 +85,43 @@ import org.springframework.core.io.support.SpringFactoriesLoader;
  */
 public class ContextBootstrapGenerator {
 
+	static final ClassName BOOTSTRAP_REGISTRY = ClassName.get("org.springframework.context.boostrap.invoker",
+			"BootstrapRegistry");
+
+	private static final String BOOTSTRAP_CLASS_NAME = "ContextBootstrap";
+
 	private static final Log logger = LogFactory.getLog(ContextBootstrapGenerator.class);
 
+	private static final boolean transactionPresent = ClassUtils.isPresent(
+			"org.springframework.transaction.interceptor.TransactionAttributeSource",
+			ContextBootstrapGenerator.class.getClassLoader());
+
+	private static final boolean configurationPropertiesPresent = ClassUtils.isPresent(
+			"org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor",
+			ContextBootstrapGenerator.class.getClassLoader());
+
+	private static final boolean conditionEvaluationReportPresent = ClassUtils.isPresent(
+			"org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport",
+			ContextBootstrapGenerator.class.getClassLoader());
+
 	private final List<BeanValueWriterSupplier> beanValueWriterSuppliers;
 
 	private final Map<String, ProtectedBootstrapClass> protectedBootstrapClasses = new HashMap<>();
 
+	private final List<TypeSpec> proxyTypes = new ArrayList<>();
+
+	private final List<FieldSpec> staticFields = new ArrayList<>();
+
+	private final List<BeanReachabilityReport> beanReachabilityReports = new ArrayList<>();
+
+	private final List<BeanInliningReport> beanInliningReports = new ArrayList<>();
+
+	private BeanReachability beanReachability;
+
+	private boolean inlineSingleUseBeans;
+
+	private boolean unwrapFactoryBeans;
+
 	public ContextBootstrapGenerator(ClassLoader classLoader) {
 		this(SpringFactoriesLoader.loadFactories(BeanValueWriterSupplier.class, classLoader));
 	}
@@ -69,6 +130,57 @@ public class ContextBootstrapGenerator {
 		this.beanValueWriterSuppliers = beanValueWriterSuppliers;
 	}
 
+	/**
+	 * Set the {@link BeanReachability} to use to remove the beans that are not reachable
+	 * from its roots. By default, all beans are registered.
+	 * @param beanReachability the reachability analysis to apply, or {@code null}
+	 */
+	public void setBeanReachability(BeanReachability beanReachability) {
+		this.beanReachability = beanReachability;
+	}
+
+	/**
+	 * Return the {@linkplain BeanReachabilityReport reports} of the beans that were
+	 * removed, one per generated bootstrap class. Empty if no {@link BeanReachability}
+	 * has been set.
+	 * @return the reachability reports
+	 */
+	public List<BeanReachabilityReport> getBeanReachabilityReports() {
+		return Collections.unmodifiableList(this.beanReachabilityReports);
+	}
+
+	/**
+	 * Set whether beans that are only used to create a single other bean should be
+	 * created inline in the instance supplier of their consumer rather than registered.
+	 * By default, all beans are registered.
+	 * @param inlineSingleUseBeans whether single-use beans should be inlined
+	 * @see InlinedBeanResolver
+	 */
+	public void setInlineSingleUseBeans(boolean inlineSingleUseBeans) {
+		this.inlineSingleUseBeans = inlineSingleUseBeans;
+	}
+
+	/**
+	 * Set whether simple singleton factory beans should be replaced by the object they
+	 * create, registered under the name of the factory bean. By default, factory beans
+	 * are registered with the type of their object as a precomputed attribute.
+	 * @param unwrapFactoryBeans whether simple singleton factory beans should be
+	 * unwrapped
+	 * @see FactoryBeanResolver
+	 */
+	public void setUnwrapFactoryBeans(boolean unwrapFactoryBeans) {
+		this.unwrapFactoryBeans = unwrapFactoryBeans;
+	}
+
+	/**
+	 * Return the {@linkplain BeanInliningReport reports} of the beans that were inlined,
+	 * one per generated bootstrap class. Empty if single-use beans are not inlined.
+	 * @return the inlining reports
+	 */
+	public List<BeanInliningReport> getBeanInliningReports() {
+		return Collections.unmodifiableList(this.beanInliningReports);
+	}
+
 	/**
 	 * Generate the code that is required to restore the state of the specified
 	 * {@link BeanFactory}.
@@ -79,73 +191,337 @@ public class ContextBootstrapGenerator {
 	 */
 	public List<JavaFile> generateBootstrapClass(ConfigurableListableBeanFactory beanFactory, String packageName,
 			Class<?>... excludeTypes) {
-		this.beanValueWriterSuppliers.stream().filter(BeanFactoryAware.class::isInstance)
-				.map(BeanFactoryAware.class::cast).forEach((callback) -> callback.setBeanFactory(beanFactory));
-		DefaultBeanDefinitionSelector selector = new DefaultBeanDefinitionSelector(
-				Arrays.stream(excludeTypes).map(Class::getName).collect(Collectors.toList()));
+		setBeanFactory(beanFactory);
 		List<JavaFile> bootstrapClasses = new ArrayList<>();
-		bootstrapClasses.add(createClass(packageName, "ContextBootstrap",
-				generateBootstrapMethod(beanFactory, packageName, selector)));
-		for (ProtectedBootstrapClass protectedBootstrapClass : this.protectedBootstrapClasses.values()) {
-			bootstrapClasses.add(protectedBootstrapClass.build());
+		bootstrapClasses.add(createClass(packageName, BOOTSTRAP_CLASS_NAME,
+				generateBootstrapMethod(beanFactory, packageName, createSelector(excludeTypes))));
+		bootstrapClasses.addAll(buildProtectedBootstrapClasses());
+		return bootstrapClasses;
+	}
+
+	/**
+	 * Generate a bootstrap class for each of the specified {@link BeanFactory} instances,
+	 * typically refreshed with different active profiles. Each variant is named after its
+	 * active profiles, such as {@code KafkaContextBootstrap}, or
+	 * {@code DefaultContextBootstrap} if no profile is active. Characters of a profile
+	 * that are not valid in a class name separate words, and the name is prefixed by
+	 * {@code Profile} if it does not start with a letter, such as
+	 * {@code Profile1stRunContextBootstrap} for a {@code 1st-run} profile. The constants
+	 * and proxy classes of all variants are held by a shared {@code ContextBootstrap}
+	 * class, and beans that are registered the same way by all variants are registered by
+	 * a method of that class that each variant invokes in its own registration order.
+	 * @param beanFactories the bean factory states to replicate in code
+	 * @param packageName the root package for the generated classes
+	 * @param excludeTypes the types to exclude
+	 * @return a list of {@linkplain JavaFile java source files}
+	 */
+	public List<JavaFile> generateBootstrapClasses(List<ConfigurableListableBeanFactory> beanFactories,
+			String packageName, Class<?>... excludeTypes) {
+		BeanDefinitionSelector selector = createSelector(excludeTypes);
+		ClassName sharedClassName = ClassName.get(packageName, BOOTSTRAP_CLASS_NAME);
+		BootstrapConstants constants = new BootstrapConstants(sharedClassName);
+		Map<String, ContextBootstrapGenerator> generators = new LinkedHashMap<>();
+		Map<String, BootstrapMethod> bootstrapMethods = new LinkedHashMap<>();
+		for (ConfigurableListableBeanFactory beanFactory : beanFactories) {
+			String className = getVariantClassName(beanFactory);
+			Assert.state(!generators.containsKey(className), () -> "Duplicate bootstrap variant " + className);
+			ContextBootstrapGenerator generator = new ContextBootstrapGenerator(this.beanValueWriterSuppliers);
+			generator.setBeanFactory(beanFactory);
+			generator.setBeanReachability(this.beanReachability);
+			generator.setInlineSingleUseBeans(this.inlineSingleUseBeans);
+			generator.setUnwrapFactoryBeans(this.unwrapFactoryBeans);
+			generators.put(className, generator);
+			bootstrapMethods.put(className,
+					generator.writeBootstrapMethod(beanFactory, packageName, className, selector, constants));
+			this.beanReachabilityReports.addAll(generator.beanReachabilityReports);
+			this.beanInliningReports.addAll(generator.beanInliningReports);
 		}
+		List<JavaFile> bootstrapClasses = new ArrayList<>();
+		Map<String, BeanRegistration> sharedRegistrations = getSharedRegistrations(bootstrapMethods.values());
+		Map<String, CodeBlock> sharedInvocations = new HashMap<>();
+		Map<String, MethodSpec> sharedMethods = new LinkedHashMap<>();
+		for (Map.Entry<String, BootstrapMethod> entry : bootstrapMethods.entrySet()) {
+			ContextBootstrapGenerator generator = generators.get(entry.getKey());
+			MethodSpec method = entry.getValue()
+					.build((beanName,
+							registration) -> (sharedRegistrations.containsKey(beanName))
+									? sharedInvocations.computeIfAbsent(beanName,
+											(name) -> writeSharedRegistration(sharedClassName, registration,
+													sharedMethods))
+									: generator.writeRegistration(entry.getKey(), registration));
+			bootstrapClasses.add(generator.createClass(packageName, entry.getKey(), method));
+			bootstrapClasses.addAll(generator.buildProtectedBootstrapClasses());
+		}
+		List<FieldSpec> sharedFields = constants.getFields();
+		List<TypeSpec> sharedTypes = constants.getProxyTypes();
+		if (!sharedFields.isEmpty() || !sharedMethods.isEmpty() || !sharedTypes.isEmpty()) {
+			TypeSpec sharedClass = TypeSpec.classBuilder(BOOTSTRAP_CLASS_NAME)
+					.addModifiers(Modifier.PUBLIC, Modifier.FINAL).addFields(sharedFields)
+					.addMethods(sharedMethods.values()).addTypes(sharedTypes).build();
+			bootstrapClasses.add(0, JavaFile.builder(packageName, sharedClass).build());
+		}
+		bootstrapClasses.addAll(buildProtectedBootstrapClasses());
 		return bootstrapClasses;
 	}
 
 	public JavaFile createClass(String packageName, String bootstrapClassName, MethodSpec bootstrapMethod) {
-		return JavaFile.builder(packageName, TypeSpec.classBuilder(bootstrapClassName).addModifiers(Modifier.PUBLIC)
-				.addMethod(bootstrapMethod).build()).build();
+		return JavaFile
+				.builder(packageName, TypeSpec.classBuilder(bootstrapClassName).addModifiers(Modifier.PUBLIC)
+						.addFields(this.staticFields).addMethod(bootstrapMethod).addTypes(this.proxyTypes).build())
+				.build();
 	}
 
 	public MethodSpec generateBootstrapMethod(ConfigurableListableBeanFactory beanFactory, String packageName,
 			BeanDefinitionSelector selector) {
+		BootstrapConstants constants = new BootstrapConstants(ClassName.get(packageName, BOOTSTRAP_CLASS_NAME));
+		MethodSpec method = writeBootstrapMethod(beanFactory, packageName, BOOTSTRAP_CLASS_NAME, selector, constants)
+				.build((beanName, registration) -> writeRegistration(BOOTSTRAP_CLASS_NAME, registration));
+		this.staticFields.addAll(0, constants.getFields());
+		this.proxyTypes.addAll(constants.getProxyTypes());
+		return method;
+	}
+
+	private BootstrapMethod writeBootstrapMethod(ConfigurableListableBeanFactory beanFactory, String packageName,
+			String className, BeanDefinitionSelector selector, BootstrapConstants constants) {
 		ClassLoader classLoader = beanFactory.getBeanClassLoader();
-		MethodSpec.Builder method = MethodSpec.methodBuilder("bootstrap").addModifiers(Modifier.PUBLIC)
-				.addParameter(GenericApplicationContext.class, "context");
+		TransactionAttributeSourceResolver transactionAttributeSourceResolver = (transactionPresent)
+				? new TransactionAttributeSourceResolver(beanFactory) : null;
+		ClassName bootstrapClassName = ClassName.get(packageName, className);
+		ResolvableTypeWriter resolvableTypeWriter = constants.resolvableTypeWriter;
+		ArgumentValueWriter argumentValueWriter = constants.argumentValueWriter;
+		LazyProxyResolver lazyProxyResolver = constants.getLazyProxyResolver(beanFactory);
+		MemberInjectionResolver memberInjectionResolver = new MemberInjectionResolver(beanFactory, resolvableTypeWriter,
+				argumentValueWriter, lazyProxyResolver);
+		AwareMethodsResolver awareMethodsResolver = new AwareMethodsResolver(beanFactory);
+		ConfigurationPropertiesBindingResolver configurationPropertiesBindingResolver = (configurationPropertiesPresent)
+				? new ConfigurationPropertiesBindingResolver(beanFactory) : null;
+		LifecycleMethodsResolver lifecycleMethodsResolver = new LifecycleMethodsResolver(beanFactory);
+		AopProxyResolver aopProxyResolver = new AopProxyResolver(beanFactory);
+		FactoryBeanResolver factoryBeanResolver = new FactoryBeanResolver(beanFactory);
+		ScopedProxyResolver scopedProxyResolver = constants.getScopedProxyResolver(beanFactory);
+		ValueExpressionWriter valueExpressionWriter = constants.getValueExpressionWriter(beanFactory);
+		BeanDefinitionSelector beanSelector = selector;
+		if (this.beanReachability != null) {
+			BeanReachabilityReport report = this.beanReachability.analyze(beanFactory, selector);
+			this.beanReachabilityReports.add(report);
+			logger.info(report);
+			beanSelector = (beanName, beanDefinition) -> !report.isRemoved(beanName)
+					&& selector.select(beanName, beanDefinition);
+		}
+		Map<String, AbstractBeanValueWriter> beanValueWriters = new LinkedHashMap<>();
+		Map<String, BeanRegistrationGenerator> beanRegistrationGenerators = new LinkedHashMap<>();
 		String[] beanNames = beanFactory.getBeanDefinitionNames();
 		for (String beanName : beanNames) {
 			BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition(beanName);
-			if (selector.select(beanName, beanDefinition)) {
-				BeanRegistrationGenerator beanRegistrationGenerator = getBeanRegistrationGenerator(beanName,
-						beanDefinition, classLoader);
-				if (beanRegistrationGenerator != null) {
-					BeanValueWriter beanValueWriter = beanRegistrationGenerator.getBeanValueWriter();
-					if (beanValueWriter.isAccessibleFrom(packageName)) {
-						beanRegistrationGenerator.writeBeanRegistration(method);
-					}
-					else {
-						String protectedPackageName = beanValueWriter.getDeclaringType().getPackage().getName();
-						ProtectedBootstrapClass protectedBootstrapClass = this.protectedBootstrapClasses
-								.computeIfAbsent(protectedPackageName, ProtectedBootstrapClass::new);
-						protectedBootstrapClass.addBeanRegistrationMethod(beanName, beanValueWriter.getType(),
-								beanRegistrationGenerator);
-						CodeBlock.Builder code = CodeBlock.builder();
-						ClassName protectedClassName = ClassName.get(protectedPackageName, "ContextBootstrap");
-						code.add("$T.$L(context)", protectedClassName,
-								ProtectedBootstrapClass.registerBeanMethodName(beanName, beanValueWriter.getType()));
-						method.addStatement(code.build());
+			if (beanSelector.select(beanName, beanDefinition)) {
+				BeanRegistrationGenerator scopedProxyRegistrationGenerator = scopedProxyResolver.resolve(beanName,
+						beanDefinition);
+				if (scopedProxyRegistrationGenerator != null) {
+					beanRegistrationGenerators.put(beanName, scopedProxyRegistrationGenerator);
+					continue;
+				}
+				BeanValueWriter beanValueWriter = getBeanValueSupplier(beanDefinition, classLoader);
+				if (beanValueWriter instanceof AbstractBeanValueWriter) {
+					((AbstractBeanValueWriter) beanValueWriter).setValueExpressionWriter(valueExpressionWriter);
+					((AbstractBeanValueWriter) beanValueWriter).setResolvableTypeWriter(resolvableTypeWriter);
+					((AbstractBeanValueWriter) beanValueWriter).setArgumentValueWriter(argumentValueWriter);
+					int unsupportedIndex = ((AbstractBeanValueWriter) beanValueWriter)
+							.getUnsupportedArgumentValueIndex();
+					if (unsupportedIndex != -1) {
+						throw new IllegalStateException("Argument value at index " + unsupportedIndex + " of bean '"
+								+ beanName + "' can't be written");
 					}
+					beanValueWriters.put(beanName, (AbstractBeanValueWriter) beanValueWriter);
+				}
+				if (beanValueWriter != null) {
+					beanRegistrationGenerators.put(beanName,
+							getBeanRegistrationGenerator(beanName, beanDefinition, beanValueWriter,
+									transactionAttributeSourceResolver, memberInjectionResolver, awareMethodsResolver,
+									configurationPropertiesBindingResolver, lifecycleMethodsResolver, aopProxyResolver,
+									factoryBeanResolver, resolvableTypeWriter));
 				}
 			}
 		}
+		BeanCollectionResolver beanCollectionResolver = new BeanCollectionResolver(beanFactory, resolvableTypeWriter);
+		beanValueWriters.forEach(beanCollectionResolver::resolveParameters);
+		beanValueWriters.forEach(lazyProxyResolver::resolveParameters);
+		if (this.inlineSingleUseBeans) {
+			Map<String, String> inlinedBeans = new InlinedBeanResolver(beanFactory, packageName)
+					.resolve(beanValueWriters, beanRegistrationGenerators);
+			beanRegistrationGenerators.keySet().removeAll(inlinedBeans.keySet());
+			BeanInliningReport report = new BeanInliningReport(inlinedBeans);
+			this.beanInliningReports.add(report);
+			logger.info(report);
+		}
+		Map<String, BeanRegistrationGenerator> registrationGenerators = new LinkedHashMap<>(beanRegistrationGenerators);
+		List<BeanFamilyRegistrationGenerator> beanFamilies = new BeanFamilyResolver(bootstrapClassName, packageName,
+				resolvableTypeWriter).resolve(beanValueWriters, beanRegistrationGenerators);
+		for (BeanFamilyRegistrationGenerator beanFamily : beanFamilies) {
+			List<String> members = beanFamily.getBeanNames();
+			registrationGenerators.replace(members.get(0), beanFamily);
+			registrationGenerators.keySet().removeAll(members.subList(1, members.size()));
+		}
+		// Conditions
+		MethodSpec.Builder prologue = MethodSpec.methodBuilder("bootstrap");
+		if (conditionEvaluationReportPresent) {
+			new BootstrapConditionsProcessor(beanFactory).registerBootstrapConditions(prologue);
+		}
+		Map<String, BeanRegistration> registrations = new LinkedHashMap<>();
+		registrationGenerators.forEach((beanName, beanRegistrationGenerator) -> {
+			MethodSpec.Builder registration = MethodSpec.methodBuilder("bootstrap");
+			beanRegistrationGenerator.writeBeanRegistration(registration);
+			BeanValueWriter beanValueWriter = beanRegistrationGenerator.getBeanValueWriter();
+			String protectedPackageName = (!beanValueWriter.isAccessibleFrom(packageName))
+					? beanValueWriter.getDeclaringType().getPackage().getName() : null;
+			registrations.put(beanName,
+					new BeanRegistration(
+							ProtectedBootstrapClass.registerBeanMethodName(beanName, beanValueWriter.getType()),
+							protectedPackageName, registration.build().code));
+		});
+		MethodSpec.Builder epilogue = MethodSpec.methodBuilder("bootstrap");
+		epilogue.addStatement("registry.register()");
+		beanFamilies.forEach((beanFamily) -> this.staticFields.addAll(beanFamily.getFields()));
+		// Bean post-processors
+		new BeanPostProcessorPlanProcessor(beanFactory).registerBeanPostProcessorPlan(epilogue,
+				beanRegistrationGenerators.keySet());
 		// Event listeners
-		new EventListenerProcessor(beanFactory).registerEventListeners(method);
-		return method.build();
+		new EventListenerProcessor(beanFactory).registerEventListeners(epilogue);
+		return new BootstrapMethod(prologue.build().code, beanRegistrationGenerators.size(), registrations,
+				epilogue.build().code);
+	}
+
+	private void setBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		this.beanValueWriterSuppliers.stream().filter(BeanFactoryAware.class::isInstance)
+				.map(BeanFactoryAware.class::cast).forEach((callback) -> callback.setBeanFactory(beanFactory));
+	}
+
+	private BeanDefinitionSelector createSelector(Class<?>... excludeTypes) {
+		return new DefaultBeanDefinitionSelector(
+				Arrays.stream(excludeTypes).map(Class::getName).collect(Collectors.toList()));
+	}
+
+	private CodeBlock writeRegistration(String className, BeanRegistration registration) {
+		if (registration.protectedPackageName == null) {
+			return registration.code;
+		}
+		ProtectedBootstrapClass protectedBootstrapClass = this.protectedBootstrapClasses.computeIfAbsent(
+				registration.protectedPackageName, (name) -> new ProtectedBootstrapClass(name, className));
+		protectedBootstrapClass.addBeanRegistrationMethod(registration.methodName, registration.code);
+		return CodeBlock.builder().addStatement("$T.$L(context, registry)",
+				ClassName.get(registration.protectedPackageName, className), registration.methodName).build();
+	}
+
+	private CodeBlock writeSharedRegistration(ClassName sharedClassName, BeanRegistration registration,
+			Map<String, MethodSpec> sharedMethods) {
+		if (registration.protectedPackageName != null) {
+			return writeRegistration(sharedClassName.simpleName(), registration);
+		}
+		String methodName = registration.methodName;
+		int counter = 1;
+		while (sharedMethods.containsKey(methodName)) {
+			methodName = registration.methodName + (counter++);
+		}
+		sharedMethods.put(methodName, ProtectedBootstrapClass.registerBeanMethod(methodName, registration.code));
+		return CodeBlock.builder().addStatement("$T.$L(context, registry)", sharedClassName, methodName).build();
+	}
+
+	private List<JavaFile> buildProtectedBootstrapClasses() {
+		List<JavaFile> protectedBootstrapClasses = new ArrayList<>();
+		for (ProtectedBootstrapClass protectedBootstrapClass : this.protectedBootstrapClasses.values()) {
+			protectedBootstrapClasses.add(protectedBootstrapClass.build());
+		}
+		return protectedBootstrapClasses;
+	}
+
+	private String getVariantClassName(ConfigurableListableBeanFactory beanFactory) {
+		String[] profiles = (beanFactory.containsBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME))
+				? beanFactory.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, Environment.class)
+						.getActiveProfiles()
+				: new String[0];
+		if (profiles.length == 0) {
+			return "Default" + BOOTSTRAP_CLASS_NAME;
+		}
+		StringBuilder className = new StringBuilder();
+		for (String profile : profiles) {
+			boolean capitalize = true;
+			for (char ch : profile.toCharArray()) {
+				if (isVariantNamePart(ch)) {
+					className.append((capitalize) ? Character.toUpperCase(ch) : ch);
+					capitalize = false;
+				}
+				else {
+					capitalize = true;
+				}
+			}
+		}
+		if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0))) {
+			className.insert(0, "Profile");
+		}
+		return className + BOOTSTRAP_CLASS_NAME;
+	}
+
+	private static boolean isVariantNamePart(char ch) {
+		// Other characters, such as '-', '.', '_' or '$', separate the words of the name
+		return Character.isJavaIdentifierPart(ch) && !Character.isIdentifierIgnorable(ch) && ch != '_' && ch != '$';
+	}
+
+	private Map<String, BeanRegistration> getSharedRegistrations(Collection<BootstrapMethod> bootstrapMethods) {
+		Map<String, BeanRegistration> sharedRegistrations = new LinkedHashMap<>();
+		if (bootstrapMethods.size() < 2) {
+			return sharedRegistrations;
+		}
+		Iterator<BootstrapMethod> iterator = bootstrapMethods.iterator();
+		sharedRegistrations.putAll(iterator.next().registrations);
+		while (iterator.hasNext()) {
+			Map<String, BeanRegistration> registrations = iterator.next().registrations;
+			sharedRegistrations.entrySet()
+					.removeIf((entry) -> !entry.getValue().equals(registrations.get(entry.getKey())));
+		}
+		return sharedRegistrations;
 	}
 
 	private BeanRegistrationGenerator getBeanRegistrationGenerator(String beanName, BeanDefinition beanDefinition,
-			ClassLoader classLoader) {
+			BeanValueWriter beanValueWriter, TransactionAttributeSourceResolver transactionAttributeSourceResolver,
+			MemberInjectionResolver memberInjectionResolver, AwareMethodsResolver awareMethodsResolver,
+			ConfigurationPropertiesBindingResolver configurationPropertiesBindingResolver,
+			LifecycleMethodsResolver lifecycleMethodsResolver, AopProxyResolver aopProxyResolver,
+			FactoryBeanResolver factoryBeanResolver, ResolvableTypeWriter resolvableTypeWriter) {
 		ResolvableType beanType = beanDefinition.getResolvableType();
-		BeanValueWriter beanValueWriter = getBeanValueSupplier(beanDefinition, classLoader);
-		if (beanValueWriter != null) {
-			if (beanType.hasGenerics()) {
-				return new GenericBeanRegistrationGenerator(beanName, beanDefinition, beanValueWriter);
-			}
-			else {
-				return new SimpleBeanRegistrationGenerator(beanName, beanDefinition, beanValueWriter);
+		if (transactionAttributeSourceResolver != null) {
+			beanValueWriter = transactionAttributeSourceResolver.resolve(beanName, beanValueWriter);
+		}
+		BeanValueWriter injectedBeanValueWriter = memberInjectionResolver.resolve(beanName, beanValueWriter);
+		Map<String, CodeBlock> propertyValues = (injectedBeanValueWriter != beanValueWriter) ? Collections.emptyMap()
+				: memberInjectionResolver.writePropertyValues(beanName);
+		beanValueWriter = injectedBeanValueWriter;
+		beanValueWriter = awareMethodsResolver.resolve(beanName, beanValueWriter);
+		if (configurationPropertiesBindingResolver != null) {
+			beanValueWriter = configurationPropertiesBindingResolver.resolve(beanName, beanValueWriter);
+		}
+		beanValueWriter = lifecycleMethodsResolver.resolve(beanName, beanValueWriter);
+		beanValueWriter = aopProxyResolver.resolve(beanName, beanValueWriter);
+		Class<?> objectType = factoryBeanResolver.resolveObjectType(beanName);
+		if (objectType != null && this.unwrapFactoryBeans && propertyValues.isEmpty()) {
+			BeanRegistrationGenerator objectRegistrationGenerator = factoryBeanResolver
+					.resolveObjectRegistration(beanName, beanDefinition, beanValueWriter, objectType);
+			if (objectRegistrationGenerator != null) {
+				return objectRegistrationGenerator;
 			}
 		}
-		return null;
+		if (beanType.hasGenerics()) {
+			GenericBeanRegistrationGenerator generator = new GenericBeanRegistrationGenerator(beanName, beanDefinition,
+					beanValueWriter, resolvableTypeWriter);
+			generator.setObjectType(objectType);
+			generator.setPropertyValues(propertyValues);
+			return generator;
+		}
+		else {
+			SimpleBeanRegistrationGenerator generator = new SimpleBeanRegistrationGenerator(beanName, beanDefinition,
+					beanValueWriter);
+			generator.setObjectType(objectType);
+			generator.setPropertyValues(propertyValues);
+			return generator;
+		}
 	}
 
 	private BeanValueWriter getBeanValueSupplier(BeanDefinition beanDefinition, ClassLoader classLoader) {
@@ -159,4 +535,151 @@ public class ContextBootstrapGenerator {
 		return null;
 	}
 
+	/**
+	 * The constants and proxy classes that bootstrap methods refer to. Constants are
+	 * identified by their content so that variants that share a holder class refer to the
+	 * same constant for the same value.
+	 */
+	private static final class BootstrapConstants {
+
+		private final ClassName className;
+
+		private final ResolvableTypeWriter resolvableTypeWriter;
+
+		private final ArgumentValueWriter argumentValueWriter;
+
+		private ValueExpressionWriter valueExpressionWriter;
+
+		private LazyProxyResolver lazyProxyResolver;
+
+		private ScopedProxyResolver scopedProxyResolver;
+
+		BootstrapConstants(ClassName className) {
+			this.className = className;
+			this.resolvableTypeWriter = new ResolvableTypeWriter(className);
+			this.argumentValueWriter = new ArgumentValueWriter(className);
+		}
+
+		ValueExpressionWriter getValueExpressionWriter(ConfigurableListableBeanFactory beanFactory) {
+			if (this.valueExpressionWriter == null) {
+				this.valueExpressionWriter = ValueExpressionWriter.forBeanFactory(beanFactory, this.className,
+						this.resolvableTypeWriter);
+				return this.valueExpressionWriter;
+			}
+			return this.valueExpressionWriter.withBeanFactory(beanFactory);
+		}
+
+		LazyProxyResolver getLazyProxyResolver(ConfigurableListableBeanFactory beanFactory) {
+			if (this.lazyProxyResolver == null) {
+				this.lazyProxyResolver = new LazyProxyResolver(beanFactory, this.className);
+				return this.lazyProxyResolver;
+			}
+			return this.lazyProxyResolver.withBeanFactory(beanFactory);
+		}
+
+		ScopedProxyResolver getScopedProxyResolver(ConfigurableListableBeanFactory beanFactory) {
+			if (this.scopedProxyResolver == null) {
+				this.scopedProxyResolver = new ScopedProxyResolver(beanFactory, this.className);
+				return this.scopedProxyResolver;
+			}
+			return this.scopedProxyResolver.withBeanFactory(beanFactory);
+		}
+
+		List<FieldSpec> getFields() {
+			List<FieldSpec> fields = new ArrayList<>(this.resolvableTypeWriter.getResolvableTypeFields());
+			if (this.valueExpressionWriter != null) {
+				fields.addAll(this.valueExpressionWriter.getExpressionFields());
+			}
+			fields.addAll(this.argumentValueWriter.getArrayFields());
+			return fields;
+		}
+
+		List<TypeSpec> getProxyTypes() {
+			List<TypeSpec> proxyTypes = new ArrayList<>();
+			if (this.lazyProxyResolver != null) {
+				proxyTypes.addAll(this.lazyProxyResolver.getProxyTypes());
+			}
+			if (this.scopedProxyResolver != null) {
+				proxyTypes.addAll(this.scopedProxyResolver.getProxyTypes());
+			}
+			return proxyTypes;
+		}
+
+	}
+
+	/**
+	 * The statements that register a bean, and the package of the class they must be
+	 * written in if the bean is not accessible from the bootstrap class. Two
+	 * registrations are equal if they register the bean the same way.
+	 */
+	private static final class BeanRegistration {
+
+		private final String methodName;
+
+		private final String protectedPackageName;
+
+		private final CodeBlock code;
+
+		BeanRegistration(String methodName, String protectedPackageName, CodeBlock code) {
+			this.methodName = methodName;
+			this.protectedPackageName = protectedPackageName;
+			this.code = code;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			BeanRegistration other = (BeanRegistration) obj;
+			return Objects.equals(this.protectedPackageName, other.protectedPackageName)
+					&& this.code.equals(other.code);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Objects.hashCode(this.protectedPackageName) + this.code.hashCode();
+		}
+
+	}
+
+	/**
+	 * The code of a bootstrap method: the statements that precede the registration of the
+	 * beans, the registration of each bean, and the statements that follow them.
+	 */
+	private static final class BootstrapMethod {
+
+		private final CodeBlock prologue;
+
+		private final int beanCount;
+
+		private final Map<String, BeanRegistration> registrations;
+
+		private final CodeBlock epilogue;
+
+		BootstrapMethod(CodeBlock prologue, int beanCount, Map<String, BeanRegistration> registrations,
+				CodeBlock epilogue) {
+			this.prologue = prologue;
+			this.beanCount = beanCount;
+			this.registrations = registrations;
+			this.epilogue = epilogue;
+		}
+
+		MethodSpec build(BiFunction<String, BeanRegistration, CodeBlock> registrationWriter) {
+			MethodSpec.Builder method = MethodSpec.methodBuilder("bootstrap").addModifiers(Modifier.PUBLIC)
+					.addParameter(GenericApplicationContext.class, "context");
+			method.addCode(this.prologue);
+			method.addStatement("$T registry = $T.of(context, $L)", BOOTSTRAP_REGISTRY, BOOTSTRAP_REGISTRY,
+					this.beanCount);
+			this.registrations.forEach(
+					(beanName, registration) -> method.addCode(registrationWriter.apply(beanName, registration)));
+			method.addCode(this.epilogue);
+			return method.build();
+		}
+
+	}
+
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.util.StringUtils;
+
+/**
+ * Generate a {@link PropertySource} class holding the content of the configuration files
+ * that are packaged with the application, so that they don't have to be located and
+ * parsed on startup. The {@code application} files of the default locations are merged
+ * following the same precedence as Spring Boot: profile-specific files override the
+ * others, {@code classpath:/config/} overrides {@code classpath:/}, and a properties file
+ * overrides a YAML file.
+ * <p>
+ * Profiles are activated according to {@code spring.profiles.active} of the packaged
+ * configuration unless they are specified explicitly, and the {@code default} profile
+ * applies if no profile is active. The generated class exposes the active profiles as a
+ * {@code PROFILES} constant so that the configuration files are loaded as usual at
+ * runtime if different profiles are in use.
+ * <p>
+ * Documents that import additional configuration, that include or group profiles, or that
+ * are activated on a cloud platform can't be evaluated at build time and are rejected.
+ *
+ * @author Stephane Nicoll
+ */
+public class PropertySourceGenerator {
+
+	static final ClassName ARRAY_PROPERTY_SOURCE = ClassName.get("org.springframework.context.boostrap.invoker",
+			"ArrayPropertySource");
+
+	private static final List<String> DEFAULT_LOCATIONS = Arrays.asList("classpath:/", "classpath:/config/");
+
+	private static final String CONFIG_NAME = "application";
+
+	private static final String ACTIVATE_ON_PROFILE_PROPERTY = "spring.config.activate.on-profile";
+
+	private static final String ACTIVATE_ON_CLOUD_PLATFORM_PROPERTY = "spring.config.activate.on-cloud-platform";
+
+	private static final String IMPORT_PROPERTY = "spring.config.import";
+
+	private static final String ACTIVE_PROFILES_PROPERTY = "spring.profiles.active";
+
+	private static final String INCLUDE_PROFILES_PROPERTY = "spring.profiles.include";
+
+	private static final String GROUP_PROFILES_PREFIX = "spring.profiles.group.";
+
+	private static final String DEFAULT_PROFILE = "default";
+
+	private final ResourceLoader resourceLoader;
+
+	private final List<String> locations;
+
+	private final List<PropertySourceLoader> propertySourceLoaders;
+
+	public PropertySourceGenerator(ClassLoader classLoader) {
+		this(new DefaultResourceLoader(classLoader), DEFAULT_LOCATIONS);
+	}
+
+	PropertySourceGenerator(ResourceLoader resourceLoader, List<String> locations) {
+		this.resourceLoader = resourceLoader;
+		this.locations = locations;
+		this.propertySourceLoaders = SpringFactoriesLoader.loadFactories(PropertySourceLoader.class,
+				resourceLoader.getClassLoader());
+	}
+
+	/**
+	 * Generate a {@code ApplicationPropertySource} class with the merged content of the
+	 * configuration files for the specified profiles.
+	 * @param packageName the package of the class
+	 * @param profiles the profiles whose specific configuration files should be included,
+	 * the last one taking precedence, or none to use the profiles that the configuration
+	 * files activate
+	 * @return the java source file of the property source
+	 */
+	public JavaFile generatePropertySourceClass(String packageName, String... profiles) {
+		List<String> activeProfiles = (profiles.length > 0) ? Arrays.asList(profiles) : getActiveProfiles();
+		Map<String, Object> properties = loadProperties(
+				(!activeProfiles.isEmpty()) ? activeProfiles : Collections.singletonList(DEFAULT_PROFILE));
+		CodeBlock.Builder profileNames = CodeBlock.builder();
+		activeProfiles.forEach((profile) -> profileNames.add("$L$S", (profileNames.isEmpty()) ? "" : ", ", profile));
+		CodeBlock.Builder names = CodeBlock.builder();
+		CodeBlock.Builder values = CodeBlock.builder();
+		properties.forEach((name, value) -> {
+			String separator = (names.isEmpty()) ? "" : ", ";
+			names.add("$L$S", separator, name);
+			values.add("$L$S", separator, value);
+		});
+		MethodSpec constructor = MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC)
+				.addStatement("super($S, new $T[] { $L }, new $T[] { $L })", "applicationConfig: [generated]",
+						String.class, names.build(), Object.class, values.build())
+				.build();
+		FieldSpec profilesField = FieldSpec
+				.builder(String[].class, "PROFILES", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+				.initializer("new $T[] { $L }", String.class, profileNames.build()).build();
+		TypeSpec propertySource = TypeSpec.classBuilder("ApplicationPropertySource").addModifiers(Modifier.PUBLIC)
+				.superclass(ARRAY_PROPERTY_SOURCE).addField(profilesField).addMethod(constructor).build();
+		return JavaFile.builder(packageName, propertySource).build();
+	}
+
+	private List<String> getActiveProfiles() {
+		Object activeProfiles = loadProperties(Collections.emptyList()).get(ACTIVE_PROFILES_PROPERTY);
+		return (activeProfiles != null)
+				? Arrays.asList(StringUtils.tokenizeToStringArray(activeProfiles.toString(), ","))
+				: Collections.emptyList();
+	}
+
+	private Map<String, Object> loadProperties(List<String> profiles) {
+		Map<String, Object> properties = new TreeMap<>();
+		List<String> fileNames = new ArrayList<>();
+		for (int i = profiles.size() - 1; i >= 0; i--) {
+			fileNames.add(CONFIG_NAME + "-" + profiles.get(i));
+		}
+		fileNames.add(CONFIG_NAME);
+		for (String fileName : fileNames) {
+			for (int i = this.locations.size() - 1; i >= 0; i--) {
+				for (PropertySourceLoader loader : this.propertySourceLoaders) {
+					for (String extension : loader.getFileExtensions()) {
+						Resource resource = this.resourceLoader
+								.getResource(this.locations.get(i) + fileName + "." + extension);
+						if (resource.exists()) {
+							load(loader, resource, profiles).forEach(properties::putIfAbsent);
+						}
+					}
+				}
+			}
+		}
+		return properties;
+	}
+
+	private Map<String, Object> load(PropertySourceLoader loader, Resource resource, List<String> profiles) {
+		List<PropertySource<?>> documents;
+		try {
+			documents = new ArrayList<>(loader.load(resource.getDescription(), resource));
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to load " + resource.getDescription(), ex);
+		}
+		Collections.reverse(documents);
+		Map<String, Object> properties = new TreeMap<>();
+		for (PropertySource<?> document : documents) {
+			if (isUnsupported((EnumerablePropertySource<?>) document)) {
+				throw new IllegalStateException("Unsupported configuration in " + resource.getDescription()
+						+ ": imports, profile includes and groups, and cloud platform activation can't be "
+						+ "evaluated at build time");
+			}
+			Object onProfile = document.getProperty(ACTIVATE_ON_PROFILE_PROPERTY);
+			if (onProfile != null && !Profiles.of(StringUtils.commaDelimitedListToStringArray(getValue(onProfile)))
+					.matches(profiles::contains)) {
+				continue;
+			}
+			for (String name : ((EnumerablePropertySource<?>) document).getPropertyNames()) {
+				if (!name.equals(ACTIVATE_ON_PROFILE_PROPERTY)) {
+					properties.putIfAbsent(name, getValue(document.getProperty(name)));
+				}
+			}
+		}
+		return properties;
+	}
+
+	private boolean isUnsupported(EnumerablePropertySource<?> document) {
+		if (document.containsProperty(IMPORT_PROPERTY) || document.containsProperty(INCLUDE_PROFILES_PROPERTY)
+				|| document.containsProperty(ACTIVATE_ON_CLOUD_PLATFORM_PROPERTY)) {
+			return true;
+		}
+		return Arrays.stream(document.getPropertyNames()).anyMatch((name) -> name.startsWith(GROUP_PROFILES_PREFIX));
+	}
+
+	private String getValue(Object value) {
+		Object actual = (value instanceof OriginTrackedValue) ? ((OriginTrackedValue) value).getValue() : value;
+		return String.valueOf(actual);
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Modifier;
 
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
@@ -45,18 +46,30 @@ public class ProtectedBootstrapClass {
 	private final TypeSpec.Builder type;
 
 	public ProtectedBootstrapClass(String packageName) {
+		this(packageName, "ContextBootstrap");
+	}
+
+	public ProtectedBootstrapClass(String packageName, String className) {
 		this.packageName = packageName;
 		this.methods = new ArrayList<>();
-		this.type = TypeSpec.classBuilder("ContextBootstrap").addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+		this.type = TypeSpec.classBuilder(className).addModifiers(Modifier.PUBLIC, Modifier.FINAL);
 	}
 
 	public void addBeanRegistrationMethod(String beanName, Class<?> type,
 			BeanRegistrationGenerator beanRegistrationGenerator) {
-		MethodSpec.Builder method = MethodSpec.methodBuilder(registerBeanMethodName(beanName, type))
-				.addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-				.addParameter(GenericApplicationContext.class, "context");
-		beanRegistrationGenerator.writeBeanRegistration(method);
-		this.methods.add(method.build());
+		MethodSpec.Builder registration = MethodSpec.methodBuilder(registerBeanMethodName(beanName, type));
+		beanRegistrationGenerator.writeBeanRegistration(registration);
+		addBeanRegistrationMethod(registerBeanMethodName(beanName, type), registration.build().code);
+	}
+
+	public void addBeanRegistrationMethod(String methodName, CodeBlock registration) {
+		this.methods.add(registerBeanMethod(methodName, registration));
+	}
+
+	static MethodSpec registerBeanMethod(String methodName, CodeBlock registration) {
+		return MethodSpec.methodBuilder(methodName).addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+				.addParameter(GenericApplicationContext.class, "context")
+				.addParameter(ContextBootstrapGenerator.BOOTSTRAP_REGISTRY, "registry").addCode(registration).build();
 	}
 
 	public JavaFile build() {
@@ -16,23 +16,32 @@
 
 package org.springframework.context.bootstrap.generator.bean;
 
+import java.lang.reflect.Executable;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.squareup.javapoet.CodeBlock;
 
+import org.springframework.beans.BeanMetadataElement;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.util.ClassUtils;
 
@@ -49,12 +58,121 @@ public abstract class AbstractBeanValueWriter implements BeanValueWriter {
 
 	private final Class<?> type;
 
+	private ValueExpressionWriter valueExpressionWriter = new ValueExpressionWriter(null, false);
+
+	private ResolvableTypeWriter resolvableTypeWriter = new ResolvableTypeWriter(null);
+
+	private ArgumentValueWriter argumentValueWriter = new ArgumentValueWriter(null);
+
+	private final Map<Integer, AbstractBeanValueWriter> inlinedParameters = new HashMap<>();
+
+	private final Map<Integer, CodeBlock> parameterValues = new HashMap<>();
+
 	public AbstractBeanValueWriter(BeanDefinition beanDefinition, ClassLoader classLoader) {
 		this.classLoader = classLoader;
 		this.beanDefinition = beanDefinition;
 		this.type = ClassUtils.getUserClass(beanDefinition.getResolvableType().toClass());
 	}
 
+	/**
+	 * Set the {@link ValueExpressionWriter} to use for parameters annotated with
+	 * {@link Value @Value}.
+	 * @param valueExpressionWriter the writer of {@code @Value} parameters
+	 */
+	public void setValueExpressionWriter(ValueExpressionWriter valueExpressionWriter) {
+		this.valueExpressionWriter = valueExpressionWriter;
+	}
+
+	/**
+	 * Set the {@link ResolvableTypeWriter} to use for the generic type of
+	 * {@link ObjectProvider} and collection parameters.
+	 * @param resolvableTypeWriter the writer of resolvable types
+	 */
+	public void setResolvableTypeWriter(ResolvableTypeWriter resolvableTypeWriter) {
+		this.resolvableTypeWriter = resolvableTypeWriter;
+	}
+
+	/**
+	 * Set the {@link ArgumentValueWriter} to use for the argument values of the bean
+	 * definition.
+	 * @param argumentValueWriter the writer of argument values
+	 */
+	public void setArgumentValueWriter(ArgumentValueWriter argumentValueWriter) {
+		this.argumentValueWriter = argumentValueWriter;
+	}
+
+	/**
+	 * Inline the creation of the bean that is injected in the parameter at the specified
+	 * index, rather than looking it up in the context.
+	 * @param index the index of the parameter
+	 * @param beanValueWriter the writer of the bean to create
+	 * @see #writeValue(CodeBlock.Builder)
+	 */
+	public void inlineParameter(int index, AbstractBeanValueWriter beanValueWriter) {
+		this.inlinedParameters.put(index, beanValueWriter);
+	}
+
+	/**
+	 * Use the specified expression for the parameter at the specified index, rather than
+	 * the value or dependency of the bean definition.
+	 * @param index the index of the parameter
+	 * @param value the expression to use for the parameter
+	 */
+	public void setParameterValue(int index, CodeBlock value) {
+		this.parameterValues.put(index, value);
+	}
+
+	/**
+	 * Return the constructor or factory method that creates the bean, or {@code null} if
+	 * it is not created by an executable.
+	 * @return the executable that creates the bean or {@code null}
+	 */
+	public Executable getExecutable() {
+		return null;
+	}
+
+	/**
+	 * Specify if this instance can write an expression that creates the bean, so that it
+	 * can be inlined in the instance supplier of another bean.
+	 * @return {@code true} if {@link #writeValue(CodeBlock.Builder)} is supported
+	 */
+	public boolean canWriteValue() {
+		Executable executable = getExecutable();
+		return executable != null && !hasCheckedException(executable.getExceptionTypes());
+	}
+
+	/**
+	 * Return the index of the first parameter whose argument value in the bean definition
+	 * can't be written, such as an inner bean or a managed collection of bean references.
+	 * @return the index of the first unsupported argument value, or {@code -1} if all
+	 * argument values can be written
+	 */
+	public int getUnsupportedArgumentValueIndex() {
+		Executable executable = getExecutable();
+		if (executable == null) {
+			return -1;
+		}
+		for (int i = 0; i < executable.getParameterCount(); i++) {
+			ResolvableType parameterType = TypeHelper.getParameterType(executable, i);
+			ValueHolder userValue = this.beanDefinition.getConstructorArgumentValues().getIndexedArgumentValue(i,
+					parameterType.toClass());
+			if (userValue != null && !(userValue.getValue() instanceof BeanReference) && !this.argumentValueWriter
+					.isSupported(convertValueIfNecessary(userValue.getValue(), parameterType), parameterType)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Write an expression that creates the bean.
+	 * @param code the builder to use to write the expression
+	 * @see #canWriteValue()
+	 */
+	public void writeValue(CodeBlock.Builder code) {
+		throw new UnsupportedOperationException("Bean value cannot be written by " + getClass().getName());
+	}
+
 	protected final BeanDefinition getBeanDefinition() {
 		return this.beanDefinition;
 	}
@@ -102,12 +220,22 @@ public abstract class AbstractBeanValueWriter implements BeanValueWriter {
 			ResolvableType parameterType = parameterTypeFactory.apply(i);
 			ValueHolder userValue = this.beanDefinition.getConstructorArgumentValues().getIndexedArgumentValue(i,
 					parameterType.toClass());
-			if (userValue != null) {
+			AbstractBeanValueWriter inlinedParameter = this.inlinedParameters.get(i);
+			CodeBlock parameterValue = this.parameterValues.get(i);
+			if (parameterValue != null) {
+				code.add(parameterValue);
+			}
+			else if (inlinedParameter != null) {
+				inlinedParameter.writeValue(code);
+			}
+			else if (userValue != null) {
 				Object value = userValue.getValue();
 				if (value instanceof BeanReference) {
 					writeParameterBeanDependency(code, ((BeanReference) value).getBeanName(), parameterType);
 				}
-				writeParameterValue(code, value, parameterType);
+				else {
+					writeParameterValue(code, value, parameterType);
+				}
 			}
 			else {
 				writeParameterDependency(code, parameters[i], parameterType);
@@ -118,48 +246,18 @@ public abstract class AbstractBeanValueWriter implements BeanValueWriter {
 		}
 	}
 
-	// workaround to account for the Spring Boot use case for now.
 	protected void writeParameterValue(CodeBlock.Builder code, Object value, ResolvableType parameterType) {
 		Object targetValue = convertValueIfNecessary(value, parameterType);
-		if (parameterType.isArray()) {
-			code.add("new $T { ", parameterType.toClass());
-			if (targetValue instanceof char[]) {
-				char[] array = (char[]) targetValue;
-				for (int i = 0; i < array.length; i++) {
-					writeParameterValue(code, array[i], ResolvableType.forClass(char.class));
-					if (i < array.length - 1) {
-						code.add(", ");
-					}
-				}
-			}
-			else if (targetValue instanceof String[]) {
-				String[] array = (String[]) targetValue;
-				for (int i = 0; i < array.length; i++) {
-					writeParameterValue(code, array[i], ResolvableType.forClass(String.class));
-					if (i < array.length - 1) {
-						code.add(", ");
-					}
-				}
-			}
-			code.add(" }");
-		}
-		else if (targetValue instanceof Character) {
-			String result = '\'' + characterLiteralWithoutSingleQuotes((Character) targetValue) + '\'';
-			code.add(result);
-		}
-		else if (isPrimitiveOrWrapper(targetValue)) {
-			code.add("$L", targetValue);
-		}
-		else if (targetValue instanceof String) {
-			code.add("$S", targetValue);
-		}
-		else if (targetValue instanceof Class) {
-			code.add("$T.class", targetValue);
+		if (!this.argumentValueWriter.isSupported(targetValue, parameterType)) {
+			throw new IllegalStateException("Argument value " + value + " of type " + parameterType
+					+ " can't be written for " + this.beanDefinition);
 		}
+		this.argumentValueWriter.writeValue(code, targetValue, parameterType);
 	}
 
 	private Object convertValueIfNecessary(Object value, ResolvableType resolvableType) {
-		if (value instanceof String && Class.class.isAssignableFrom(resolvableType.resolve())) {
+		Class<?> targetType = resolvableType.toClass();
+		if (value instanceof String && Class.class.isAssignableFrom(targetType)) {
 			try {
 				return ClassUtils.forName(((String) value), this.classLoader);
 			}
@@ -167,26 +265,31 @@ public abstract class AbstractBeanValueWriter implements BeanValueWriter {
 				throw new IllegalStateException("Failed to load " + value, ex);
 			}
 		}
-		return value;
-	}
-
-	private boolean isPrimitiveOrWrapper(Object value) {
-		Class<?> valueType = value.getClass();
-		return (valueType.isPrimitive() || valueType == Double.class || valueType == Float.class
-				|| valueType == Long.class || valueType == Integer.class || valueType == Short.class
-				|| valueType == Character.class || valueType == Byte.class || valueType == Boolean.class);
+		if (value == null || value instanceof BeanMetadataElement || ClassUtils.isAssignableValue(targetType, value)) {
+			return value;
+		}
+		try {
+			return new SimpleTypeConverter().convertIfNecessary(value, targetType);
+		}
+		catch (TypeMismatchException ex) {
+			return value;
+		}
 	}
 
 	protected void writeParameterDependency(CodeBlock.Builder code, Parameter parameter, ResolvableType parameterType) {
 		Class<?> resolvedClass = parameterType.toClass();
-		if (ObjectProvider.class.isAssignableFrom(resolvedClass)) {
+		MergedAnnotation<Value> value = MergedAnnotations.from(parameter).get(Value.class);
+		if (value.isPresent()) {
+			this.valueExpressionWriter.writeValue(code, value.getString(MergedAnnotation.VALUE), parameterType);
+		}
+		else if (ObjectProvider.class.isAssignableFrom(resolvedClass)) {
 			code.add("context.getBeanProvider(");
-			TypeHelper.generateResolvableTypeFor(code, parameterType.as(ObjectProvider.class).getGeneric(0));
+			this.resolvableTypeWriter.writeResolvableType(code, parameterType.as(ObjectProvider.class).getGeneric(0));
 			code.add(")");
 		}
 		else if (Collection.class.isAssignableFrom(resolvedClass)) {
 			code.add("context.getBeanProvider(");
-			TypeHelper.generateResolvableTypeFor(code, parameterType.as(Collection.class).getGeneric(0));
+			this.resolvableTypeWriter.writeResolvableType(code, parameterType.as(Collection.class).getGeneric(0));
 			String collectors = (Set.class.isAssignableFrom(resolvedClass)) ? "toSet()" : "toList()";
 			code.add(").orderedStream().collect($T.$L)", Collectors.class, collectors);
 		}
@@ -214,29 +317,4 @@ public abstract class AbstractBeanValueWriter implements BeanValueWriter {
 		}
 	}
 
-	// Copied from com.squareup.javapoet.Util
-	private static String characterLiteralWithoutSingleQuotes(char c) {
-		// see https://docs.oracle.com/javase/specs/jls/se7/html/jls-3.html#jls-3.10.6
-		switch (c) {
-		case '\b':
-			return "\\b"; /* \u0008: backspace (BS) */
-		case '\t':
-			return "\\t"; /* \u0009: horizontal tab (HT) */
-		case '\n':
-			return "\\n"; /* \u000a: linefeed (LF) */
-		case '\f':
-			return "\\f"; /* \u000c: form feed (FF) */
-		case '\r':
-			return "\\r"; /* \u000d: carriage return (CR) */
-		case '\"':
-			return "\""; /* \u0022: double quote (") */
-		case '\'':
-			return "\\'"; /* \u0027: single quote (') */
-		case '\\':
-			return "\\\\"; /* \u005c: backslash (\) */
-		default:
-			return java.lang.Character.isISOControl(c) ? String.format("\\u%04x", (int) c) : Character.toString(c);
-		}
-	}
-
 }
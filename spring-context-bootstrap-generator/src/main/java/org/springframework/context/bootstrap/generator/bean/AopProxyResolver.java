@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.IntroductionAdvisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AdvisorChainFactory;
+import org.springframework.aop.framework.DefaultAdvisorChainFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.target.SingletonTargetSource;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * Resolve the JDK proxy of a bean that was proxied in the source context. If the proxied
+ * interfaces are accessible and each advisor provides a single {@link MethodInterceptor}
+ * that is available as a bean, the interceptor chain of each method is precomputed and
+ * the {@link BeanValueWriter} of the bean is decorated to create the proxy in place of
+ * the proxy-creating post-processors. The proxy is a regular JDK dynamic proxy, created
+ * by a {@code PrecomputedProxyFactory}.
+ * <p>
+ * Class-based proxies, opaque proxies, proxies that expose themselves, and proxies with
+ * introductions or dynamic method matchers are still created at runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class AopProxyResolver {
+
+	private static final ClassName PRECOMPUTED_PROXY_FACTORY = ClassName
+			.get("org.springframework.context.boostrap.invoker", "PrecomputedProxyFactory");
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final AdvisorChainFactory advisorChainFactory = new DefaultAdvisorChainFactory();
+
+	private Map<Object, String> beanNames;
+
+	public AopProxyResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that creates the AOP proxy of the specified bean,
+	 * or the specified {@code beanValueWriter} if the bean is not proxied or if its proxy
+	 * can't be precomputed.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		Object singleton = (this.beanFactory.containsSingleton(beanName)) ? this.beanFactory.getSingleton(beanName)
+				: null;
+		if (!AopUtils.isJdkDynamicProxy(singleton) || !(singleton instanceof Advised)) {
+			return beanValueWriter;
+		}
+		Advised advised = (Advised) singleton;
+		if (advised.isExposeProxy() || !(advised.getTargetSource() instanceof SingletonTargetSource)) {
+			return beanValueWriter;
+		}
+		List<String> interceptorNames = new ArrayList<>();
+		Map<Object, Integer> interceptorIndices = new IdentityHashMap<>();
+		for (Advisor advisor : advised.getAdvisors()) {
+			String interceptorName = getInterceptorName(advisor);
+			if (interceptorName == null) {
+				return beanValueWriter;
+			}
+			interceptorIndices.put(advisor.getAdvice(), interceptorNames.size());
+			interceptorNames.add(interceptorName);
+		}
+		Map<String, Method> methods = getProxiedMethods(advised.getProxiedInterfaces());
+		if (methods == null) {
+			return beanValueWriter;
+		}
+		CodeBlock.Builder proxy = CodeBlock.builder();
+		proxy.add("$T.of(bean, context.getBeanFactory(), $L)", PRECOMPUTED_PROXY_FACTORY,
+				writeClasses(Arrays.asList(advised.getProxiedInterfaces())));
+		proxy.add(".withInterceptors($L)", writeInterceptorNames(interceptorNames));
+		for (Method method : methods.values()) {
+			int[] chain = getChain(advised, method, interceptorIndices);
+			if (chain == null) {
+				return beanValueWriter;
+			}
+			proxy.add(".withChain($L, $S", writeChain(chain), method.getName());
+			if (method.getParameterCount() > 0) {
+				proxy.add(", $L", writeClasses(Arrays.asList(method.getParameterTypes())));
+			}
+			proxy.add(")");
+		}
+		if (advised.isFrozen()) {
+			proxy.add(".frozen()");
+		}
+		proxy.add(".getProxy()");
+		return BeanInstanceSupplierWriter.of(beanValueWriter).withExpressionCallback("withProxy", proxy.build());
+	}
+
+	private String getInterceptorName(Advisor advisor) {
+		if (advisor instanceof IntroductionAdvisor || !(advisor.getAdvice() instanceof MethodInterceptor)) {
+			return null;
+		}
+		String advisorName = getBeanName(advisor);
+		return (advisorName != null) ? advisorName : getBeanName(advisor.getAdvice());
+	}
+
+	private String getBeanName(Object instance) {
+		if (this.beanNames == null) {
+			this.beanNames = new IdentityHashMap<>();
+			for (String beanName : this.beanFactory.getBeanDefinitionNames()) {
+				Object singleton = this.beanFactory.getSingleton(beanName);
+				if (singleton != null) {
+					this.beanNames.putIfAbsent(singleton, beanName);
+				}
+			}
+		}
+		return this.beanNames.get(instance);
+	}
+
+	private Map<String, Method> getProxiedMethods(Class<?>[] interfaces) {
+		Map<String, Method> methods = new LinkedHashMap<>();
+		for (Class<?> proxiedInterface : interfaces) {
+			if (!TypeHelper.isAccessible(proxiedInterface)) {
+				return null;
+			}
+			for (Method method : proxiedInterface.getMethods()) {
+				if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
+					continue;
+				}
+				if (!Arrays.stream(method.getParameterTypes()).allMatch(TypeHelper::isAccessible)) {
+					return null;
+				}
+				methods.putIfAbsent(method.getName() + Arrays.toString(method.getParameterTypes()), method);
+			}
+		}
+		return methods;
+	}
+
+	private int[] getChain(Advised advised, Method method, Map<Object, Integer> interceptorIndices) {
+		List<Object> interceptors = this.advisorChainFactory.getInterceptorsAndDynamicInterceptionAdvice(advised,
+				method, advised.getTargetClass());
+		int[] chain = new int[interceptors.size()];
+		for (int i = 0; i < chain.length; i++) {
+			Integer index = interceptorIndices.get(interceptors.get(i));
+			if (index == null) {
+				return null;
+			}
+			chain[i] = index;
+		}
+		return chain;
+	}
+
+	private CodeBlock writeClasses(List<Class<?>> types) {
+		List<CodeBlock> code = new ArrayList<>();
+		types.forEach((type) -> code.add(CodeBlock.of("$T.class", type)));
+		return CodeBlock.join(code, ", ");
+	}
+
+	private CodeBlock writeInterceptorNames(List<String> interceptorNames) {
+		List<CodeBlock> names = new ArrayList<>();
+		interceptorNames.forEach((interceptorName) -> names.add(CodeBlock.of("$S", interceptorName)));
+		return CodeBlock.join(names, ", ");
+	}
+
+	private CodeBlock writeChain(int[] chain) {
+		if (chain.length == 0) {
+			return CodeBlock.of("new int[0]");
+		}
+		List<CodeBlock> indices = new ArrayList<>();
+		Arrays.stream(chain).forEach((index) -> indices.add(CodeBlock.of("$L", index)));
+		return CodeBlock.of("new int[] { $L }", CodeBlock.join(indices, ", "));
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+
+import org.springframework.core.ResolvableType;
+
+/**
+ * Write the value of a constructor or factory method argument as a literal. Besides the
+ * values supported by {@link LiteralHelper}, arrays, including nested arrays, as well as
+ * lists, sets and maps are written element by element. An array that has at least
+ * {@value #CONSTANT_ARRAY_MIN_LENGTH} elements is built once in a constant of the
+ * bootstrap class, and each use site gets a copy of it.
+ *
+ * @author Stephane Nicoll
+ */
+public class ArgumentValueWriter {
+
+	private static final int CONSTANT_ARRAY_MIN_LENGTH = 8;
+
+	private static final ClassName ARGUMENT_COLLECTIONS = ClassName.get("org.springframework.context.boostrap.invoker",
+			"ArgumentCollections");
+
+	private final ClassName constantsClassName;
+
+	private final Map<CodeBlock, FieldSpec> arrays = new LinkedHashMap<>();
+
+	/**
+	 * Create a new instance.
+	 * @param constantsClassName the class that holds the large arrays, or {@code null} to
+	 * build them at each use site
+	 */
+	public ArgumentValueWriter(ClassName constantsClassName) {
+		this.constantsClassName = constantsClassName;
+	}
+
+	/**
+	 * Specify if the specified value can be written for an argument of the specified
+	 * type.
+	 * @param value the value of the argument
+	 * @param type the type of the argument
+	 * @return {@code true} if the value can be written
+	 */
+	public boolean isSupported(Object value, ResolvableType type) {
+		if (value == null) {
+			return !type.toClass().isPrimitive();
+		}
+		if (LiteralHelper.isLiteral(value)) {
+			return true;
+		}
+		if (value.getClass().isArray()) {
+			if (!TypeHelper.isAccessible(value.getClass())) {
+				return false;
+			}
+			ResolvableType componentType = ResolvableType.forClass(value.getClass().getComponentType());
+			for (int i = 0; i < Array.getLength(value); i++) {
+				if (!isSupported(Array.get(value, i), componentType)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		Class<?> targetClass = type.toClass();
+		if ((value instanceof List && targetClass.isAssignableFrom(ArrayList.class))
+				|| (value instanceof Set && targetClass.isAssignableFrom(LinkedHashSet.class))) {
+			ResolvableType elementType = type.asCollection().getGeneric(0);
+			return ((Collection<?>) value).stream().allMatch((element) -> isSupported(element, elementType));
+		}
+		if (value instanceof Map && targetClass.isAssignableFrom(LinkedHashMap.class)) {
+			ResolvableType keyType = type.asMap().getGeneric(0);
+			ResolvableType valueType = type.asMap().getGeneric(1);
+			return ((Map<?, ?>) value).entrySet().stream().allMatch(
+					(entry) -> isSupported(entry.getKey(), keyType) && isSupported(entry.getValue(), valueType));
+		}
+		return false;
+	}
+
+	/**
+	 * Write the specified value.
+	 * @param code the code to write to
+	 * @param value the value of the argument
+	 * @param type the type of the argument
+	 * @see #isSupported(Object, ResolvableType)
+	 */
+	public void writeValue(CodeBlock.Builder code, Object value, ResolvableType type) {
+		if (!isSupported(value, type)) {
+			throw new IllegalArgumentException("Argument value " + value + " of type " + type + " is not supported");
+		}
+		if (value != null && value.getClass().isArray() && Array.getLength(value) >= CONSTANT_ARRAY_MIN_LENGTH
+				&& this.constantsClassName != null) {
+			CodeBlock.Builder array = CodeBlock.builder();
+			write(array, value, type);
+			code.add("$T.$N.clone()", this.constantsClassName, getArrayField(value.getClass(), array.build()));
+		}
+		else {
+			write(code, value, type);
+		}
+	}
+
+	private void write(CodeBlock.Builder code, Object value, ResolvableType type) {
+		if (value == null) {
+			code.add("null");
+		}
+		else if (LiteralHelper.isLiteral(value)) {
+			LiteralHelper.writeLiteral(code, value);
+		}
+		else if (value.getClass().isArray()) {
+			ResolvableType componentType = ResolvableType.forClass(value.getClass().getComponentType());
+			List<Object> elements = new ArrayList<>();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				elements.add(Array.get(value, i));
+			}
+			code.add("new $T { ", value.getClass());
+			writeElements(code, elements, componentType);
+			code.add(" }");
+		}
+		else if (value instanceof Map) {
+			ResolvableType keyType = type.asMap().getGeneric(0);
+			ResolvableType valueType = type.asMap().getGeneric(1);
+			code.add("$T.map(", ARGUMENT_COLLECTIONS);
+			int index = 0;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (index++ > 0) {
+					code.add(", ");
+				}
+				write(code, entry.getKey(), keyType);
+				code.add(", ");
+				write(code, entry.getValue(), valueType);
+			}
+			code.add(")");
+		}
+		else {
+			String factoryMethod = (value instanceof Set) ? "set" : "list";
+			code.add("$T.$L(", ARGUMENT_COLLECTIONS, factoryMethod);
+			writeElements(code, (Collection<?>) value, type.asCollection().getGeneric(0));
+			code.add(")");
+		}
+	}
+
+	private void writeElements(CodeBlock.Builder code, Collection<?> elements, ResolvableType elementType) {
+		int index = 0;
+		for (Object element : elements) {
+			if (index++ > 0) {
+				code.add(", ");
+			}
+			write(code, element, elementType);
+		}
+	}
+
+	private FieldSpec getArrayField(Class<?> arrayType, CodeBlock array) {
+		return this.arrays.computeIfAbsent(array, (key) -> FieldSpec.builder(arrayType, "ARRAY_" + this.arrays.size())
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL).initializer(key).build());
+	}
+
+	/**
+	 * Return the constants of the arrays that have been written so far.
+	 * @return the fields to add to the bootstrap class
+	 */
+	public List<FieldSpec> getArrayFields() {
+		return new ArrayList<>(this.arrays.values());
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.EmbeddedValueResolver;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.MessageSourceAware;
+import org.springframework.context.ResourceLoaderAware;
+
+/**
+ * Resolve the {@link org.springframework.beans.factory.Aware} callbacks of a bean, in the
+ * order the bean factory and the {@code ApplicationContextAwareProcessor} invoke them. If
+ * the bean implements at least one of them, the {@link BeanValueWriter} of the bean is
+ * decorated with a callback that invokes the setters directly so that the bean factory
+ * does not have to check the bean against each {@code Aware} interface.
+ *
+ * @author Stephane Nicoll
+ */
+public class AwareMethodsResolver {
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	public AwareMethodsResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that invokes the {@code Aware} callbacks of the
+	 * specified bean, or the specified {@code beanValueWriter} if the bean does not
+	 * implement any or if its type can't be determined.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		Class<?> type = BeanInstanceSupplierWriter.determineInstanceType(this.beanFactory, beanName, beanValueWriter);
+		if (type == null) {
+			return beanValueWriter;
+		}
+		List<CodeBlock> statements = new ArrayList<>();
+		if (BeanNameAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setBeanName($S)", beanName));
+		}
+		if (BeanClassLoaderAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setBeanClassLoader(context.getBeanFactory().getBeanClassLoader())"));
+		}
+		if (BeanFactoryAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setBeanFactory(context.getBeanFactory())"));
+		}
+		if (EnvironmentAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setEnvironment(context.getEnvironment())"));
+		}
+		if (EmbeddedValueResolverAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setEmbeddedValueResolver(new $T(context.getBeanFactory()))",
+					EmbeddedValueResolver.class));
+		}
+		if (ResourceLoaderAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setResourceLoader(context)"));
+		}
+		if (ApplicationEventPublisherAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setApplicationEventPublisher(context)"));
+		}
+		if (MessageSourceAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setMessageSource(context)"));
+		}
+		if (ApplicationStartupAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setApplicationStartup(context.getApplicationStartup())"));
+		}
+		if (ApplicationContextAware.class.isAssignableFrom(type)) {
+			statements.add(CodeBlock.of("bean.setApplicationContext(context)"));
+		}
+		if (statements.isEmpty()) {
+			return beanValueWriter;
+		}
+		return BeanInstanceSupplierWriter.of(beanValueWriter).withCallback("withAwareMethods", statements);
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Resolve the candidates of the collection, map, array and {@link ObjectProvider}
+ * injection points of a bean, in the order they were injected in the source bean factory.
+ * The bootstrap creates the collection, or binds the provider, from these candidates
+ * rather than looking up and sorting the beans of the element type each time the
+ * dependency is resolved.
+ * <p>
+ * An injection point is only resolved if its candidates are all the beans of the element
+ * type, as the bootstrap falls back to a lookup by type if additional beans are
+ * registered at runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class BeanCollectionResolver {
+
+	private static final ClassName BEAN_COLLECTIONS = ClassName.get("org.springframework.context.boostrap.invoker",
+			"BeanCollections");
+
+	private static final ClassName PRECOMPUTED_OBJECT_PROVIDER = ClassName
+			.get("org.springframework.context.boostrap.invoker", "PrecomputedObjectProvider");
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	public BeanCollectionResolver(ConfigurableListableBeanFactory beanFactory,
+			ResolvableTypeWriter resolvableTypeWriter) {
+		this.beanFactory = beanFactory;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+	}
+
+	/**
+	 * Resolve the collection, map, array and {@link ObjectProvider} parameters of the
+	 * constructor or factory method that the specified writer invokes.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 */
+	public void resolveParameters(String beanName, AbstractBeanValueWriter beanValueWriter) {
+		Executable executable = beanValueWriter.getExecutable();
+		if (executable == null) {
+			return;
+		}
+		Parameter[] parameters = executable.getParameters();
+		for (int i = 0; i < parameters.length; i++) {
+			DependencyDescriptor descriptor = new DependencyDescriptor(MethodParameter.forExecutable(executable, i),
+					true);
+			if (parameters[i].getAnnotations().length == 0
+					&& beanValueWriter.getBeanDefinition().getConstructorArgumentValues().getIndexedArgumentValue(i,
+							descriptor.getDependencyType()) == null) {
+				CodeBlock value = resolve(beanName, descriptor);
+				if (value != null) {
+					beanValueWriter.setParameterValue(i, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolve the specified dependency if it is a collection, a map, an array or an
+	 * {@link ObjectProvider} of beans.
+	 * @param beanName the name of the bean that declares the dependency
+	 * @param descriptor the dependency to resolve
+	 * @return the code that creates the collection or the provider, or {@code null} if
+	 * the dependency can't be resolved from its candidates
+	 */
+	public CodeBlock resolve(String beanName, DependencyDescriptor descriptor) {
+		ResolvableType dependencyType = descriptor.getResolvableType();
+		Class<?> dependencyClass = dependencyType.toClass();
+		if (dependencyClass == ObjectProvider.class) {
+			return resolveObjectProvider(beanName, descriptor, dependencyType.as(ObjectProvider.class).getGeneric(0));
+		}
+		String factoryMethod;
+		ResolvableType elementType;
+		if (dependencyClass.isArray()) {
+			factoryMethod = "array";
+			elementType = dependencyType.getComponentType();
+			if (elementType.toClass().isPrimitive() || elementType.hasGenerics()) {
+				return null;
+			}
+		}
+		else if (Collection.class.isAssignableFrom(dependencyClass)) {
+			if (!(dependencyClass.isAssignableFrom(Set.class) || dependencyClass.isAssignableFrom(List.class))) {
+				return null;
+			}
+			factoryMethod = (Set.class.isAssignableFrom(dependencyClass)) ? "set" : "list";
+			elementType = dependencyType.asCollection().getGeneric(0);
+		}
+		else if (dependencyClass == Map.class && dependencyType.asMap().getGeneric(0).toClass() == String.class) {
+			factoryMethod = "map";
+			elementType = dependencyType.asMap().getGeneric(1);
+		}
+		else {
+			return null;
+		}
+		if (!isSupported(elementType)) {
+			return null;
+		}
+		List<String> candidates = getOrderedCandidates(beanName, descriptor);
+		if (candidates == null || !isAllBeansOfType(elementType, candidates)) {
+			return null;
+		}
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("$T.$L(context, ", BEAN_COLLECTIONS, factoryMethod);
+		this.resolvableTypeWriter.writeResolvableType(code, elementType);
+		candidates.forEach((candidate) -> code.add(", $S", candidate));
+		return code.add(")").build();
+	}
+
+	private CodeBlock resolveObjectProvider(String beanName, DependencyDescriptor descriptor,
+			ResolvableType elementType) {
+		if (!isSupported(elementType)) {
+			return null;
+		}
+		List<Object> elements;
+		Object uniqueElement;
+		try {
+			ObjectProvider<?> objectProvider = (ObjectProvider<?>) this.beanFactory.resolveDependency(descriptor,
+					beanName);
+			elements = objectProvider.orderedStream().collect(Collectors.toList());
+			uniqueElement = objectProvider.getIfUnique();
+		}
+		catch (BeansException ex) {
+			return null;
+		}
+		Map<Object, String> beanNames = new IdentityHashMap<>();
+		for (String candidate : this.beanFactory.getBeanNamesForType(elementType, true, false)) {
+			beanNames.put(this.beanFactory.getBean(candidate), candidate);
+		}
+		List<String> candidates = new ArrayList<>();
+		for (Object element : elements) {
+			String candidate = beanNames.get(element);
+			if (candidate == null) {
+				return null;
+			}
+			candidates.add(candidate);
+		}
+		String uniqueCandidate = (uniqueElement != null) ? beanNames.get(uniqueElement) : null;
+		if ((uniqueElement != null && uniqueCandidate == null) || !isAllBeansOfType(elementType, candidates)) {
+			return null;
+		}
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("$T.of(context, ", PRECOMPUTED_OBJECT_PROVIDER);
+		this.resolvableTypeWriter.writeResolvableType(code, elementType);
+		code.add(", $S", uniqueCandidate);
+		candidates.forEach((candidate) -> code.add(", $S", candidate));
+		return code.add(")").build();
+	}
+
+	private boolean isSupported(ResolvableType elementType) {
+		return elementType.resolve() != null && elementType.toClass() != Object.class
+				&& TypeHelper.isAccessible(elementType);
+	}
+
+	private List<String> getOrderedCandidates(String beanName, DependencyDescriptor descriptor) {
+		Set<String> candidates = new LinkedHashSet<>();
+		Object value;
+		try {
+			value = this.beanFactory.resolveDependency(descriptor, beanName, candidates, null);
+		}
+		catch (BeansException ex) {
+			return null;
+		}
+		if (value == null || candidates.isEmpty()) {
+			return null;
+		}
+		if (value instanceof Map) {
+			List<String> beanNames = new ArrayList<>();
+			((Map<?, ?>) value).keySet().forEach((key) -> beanNames.add((String) key));
+			return beanNames;
+		}
+		Map<Object, String> beanNames = new IdentityHashMap<>();
+		for (String candidate : candidates) {
+			beanNames.put(this.beanFactory.getBean(candidate), candidate);
+		}
+		Collection<?> elements = (value instanceof Collection) ? (Collection<?>) value
+				: Arrays.asList((Object[]) value);
+		List<String> orderedCandidates = new ArrayList<>();
+		for (Object element : elements) {
+			String candidate = beanNames.get(element);
+			if (candidate == null) {
+				return null;
+			}
+			orderedCandidates.add(candidate);
+		}
+		return orderedCandidates;
+	}
+
+	private boolean isAllBeansOfType(ResolvableType elementType, List<String> candidates) {
+		List<String> beanNames = Arrays.asList(this.beanFactory.getBeanNamesForType(elementType, true, false));
+		return beanNames.size() == candidates.size() && beanNames.containsAll(candidates);
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.bootstrap.infrastructure.BeanDefinitionCustomizers;
+import org.springframework.core.ResolvableType;
+
+/**
+ * A {@link BeanRegistrationGenerator} implementation that registers a family of beans
+ * that only differ by constants. The constants are written in static tables of the
+ * bootstrap class, and a single loop registers a {@link RootBeanDefinition} for each row.
+ *
+ * @author Stephane Nicoll
+ * @see BeanFamilyResolver
+ */
+public class BeanFamilyRegistrationGenerator implements BeanRegistrationGenerator {
+
+	private final ClassName bootstrapClassName;
+
+	private final String fieldPrefix;
+
+	private final List<String> beanNames;
+
+	private final List<ResolvableType> beanTypes;
+
+	private final Map<Integer, List<Object>> arguments;
+
+	private final AbstractBeanValueWriter beanValueWriter;
+
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	private final List<FieldSpec> fields = new ArrayList<>();
+
+	BeanFamilyRegistrationGenerator(ClassName bootstrapClassName, String fieldPrefix, List<String> beanNames,
+			List<ResolvableType> beanTypes, Map<Integer, List<Object>> arguments,
+			AbstractBeanValueWriter beanValueWriter, ResolvableTypeWriter resolvableTypeWriter) {
+		this.bootstrapClassName = bootstrapClassName;
+		this.fieldPrefix = fieldPrefix;
+		this.beanNames = beanNames;
+		this.beanTypes = beanTypes;
+		this.arguments = arguments;
+		this.beanValueWriter = beanValueWriter;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+	}
+
+	/**
+	 * Return the names of the beans of the family, in registration order.
+	 * @return the bean names
+	 */
+	public List<String> getBeanNames() {
+		return Collections.unmodifiableList(this.beanNames);
+	}
+
+	/**
+	 * Return the static tables that the registration loop uses. Only available once the
+	 * registration has been written.
+	 * @return the fields to add to the bootstrap class
+	 */
+	public List<FieldSpec> getFields() {
+		return Collections.unmodifiableList(this.fields);
+	}
+
+	@Override
+	public void writeBeanRegistration(MethodSpec.Builder method) {
+		String prefix = this.fieldPrefix + "_";
+		FieldSpec names = addField(prefix + "NAMES", TypeName.get(String.class), this.beanNames.stream()
+				.map((beanName) -> CodeBlock.of("$S", beanName)).collect(CodeBlock.joining(", ")));
+		List<CodeBlock> types = new ArrayList<>();
+		for (ResolvableType beanType : this.beanTypes) {
+			CodeBlock.Builder type = CodeBlock.builder();
+			this.resolvableTypeWriter.writeResolvableType(type, beanType);
+			types.add(type.build());
+		}
+		FieldSpec targetTypes = addField(prefix + "TYPES", TypeName.get(ResolvableType.class),
+				CodeBlock.join(types, ", "));
+		this.arguments.forEach((index, values) -> {
+			ResolvableType parameterType = TypeHelper.getParameterType(this.beanValueWriter.getExecutable(), index);
+			List<CodeBlock> elements = new ArrayList<>();
+			for (Object value : values) {
+				CodeBlock.Builder element = CodeBlock.builder();
+				this.beanValueWriter.writeParameterValue(element, value, parameterType);
+				elements.add(element.build());
+			}
+			FieldSpec argument = addField(prefix + "ARGUMENTS_" + index, TypeName.get(parameterType.toClass()),
+					CodeBlock.join(elements, ", "));
+			this.beanValueWriter.setParameterValue(index,
+					CodeBlock.of("$T.$N[index]", this.bootstrapClassName, argument));
+		});
+		method.beginControlFlow("for (int i = 0; i < $T.$N.length; i++)", this.bootstrapClassName, names);
+		method.addStatement("int index = i");
+		method.addStatement("$T beanDefinition = new $T()", RootBeanDefinition.class, RootBeanDefinition.class);
+		method.addStatement("beanDefinition.setTargetType($T.$N[index])", this.bootstrapClassName, targetTypes);
+		CodeBlock.Builder instanceSupplier = CodeBlock.builder();
+		instanceSupplier.add("beanDefinition.setInstanceSupplier(");
+		this.beanValueWriter.writeValueSupplier(instanceSupplier);
+		instanceSupplier.add(")");
+		method.addStatement(instanceSupplier.build());
+		BeanDefinition beanDefinition = this.beanValueWriter.getBeanDefinition();
+		if (beanDefinition.isPrimary()) {
+			method.addStatement("$T.primary().customize(beanDefinition)", BeanDefinitionCustomizers.class);
+		}
+		if (beanDefinition.getRole() != BeanDefinition.ROLE_APPLICATION) {
+			method.addStatement("$T.role($L).customize(beanDefinition)", BeanDefinitionCustomizers.class,
+					beanDefinition.getRole());
+		}
+		method.addStatement("registry.registerBeanDefinition($T.$N[index], beanDefinition)", this.bootstrapClassName,
+				names);
+		method.endControlFlow();
+	}
+
+	@Override
+	public BeanValueWriter getBeanValueWriter() {
+		return this.beanValueWriter;
+	}
+
+	private FieldSpec addField(String name, TypeName componentType, CodeBlock elements) {
+		FieldSpec field = FieldSpec.builder(ArrayTypeName.of(componentType), name)
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL).initializer("{ $L }", elements).build();
+		this.fields.add(field);
+		return field;
+	}
+
+}
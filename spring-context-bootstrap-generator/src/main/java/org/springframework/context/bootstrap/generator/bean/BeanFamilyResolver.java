@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Executable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.squareup.javapoet.ClassName;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Resolve the families of beans that are created the same way and only differ by their
+ * name, their generic type and the constant arguments of their constructor or factory
+ * method, such as repositories or per-tenant clients. Each family that has at least
+ * {@value #MINIMUM_FAMILY_SIZE} members is registered by a
+ * {@link BeanFamilyRegistrationGenerator}.
+ * <p>
+ * Only beans that require a {@link GenericBeanRegistrationGenerator} and that do not
+ * require any callback, property value nor a factory bean object type are considered.
+ * Such beans must be non-lazy singletons and autowire candidates, and their constant
+ * arguments must be a {@link String}, a {@link Class} or a primitive.
+ *
+ * @author Stephane Nicoll
+ */
+public class BeanFamilyResolver {
+
+	/**
+	 * The minimum number of beans for a family to be registered in a loop.
+	 */
+	public static final int MINIMUM_FAMILY_SIZE = 3;
+
+	private final ClassName bootstrapClassName;
+
+	private final String packageName;
+
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	public BeanFamilyResolver(ClassName bootstrapClassName, String packageName,
+			ResolvableTypeWriter resolvableTypeWriter) {
+		this.bootstrapClassName = bootstrapClassName;
+		this.packageName = packageName;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+	}
+
+	/**
+	 * Resolve the bean families of the specified beans.
+	 * @param beanValueWriters the undecorated writer of each bean, by bean name
+	 * @param beanRegistrationGenerators the registration generator of each bean, by bean
+	 * name
+	 * @return the registration generators of the families, in registration order
+	 */
+	public List<BeanFamilyRegistrationGenerator> resolve(Map<String, AbstractBeanValueWriter> beanValueWriters,
+			Map<String, BeanRegistrationGenerator> beanRegistrationGenerators) {
+		Map<List<Object>, List<String>> families = new LinkedHashMap<>();
+		beanRegistrationGenerators.forEach((beanName, beanRegistrationGenerator) -> {
+			AbstractBeanValueWriter beanValueWriter = beanValueWriters.get(beanName);
+			if (beanRegistrationGenerator instanceof GenericBeanRegistrationGenerator && beanValueWriter != null
+					&& beanRegistrationGenerator.getBeanValueWriter() == beanValueWriter
+					&& ((GenericBeanRegistrationGenerator) beanRegistrationGenerator).getObjectType() == null
+					&& ((GenericBeanRegistrationGenerator) beanRegistrationGenerator).getPropertyValues().isEmpty()) {
+				List<Object> key = getFamilyKey(beanValueWriter);
+				if (key != null) {
+					families.computeIfAbsent(key, (k) -> new ArrayList<>()).add(beanName);
+				}
+			}
+		});
+		List<BeanFamilyRegistrationGenerator> generators = new ArrayList<>();
+		for (List<String> beanNames : families.values()) {
+			if (beanNames.size() >= MINIMUM_FAMILY_SIZE) {
+				generators.add(createGenerator("BEAN_FAMILY_" + generators.size(), beanNames, beanValueWriters));
+			}
+		}
+		return generators;
+	}
+
+	private BeanFamilyRegistrationGenerator createGenerator(String fieldPrefix, List<String> beanNames,
+			Map<String, AbstractBeanValueWriter> beanValueWriters) {
+		List<ResolvableType> beanTypes = new ArrayList<>();
+		Map<Integer, List<Object>> arguments = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			AbstractBeanValueWriter beanValueWriter = beanValueWriters.get(beanName);
+			beanTypes.add(beanValueWriter.getBeanDefinition().getResolvableType());
+			getConstantArguments(beanValueWriter)
+					.forEach((index, value) -> arguments.computeIfAbsent(index, (key) -> new ArrayList<>()).add(value));
+		}
+		return new BeanFamilyRegistrationGenerator(this.bootstrapClassName, fieldPrefix, beanNames, beanTypes,
+				arguments, beanValueWriters.get(beanNames.get(0)), this.resolvableTypeWriter);
+	}
+
+	private List<Object> getFamilyKey(AbstractBeanValueWriter beanValueWriter) {
+		Executable executable = beanValueWriter.getExecutable();
+		if (executable == null || !beanValueWriter.isAccessibleFrom(this.packageName)) {
+			return null;
+		}
+		BeanDefinition beanDefinition = beanValueWriter.getBeanDefinition();
+		if (!beanDefinition.isSingleton() || beanDefinition.isLazyInit() || !beanDefinition.isAutowireCandidate()) {
+			return null;
+		}
+		ConstructorArgumentValues argumentValues = beanDefinition.getConstructorArgumentValues();
+		if (!argumentValues.getGenericArgumentValues().isEmpty()) {
+			return null;
+		}
+		Map<Integer, Object> constantArguments = getConstantArguments(beanValueWriter);
+		if (constantArguments.size() != argumentValues.getArgumentCount()) {
+			return null;
+		}
+		List<Object> argumentTypes = new ArrayList<>();
+		for (Map.Entry<Integer, Object> entry : constantArguments.entrySet()) {
+			if (!isConstant(entry.getValue())) {
+				return null;
+			}
+			argumentTypes.add(entry.getKey());
+			argumentTypes.add(entry.getValue().getClass());
+		}
+		return Arrays.asList(executable, beanDefinition.getFactoryBeanName(),
+				beanDefinition.getResolvableType().toClass(), beanDefinition.isPrimary(), beanDefinition.getRole(),
+				argumentTypes);
+	}
+
+	private Map<Integer, Object> getConstantArguments(AbstractBeanValueWriter beanValueWriter) {
+		Executable executable = beanValueWriter.getExecutable();
+		ConstructorArgumentValues argumentValues = beanValueWriter.getBeanDefinition().getConstructorArgumentValues();
+		Map<Integer, Object> arguments = new LinkedHashMap<>();
+		for (int i = 0; i < executable.getParameterCount(); i++) {
+			ValueHolder valueHolder = argumentValues.getIndexedArgumentValue(i,
+					TypeHelper.getParameterType(executable, i).toClass());
+			if (valueHolder != null) {
+				arguments.put(i, valueHolder.getValue());
+			}
+		}
+		return arguments;
+	}
+
+	private boolean isConstant(Object value) {
+		return value instanceof String || value instanceof Class || ClassUtils.isPrimitiveWrapper(value.getClass());
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A {@link BeanValueWriter} that writes a {@code BeanInstanceSupplier} with callbacks
+ * that are invoked on the bean instance created by another {@link BeanValueWriter}.
+ *
+ * @author Stephane Nicoll
+ * @see MemberInjectionResolver
+ * @see AwareMethodsResolver
+ * @see ConfigurationPropertiesBindingResolver
+ * @see LifecycleMethodsResolver
+ * @see AopProxyResolver
+ */
+final class BeanInstanceSupplierWriter implements BeanValueWriter {
+
+	private static final ClassName BEAN_INSTANCE_SUPPLIER = ClassName
+			.get("org.springframework.context.boostrap.invoker", "BeanInstanceSupplier");
+
+	private final BeanValueWriter delegate;
+
+	private final Map<String, CodeBlock> callbacks;
+
+	private BeanInstanceSupplierWriter(BeanValueWriter delegate, Map<String, CodeBlock> callbacks) {
+		this.delegate = delegate;
+		this.callbacks = callbacks;
+	}
+
+	/**
+	 * Return a {@link BeanInstanceSupplierWriter} for the specified writer.
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return a writer that can register callbacks
+	 */
+	static BeanInstanceSupplierWriter of(BeanValueWriter beanValueWriter) {
+		if (beanValueWriter instanceof BeanInstanceSupplierWriter) {
+			return (BeanInstanceSupplierWriter) beanValueWriter;
+		}
+		return new BeanInstanceSupplierWriter(beanValueWriter, new LinkedHashMap<>());
+	}
+
+	/**
+	 * Determine the type of the instance that callbacks are invoked on, or {@code null}
+	 * if it can't be determined reliably. As the callbacks can only invoke members of the
+	 * type exposed by the bean value writer, the type of the instance must match.
+	 * @param beanFactory the source bean factory
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the type of the bean instance, or {@code null}
+	 */
+	static Class<?> determineInstanceType(ConfigurableListableBeanFactory beanFactory, String beanName,
+			BeanValueWriter beanValueWriter) {
+		Object singleton = beanFactory.getSingleton(beanName);
+		Class<?> type = (singleton != null && !Proxy.isProxyClass(singleton.getClass()))
+				? ClassUtils.getUserClass(singleton) : null;
+		if (type == null && beanValueWriter instanceof ConstructorBeanValueWriter) {
+			type = beanValueWriter.getType();
+		}
+		return (beanValueWriter.getType().equals(type)) ? type : null;
+	}
+
+	/**
+	 * Return a new writer that registers a callback using the specified method of
+	 * {@code BeanInstanceSupplier}.
+	 * @param methodName the name of the method that registers the callback
+	 * @param statements the statements of the callback, using {@code bean} as the
+	 * instance variable
+	 * @return a new writer
+	 */
+	BeanInstanceSupplierWriter withCallback(String methodName, List<CodeBlock> statements) {
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("(bean) -> {\n").indent();
+		for (CodeBlock statement : statements) {
+			code.add("$L;\n", statement);
+		}
+		code.unindent().add("}");
+		return withLambda(methodName, code.build());
+	}
+
+	/**
+	 * Return a new writer that registers a separate callback for each of the specified
+	 * statements using the specified method of {@code BeanInstanceSupplier}, so that a
+	 * failing statement does not prevent the next ones from being invoked.
+	 * @param methodName the name of the method that registers the callbacks
+	 * @param statements the statement of each callback, using {@code bean} as the
+	 * instance variable
+	 * @return a new writer
+	 */
+	BeanInstanceSupplierWriter withCallbacks(String methodName, List<CodeBlock> statements) {
+		List<CodeBlock> lambdas = new ArrayList<>();
+		for (CodeBlock statement : statements) {
+			lambdas.add(CodeBlock.of("(bean) -> $L", statement));
+		}
+		return withLambda(methodName, CodeBlock.join(lambdas, ", "));
+	}
+
+	/**
+	 * Return a new writer that registers a callback using the specified method of
+	 * {@code BeanInstanceSupplier}. The callback returns the result of the specified
+	 * expression.
+	 * @param methodName the name of the method that registers the callback
+	 * @param expression the expression of the callback, using {@code bean} as the
+	 * instance variable
+	 * @return a new writer
+	 */
+	BeanInstanceSupplierWriter withExpressionCallback(String methodName, CodeBlock expression) {
+		return withLambda(methodName, CodeBlock.of("(bean) -> $L", expression));
+	}
+
+	private BeanInstanceSupplierWriter withLambda(String methodName, CodeBlock lambda) {
+		Map<String, CodeBlock> callbacks = new LinkedHashMap<>(this.callbacks);
+		callbacks.put(methodName, lambda);
+		return new BeanInstanceSupplierWriter(this.delegate, callbacks);
+	}
+
+	@Override
+	public Class<?> getType() {
+		return this.delegate.getType();
+	}
+
+	@Override
+	public Class<?> getDeclaringType() {
+		return this.delegate.getDeclaringType();
+	}
+
+	@Override
+	public boolean isAccessibleFrom(String packageName) {
+		return this.delegate.isAccessibleFrom(packageName);
+	}
+
+	@Override
+	public void writeValueSupplier(CodeBlock.Builder code) {
+		if (this.callbacks.isEmpty()) {
+			this.delegate.writeValueSupplier(code);
+			return;
+		}
+		code.add("$T.<$T>of(", BEAN_INSTANCE_SUPPLIER, getType());
+		this.delegate.writeValueSupplier(code);
+		code.add(")");
+		this.callbacks.forEach((methodName, lambda) -> code.add(".$L($L)", methodName, lambda));
+	}
+
+}
@@ -26,7 +26,9 @@ import com.squareup.javapoet.MethodSpec;
 public interface BeanRegistrationGenerator {
 
 	/**
-	 * Generate the necessary {@code statements} to generate a bean in the context.
+	 * Generate the necessary {@code statements} to generate a bean in the context. Expect
+	 * local variables to be available for the {@code context} and the bootstrap
+	 * {@code registry}.
 	 * @param method the method to use to add the registration statement(s)
 	 */
 	void writeBeanRegistration(MethodSpec.Builder method);
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBinding;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.boot.context.properties.bind.DataObjectPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.Validator;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Resolve the binding of a {@link ConfigurationProperties} bean that uses JavaBean
+ * properties. Each property is bound by a direct setter call that reads the configuration
+ * property sources of the {@code Environment} using its precomputed canonical name, so
+ * that relaxed binding rules still apply, and nested objects are bound recursively. The
+ * {@link BeanValueWriter} of the bean is decorated with a callback that the bean factory
+ * invokes in place of {@link ConfigurationPropertiesBindingPostProcessor}.
+ * <p>
+ * Beans that are validated, that use constructor binding or custom conversion, or that
+ * have a property that the generated code can't bind, such as a collection, a map, or a
+ * property with a formatting annotation, are still bound at runtime by the
+ * {@link org.springframework.boot.context.properties.bind.Binder}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ConfigurationPropertiesBindingResolver {
+
+	private static final ClassName ENVIRONMENT_BINDER = ClassName.get("org.springframework.context.boostrap.invoker",
+			"EnvironmentBinder");
+
+	private static final String VALIDATOR_BEAN_NAME = "configurationPropertiesValidator";
+
+	private static final Set<Class<?>> SUPPORTED_ANNOTATIONS = new HashSet<>(
+			Arrays.asList(Deprecated.class, DeprecatedConfigurationProperty.class, NestedConfigurationProperty.class));
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final ConversionService conversionService = ApplicationConversionService.getSharedInstance();
+
+	private final boolean enabled;
+
+	public ConfigurationPropertiesBindingResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+		this.enabled = beanFactory.containsBeanDefinition(ConfigurationPropertiesBindingPostProcessor.BEAN_NAME)
+				&& !beanFactory.containsBean(VALIDATOR_BEAN_NAME) && !hasCustomConversion(beanFactory);
+	}
+
+	private static boolean hasCustomConversion(ConfigurableListableBeanFactory beanFactory) {
+		return beanFactory.containsBean(ConfigurableApplicationContext.CONVERSION_SERVICE_BEAN_NAME)
+				|| beanFactory.getBeanNamesForAnnotation(ConfigurationPropertiesBinding.class).length > 0
+				|| Arrays.stream(beanFactory.getBeanDefinitionNames()).map(beanFactory::getMergedBeanDefinition)
+						.filter(RootBeanDefinition.class::isInstance).map(RootBeanDefinition.class::cast)
+						.map(RootBeanDefinition::getResolvedFactoryMethod)
+						.anyMatch((factoryMethod) -> factoryMethod != null
+								&& factoryMethod.isAnnotationPresent(ConfigurationPropertiesBinding.class));
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that binds the properties of the specified bean,
+	 * or the specified {@code beanValueWriter} if the bean is not a
+	 * {@link ConfigurationProperties} bean or if it can't be bound by generated code.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		if (!this.enabled) {
+			return beanValueWriter;
+		}
+		BeanDefinition beanDefinition = this.beanFactory.getMergedBeanDefinition(beanName);
+		Class<?> type = BeanInstanceSupplierWriter.determineInstanceType(this.beanFactory, beanName, beanValueWriter);
+		if (type == null || !beanDefinition.isSingleton() || !(beanDefinition instanceof RootBeanDefinition)) {
+			return beanValueWriter;
+		}
+		Method factoryMethod = ((RootBeanDefinition) beanDefinition).getResolvedFactoryMethod();
+		MergedAnnotation<ConfigurationProperties> annotation = findAnnotation(type, factoryMethod);
+		if (!annotation.isPresent() || !isJavaBeanBinding(type, factoryMethod)
+				|| annotation.getBoolean("ignoreInvalidFields") || !annotation.getBoolean("ignoreUnknownFields")) {
+			return beanValueWriter;
+		}
+		Set<Class<?>> types = new HashSet<>();
+		types.add(type);
+		List<CodeBlock> bindings = writeBindings(type, "bean", annotation.getString("prefix"), new ArrayList<>(),
+				types);
+		if (bindings == null || bindings.isEmpty()) {
+			return beanValueWriter;
+		}
+		List<CodeBlock> statements = new ArrayList<>();
+		statements.add(
+				CodeBlock.of("$T binder = $T.of(context.getEnvironment())", ENVIRONMENT_BINDER, ENVIRONMENT_BINDER));
+		statements.addAll(bindings);
+		return BeanInstanceSupplierWriter.of(beanValueWriter).withCallback("withPropertiesBinding", statements);
+	}
+
+	private MergedAnnotation<ConfigurationProperties> findAnnotation(Class<?> type, Method factoryMethod) {
+		if (factoryMethod != null) {
+			MergedAnnotation<ConfigurationProperties> annotation = MergedAnnotations
+					.from(factoryMethod, SearchStrategy.TYPE_HIERARCHY).get(ConfigurationProperties.class);
+			if (annotation.isPresent()) {
+				return annotation;
+			}
+		}
+		return MergedAnnotations.from(type, SearchStrategy.TYPE_HIERARCHY).get(ConfigurationProperties.class);
+	}
+
+	private boolean isJavaBeanBinding(Class<?> type, Method factoryMethod) {
+		if (Validator.class.isAssignableFrom(type) || isAnnotated(type, Validated.class)
+				|| (factoryMethod != null && MergedAnnotations.from(factoryMethod).isPresent(Validated.class))
+				|| isAnnotated(type, ConstructorBinding.class)) {
+			return false;
+		}
+		return Arrays.stream(type.getDeclaredConstructors())
+				.noneMatch((constructor) -> MergedAnnotations.from(constructor).isPresent(ConstructorBinding.class));
+	}
+
+	private boolean isAnnotated(Class<?> type, Class<? extends Annotation> annotationType) {
+		return MergedAnnotations.from(type, SearchStrategy.TYPE_HIERARCHY).isPresent(annotationType);
+	}
+
+	private List<CodeBlock> writeBindings(Class<?> type, String variable, String prefix, List<String> path,
+			Set<Class<?>> types) {
+		List<CodeBlock> bindings = new ArrayList<>();
+		PropertyDescriptor[] propertyDescriptors = BeanUtils.getPropertyDescriptors(type);
+		Arrays.sort(propertyDescriptors, Comparator.comparing(PropertyDescriptor::getName));
+		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+			if ("class".equals(propertyDescriptor.getName())) {
+				continue;
+			}
+			Class<?> propertyType = propertyDescriptor.getPropertyType();
+			Method readMethod = propertyDescriptor.getReadMethod();
+			Method writeMethod = propertyDescriptor.getWriteMethod();
+			if (readMethod == null && writeMethod == null) {
+				continue;
+			}
+			if (propertyType == null || hasUnsupportedAnnotation(type, propertyDescriptor) || propertyType.isArray()
+					|| Collection.class.isAssignableFrom(propertyType) || Map.class.isAssignableFrom(propertyType)) {
+				return null;
+			}
+			List<String> propertyPath = new ArrayList<>(path);
+			propertyPath.add(propertyDescriptor.getName());
+			CodeBlock binding = (isScalar(propertyType))
+					? writeScalarBinding(type, variable, prefix, propertyPath, propertyType, writeMethod)
+					: writeNestedBinding(type, variable, prefix, propertyPath, propertyType, readMethod, writeMethod,
+							types);
+			if (binding == null) {
+				return null;
+			}
+			if (!binding.isEmpty()) {
+				bindings.add(binding);
+			}
+		}
+		return bindings;
+	}
+
+	private boolean isScalar(Class<?> propertyType) {
+		return propertyType != Object.class && this.conversionService.canConvert(String.class, propertyType);
+	}
+
+	private CodeBlock writeScalarBinding(Class<?> type, String variable, String prefix, List<String> path,
+			Class<?> propertyType, Method writeMethod) {
+		if (writeMethod == null) {
+			return CodeBlock.of("");
+		}
+		if (!isInvocable(type, writeMethod) || !TypeHelper.isAccessible(propertyType)
+				|| !(writeMethod.getGenericParameterTypes()[0] instanceof Class)) {
+			return null;
+		}
+		String name = getPropertyName(prefix, path);
+		if (!ConfigurationPropertyName.isValid(name)) {
+			return null;
+		}
+		return CodeBlock.of("binder.bind($T.class, $L::$L, $S)", ClassUtils.resolvePrimitiveIfNecessary(propertyType),
+				variable, writeMethod.getName(), name);
+	}
+
+	private CodeBlock writeNestedBinding(Class<?> type, String variable, String prefix, List<String> path,
+			Class<?> propertyType, Method readMethod, Method writeMethod, Set<Class<?>> types) {
+		if (readMethod == null || !isInvocable(type, readMethod)
+				|| (writeMethod != null && !isInvocable(type, writeMethod)) || !TypeHelper.isAccessible(propertyType)
+				|| !(readMethod.getGenericReturnType() instanceof Class) || propertyType.getName().startsWith("java.")
+				|| !types.add(propertyType)) {
+			return null;
+		}
+		try {
+			String nestedVariable = "nested" + path.size();
+			List<CodeBlock> bindings = writeBindings(propertyType, nestedVariable, prefix, path, types);
+			if (bindings == null) {
+				return null;
+			}
+			if (bindings.isEmpty()) {
+				return CodeBlock.of("");
+			}
+			CodeBlock.Builder code = CodeBlock.builder();
+			code.add("binder.bindNested($L::$L, ", variable, readMethod.getName());
+			if (writeMethod != null && hasPublicDefaultConstructor(propertyType)) {
+				code.add("$T::new, ", propertyType);
+			}
+			else {
+				code.add("null, ");
+			}
+			if (writeMethod != null) {
+				code.add("$L::$L, ", variable, writeMethod.getName());
+			}
+			else {
+				code.add("null, ");
+			}
+			code.add("($L) -> $L)", nestedVariable, CodeBlock.join(bindings, " | "));
+			return code.build();
+		}
+		finally {
+			types.remove(propertyType);
+		}
+	}
+
+	private boolean isInvocable(Class<?> type, Method method) {
+		if (!Modifier.isPublic(method.getModifiers()) || !TypeHelper.isAccessible(method.getDeclaringClass())) {
+			return false;
+		}
+		// Method references must not be ambiguous
+		return Arrays.stream(type.getMethods()).filter((candidate) -> candidate.getName().equals(method.getName())
+				&& candidate.getParameterCount() == method.getParameterCount()).count() == 1;
+	}
+
+	private boolean hasPublicDefaultConstructor(Class<?> type) {
+		if (Modifier.isAbstract(type.getModifiers())
+				|| type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+			return false;
+		}
+		try {
+			Constructor<?> constructor = type.getConstructor();
+			return Modifier.isPublic(constructor.getModifiers());
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	private boolean hasUnsupportedAnnotation(Class<?> type, PropertyDescriptor propertyDescriptor) {
+		Field field = ReflectionUtils.findField(type, propertyDescriptor.getName());
+		return hasUnsupportedAnnotation(field) || hasUnsupportedAnnotation(propertyDescriptor.getReadMethod())
+				|| hasUnsupportedAnnotation(propertyDescriptor.getWriteMethod());
+	}
+
+	private boolean hasUnsupportedAnnotation(AnnotatedElement element) {
+		return element != null && Arrays.stream(element.getAnnotations())
+				.anyMatch((annotation) -> !SUPPORTED_ANNOTATIONS.contains(annotation.annotationType()));
+	}
+
+	/**
+	 * Return the canonical name of a property. Elements of the property path use the
+	 * dashed form.
+	 * @param prefix the canonical prefix of the properties
+	 * @param path the names of the JavaBean properties that lead to the property
+	 * @return the canonical name of the property
+	 */
+	static String getPropertyName(String prefix, List<String> path) {
+		List<String> dashedPath = new ArrayList<>();
+		path.forEach((name) -> dashedPath.add(DataObjectPropertyName.toDashedForm(name)));
+		String root = (prefix.isEmpty()) ? "" : prefix + ".";
+		return root + String.join(".", dashedPath);
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.context.bootstrap.generator.bean;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 
@@ -46,6 +47,11 @@ public class ConstructorBeanValueWriter extends AbstractBeanValueWriter {
 		return this.constructor.getDeclaringClass();
 	}
 
+	@Override
+	public Executable getExecutable() {
+		return this.constructor;
+	}
+
 	@Override
 	public boolean isAccessibleFrom(String packageName) {
 		return super.isAccessibleFrom(packageName) && Modifier.isPublic(this.constructor.getModifiers())
@@ -72,13 +78,20 @@ public class ConstructorBeanValueWriter extends AbstractBeanValueWriter {
 			code.add("$T::new", getType());
 		}
 		else {
-			code.add("() -> new $T(", getDeclaringType());
-			handleParameters(code, parameters, (i) -> ResolvableType.forConstructorParameter(this.constructor, i));
-			code.add(")"); // End of constructor
+			code.add("() -> ");
+			writeValue(code);
 		}
 		if (wrapException) {
 			code.add(")");
 		}
 	}
 
+	@Override
+	public void writeValue(CodeBlock.Builder code) {
+		code.add("new $T(", getDeclaringType());
+		handleParameters(code, this.constructor.getParameters(),
+				(i) -> ResolvableType.forConstructorParameter(this.constructor, i));
+		code.add(")"); // End of constructor
+	}
+
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Handle;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Shared helper for the generation of proxy classes that delegate each public method to a
+ * target instance.
+ *
+ * @author Stephane Nicoll
+ * @see LazyProxyResolver
+ * @see ScopedProxyResolver
+ */
+abstract class DelegatingProxyHelper {
+
+	/**
+	 * Return the methods that a proxy of the specified types must delegate, or
+	 * {@code null} if such a proxy can't be generated. The first type may be a class that
+	 * the proxy extends, in which case it must have an accessible default constructor
+	 * that only invokes the default constructor of its superclass, and all its
+	 * non-private instance methods must be public and non-final so that they can be
+	 * delegated. Generic types are not supported.
+	 * @param types the class or the interfaces of the proxy
+	 * @param reservedMethodNames the names of the no-arg methods of the proxy itself
+	 * @return the methods to delegate, or {@code null}
+	 */
+	static List<Method> getDelegatedMethods(List<Class<?>> types, Set<String> reservedMethodNames) {
+		Map<String, Method> methods = new LinkedHashMap<>();
+		for (Class<?> type : types) {
+			if (!TypeHelper.isAccessible(type) || type.getTypeParameters().length > 0
+					|| (!type.isInterface() && !isExtensible(type))) {
+				return null;
+			}
+			for (Method method : type.getMethods()) {
+				int modifiers = method.getModifiers();
+				if (Modifier.isStatic(modifiers) || method.isBridge()
+						|| (method.getDeclaringClass() == Object.class && !method.getName().equals("toString"))) {
+					continue;
+				}
+				if (Modifier.isFinal(modifiers) || !isAccessible(method)
+						|| (reservedMethodNames.contains(method.getName()) && method.getParameterCount() == 0)) {
+					return null;
+				}
+				String key = method.getName() + Arrays.toString(method.getParameterTypes());
+				Method existing = methods.get(key);
+				if (existing == null || existing.getReturnType().isAssignableFrom(method.getReturnType())) {
+					methods.put(key, method);
+				}
+				else if (!method.getReturnType().isAssignableFrom(existing.getReturnType())) {
+					return null;
+				}
+			}
+		}
+		return new ArrayList<>(methods.values());
+	}
+
+	/**
+	 * Generate a method that delegates to the same method of the target.
+	 * @param method the method to delegate
+	 * @param targetMethodName the name of the no-arg method of the proxy that returns the
+	 * target
+	 * @return the delegating method
+	 */
+	static MethodSpec generateDelegatingMethod(Method method, String targetMethodName) {
+		MethodSpec.Builder delegatingMethod = MethodSpec.methodBuilder(method.getName()).addAnnotation(Override.class)
+				.addModifiers(javax.lang.model.element.Modifier.PUBLIC).returns(method.getReturnType());
+		List<CodeBlock> arguments = new ArrayList<>();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			delegatingMethod.addParameter(parameterTypes[i], "arg" + i);
+			arguments.add(CodeBlock.of("arg$L", i));
+		}
+		delegatingMethod.varargs(method.isVarArgs());
+		for (Class<?> exceptionType : method.getExceptionTypes()) {
+			delegatingMethod.addException(exceptionType);
+		}
+		CodeBlock invocation = CodeBlock.of("$L().$L($L)", targetMethodName, method.getName(),
+				CodeBlock.join(arguments, ", "));
+		if (method.getReturnType() == void.class) {
+			delegatingMethod.addStatement(invocation);
+		}
+		else {
+			delegatingMethod.addStatement("return $L", invocation);
+		}
+		return delegatingMethod.build();
+	}
+
+	private static boolean isExtensible(Class<?> type) {
+		int modifiers = type.getModifiers();
+		if (Modifier.isFinal(modifiers) || type.isEnum() || type.isArray() || type.isPrimitive()
+				|| (type.isMemberClass() && !Modifier.isStatic(modifiers))) {
+			return false;
+		}
+		for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+			for (Method method : current.getDeclaredMethods()) {
+				int methodModifiers = method.getModifiers();
+				if (!Modifier.isStatic(methodModifiers) && !Modifier.isPrivate(methodModifiers) && !method.isSynthetic()
+						&& !Modifier.isPublic(methodModifiers)) {
+					return false;
+				}
+			}
+			if (!hasSideEffectFreeConstructor(current)) {
+				return false;
+			}
+		}
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			return Modifier.isPublic(constructor.getModifiers()) || Modifier.isProtected(constructor.getModifiers());
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	private static boolean hasSideEffectFreeConstructor(Class<?> type) {
+		ClassLoader classLoader = (type.getClassLoader() != null) ? type.getClassLoader()
+				: ClassLoader.getSystemClassLoader();
+		String resourcePath = ClassUtils.convertClassNameToResourcePath(type.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+		try (InputStream content = classLoader.getResourceAsStream(resourcePath)) {
+			if (content == null) {
+				return false;
+			}
+			DefaultConstructorVisitor visitor = new DefaultConstructorVisitor();
+			new ClassReader(content).accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			return visitor.isSideEffectFree();
+		}
+		catch (IOException ex) {
+			return false;
+		}
+	}
+
+	private static boolean isAccessible(Method method) {
+		return TypeHelper.isAccessible(method.getReturnType())
+				&& Arrays.stream(method.getParameterTypes()).allMatch(TypeHelper::isAccessible)
+				&& Arrays.stream(method.getExceptionTypes()).allMatch(TypeHelper::isAccessible);
+	}
+
+	/**
+	 * Check that the default constructor of a class only invokes the default constructor
+	 * of its superclass, as this is the constructor that a proxy invokes.
+	 */
+	private static class DefaultConstructorVisitor extends ClassVisitor {
+
+		private String superName;
+
+		private boolean sideEffectFree;
+
+		DefaultConstructorVisitor() {
+			super(SpringAsmInfo.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName,
+				String[] interfaces) {
+			this.superName = superName;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+				String[] exceptions) {
+			if ("<init>".equals(name) && "()V".equals(descriptor)) {
+				return new InstructionsVisitor();
+			}
+			return null;
+		}
+
+		boolean isSideEffectFree() {
+			return this.sideEffectFree;
+		}
+
+		/**
+		 * Match the {@code aload_0}, {@code invokespecial super.<init>()} and
+		 * {@code return} instructions of a default constructor.
+		 */
+		private class InstructionsVisitor extends MethodVisitor {
+
+			private int matched;
+
+			private boolean unexpected;
+
+			InstructionsVisitor() {
+				super(SpringAsmInfo.ASM_VERSION);
+			}
+
+			@Override
+			public void visitVarInsn(int opcode, int var) {
+				match(this.matched == 0 && opcode == Opcodes.ALOAD && var == 0);
+			}
+
+			@Override
+			public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+				match(this.matched == 1 && opcode == Opcodes.INVOKESPECIAL
+						&& owner.equals(DefaultConstructorVisitor.this.superName) && "<init>".equals(name)
+						&& "()V".equals(descriptor));
+			}
+
+			@Override
+			public void visitInsn(int opcode) {
+				match(this.matched == 2 && opcode == Opcodes.RETURN);
+			}
+
+			@Override
+			public void visitIntInsn(int opcode, int operand) {
+				match(false);
+			}
+
+			@Override
+			public void visitTypeInsn(int opcode, String type) {
+				match(false);
+			}
+
+			@Override
+			public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+				match(false);
+			}
+
+			@Override
+			public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle,
+					Object... bootstrapMethodArguments) {
+				match(false);
+			}
+
+			@Override
+			public void visitJumpInsn(int opcode, Label label) {
+				match(false);
+			}
+
+			@Override
+			public void visitLdcInsn(Object value) {
+				match(false);
+			}
+
+			@Override
+			public void visitIincInsn(int var, int increment) {
+				match(false);
+			}
+
+			@Override
+			public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+				match(false);
+			}
+
+			@Override
+			public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+				match(false);
+			}
+
+			@Override
+			public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+				match(false);
+			}
+
+			@Override
+			public void visitEnd() {
+				DefaultConstructorVisitor.this.sideEffectFree = !this.unexpected && this.matched == 3;
+			}
+
+			private void match(boolean expected) {
+				if (expected) {
+					this.matched++;
+				}
+				else {
+					this.unexpected = true;
+				}
+			}
+
+		}
+
+	}
+
+}
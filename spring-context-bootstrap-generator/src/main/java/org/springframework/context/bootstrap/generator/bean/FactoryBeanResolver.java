@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.Aware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.SmartFactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanReference;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.Lifecycle;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Resolve the type of the object that a {@link FactoryBean} bean creates, so that it can
+ * be registered as the {@link FactoryBean#OBJECT_TYPE_ATTRIBUTE} of its definition. A
+ * lookup by type can then match the bean without instantiating the factory bean to invoke
+ * {@link FactoryBean#getObjectType()}.
+ * <p>
+ * The object of a simple singleton factory bean can also be registered directly: the
+ * factory bean must not require any callback, and neither the factory bean nor its object
+ * must be processed by the bean factory, and no other bean must refer to the factory bean
+ * itself, either by its {@code &} prefixed name or by type. The object is then created as
+ * a regular singleton, and the factory bean itself is no longer available.
+ *
+ * @author Stephane Nicoll
+ */
+public class FactoryBeanResolver {
+
+	private static final List<String> PROCESSED_ANNOTATIONS = Arrays.asList(
+			"org.springframework.beans.factory.annotation.Autowired",
+			"org.springframework.beans.factory.annotation.Value", "javax.inject.Inject", "javax.annotation.Resource",
+			"javax.annotation.PostConstruct", "javax.annotation.PreDestroy",
+			"org.springframework.context.event.EventListener", "org.springframework.scheduling.annotation.Scheduled",
+			"org.springframework.boot.context.properties.ConfigurationProperties");
+
+	private static final List<String> INJECTION_ANNOTATIONS = Arrays.asList(
+			"org.springframework.beans.factory.annotation.Autowired", "javax.inject.Inject",
+			"javax.annotation.Resource");
+
+	private static final List<Class<?>> CALLBACK_TYPES = Arrays.asList(Aware.class, InitializingBean.class,
+			DisposableBean.class, AutoCloseable.class, Lifecycle.class);
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	public FactoryBeanResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Return the type of the object that the specified bean creates, if it is a
+	 * {@link FactoryBean}.
+	 * @param beanName the name of the bean
+	 * @return the object type, or {@code null} if the bean is not a factory bean or if
+	 * its object type can't be referenced from the bootstrap class
+	 */
+	public Class<?> resolveObjectType(String beanName) {
+		if (!this.beanFactory.isFactoryBean(beanName)) {
+			return null;
+		}
+		Class<?> objectType = this.beanFactory.getType(beanName, false);
+		if (objectType == null || Proxy.isProxyClass(objectType) || !TypeHelper.isAccessible(objectType)) {
+			return null;
+		}
+		return ClassUtils.getUserClass(objectType);
+	}
+
+	/**
+	 * Return a {@link BeanRegistrationGenerator} that registers the object of the
+	 * specified factory bean directly, or {@code null} if the factory bean is not a
+	 * simple singleton or if another bean refers to it.
+	 * @param beanName the name of the factory bean
+	 * @param beanDefinition the definition of the factory bean
+	 * @param beanValueWriter the writer that instantiates the factory bean
+	 * @param objectType the type of the object that the factory bean creates
+	 * @return the registration generator of the object, or {@code null}
+	 */
+	public BeanRegistrationGenerator resolveObjectRegistration(String beanName, BeanDefinition beanDefinition,
+			BeanValueWriter beanValueWriter, Class<?> objectType) {
+		if (!(beanValueWriter instanceof AbstractBeanValueWriter) || !beanDefinition.isSingleton()
+				|| beanDefinition.isLazyInit() || !this.beanFactory.containsSingleton(beanName)) {
+			return null;
+		}
+		Object factoryBean = this.beanFactory.getSingleton(beanName);
+		if (!(factoryBean instanceof FactoryBean) || factoryBean instanceof SmartFactoryBean
+				|| !((FactoryBean<?>) factoryBean).isSingleton()) {
+			return null;
+		}
+		Class<?> factoryBeanType = ClassUtils.getUserClass(factoryBean);
+		if (ResolvableType.forClass(factoryBeanType).as(FactoryBean.class).getGeneric(0).resolve() != objectType
+				|| hasLifecycleMethods(beanDefinition, factoryBeanType) || !isSimple(factoryBeanType)
+				|| !isSimple(objectType) || isReferenced(beanName, factoryBeanType, objectType)) {
+			return null;
+		}
+		return new FactoryBeanObjectRegistrationGenerator(beanName, beanDefinition, beanValueWriter, objectType);
+	}
+
+	private boolean isReferenced(String beanName, Class<?> factoryBeanType, Class<?> objectType) {
+		String factoryBeanName = BeanFactory.FACTORY_BEAN_PREFIX + beanName;
+		// Beans that were created registered the factory bean under its prefixed name
+		if (this.beanFactory.getDependentBeans(factoryBeanName).length > 0) {
+			return true;
+		}
+		FactoryBeanReference reference = new FactoryBeanReference(factoryBeanName, factoryBeanType, objectType);
+		for (String candidate : this.beanFactory.getBeanDefinitionNames()) {
+			if (!candidate.equals(beanName) && !this.beanFactory.containsSingleton(candidate)
+					&& isReferencedBy(candidate, reference)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isReferencedBy(String beanName, FactoryBeanReference reference) {
+		BeanDefinition beanDefinition = this.beanFactory.getMergedBeanDefinition(beanName);
+		List<Object> values = new ArrayList<>();
+		beanDefinition.getConstructorArgumentValues().getIndexedArgumentValues().values().stream()
+				.map(ValueHolder::getValue).forEach(values::add);
+		beanDefinition.getConstructorArgumentValues().getGenericArgumentValues().stream().map(ValueHolder::getValue)
+				.forEach(values::add);
+		Arrays.stream(beanDefinition.getPropertyValues().getPropertyValues()).map(PropertyValue::getValue)
+				.forEach(values::add);
+		if (values.stream().anyMatch(reference::isReference)) {
+			return true;
+		}
+		Class<?> type = this.beanFactory.getType(beanName, false);
+		if (type == null) {
+			return false;
+		}
+		type = ClassUtils.getUserClass(type);
+		List<Executable> executables = new ArrayList<>(Arrays.asList(type.getDeclaredConstructors()));
+		if (beanDefinition instanceof RootBeanDefinition
+				&& ((RootBeanDefinition) beanDefinition).getResolvedFactoryMethod() != null) {
+			executables.add(((RootBeanDefinition) beanDefinition).getResolvedFactoryMethod());
+		}
+		ReflectionUtils.doWithMethods(type, executables::add, this::isInjected);
+		for (Executable executable : executables) {
+			for (int i = 0; i < executable.getParameterCount(); i++) {
+				if (reference.isInjectionPoint(executable.getParameters()[i],
+						TypeHelper.getParameterType(executable, i))) {
+					return true;
+				}
+			}
+		}
+		boolean[] match = new boolean[1];
+		ReflectionUtils.doWithFields(type, (field) -> match[0] = true, (field) -> !match[0] && isInjected(field)
+				&& reference.isInjectionPoint(field, ResolvableType.forField(field)));
+		return match[0];
+	}
+
+	private boolean isInjected(AnnotatedElement element) {
+		MergedAnnotations annotations = MergedAnnotations.from(element);
+		return INJECTION_ANNOTATIONS.stream().anyMatch(annotations::isPresent);
+	}
+
+	private boolean hasLifecycleMethods(BeanDefinition beanDefinition, Class<?> type) {
+		if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+			return true;
+		}
+		AbstractBeanDefinition definition = (AbstractBeanDefinition) beanDefinition;
+		String destroyMethodName = definition.getDestroyMethodName();
+		if (AbstractBeanDefinition.INFER_METHOD.equals(destroyMethodName)) {
+			return ClassUtils.hasMethod(type, "close") || ClassUtils.hasMethod(type, "shutdown");
+		}
+		return definition.getInitMethodName() != null || destroyMethodName != null;
+	}
+
+	private boolean isSimple(Class<?> type) {
+		if (CALLBACK_TYPES.stream().anyMatch((callbackType) -> callbackType.isAssignableFrom(type))
+				|| isProcessed(type)) {
+			return false;
+		}
+		boolean[] match = new boolean[1];
+		ReflectionUtils.doWithFields(type, (field) -> match[0] = true, this::isProcessed);
+		ReflectionUtils.doWithMethods(type, (method) -> match[0] = true, (method) -> !match[0] && isProcessed(method));
+		return !match[0];
+	}
+
+	private boolean isProcessed(AnnotatedElement element) {
+		MergedAnnotations annotations = MergedAnnotations.from(element);
+		return PROCESSED_ANNOTATIONS.stream().anyMatch(annotations::isPresent);
+	}
+
+	/**
+	 * A reference to a factory bean rather than to its object.
+	 */
+	private static final class FactoryBeanReference {
+
+		private final String factoryBeanName;
+
+		private final Class<?> factoryBeanType;
+
+		private final Class<?> objectType;
+
+		FactoryBeanReference(String factoryBeanName, Class<?> factoryBeanType, Class<?> objectType) {
+			this.factoryBeanName = factoryBeanName;
+			this.factoryBeanType = factoryBeanType;
+			this.objectType = objectType;
+		}
+
+		boolean isReference(Object value) {
+			return value instanceof BeanReference && this.factoryBeanName.equals(((BeanReference) value).getBeanName());
+		}
+
+		boolean isInjectionPoint(AnnotatedElement element, ResolvableType type) {
+			return isFactoryBeanType(type) || MergedAnnotations.from(element).stream().anyMatch(this::isQualifier);
+		}
+
+		private boolean isFactoryBeanType(ResolvableType type) {
+			Class<?> candidate = type.resolve(Object.class);
+			if (candidate.isAssignableFrom(this.factoryBeanType) && !candidate.isAssignableFrom(this.objectType)) {
+				return true;
+			}
+			if (type.isArray()) {
+				return isFactoryBeanType(type.getComponentType());
+			}
+			return Arrays.stream(type.getGenerics()).anyMatch(this::isFactoryBeanType);
+		}
+
+		private boolean isQualifier(MergedAnnotation<?> annotation) {
+			return this.factoryBeanName.equals(annotation.getValue("value").orElse(null))
+					|| this.factoryBeanName.equals(annotation.getValue("name").orElse(null));
+		}
+
+	}
+
+}
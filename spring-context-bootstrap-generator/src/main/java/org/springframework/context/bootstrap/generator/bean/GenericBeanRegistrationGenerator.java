@@ -16,11 +16,15 @@
 
 package org.springframework.context.bootstrap.generator.bean;
 
+import java.util.Collections;
+import java.util.Map;
+
 import javax.lang.model.SourceVersion;
 
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.bootstrap.infrastructure.BeanDefinitionCustomizers;
@@ -41,11 +45,57 @@ public class GenericBeanRegistrationGenerator implements BeanRegistrationGenerat
 
 	private final BeanValueWriter beanValueWriter;
 
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	private Class<?> objectType;
+
+	private Map<String, CodeBlock> propertyValues = Collections.emptyMap();
+
 	public GenericBeanRegistrationGenerator(String beanName, BeanDefinition beanDefinition,
 			BeanValueWriter beanValueWriter) {
+		this(beanName, beanDefinition, beanValueWriter, new ResolvableTypeWriter(null));
+	}
+
+	public GenericBeanRegistrationGenerator(String beanName, BeanDefinition beanDefinition,
+			BeanValueWriter beanValueWriter, ResolvableTypeWriter resolvableTypeWriter) {
 		this.beanName = beanName;
 		this.beanDefinition = beanDefinition;
 		this.beanValueWriter = beanValueWriter;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+	}
+
+	/**
+	 * Set the type of the object that the {@link FactoryBean} bean creates, to be
+	 * registered as its {@link FactoryBean#OBJECT_TYPE_ATTRIBUTE}.
+	 * @param objectType the object type of the factory bean, or {@code null}
+	 */
+	public void setObjectType(Class<?> objectType) {
+		this.objectType = objectType;
+	}
+
+	/**
+	 * Return the type of the object that the {@link FactoryBean} bean creates.
+	 * @return the object type of the factory bean, or {@code null}
+	 */
+	public Class<?> getObjectType() {
+		return this.objectType;
+	}
+
+	/**
+	 * Set the property values that the container applies to the bean, as they are not
+	 * applied by the {@link BeanValueWriter}.
+	 * @param propertyValues the value of each property, by property name
+	 */
+	public void setPropertyValues(Map<String, CodeBlock> propertyValues) {
+		this.propertyValues = propertyValues;
+	}
+
+	/**
+	 * Return the property values that the container applies to the bean.
+	 * @return the value of each property, by property name
+	 */
+	public Map<String, CodeBlock> getPropertyValues() {
+		return this.propertyValues;
 	}
 
 	@Override
@@ -56,7 +106,7 @@ public class GenericBeanRegistrationGenerator implements BeanRegistrationGenerat
 		method.addStatement("$T $L = new RootBeanDefinition()", RootBeanDefinition.class, variable);
 		CodeBlock.Builder targetType = CodeBlock.builder();
 		targetType.add("$L.setTargetType(", variable);
-		TypeHelper.generateResolvableTypeFor(targetType, beanType);
+		this.resolvableTypeWriter.writeResolvableType(targetType, beanType);
 		targetType.add(")");
 		method.addStatement(targetType.build());
 		CodeBlock.Builder instanceSupplier = CodeBlock.builder();
@@ -65,7 +115,7 @@ public class GenericBeanRegistrationGenerator implements BeanRegistrationGenerat
 		instanceSupplier.add(")");
 		method.addStatement(instanceSupplier.build());
 		handleMetadata(method, variable);
-		method.addStatement("context.registerBeanDefinition($S, $L)", this.beanName, variable);
+		method.addStatement("registry.registerBeanDefinition($S, $L)", this.beanName, variable);
 	}
 
 	@Override
@@ -77,10 +127,26 @@ public class GenericBeanRegistrationGenerator implements BeanRegistrationGenerat
 		if (this.beanDefinition.isPrimary()) {
 			method.addStatement(customization(variable, CodeBlock.builder().add("primary()")));
 		}
+		if (this.beanDefinition.isLazyInit()) {
+			method.addStatement(customization(variable, CodeBlock.builder().add("lazyInit()")));
+		}
+		String scope = this.beanDefinition.getScope();
+		if (StringUtils.hasText(scope) && !BeanDefinition.SCOPE_SINGLETON.equals(scope)) {
+			method.addStatement(customization(variable, CodeBlock.builder().add("scope($S)", scope)));
+		}
+		if (!this.beanDefinition.isAutowireCandidate()) {
+			method.addStatement(customization(variable, CodeBlock.builder().add("autowireCandidate(false)")));
+		}
 		if (this.beanDefinition.getRole() != BeanDefinition.ROLE_APPLICATION) {
 			method.addStatement(
 					customization(variable, CodeBlock.builder().add("role($L)", this.beanDefinition.getRole())));
 		}
+		if (this.objectType != null) {
+			method.addStatement(
+					customization(variable, CodeBlock.builder().add("objectType($T.class)", this.objectType)));
+		}
+		this.propertyValues.forEach((name, value) -> method
+				.addStatement(customization(variable, CodeBlock.builder().add("propertyValue($S, $L)", name, value))));
 	}
 
 	private CodeBlock customization(String variable, CodeBlock.Builder customizerMethod) {
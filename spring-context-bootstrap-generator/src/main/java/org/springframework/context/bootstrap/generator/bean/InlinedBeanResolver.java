@@ -0,0 +1,253 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.Aware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Resolve the beans that are only used to create a single other bean, so that they are
+ * created inline in the instance supplier of their consumer rather than registered in the
+ * context. A bean is inlined if:
+ * <ul>
+ * <li>It is a singleton that was instantiated by a constructor or factory method that
+ * does not throw checked exceptions, and that has no alias.</li>
+ * <li>It requires no processing: no callback, init or destroy method, annotated member,
+ * properties binding or proxy, and it is not a container callback such as a
+ * post-processor, a listener or a lifecycle component.</li>
+ * <li>The source bean factory has registered a single bean depending on it, which is a
+ * non-lazy singleton that receives it through a constructor or factory method parameter
+ * for which it is the only candidate.</li>
+ * <li>No constructor or factory method resolves it lazily or as part of a collection.
+ * </li>
+ * </ul>
+ *
+ * @author Stephane Nicoll
+ */
+public class InlinedBeanResolver {
+
+	private static final List<String> PROCESSED_ANNOTATIONS = Arrays.asList(
+			"org.springframework.beans.factory.annotation.Autowired", Value.class.getName(), "javax.inject.Inject",
+			"javax.annotation.Resource", "javax.annotation.PostConstruct", "javax.annotation.PreDestroy",
+			"org.springframework.context.event.EventListener", "org.springframework.scheduling.annotation.Scheduled",
+			"org.springframework.boot.context.properties.ConfigurationProperties");
+
+	private static final List<Class<?>> CALLBACK_TYPES = Arrays.asList(FactoryBean.class, Aware.class,
+			InitializingBean.class, DisposableBean.class, AutoCloseable.class, BeanPostProcessor.class,
+			BeanFactoryPostProcessor.class, ApplicationListener.class, Lifecycle.class,
+			SmartInitializingSingleton.class);
+
+	private static final String CLOSE_METHOD_NAME = "close";
+
+	private static final String SHUTDOWN_METHOD_NAME = "shutdown";
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final String packageName;
+
+	public InlinedBeanResolver(ConfigurableListableBeanFactory beanFactory, String packageName) {
+		this.beanFactory = beanFactory;
+		this.packageName = packageName;
+	}
+
+	/**
+	 * Resolve the beans that can be inlined and configure the writer of their consumer to
+	 * create them.
+	 * @param beanValueWriters the undecorated writer of each bean, by bean name
+	 * @param beanRegistrationGenerators the registration generator of each bean, by bean
+	 * name
+	 * @return a mapping between the name of each inlined bean and its consumer
+	 */
+	public Map<String, String> resolve(Map<String, AbstractBeanValueWriter> beanValueWriters,
+			Map<String, BeanRegistrationGenerator> beanRegistrationGenerators) {
+		Map<String, String> inlinedBeans = new LinkedHashMap<>();
+		beanRegistrationGenerators.forEach((beanName, beanRegistrationGenerator) -> {
+			AbstractBeanValueWriter beanValueWriter = beanValueWriters.get(beanName);
+			if (beanValueWriter == null || beanRegistrationGenerator.getBeanValueWriter() != beanValueWriter
+					|| !isInlinable(beanName, beanValueWriter, beanValueWriters)) {
+				return;
+			}
+			String consumer = this.beanFactory.getDependentBeans(beanName)[0];
+			AbstractBeanValueWriter consumerValueWriter = beanValueWriters.get(consumer);
+			int index = getInjectionIndex(beanName, consumerValueWriter);
+			if (index != -1) {
+				consumerValueWriter.inlineParameter(index, beanValueWriter);
+				inlinedBeans.put(beanName, consumer);
+			}
+		});
+		return inlinedBeans;
+	}
+
+	private boolean isInlinable(String beanName, AbstractBeanValueWriter beanValueWriter,
+			Map<String, AbstractBeanValueWriter> beanValueWriters) {
+		BeanDefinition beanDefinition = this.beanFactory.getMergedBeanDefinition(beanName);
+		if (!beanValueWriter.canWriteValue() || !beanValueWriter.isAccessibleFrom(this.packageName)
+				|| !beanDefinition.isSingleton() || beanDefinition.isLazyInit() || beanDefinition.getDependsOn() != null
+				|| this.beanFactory.getAliases(beanName).length > 0 || !this.beanFactory.containsSingleton(beanName)) {
+			return false;
+		}
+		Object instance = this.beanFactory.getSingleton(beanName);
+		if (hasLifecycleMethods(beanDefinition, instance.getClass())
+				|| CALLBACK_TYPES.stream().anyMatch((type) -> type.isInstance(instance))
+				|| AopUtils.isAopProxy(instance) || isProcessed(ClassUtils.getUserClass(instance.getClass()))
+				|| isProcessed(beanValueWriter.getExecutable())) {
+			return false;
+		}
+		String[] dependentBeans = this.beanFactory.getDependentBeans(beanName);
+		if (dependentBeans.length != 1 || !beanValueWriters.containsKey(dependentBeans[0])) {
+			return false;
+		}
+		BeanDefinition consumerDefinition = this.beanFactory.getMergedBeanDefinition(dependentBeans[0]);
+		if (!consumerDefinition.isSingleton() || consumerDefinition.isLazyInit()) {
+			return false;
+		}
+		return !isResolvedLazily(instance.getClass(), beanValueWriters.values());
+	}
+
+	private boolean hasLifecycleMethods(BeanDefinition beanDefinition, Class<?> type) {
+		if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+			return true;
+		}
+		AbstractBeanDefinition definition = (AbstractBeanDefinition) beanDefinition;
+		String destroyMethodName = definition.getDestroyMethodName();
+		if (AbstractBeanDefinition.INFER_METHOD.equals(destroyMethodName)) {
+			return ClassUtils.hasMethod(type, CLOSE_METHOD_NAME) || ClassUtils.hasMethod(type, SHUTDOWN_METHOD_NAME);
+		}
+		return definition.getInitMethodName() != null || destroyMethodName != null;
+	}
+
+	private boolean isProcessed(Class<?> type) {
+		if (isProcessed((AnnotatedElement) type)) {
+			return true;
+		}
+		boolean[] match = new boolean[1];
+		ReflectionUtils.doWithFields(type, (field) -> match[0] = true, this::isProcessed);
+		ReflectionUtils.doWithMethods(type, (method) -> match[0] = true,
+				(method) -> !match[0] && isProcessed((AnnotatedElement) method));
+		return match[0];
+	}
+
+	private boolean isProcessed(AnnotatedElement element) {
+		MergedAnnotations annotations = MergedAnnotations.from(element);
+		return PROCESSED_ANNOTATIONS.stream().anyMatch(annotations::isPresent);
+	}
+
+	private boolean isResolvedLazily(Class<?> type, Collection<AbstractBeanValueWriter> beanValueWriters) {
+		for (AbstractBeanValueWriter beanValueWriter : beanValueWriters) {
+			Executable executable = beanValueWriter.getExecutable();
+			if (executable != null) {
+				for (int i = 0; i < executable.getParameterCount(); i++) {
+					ResolvableType parameterType = TypeHelper.getParameterType(executable, i);
+					Class<?> parameterClass = parameterType.toClass();
+					if (isLazy(parameterClass) && parameterType.getGeneric(0).toClass().isAssignableFrom(type)) {
+						return true;
+					}
+					if (isLazy(executable.getParameters()[i]) && parameterClass.isAssignableFrom(type)) {
+						return true;
+					}
+					if (isMultiple(parameterClass) && getElementType(parameterType).isAssignableFrom(type)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private int getInjectionIndex(String beanName, AbstractBeanValueWriter consumerValueWriter) {
+		Executable executable = consumerValueWriter.getExecutable();
+		if (executable == null) {
+			return -1;
+		}
+		BeanDefinition consumerDefinition = consumerValueWriter.getBeanDefinition();
+		Class<?> type = ClassUtils.getUserClass(this.beanFactory.getSingleton(beanName).getClass());
+		int index = -1;
+		for (int i = 0; i < executable.getParameterCount(); i++) {
+			Class<?> parameterClass = TypeHelper.getParameterType(executable, i).toClass();
+			if (parameterClass.isAssignableFrom(type)) {
+				if (index != -1
+						|| consumerDefinition.getConstructorArgumentValues().getIndexedArgumentValue(i,
+								parameterClass) != null
+						|| MergedAnnotations.from(executable.getParameters()[i]).isPresent(Value.class)
+						|| isLazy(executable.getParameters()[i]) || isLazy(parameterClass)
+						|| isMultiple(parameterClass)) {
+					return -1;
+				}
+				index = i;
+			}
+		}
+		if (index == -1) {
+			return -1;
+		}
+		Class<?> parameterClass = TypeHelper.getParameterType(executable, index).toClass();
+		String[] candidates = this.beanFactory.getBeanNamesForType(parameterClass, true, false);
+		return (candidates.length == 1 && candidates[0].equals(beanName)) ? index : -1;
+	}
+
+	private boolean isLazy(Parameter parameter) {
+		return MergedAnnotations.from(parameter).isPresent(Lazy.class)
+				|| MergedAnnotations.from(parameter.getDeclaringExecutable()).isPresent(Lazy.class);
+	}
+
+	private boolean isLazy(Class<?> parameterClass) {
+		return ObjectFactory.class.isAssignableFrom(parameterClass) || parameterClass == Optional.class;
+	}
+
+	private boolean isMultiple(Class<?> parameterClass) {
+		return parameterClass.isArray() || Collection.class.isAssignableFrom(parameterClass)
+				|| Map.class.isAssignableFrom(parameterClass);
+	}
+
+	private Class<?> getElementType(ResolvableType parameterType) {
+		if (parameterType.isArray()) {
+			return parameterType.getComponentType().toClass();
+		}
+		if (Map.class.isAssignableFrom(parameterType.toClass())) {
+			return parameterType.asMap().getGeneric(1).toClass();
+		}
+		return parameterType.asCollection().getGeneric(0).toClass();
+	}
+
+}
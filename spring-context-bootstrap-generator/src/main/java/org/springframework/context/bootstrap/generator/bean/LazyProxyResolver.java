@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+
+/**
+ * Resolve the {@link Lazy @Lazy} injection points of a bean. Rather than the AOP proxy
+ * that is created at runtime for such an injection point, a class that delegates to the
+ * target bean is generated for the dependency type, and the target is looked up on first
+ * use and kept in a volatile field.
+ * <p>
+ * Interfaces are implemented, while classes are only extended if their default
+ * constructor has no side effect and all their methods can be delegated. Only non-generic
+ * dependencies with a single singleton candidate are resolved, as a lazy proxy looks up
+ * other targets each time it is invoked. Other dependencies are resolved lazily at
+ * runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class LazyProxyResolver {
+
+	private static final String TARGET_METHOD_NAME = "resolveTarget";
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final ClassName bootstrapClassName;
+
+	private final Map<Class<?>, String> proxyNames;
+
+	private final Map<String, TypeSpec> proxyTypes;
+
+	public LazyProxyResolver(ConfigurableListableBeanFactory beanFactory, ClassName bootstrapClassName) {
+		this(beanFactory, bootstrapClassName, new HashMap<>(), new LinkedHashMap<>());
+	}
+
+	private LazyProxyResolver(ConfigurableListableBeanFactory beanFactory, ClassName bootstrapClassName,
+			Map<Class<?>, String> proxyNames, Map<String, TypeSpec> proxyTypes) {
+		this.beanFactory = beanFactory;
+		this.bootstrapClassName = bootstrapClassName;
+		this.proxyNames = proxyNames;
+		this.proxyTypes = proxyTypes;
+	}
+
+	/**
+	 * Return a new instance that resolves the dependencies of the specified
+	 * {@link ConfigurableListableBeanFactory} and shares the proxy classes of this
+	 * instance.
+	 * @param beanFactory the bean factory to use
+	 * @return a new instance
+	 */
+	public LazyProxyResolver withBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		return new LazyProxyResolver(beanFactory, this.bootstrapClassName, this.proxyNames, this.proxyTypes);
+	}
+
+	/**
+	 * Return the lazy proxy classes generated so far, to be nested in the bootstrap
+	 * class.
+	 * @return the proxy types
+	 */
+	public List<TypeSpec> getProxyTypes() {
+		return new ArrayList<>(this.proxyTypes.values());
+	}
+
+	/**
+	 * Resolve the {@link Lazy @Lazy} parameters of the constructor or factory method that
+	 * the specified writer invokes.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 */
+	public void resolveParameters(String beanName, AbstractBeanValueWriter beanValueWriter) {
+		Executable executable = beanValueWriter.getExecutable();
+		if (executable == null) {
+			return;
+		}
+		for (int i = 0; i < executable.getParameterCount(); i++) {
+			DependencyDescriptor descriptor = new DependencyDescriptor(MethodParameter.forExecutable(executable, i),
+					true);
+			if (beanValueWriter.getBeanDefinition().getConstructorArgumentValues().getIndexedArgumentValue(i,
+					descriptor.getDependencyType()) == null && isLazy(descriptor)) {
+				CodeBlock value = resolve(beanName, descriptor);
+				if (value != null) {
+					beanValueWriter.setParameterValue(i, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Specify if the specified dependency is resolved lazily.
+	 * @param descriptor the dependency to check
+	 * @return {@code true} if the dependency or its method is annotated with
+	 * {@link Lazy @Lazy}
+	 */
+	public boolean isLazy(DependencyDescriptor descriptor) {
+		MergedAnnotation<Lazy> lazy = MergedAnnotations.from(descriptor.getAnnotations()).get(Lazy.class);
+		if (lazy.isPresent() && lazy.getBoolean("value")) {
+			return true;
+		}
+		MethodParameter methodParameter = descriptor.getMethodParameter();
+		if (methodParameter != null) {
+			Method method = methodParameter.getMethod();
+			if (method == null || method.getReturnType() == void.class) {
+				return isLazy(methodParameter.getAnnotatedElement());
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Resolve the specified {@link Lazy @Lazy} dependency.
+	 * @param beanName the name of the bean that declares the dependency
+	 * @param descriptor the dependency to resolve
+	 * @return the code that creates the lazy proxy, or {@code null} if it can't be
+	 * generated for the dependency
+	 */
+	public CodeBlock resolve(String beanName, DependencyDescriptor descriptor) {
+		Class<?> dependencyClass = descriptor.getDependencyType();
+		String candidate = getCandidate(beanName, descriptor);
+		if (candidate == null) {
+			return null;
+		}
+		String proxyName = this.proxyNames.computeIfAbsent(dependencyClass, this::generateProxyType);
+		if (proxyName.isEmpty()) {
+			return null;
+		}
+		CodeBlock target = (this.beanFactory.containsBeanDefinition(candidate))
+				? CodeBlock.of("context.getBean($S, $T.class)", candidate, dependencyClass)
+				: CodeBlock.of("context.getBean($T.class)", dependencyClass);
+		return CodeBlock.of("new $T(() -> $L)", this.bootstrapClassName.nestedClass(proxyName), target);
+	}
+
+	private boolean isLazy(AnnotatedElement element) {
+		MergedAnnotation<Lazy> lazy = MergedAnnotations.from(element).get(Lazy.class);
+		return lazy.isPresent() && lazy.getBoolean("value");
+	}
+
+	private String getCandidate(String beanName, DependencyDescriptor descriptor) {
+		List<String> candidates = new ArrayList<>();
+		for (String candidate : BeanFactoryUtils.beanNamesForTypeIncludingAncestors(this.beanFactory,
+				descriptor.getDependencyType(), true, false)) {
+			if (!candidate.equals(beanName) && this.beanFactory.isAutowireCandidate(candidate, descriptor)) {
+				candidates.add(candidate);
+			}
+		}
+		if (candidates.size() != 1 || !this.beanFactory.isSingleton(candidates.get(0))) {
+			return null;
+		}
+		return candidates.get(0);
+	}
+
+	private String generateProxyType(Class<?> type) {
+		List<Method> methods = DelegatingProxyHelper.getDelegatedMethods(Collections.singletonList(type),
+				Collections.singleton(TARGET_METHOD_NAME));
+		if (methods == null) {
+			return "";
+		}
+		String proxyName = generateProxyName(type);
+		TypeName typeName = TypeName.get(type);
+		TypeSpec.Builder proxyType = TypeSpec.classBuilder(proxyName).addModifiers(Modifier.PUBLIC, Modifier.STATIC,
+				Modifier.FINAL);
+		if (type.isInterface()) {
+			proxyType.addSuperinterface(type);
+		}
+		else {
+			proxyType.superclass(type);
+		}
+		TypeName supplierType = ParameterizedTypeName.get(ClassName.get(Supplier.class), typeName);
+		proxyType.addField(supplierType, "targetSupplier", Modifier.PRIVATE, Modifier.FINAL);
+		proxyType.addField(FieldSpec.builder(typeName, "target", Modifier.PRIVATE, Modifier.VOLATILE).build());
+		proxyType.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC)
+				.addParameter(supplierType, "targetSupplier").addStatement("this.targetSupplier = targetSupplier")
+				.build());
+		proxyType.addMethod(MethodSpec.methodBuilder(TARGET_METHOD_NAME).addModifiers(Modifier.PRIVATE)
+				.returns(typeName).addStatement("$T target = this.target", typeName)
+				.beginControlFlow("if (target == null)").beginControlFlow("synchronized (this)")
+				.addStatement("target = this.target").beginControlFlow("if (target == null)")
+				.addStatement("target = this.targetSupplier.get()").addStatement("this.target = target")
+				.endControlFlow().endControlFlow().endControlFlow().addStatement("return target").build());
+		for (Method method : methods) {
+			proxyType.addMethod(DelegatingProxyHelper.generateDelegatingMethod(method, TARGET_METHOD_NAME));
+		}
+		this.proxyTypes.put(proxyName, proxyType.build());
+		return proxyName;
+	}
+
+	private String generateProxyName(Class<?> type) {
+		String candidate = type.getSimpleName() + "LazyProxy";
+		String proxyName = candidate;
+		int counter = 1;
+		while (this.proxyTypes.containsKey(proxyName)) {
+			proxyName = candidate + (counter++);
+		}
+		return proxyName;
+	}
+
+}
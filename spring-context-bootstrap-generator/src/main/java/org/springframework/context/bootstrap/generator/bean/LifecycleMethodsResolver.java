@@ -0,0 +1,254 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.bootstrap.infrastructure.InjectionHandler;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolve the init and destroy methods of a singleton bean, whether they are annotated
+ * with {@code @PostConstruct} and {@code @PreDestroy}, implement {@link InitializingBean}
+ * and {@link DisposableBean}, or are declared on the bean definition. If all methods can
+ * be invoked from the bootstrap class, the {@link BeanValueWriter} of the bean is
+ * decorated with callbacks that the bean factory invokes in place of discovering them at
+ * runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class LifecycleMethodsResolver {
+
+	private static final String CLOSE_METHOD_NAME = "close";
+
+	private static final String SHUTDOWN_METHOD_NAME = "shutdown";
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final Class<? extends Annotation> initAnnotationType;
+
+	private final Class<? extends Annotation> destroyAnnotationType;
+
+	public LifecycleMethodsResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+		boolean annotationProcessing = beanFactory
+				.containsBeanDefinition(AnnotationConfigUtils.COMMON_ANNOTATION_PROCESSOR_BEAN_NAME);
+		ClassLoader classLoader = beanFactory.getBeanClassLoader();
+		this.initAnnotationType = (annotationProcessing)
+				? loadAnnotationType("javax.annotation.PostConstruct", classLoader) : null;
+		this.destroyAnnotationType = (annotationProcessing)
+				? loadAnnotationType("javax.annotation.PreDestroy", classLoader) : null;
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that handles the lifecycle methods of the
+	 * specified bean, or the specified {@code beanValueWriter} if the bean has no
+	 * lifecycle method or if they can't be invoked from the bootstrap class.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		BeanDefinition beanDefinition = this.beanFactory.getMergedBeanDefinition(beanName);
+		Class<?> type = BeanInstanceSupplierWriter.determineInstanceType(this.beanFactory, beanName, beanValueWriter);
+		if (type == null || !beanDefinition.isSingleton() || !(beanDefinition instanceof RootBeanDefinition)) {
+			return beanValueWriter;
+		}
+		RootBeanDefinition rootBeanDefinition = (RootBeanDefinition) beanDefinition;
+		List<CodeBlock> annotatedInitMethods = writeAnnotatedMethods(type, this.initAnnotationType, true);
+		List<CodeBlock> initMethods = writeInitMethods(type, rootBeanDefinition);
+		List<CodeBlock> annotatedDestroyMethods = writeAnnotatedMethods(type, this.destroyAnnotationType, false);
+		List<CodeBlock> destroyMethods = writeDestroyMethods(type, rootBeanDefinition);
+		if (annotatedInitMethods == null || initMethods == null || annotatedDestroyMethods == null
+				|| destroyMethods == null) {
+			return beanValueWriter;
+		}
+		if (annotatedInitMethods.isEmpty() && initMethods.isEmpty() && annotatedDestroyMethods.isEmpty()
+				&& destroyMethods.isEmpty()) {
+			return beanValueWriter;
+		}
+		BeanInstanceSupplierWriter writer = BeanInstanceSupplierWriter.of(beanValueWriter);
+		if (!annotatedInitMethods.isEmpty()) {
+			writer = writer.withCallback("withAnnotatedInitMethods", annotatedInitMethods);
+		}
+		if (!initMethods.isEmpty()) {
+			writer = writer.withCallback("withInitMethods", initMethods);
+		}
+		if (!annotatedDestroyMethods.isEmpty()) {
+			writer = writer.withCallbacks("withAnnotatedDestroyMethods", annotatedDestroyMethods);
+		}
+		if (!destroyMethods.isEmpty()) {
+			writer = writer.withCallbacks("withDestroyMethods", destroyMethods);
+		}
+		return writer;
+	}
+
+	private List<CodeBlock> writeAnnotatedMethods(Class<?> type, Class<? extends Annotation> annotationType,
+			boolean superclassFirst) {
+		List<CodeBlock> statements = new ArrayList<>();
+		if (annotationType == null) {
+			return statements;
+		}
+		List<Method> methods = new ArrayList<>();
+		Class<?> targetClass = type;
+		do {
+			List<Method> currentMethods = new ArrayList<>();
+			ReflectionUtils.doWithLocalMethods(targetClass, (method) -> {
+				if (method.isAnnotationPresent(annotationType)) {
+					currentMethods.add(method);
+				}
+			});
+			methods.addAll((superclassFirst) ? 0 : methods.size(), currentMethods);
+			targetClass = targetClass.getSuperclass();
+		}
+		while (targetClass != null && targetClass != Object.class);
+		Set<String> identifiers = new HashSet<>();
+		for (Method method : methods) {
+			String identifier = (Modifier.isPrivate(method.getModifiers())) ? ClassUtils.getQualifiedMethodName(method)
+					: method.getName();
+			if (identifiers.add(identifier)) {
+				CodeBlock statement = writeInvocation(method);
+				if (statement == null) {
+					return null;
+				}
+				statements.add(statement);
+			}
+		}
+		return statements;
+	}
+
+	private List<CodeBlock> writeInitMethods(Class<?> type, RootBeanDefinition beanDefinition) {
+		List<CodeBlock> statements = new ArrayList<>();
+		boolean initializingBean = InitializingBean.class.isAssignableFrom(type);
+		if (initializingBean && !beanDefinition.isExternallyManagedInitMethod("afterPropertiesSet")) {
+			statements.add(CodeBlock.of("bean.afterPropertiesSet()"));
+		}
+		String initMethodName = beanDefinition.getInitMethodName();
+		if (StringUtils.hasLength(initMethodName) && !(initializingBean && "afterPropertiesSet".equals(initMethodName))
+				&& !beanDefinition.isExternallyManagedInitMethod(initMethodName)) {
+			Method initMethod = BeanUtils.findMethod(type, initMethodName);
+			if (initMethod == null) {
+				return (beanDefinition.isEnforceInitMethod()) ? null : statements;
+			}
+			CodeBlock statement = writeInvocation(initMethod);
+			if (statement == null) {
+				return null;
+			}
+			statements.add(statement);
+		}
+		return statements;
+	}
+
+	private List<CodeBlock> writeDestroyMethods(Class<?> type, RootBeanDefinition beanDefinition) {
+		List<CodeBlock> statements = new ArrayList<>();
+		boolean disposableBean = DisposableBean.class.isAssignableFrom(type);
+		if (disposableBean && !beanDefinition.isExternallyManagedDestroyMethod("destroy")) {
+			statements.add(CodeBlock.of("bean.destroy()"));
+		}
+		String destroyMethodName = inferDestroyMethodIfNecessary(type, beanDefinition);
+		if (StringUtils.hasLength(destroyMethodName) && !(disposableBean && "destroy".equals(destroyMethodName))
+				&& !beanDefinition.isExternallyManagedDestroyMethod(destroyMethodName)) {
+			Method destroyMethod = BeanUtils.findMethodWithMinimalParameters(type, destroyMethodName);
+			if (destroyMethod == null) {
+				return (beanDefinition.isEnforceDestroyMethod()) ? null : statements;
+			}
+			if (destroyMethod.getParameterCount() > 0) {
+				if (destroyMethod.getParameterCount() > 1 || destroyMethod.getParameterTypes()[0] != boolean.class
+						|| !isAccessible(destroyMethod)) {
+					return null;
+				}
+				statements.add(CodeBlock.of("bean.$L(true)", destroyMethod.getName()));
+				return statements;
+			}
+			CodeBlock statement = writeInvocation(destroyMethod);
+			if (statement == null) {
+				return null;
+			}
+			statements.add(statement);
+		}
+		return statements;
+	}
+
+	private String inferDestroyMethodIfNecessary(Class<?> type, RootBeanDefinition beanDefinition) {
+		String destroyMethodName = beanDefinition.getDestroyMethodName();
+		if (AbstractBeanDefinition.INFER_METHOD.equals(destroyMethodName)
+				|| (destroyMethodName == null && AutoCloseable.class.isAssignableFrom(type))) {
+			if (DisposableBean.class.isAssignableFrom(type)) {
+				return null;
+			}
+			if (hasPublicMethod(type, CLOSE_METHOD_NAME)) {
+				return CLOSE_METHOD_NAME;
+			}
+			return (hasPublicMethod(type, SHUTDOWN_METHOD_NAME)) ? SHUTDOWN_METHOD_NAME : null;
+		}
+		return destroyMethodName;
+	}
+
+	private boolean hasPublicMethod(Class<?> type, String methodName) {
+		try {
+			type.getMethod(methodName);
+			return true;
+		}
+		catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	private CodeBlock writeInvocation(Method method) {
+		if (method.getParameterCount() > 0 || !TypeHelper.isAccessible(method.getDeclaringClass())) {
+			return null;
+		}
+		if (Modifier.isPublic(method.getModifiers())) {
+			return CodeBlock.of("bean.$L()", method.getName());
+		}
+		return CodeBlock.of("$T.invokeMethod(bean, $T.class, $S)", InjectionHandler.class, method.getDeclaringClass(),
+				method.getName());
+	}
+
+	private boolean isAccessible(Method method) {
+		return Modifier.isPublic(method.getModifiers()) && TypeHelper.isAccessible(method.getDeclaringClass());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> loadAnnotationType(String name, ClassLoader classLoader) {
+		try {
+			return (Class<? extends Annotation>) ClassUtils.forName(name, classLoader);
+		}
+		catch (ClassNotFoundException ex) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import com.squareup.javapoet.CodeBlock;
+
+/**
+ * Shared helper for the generation of values that can be written as a Java literal.
+ *
+ * @author Stephane Nicoll
+ */
+abstract class LiteralHelper {
+
+	/**
+	 * Specify if the specified value can be written as a literal.
+	 * @param value the value to check
+	 * @return {@code true} if {@link #writeLiteral(CodeBlock.Builder, Object)} supports
+	 * the value
+	 */
+	static boolean isLiteral(Object value) {
+		if (value instanceof Double) {
+			return Double.isFinite((Double) value);
+		}
+		if (value instanceof Float) {
+			return Float.isFinite((Float) value);
+		}
+		if (value instanceof Enum) {
+			return TypeHelper.isAccessible(((Enum<?>) value).getDeclaringClass());
+		}
+		if (value instanceof Class) {
+			return TypeHelper.isAccessible((Class<?>) value);
+		}
+		return value instanceof String || value instanceof Character || value instanceof Boolean
+				|| value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * Write the specified value as a literal.
+	 * @param code the builder to use to write the literal
+	 * @param value the value to write
+	 * @see #isLiteral(Object)
+	 */
+	static void writeLiteral(CodeBlock.Builder code, Object value) {
+		if (value instanceof Character) {
+			code.add("'$L'", characterLiteralWithoutSingleQuotes((Character) value));
+		}
+		else if (value instanceof String) {
+			code.add("$S", value);
+		}
+		else if (value instanceof Class) {
+			code.add("$T.class", value);
+		}
+		else if (value instanceof Enum) {
+			code.add("$T.$L", ((Enum<?>) value).getDeclaringClass(), ((Enum<?>) value).name());
+		}
+		else if (value instanceof Long) {
+			code.add("$LL", value);
+		}
+		else if (value instanceof Float) {
+			code.add("$LF", value);
+		}
+		else if (value instanceof Short) {
+			code.add("(short) $L", value);
+		}
+		else if (value instanceof Byte) {
+			code.add("(byte) $L", value);
+		}
+		else {
+			code.add("$L", value);
+		}
+	}
+
+	// Copied from com.squareup.javapoet.Util
+	private static String characterLiteralWithoutSingleQuotes(char c) {
+		// see https://docs.oracle.com/javase/specs/jls/se7/html/jls-3.html#jls-3.10.6
+		switch (c) {
+		case '\b':
+			return "\\b"; /* \u0008: backspace (BS) */
+		case '\t':
+			return "\\t"; /* \u0009: horizontal tab (HT) */
+		case '\n':
+			return "\\n"; /* \u000a: linefeed (LF) */
+		case '\f':
+			return "\\f"; /* \u000c: form feed (FF) */
+		case '\r':
+			return "\\r"; /* \u000d: carriage return (CR) */
+		case '\"':
+			return "\""; /* \u0022: double quote (") */
+		case '\'':
+			return "\\'"; /* \u0027: single quote (') */
+		case '\\':
+			return "\\\\"; /* \u005c: backslash (\) */
+		default:
+			return java.lang.Character.isISOControl(c) ? String.format("\\u%04x", (int) c) : Character.toString(c);
+		}
+	}
+
+}
@@ -0,0 +1,611 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.beans.BeanMetadataElement;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.bootstrap.infrastructure.InjectionHandler;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolve the fields and methods of a bean that are injected by the annotation-based
+ * injection post-processors, using the dependencies they have resolved in the source bean
+ * factory. If all members can be injected from the bootstrap class, the
+ * {@link BeanValueWriter} of the bean is decorated to inject them once the bean has been
+ * instantiated, and the runtime post-processors skip the bean.
+ * <p>
+ * The {@link PropertyValues} of the bean definition are applied the same way, after the
+ * annotated members, by invoking the setter of each property. Values are converted to the
+ * type of the property at generation time, using the type converter of the source bean
+ * factory, and bean references are looked up by name.
+ * <p>
+ * If the members of a bean can't be injected from the bootstrap class, its property
+ * values are written as is, to be applied by the container, see
+ * {@link #writePropertyValues(String)}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MemberInjectionResolver {
+
+	private static final String RESOURCE_ANNOTATION = "javax.annotation.Resource";
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final List<Class<? extends Annotation>> autowiredAnnotationTypes;
+
+	private final Class<? extends Annotation> resourceAnnotationType;
+
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	private final ArgumentValueWriter argumentValueWriter;
+
+	private final BeanCollectionResolver beanCollectionResolver;
+
+	private final LazyProxyResolver lazyProxyResolver;
+
+	public MemberInjectionResolver(ConfigurableListableBeanFactory beanFactory,
+			ResolvableTypeWriter resolvableTypeWriter, ArgumentValueWriter argumentValueWriter,
+			LazyProxyResolver lazyProxyResolver) {
+		this.beanFactory = beanFactory;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+		this.argumentValueWriter = argumentValueWriter;
+		this.lazyProxyResolver = lazyProxyResolver;
+		this.beanCollectionResolver = new BeanCollectionResolver(beanFactory, resolvableTypeWriter);
+		ClassLoader classLoader = beanFactory.getBeanClassLoader();
+		this.autowiredAnnotationTypes = new ArrayList<>();
+		this.autowiredAnnotationTypes.add(Autowired.class);
+		this.autowiredAnnotationTypes.add(Value.class);
+		Class<? extends Annotation> injectAnnotationType = loadAnnotationType("javax.inject.Inject", classLoader);
+		if (injectAnnotationType != null) {
+			this.autowiredAnnotationTypes.add(injectAnnotationType);
+		}
+		this.resourceAnnotationType = loadAnnotationType(RESOURCE_ANNOTATION, classLoader);
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that injects the members of the specified bean, or
+	 * the specified {@code beanValueWriter} if the bean has no injected member or if they
+	 * can't be injected from the bootstrap class. In the latter case, the property values
+	 * of the bean are not applied by the returned writer.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 * @see #writePropertyValues(String)
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		Class<?> type = BeanInstanceSupplierWriter.determineInstanceType(this.beanFactory, beanName, beanValueWriter);
+		if (type == null) {
+			return beanValueWriter;
+		}
+		PropertyValues propertyValues = this.beanFactory.getMergedBeanDefinition(beanName).getPropertyValues();
+		List<CodeBlock> injections = new ArrayList<>();
+		if (!resolveResourceMembers(beanName, type, propertyValues, injections)
+				|| !resolveAutowiredMembers(beanName, type, propertyValues, injections)
+				|| !resolvePropertyValues(beanName, type, propertyValues, injections) || injections.isEmpty()) {
+			return beanValueWriter;
+		}
+		return BeanInstanceSupplierWriter.of(beanValueWriter).withCallback("withInjection", injections);
+	}
+
+	/**
+	 * Write the property values of the specified bean so that they are applied by the
+	 * container, for a bean whose setters are not invoked by the writer that
+	 * {@link #resolve(String, BeanValueWriter) resolve} returns.
+	 * @param beanName the name of the bean
+	 * @return the value of each property, by property name
+	 * @throws IllegalStateException if a property value can't be written
+	 */
+	public Map<String, CodeBlock> writePropertyValues(String beanName) {
+		Map<String, CodeBlock> values = new LinkedHashMap<>();
+		PropertyValues propertyValues = this.beanFactory.getMergedBeanDefinition(beanName).getPropertyValues();
+		for (PropertyValue propertyValue : propertyValues.getPropertyValues()) {
+			CodeBlock value = writePropertyValue(propertyValue.getValue());
+			if (value == null) {
+				throw new IllegalStateException("Value of property '" + propertyValue.getName() + "' of bean '"
+						+ beanName + "' can't be written");
+			}
+			values.put(propertyValue.getName(), value);
+		}
+		return values;
+	}
+
+	private CodeBlock writePropertyValue(Object value) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			if (reference.isToParent() || reference.getBeanType() != null) {
+				return null;
+			}
+			return CodeBlock.of("new $T($S)", RuntimeBeanReference.class, reference.getBeanName());
+		}
+		if (value instanceof RuntimeBeanNameReference) {
+			return CodeBlock.of("new $T($S)", RuntimeBeanNameReference.class,
+					((RuntimeBeanNameReference) value).getBeanName());
+		}
+		// Values are converted to the type of the property by the container
+		Object source = getSourceValue(value);
+		ResolvableType type = ResolvableType.forClass(Object.class);
+		if (source instanceof BeanMetadataElement || !this.argumentValueWriter.isSupported(source, type)) {
+			return null;
+		}
+		CodeBlock.Builder code = CodeBlock.builder();
+		this.argumentValueWriter.writeValue(code, source, type);
+		return code.build();
+	}
+
+	private boolean resolveResourceMembers(String beanName, Class<?> type, PropertyValues propertyValues,
+			List<CodeBlock> injections) {
+		if (this.resourceAnnotationType == null) {
+			return true;
+		}
+		List<CodeBlock> resourceInjections = new ArrayList<>();
+		for (Member member : findMembers(type, this::findResourceAnnotation)) {
+			MergedAnnotation<?> resource = findResourceAnnotation((AnnotatedElement) member);
+			if (Modifier.isStatic(member.getModifiers()) || isLazy((AnnotatedElement) member)
+					|| StringUtils.hasLength(resource.getString("lookup"))
+					|| StringUtils.hasLength(resource.getString("mappedName"))) {
+				return false;
+			}
+			if (isExplicitProperty(member, type, propertyValues)) {
+				continue;
+			}
+			MethodParameter methodParameter = null;
+			if (member instanceof Method) {
+				if (((Method) member).getParameterCount() != 1) {
+					return false;
+				}
+				methodParameter = new MethodParameter((Method) member, 0);
+			}
+			String name = resource.getString("name");
+			boolean defaultName = !StringUtils.hasLength(name);
+			if (defaultName) {
+				name = getDefaultResourceName(member);
+			}
+			else if (name.contains("${")) {
+				return false;
+			}
+			DependencyDescriptor descriptor = (methodParameter != null)
+					? new DependencyDescriptor(methodParameter, true) : new DependencyDescriptor((Field) member, true);
+			CodeBlock value = (defaultName && !this.beanFactory.containsBean(name))
+					? resolveDependency(beanName, descriptor) : resolveBeanReference(beanName, name, descriptor);
+			if (value == null) {
+				return false;
+			}
+			CodeBlock injection = writeInjection(member, value);
+			if (injection == null) {
+				return false;
+			}
+			resourceInjections.add(injection);
+		}
+		injections.addAll(resourceInjections);
+		return true;
+	}
+
+	private boolean resolveAutowiredMembers(String beanName, Class<?> type, PropertyValues propertyValues,
+			List<CodeBlock> injections) {
+		List<CodeBlock> autowiredInjections = new ArrayList<>();
+		for (Member member : findMembers(type, this::findAutowiredAnnotation)) {
+			if (Modifier.isStatic(member.getModifiers()) || isExplicitProperty(member, type, propertyValues)) {
+				continue; // Ignored by the post-processor
+			}
+			MergedAnnotation<?> autowired = findAutowiredAnnotation((AnnotatedElement) member);
+			if (autowired.getType() == Value.class) {
+				return false;
+			}
+			boolean required = autowired.getValue("required").map(Boolean.class::cast).orElse(true);
+			if (member instanceof Field) {
+				DependencyDescriptor descriptor = new DependencyDescriptor((Field) member, required);
+				CodeBlock value = resolveDependency(beanName, descriptor);
+				if (value == null && (required || isResolvable(beanName, descriptor))) {
+					return false;
+				}
+				if (value != null) {
+					CodeBlock injection = writeInjection(member, value);
+					if (injection == null) {
+						return false;
+					}
+					autowiredInjections.add(injection);
+				}
+			}
+			else {
+				Method method = (Method) member;
+				List<CodeBlock> arguments = new ArrayList<>();
+				boolean resolved = true;
+				for (int i = 0; i < method.getParameterCount(); i++) {
+					DependencyDescriptor descriptor = new DependencyDescriptor(new MethodParameter(method, i),
+							required);
+					CodeBlock argument = resolveDependency(beanName, descriptor);
+					if (argument == null) {
+						if (required || isResolvable(beanName, descriptor)) {
+							return false;
+						}
+						resolved = false;
+					}
+					arguments.add(argument);
+				}
+				if (resolved) {
+					CodeBlock injection = writeInjection(member, arguments.toArray(new CodeBlock[0]));
+					if (injection == null) {
+						return false;
+					}
+					autowiredInjections.add(injection);
+				}
+			}
+		}
+		injections.addAll(autowiredInjections);
+		return true;
+	}
+
+	private boolean resolvePropertyValues(String beanName, Class<?> type, PropertyValues propertyValues,
+			List<CodeBlock> injections) {
+		for (PropertyValue propertyValue : propertyValues.getPropertyValues()) {
+			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, propertyValue.getName());
+			Method writeMethod = (descriptor != null) ? descriptor.getWriteMethod() : null;
+			if (writeMethod == null || writeMethod.getParameterCount() != 1) {
+				return false;
+			}
+			CodeBlock value = resolvePropertyValue(beanName, new MethodParameter(writeMethod, 0),
+					propertyValue.getValue());
+			CodeBlock injection = (value != null) ? writeInjection(writeMethod, value) : null;
+			if (injection == null) {
+				return false;
+			}
+			injections.add(injection);
+		}
+		return true;
+	}
+
+	private CodeBlock resolvePropertyValue(String beanName, MethodParameter parameter, Object value) {
+		Class<?> parameterType = parameter.getParameterType();
+		if (value instanceof RuntimeBeanReference) {
+			String reference = ((RuntimeBeanReference) value).getBeanName();
+			if (!TypeHelper.isAccessible(parameterType) || !this.beanFactory.containsBean(reference)
+					|| !this.beanFactory.isTypeMatch(reference, parameterType) || isCircular(beanName, reference)) {
+				return null;
+			}
+			return CodeBlock.of("context.getBean($S, $T.class)", reference, parameterType);
+		}
+		Object source = (value instanceof RuntimeBeanNameReference) ? ((RuntimeBeanNameReference) value).getBeanName()
+				: getSourceValue(value);
+		if (source instanceof BeanMetadataElement) {
+			return null; // Inner bean or managed collection of references
+		}
+		if (containsExpression(source)) {
+			return null; // Evaluated at runtime
+		}
+		Object convertedValue;
+		try {
+			convertedValue = this.beanFactory.getTypeConverter().convertIfNecessary(source, parameterType, parameter);
+		}
+		catch (BeansException ex) {
+			return null;
+		}
+		ResolvableType type = ResolvableType.forMethodParameter(parameter);
+		if (!this.argumentValueWriter.isSupported(convertedValue, type)) {
+			return null;
+		}
+		CodeBlock.Builder code = CodeBlock.builder();
+		this.argumentValueWriter.writeValue(code, convertedValue, type);
+		return code.build();
+	}
+
+	/**
+	 * Return the raw value of the specified property value, unwrapping typed string
+	 * values and managed collections. Values that hold a bean definition or a reference
+	 * are returned as is, as well as managed collections that contain one.
+	 * @param value the property value
+	 * @return the raw value
+	 */
+	private Object getSourceValue(Object value) {
+		if (value instanceof TypedStringValue) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			return (typedValue.hasTargetType() || typedValue.getTargetTypeName() != null) ? value
+					: typedValue.getValue();
+		}
+		if (value instanceof ManagedList || value instanceof ManagedSet) {
+			Collection<Object> elements = (value instanceof ManagedList) ? new ArrayList<>() : new LinkedHashSet<>();
+			for (Object element : (Collection<?>) value) {
+				Object sourceElement = getSourceValue(element);
+				if (sourceElement instanceof BeanMetadataElement) {
+					return value;
+				}
+				elements.add(sourceElement);
+			}
+			return elements;
+		}
+		if (value instanceof ManagedMap) {
+			Map<Object, Object> entries = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				Object key = getSourceValue(entry.getKey());
+				Object entryValue = getSourceValue(entry.getValue());
+				if (key instanceof BeanMetadataElement || entryValue instanceof BeanMetadataElement) {
+					return value;
+				}
+				entries.put(key, entryValue);
+			}
+			return entries;
+		}
+		return value;
+	}
+
+	private boolean containsExpression(Object value) {
+		if (value instanceof String) {
+			return ((String) value).contains("#{");
+		}
+		if (value instanceof Collection) {
+			return ((Collection<?>) value).stream().anyMatch(this::containsExpression);
+		}
+		if (value instanceof Map) {
+			return ((Map<?, ?>) value).entrySet().stream()
+					.anyMatch((entry) -> containsExpression(entry.getKey()) || containsExpression(entry.getValue()));
+		}
+		return false;
+	}
+
+	private boolean isExplicitProperty(Member member, Class<?> type, PropertyValues propertyValues) {
+		if (!(member instanceof Method) || propertyValues.isEmpty()) {
+			return false;
+		}
+		PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod((Method) member, type);
+		return descriptor != null && propertyValues.contains(descriptor.getName());
+	}
+
+	private List<Member> findMembers(Class<?> type, AnnotationFinder annotationFinder) {
+		List<Member> members = new ArrayList<>();
+		Class<?> targetClass = type;
+		do {
+			List<Member> currentMembers = new ArrayList<>();
+			ReflectionUtils.doWithLocalFields(targetClass, (field) -> {
+				if (annotationFinder.find(field) != null) {
+					currentMembers.add(field);
+				}
+			});
+			ReflectionUtils.doWithLocalMethods(targetClass, (method) -> {
+				Method bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
+				if (BridgeMethodResolver.isVisibilityBridgeMethodPair(method, bridgedMethod)
+						&& annotationFinder.find(bridgedMethod) != null
+						&& method.equals(ClassUtils.getMostSpecificMethod(method, type))) {
+					currentMembers.add(method);
+				}
+			});
+			members.addAll(0, currentMembers);
+			targetClass = targetClass.getSuperclass();
+		}
+		while (targetClass != null && targetClass != Object.class);
+		return members;
+	}
+
+	private CodeBlock resolveDependency(String beanName, DependencyDescriptor descriptor) {
+		ResolvableType dependencyType = descriptor.getResolvableType();
+		Class<?> dependencyClass = dependencyType.toClass();
+		CodeBlock.Builder code = CodeBlock.builder();
+		if (dependencyClass == Object.class) {
+			return null;
+		}
+		if (this.lazyProxyResolver.isLazy(descriptor)) {
+			return this.lazyProxyResolver.resolve(beanName, descriptor);
+		}
+		CodeBlock resolvedCandidates = this.beanCollectionResolver.resolve(beanName, descriptor);
+		if (resolvedCandidates != null) {
+			return resolvedCandidates;
+		}
+		if (ObjectProvider.class.isAssignableFrom(dependencyClass)) {
+			code.add("context.getBeanProvider(");
+			this.resolvableTypeWriter.writeResolvableType(code, dependencyType.as(ObjectProvider.class).getGeneric(0));
+			return code.add(")").build();
+		}
+		if (Collection.class.isAssignableFrom(dependencyClass)) {
+			if (!(dependencyClass.isAssignableFrom(Set.class) || dependencyClass.isAssignableFrom(List.class))
+					|| !TypeHelper.isAccessible(dependencyType.as(Collection.class).getGeneric(0))) {
+				return null;
+			}
+			code.add("context.getBeanProvider(");
+			this.resolvableTypeWriter.writeResolvableType(code, dependencyType.as(Collection.class).getGeneric(0));
+			String collectors = (Set.class.isAssignableFrom(dependencyClass)) ? "toSet()" : "toList()";
+			return code.add(").orderedStream().collect($T.$L)", Collectors.class, collectors).build();
+		}
+		if (dependencyClass.isAssignableFrom(GenericApplicationContext.class)) {
+			return code.add("context").build();
+		}
+		if (dependencyClass.isAssignableFrom(ConfigurableListableBeanFactory.class)) {
+			return code.add("context.getBeanFactory()").build();
+		}
+		if (dependencyClass.isAssignableFrom(ConfigurableEnvironment.class)) {
+			return code.add("context.getEnvironment()").build();
+		}
+		if (dependencyClass.isArray() || Map.class.isAssignableFrom(dependencyClass)
+				|| !TypeHelper.isAccessible(dependencyClass)) {
+			return null;
+		}
+		Set<String> candidates = new LinkedHashSet<>();
+		try {
+			if (this.beanFactory.resolveDependency(descriptor, beanName, candidates, null) == null) {
+				return null;
+			}
+		}
+		catch (BeansException ex) {
+			return null;
+		}
+		if (candidates.size() != 1 || isCircular(beanName, candidates.iterator().next())) {
+			return null;
+		}
+		String candidate = candidates.iterator().next();
+		if (this.beanFactory.containsBeanDefinition(candidate)) {
+			return code.add("context.getBean($S, $T.class)", candidate, dependencyClass).build();
+		}
+		return code.add("context.getBean($T.class)", dependencyClass).build();
+	}
+
+	private CodeBlock resolveBeanReference(String beanName, String name, DependencyDescriptor descriptor) {
+		Class<?> dependencyClass = descriptor.getDependencyType();
+		if (!TypeHelper.isAccessible(dependencyClass) || !this.beanFactory.isTypeMatch(name, dependencyClass)
+				|| isCircular(beanName, name)) {
+			return null;
+		}
+		return CodeBlock.of("context.getBean($S, $T.class)", name, dependencyClass);
+	}
+
+	private boolean isResolvable(String beanName, DependencyDescriptor descriptor) {
+		// An optional dependency that can't be resolved is not injected at all
+		try {
+			return this.beanFactory.resolveDependency(descriptor, beanName) != null;
+		}
+		catch (BeansException ex) {
+			return true;
+		}
+	}
+
+	private boolean isCircular(String beanName, String dependency) {
+		return dependsOn(dependency, beanName, new HashSet<>());
+	}
+
+	private boolean dependsOn(String beanName, String target, Set<String> visited) {
+		if (beanName.equals(target)) {
+			return true;
+		}
+		if (!visited.add(beanName)) {
+			return false;
+		}
+		for (String dependency : this.beanFactory.getDependenciesForBean(beanName)) {
+			if (dependsOn(dependency, target, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private CodeBlock writeInjection(Member member, CodeBlock... values) {
+		if (!TypeHelper.isAccessible(member.getDeclaringClass())) {
+			return null;
+		}
+		CodeBlock.Builder code = CodeBlock.builder();
+		if (member instanceof Field) {
+			if (Modifier.isFinal(member.getModifiers())) {
+				return null;
+			}
+			if (Modifier.isPublic(member.getModifiers())) {
+				code.add("bean.$L = $L", member.getName(), values[0]);
+			}
+			else {
+				code.add("$T.setField(bean, $T.class, $S, $L)", InjectionHandler.class, member.getDeclaringClass(),
+						member.getName(), values[0]);
+			}
+			return code.build();
+		}
+		if (!Modifier.isPublic(member.getModifiers())) {
+			return null;
+		}
+		code.add("bean.$L(", member.getName());
+		for (int i = 0; i < values.length; i++) {
+			code.add(values[i]);
+			if (i < values.length - 1) {
+				code.add(", ");
+			}
+		}
+		return code.add(")").build();
+	}
+
+	private boolean isLazy(AnnotatedElement element) {
+		MergedAnnotation<Lazy> lazy = MergedAnnotations.from(element).get(Lazy.class);
+		return lazy.isPresent() && lazy.getBoolean("value");
+	}
+
+	private String getDefaultResourceName(Member member) {
+		String name = member.getName();
+		if (member instanceof Method && name.startsWith("set") && name.length() > 3) {
+			return Introspector.decapitalize(name.substring(3));
+		}
+		return name;
+	}
+
+	private MergedAnnotation<?> findAutowiredAnnotation(AnnotatedElement element) {
+		MergedAnnotations annotations = MergedAnnotations.from(element);
+		for (Class<? extends Annotation> type : this.autowiredAnnotationTypes) {
+			MergedAnnotation<?> annotation = annotations.get(type);
+			if (annotation.isPresent()) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private MergedAnnotation<?> findResourceAnnotation(AnnotatedElement element) {
+		MergedAnnotation<?> annotation = MergedAnnotations.from(element).get(this.resourceAnnotationType);
+		return (annotation.isPresent()) ? annotation : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> loadAnnotationType(String name, ClassLoader classLoader) {
+		try {
+			return (Class<? extends Annotation>) ClassUtils.forName(name, classLoader);
+		}
+		catch (ClassNotFoundException ex) {
+			return null;
+		}
+	}
+
+	@FunctionalInterface
+	private interface AnnotationFinder {
+
+		MergedAnnotation<?> find(AnnotatedElement element);
+
+	}
+
+}
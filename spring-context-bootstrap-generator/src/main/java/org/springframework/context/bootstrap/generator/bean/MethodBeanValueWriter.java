@@ -16,6 +16,7 @@
 
 package org.springframework.context.bootstrap.generator.bean;
 
+import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -26,7 +27,9 @@ import org.springframework.context.bootstrap.infrastructure.ExceptionHandler;
 import org.springframework.core.ResolvableType;
 
 /**
- * A factory method-based {@link BeanValueWriter}.
+ * A factory method-based {@link BeanValueWriter}. Instance factory methods are invoked
+ * directly on the factory bean, looked up by name: as the bootstrap class does not
+ * enhance configuration classes, {@code @Bean} methods are invoked in lite mode.
  *
  * @author Stephane Nicoll
  */
@@ -44,6 +47,11 @@ public class MethodBeanValueWriter extends AbstractBeanValueWriter {
 		return this.method.getDeclaringClass();
 	}
 
+	@Override
+	public Executable getExecutable() {
+		return this.method;
+	}
+
 	@Override
 	public boolean isAccessibleFrom(String packageName) {
 		return super.isAccessibleFrom(packageName) && Modifier.isPublic(this.method.getModifiers())
@@ -66,18 +74,29 @@ public class MethodBeanValueWriter extends AbstractBeanValueWriter {
 			code.add("$T.wrapException(", ExceptionHandler.class);
 		}
 		code.add("() -> ");
+		writeValue(code);
+		if (wrapException) {
+			code.add(")");
+		}
+	}
+
+	@Override
+	public void writeValue(CodeBlock.Builder code) {
 		if (java.lang.reflect.Modifier.isStatic(this.method.getModifiers())) {
 			code.add("$T", getDeclaringType());
 		}
 		else {
-			code.add("context.getBean($T.class)", this.method.getDeclaringClass());
+			String factoryBeanName = getBeanDefinition().getFactoryBeanName();
+			if (factoryBeanName != null) {
+				code.add("context.getBean($S, $T.class)", factoryBeanName, this.method.getDeclaringClass());
+			}
+			else {
+				code.add("context.getBean($T.class)", this.method.getDeclaringClass());
+			}
 		}
 		code.add(".$L(", this.method.getName());
 		handleParameters(code, this.method.getParameters(), (i) -> ResolvableType.forMethodParameter(this.method, i));
 		code.add(")");
-		if (wrapException) {
-			code.add(")");
-		}
 	}
 
 }
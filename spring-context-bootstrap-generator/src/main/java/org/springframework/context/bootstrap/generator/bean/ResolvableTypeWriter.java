@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+
+import org.springframework.core.ResolvableType;
+
+/**
+ * Write a {@link ResolvableType}. A type with generics is built once in a constant of the
+ * bootstrap class that every use site references, while a type without generics is
+ * written as a class literal.
+ *
+ * @author Stephane Nicoll
+ */
+public class ResolvableTypeWriter {
+
+	private final ClassName constantsClassName;
+
+	private final Map<CodeBlock, FieldSpec> resolvableTypes = new LinkedHashMap<>();
+
+	/**
+	 * Create a new instance.
+	 * @param constantsClassName the class that holds the resolvable types, or
+	 * {@code null} to build them at each use site
+	 */
+	public ResolvableTypeWriter(ClassName constantsClassName) {
+		this.constantsClassName = constantsClassName;
+	}
+
+	/**
+	 * Write the specified type.
+	 * @param code the code to write to
+	 * @param target the type to write
+	 */
+	public void writeResolvableType(CodeBlock.Builder code, ResolvableType target) {
+		CodeBlock.Builder type = CodeBlock.builder();
+		TypeHelper.generateResolvableTypeFor(type, target);
+		if (this.constantsClassName == null || !target.hasGenerics() || !TypeHelper.isAccessible(target)) {
+			code.add(type.build());
+		}
+		else {
+			code.add("$T.$N", this.constantsClassName, getResolvableTypeField(type.build()));
+		}
+	}
+
+	private FieldSpec getResolvableTypeField(CodeBlock type) {
+		return this.resolvableTypes.computeIfAbsent(type,
+				(key) -> FieldSpec.builder(ResolvableType.class, "RESOLVABLE_TYPE_" + this.resolvableTypes.size())
+						.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL).initializer(key).build());
+	}
+
+	/**
+	 * Return the constants of the resolvable types that have been written so far.
+	 * @return the fields to add to the bootstrap class
+	 */
+	public List<FieldSpec> getResolvableTypeFields() {
+		return new ArrayList<>(this.resolvableTypes.values());
+	}
+
+}
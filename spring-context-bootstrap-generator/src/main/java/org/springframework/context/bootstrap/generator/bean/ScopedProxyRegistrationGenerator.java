@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec.Builder;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.bootstrap.infrastructure.BeanDefinitionCustomizers;
+
+/**
+ * A {@link BeanRegistrationGenerator} implementation that registers a generated scoped
+ * proxy in place of a {@link org.springframework.aop.scope.ScopedProxyFactoryBean}.
+ *
+ * @author Stephane Nicoll
+ * @see ScopedProxyResolver
+ */
+public class ScopedProxyRegistrationGenerator implements BeanRegistrationGenerator {
+
+	private static final ClassName SCOPED_PROXY_FACTORY_BEAN = ClassName
+			.get("org.springframework.context.boostrap.invoker", "BootstrapScopedProxyFactoryBean");
+
+	private final String beanName;
+
+	private final BeanDefinition beanDefinition;
+
+	private final ClassName proxyClassName;
+
+	private final BeanValueWriter beanValueWriter;
+
+	ScopedProxyRegistrationGenerator(String beanName, BeanDefinition beanDefinition, ClassName proxyClassName) {
+		this.beanName = beanName;
+		this.beanDefinition = beanDefinition;
+		this.proxyClassName = proxyClassName;
+		this.beanValueWriter = new ScopedProxyValueWriter(proxyClassName);
+	}
+
+	@Override
+	public void writeBeanRegistration(Builder method) {
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("registry.registerBean($S, $T.class, ", this.beanName, SCOPED_PROXY_FACTORY_BEAN);
+		this.beanValueWriter.writeValueSupplier(code);
+		code.add(", $T.objectType($T.class)", BeanDefinitionCustomizers.class, this.proxyClassName);
+		if (this.beanDefinition.isPrimary()) {
+			code.add(", $T.primary()", BeanDefinitionCustomizers.class);
+		}
+		if (!this.beanDefinition.isAutowireCandidate()) {
+			code.add(", $T.autowireCandidate(false)", BeanDefinitionCustomizers.class);
+		}
+		if (this.beanDefinition.getRole() != BeanDefinition.ROLE_APPLICATION) {
+			code.add(", $T.role($L)", BeanDefinitionCustomizers.class, this.beanDefinition.getRole());
+		}
+		code.add(")"); // End of registerBean
+		method.addStatement(code.build());
+	}
+
+	@Override
+	public BeanValueWriter getBeanValueWriter() {
+		return this.beanValueWriter;
+	}
+
+	private static final class ScopedProxyValueWriter implements BeanValueWriter {
+
+		private final ClassName proxyClassName;
+
+		private ScopedProxyValueWriter(ClassName proxyClassName) {
+			this.proxyClassName = proxyClassName;
+		}
+
+		@Override
+		public Class<?> getType() {
+			return Object.class;
+		}
+
+		@Override
+		public Class<?> getDeclaringType() {
+			return Object.class;
+		}
+
+		@Override
+		public boolean isAccessibleFrom(String packageName) {
+			return true;
+		}
+
+		@Override
+		public void writeValueSupplier(CodeBlock.Builder code) {
+			code.add("() -> $T.of(new $T(context.getBeanFactory()))", SCOPED_PROXY_FACTORY_BEAN, this.proxyClassName);
+		}
+
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+import org.springframework.aop.framework.AopInfrastructureBean;
+import org.springframework.aop.scope.ScopedObject;
+import org.springframework.aop.scope.ScopedProxyFactoryBean;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolve the scoped proxy of a bean that is registered with a non-singleton scope and a
+ * {@link org.springframework.context.annotation.ScopedProxyMode proxy mode}. Rather than
+ * the {@link ScopedProxyFactoryBean} that creates an AOP proxy at runtime, a proxy class
+ * is generated that looks up the target from the bean factory, and therefore from its
+ * scope, each time one of its methods is invoked.
+ * <p>
+ * Class-based proxies extend the target class, while interface-based proxies implement
+ * all the interfaces of the target class. As for {@link LazyProxyResolver}, a class is
+ * only extended if its default constructor has no side effect and all its methods can be
+ * delegated. Generic types, and types whose methods can't be overridden, are still
+ * proxied at runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class ScopedProxyResolver {
+
+	private static final String TARGET_METHOD_NAME = "resolveTarget";
+
+	private static final Set<String> RESERVED_METHOD_NAMES = new HashSet<>(
+			Arrays.asList(TARGET_METHOD_NAME, "getTargetObject", "removeFromScope"));
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	private final ClassName bootstrapClassName;
+
+	private final Map<String, TypeSpec> proxyTypes;
+
+	public ScopedProxyResolver(ConfigurableListableBeanFactory beanFactory, ClassName bootstrapClassName) {
+		this(beanFactory, bootstrapClassName, new LinkedHashMap<>());
+	}
+
+	private ScopedProxyResolver(ConfigurableListableBeanFactory beanFactory, ClassName bootstrapClassName,
+			Map<String, TypeSpec> proxyTypes) {
+		this.beanFactory = beanFactory;
+		this.bootstrapClassName = bootstrapClassName;
+		this.proxyTypes = proxyTypes;
+	}
+
+	/**
+	 * Return a new instance that resolves the scoped proxies of the specified
+	 * {@link ConfigurableListableBeanFactory} and shares the proxy classes of this
+	 * instance. A proxy class is reused if an identical one has already been generated.
+	 * @param beanFactory the bean factory to use
+	 * @return a new instance
+	 */
+	public ScopedProxyResolver withBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		return new ScopedProxyResolver(beanFactory, this.bootstrapClassName, this.proxyTypes);
+	}
+
+	/**
+	 * Return the scoped proxy classes generated so far, to be nested in the bootstrap
+	 * class.
+	 * @return the proxy types
+	 */
+	public List<TypeSpec> getProxyTypes() {
+		return new ArrayList<>(this.proxyTypes.values());
+	}
+
+	/**
+	 * Return a {@link BeanRegistrationGenerator} that registers a generated scoped proxy
+	 * for the specified bean, or {@code null} if the bean is not a scoped proxy or if its
+	 * proxy class can't be generated.
+	 * @param beanName the name of the bean
+	 * @param beanDefinition the definition of the bean
+	 * @return the registration generator of the scoped proxy, or {@code null}
+	 */
+	public BeanRegistrationGenerator resolve(String beanName, BeanDefinition beanDefinition) {
+		if (!ScopedProxyFactoryBean.class.getName().equals(beanDefinition.getBeanClassName())) {
+			return null;
+		}
+		PropertyValue targetBeanName = beanDefinition.getPropertyValues().getPropertyValue("targetBeanName");
+		if (targetBeanName == null || !(targetBeanName.getValue() instanceof String)) {
+			return null;
+		}
+		String targetName = (String) targetBeanName.getValue();
+		Class<?> targetType = (this.beanFactory.containsBeanDefinition(targetName))
+				? this.beanFactory.getType(targetName, false) : null;
+		if (targetType == null || !TypeHelper.isAccessible(targetType)) {
+			return null;
+		}
+		targetType = ClassUtils.getUserClass(targetType);
+		List<Class<?>> types = (isProxyTargetClass(beanDefinition) || targetType.isInterface())
+				? Collections.singletonList(targetType)
+				: new ArrayList<>(ClassUtils.getAllInterfacesForClassAsSet(targetType));
+		if (types.isEmpty()) {
+			return null;
+		}
+		List<Method> methods = DelegatingProxyHelper.getDelegatedMethods(types, RESERVED_METHOD_NAMES);
+		if (methods == null) {
+			return null;
+		}
+		String proxyName = generateProxyName(beanName, targetName, targetType, types, methods);
+		return new ScopedProxyRegistrationGenerator(beanName, beanDefinition,
+				this.bootstrapClassName.nestedClass(proxyName));
+	}
+
+	private boolean isProxyTargetClass(BeanDefinition beanDefinition) {
+		PropertyValue proxyTargetClass = beanDefinition.getPropertyValues().getPropertyValue("proxyTargetClass");
+		return proxyTargetClass == null || !Boolean.FALSE.equals(proxyTargetClass.getValue());
+	}
+
+	private String generateProxyName(String beanName, String targetName, Class<?> targetType, List<Class<?>> types,
+			List<Method> methods) {
+		String candidate = StringUtils.capitalize(beanName.replaceAll("[^A-Za-z0-9]", "")) + "ScopedProxy";
+		String proxyName = candidate;
+		int counter = 1;
+		while (true) {
+			TypeSpec proxyType = generateProxyType(proxyName, targetName, targetType, types, methods);
+			TypeSpec existingProxyType = this.proxyTypes.putIfAbsent(proxyName, proxyType);
+			if (existingProxyType == null || existingProxyType.equals(proxyType)) {
+				return proxyName;
+			}
+			proxyName = candidate + (counter++);
+		}
+	}
+
+	private TypeSpec generateProxyType(String proxyName, String targetName, Class<?> targetType, List<Class<?>> types,
+			List<Method> methods) {
+		TypeSpec.Builder proxyType = TypeSpec.classBuilder(proxyName).addModifiers(Modifier.PUBLIC, Modifier.STATIC,
+				Modifier.FINAL);
+		for (Class<?> type : types) {
+			if (type.isInterface()) {
+				proxyType.addSuperinterface(type);
+			}
+			else {
+				proxyType.superclass(type);
+			}
+		}
+		proxyType.addSuperinterface(ScopedObject.class).addSuperinterface(AopInfrastructureBean.class);
+		proxyType.addField(ConfigurableBeanFactory.class, "beanFactory", Modifier.PRIVATE, Modifier.FINAL);
+		proxyType.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC)
+				.addParameter(ConfigurableBeanFactory.class, "beanFactory")
+				.addStatement("this.beanFactory = beanFactory").build());
+		proxyType.addMethod(
+				MethodSpec.methodBuilder(TARGET_METHOD_NAME).addModifiers(Modifier.PRIVATE).returns(targetType)
+						.addStatement("return ($T) this.beanFactory.getBean($S)", targetType, targetName).build());
+		proxyType.addMethod(
+				MethodSpec.methodBuilder("getTargetObject").addAnnotation(Override.class).addModifiers(Modifier.PUBLIC)
+						.returns(Object.class).addStatement("return $L()", TARGET_METHOD_NAME).build());
+		proxyType.addMethod(
+				MethodSpec.methodBuilder("removeFromScope").addAnnotation(Override.class).addModifiers(Modifier.PUBLIC)
+						.addStatement("this.beanFactory.destroyScopedBean($S)", targetName).build());
+		for (Method method : methods) {
+			proxyType.addMethod(DelegatingProxyHelper.generateDelegatingMethod(method, TARGET_METHOD_NAME));
+		}
+		return proxyType.build();
+	}
+
+}
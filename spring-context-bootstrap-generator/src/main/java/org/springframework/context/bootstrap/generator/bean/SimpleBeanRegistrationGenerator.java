@@ -16,16 +16,22 @@
 
 package org.springframework.context.bootstrap.generator.bean;
 
+import java.util.Collections;
+import java.util.Map;
+
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec.Builder;
 
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.context.bootstrap.infrastructure.BeanDefinitionCustomizers;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 
 /**
- * A {@link BeanRegistrationGenerator} implementation that uses {@code registerBean}.
+ * A {@link BeanRegistrationGenerator} implementation that uses {@code registerBean} on
+ * the bootstrap registry.
  *
  * @author Stephane Nicoll
  */
@@ -37,6 +43,10 @@ public class SimpleBeanRegistrationGenerator implements BeanRegistrationGenerato
 
 	private final BeanValueWriter beanValueWriter;
 
+	private Class<?> objectType;
+
+	private Map<String, CodeBlock> propertyValues = Collections.emptyMap();
+
 	public SimpleBeanRegistrationGenerator(String beanName, BeanDefinition beanDefinition,
 			BeanValueWriter beanValueWriter) {
 		this.beanName = beanName;
@@ -44,10 +54,28 @@ public class SimpleBeanRegistrationGenerator implements BeanRegistrationGenerato
 		this.beanValueWriter = beanValueWriter;
 	}
 
+	/**
+	 * Set the type of the object that the {@link FactoryBean} bean creates, to be
+	 * registered as its {@link FactoryBean#OBJECT_TYPE_ATTRIBUTE}.
+	 * @param objectType the object type of the factory bean, or {@code null}
+	 */
+	public void setObjectType(Class<?> objectType) {
+		this.objectType = objectType;
+	}
+
+	/**
+	 * Set the property values that the container applies to the bean, as they are not
+	 * applied by the {@link BeanValueWriter}.
+	 * @param propertyValues the value of each property, by property name
+	 */
+	public void setPropertyValues(Map<String, CodeBlock> propertyValues) {
+		this.propertyValues = propertyValues;
+	}
+
 	@Override
 	public void writeBeanRegistration(Builder method) {
 		CodeBlock.Builder code = CodeBlock.builder();
-		code.add("context.registerBean($S, $T.class, ", this.beanName,
+		code.add("registry.registerBean($S, $T.class, ", this.beanName,
 				ClassUtils.getUserClass(this.beanDefinition.getResolvableType().toClass()));
 		this.beanValueWriter.writeValueSupplier(code);
 		handleBeanMetadata(code);
@@ -63,9 +91,27 @@ public class SimpleBeanRegistrationGenerator implements BeanRegistrationGenerato
 				&& ((AbstractBeanDefinition) this.beanDefinition).isSynthetic()) {
 			code.add(", $T.synthetic()", BeanDefinitionCustomizers.class);
 		}
+		if (this.beanDefinition.isLazyInit()) {
+			code.add(", $T.lazyInit()", BeanDefinitionCustomizers.class);
+		}
+		if (isCustomScope(this.beanDefinition.getScope())) {
+			code.add(", $T.scope($S)", BeanDefinitionCustomizers.class, this.beanDefinition.getScope());
+		}
+		if (!this.beanDefinition.isAutowireCandidate()) {
+			code.add(", $T.autowireCandidate(false)", BeanDefinitionCustomizers.class);
+		}
 		if (this.beanDefinition.getRole() != BeanDefinition.ROLE_APPLICATION) {
 			code.add(", $T.role($L)", BeanDefinitionCustomizers.class, this.beanDefinition.getRole());
 		}
+		if (this.objectType != null) {
+			code.add(", $T.objectType($T.class)", BeanDefinitionCustomizers.class, this.objectType);
+		}
+		this.propertyValues.forEach(
+				(name, value) -> code.add(", $T.propertyValue($S, $L)", BeanDefinitionCustomizers.class, name, value));
+	}
+
+	private static boolean isCustomScope(String scope) {
+		return StringUtils.hasText(scope) && !BeanDefinition.SCOPE_SINGLETON.equals(scope);
 	}
 
 	@Override
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.Constants;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolve the transaction attributes of the methods of the beans that were proxied in the
+ * source context. The {@link BeanValueWriter} of the {@link TransactionAttributeSource}
+ * is decorated with a table of those attributes so that the transactional classes are not
+ * introspected at runtime.
+ * <p>
+ * A class is left to the original source if it is not accessible, if one of its
+ * attributes can't be written, or if one of its {@code @Transactional} annotations
+ * defines a qualifier, label or timeout with a placeholder or an expression, as those
+ * must be resolved against the runtime environment.
+ *
+ * @author Stephane Nicoll
+ */
+public class TransactionAttributeSourceResolver {
+
+	private static final ClassName PRECOMPUTED_TRANSACTION_ATTRIBUTE_SOURCE = ClassName
+			.get("org.springframework.context.boostrap.invoker", "PrecomputedTransactionAttributeSource");
+
+	private static final Constants TRANSACTION_CONSTANTS = new Constants(TransactionDefinition.class);
+
+	private static final Comparator<Method> METHOD_ORDER = Comparator.comparing(Method::getName)
+			.thenComparing(Method::toString);
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	public TransactionAttributeSourceResolver(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Return a {@link BeanValueWriter} that registers the precomputed transaction
+	 * attributes, or the specified {@code beanValueWriter} if the bean is not a
+	 * {@link TransactionAttributeSource} or if no attribute was resolved.
+	 * @param beanName the name of the bean
+	 * @param beanValueWriter the writer that instantiates the bean
+	 * @return the writer to use for the bean
+	 */
+	public BeanValueWriter resolve(String beanName, BeanValueWriter beanValueWriter) {
+		Object singleton = this.beanFactory.getSingleton(beanName);
+		if (!(singleton instanceof TransactionAttributeSource)
+				|| !TransactionAttributeSource.class.equals(beanValueWriter.getType())) {
+			return beanValueWriter;
+		}
+		TransactionAttributeSource source = (TransactionAttributeSource) singleton;
+		Map<String, String> attributeVariables = new LinkedHashMap<>();
+		List<CodeBlock> statements = new ArrayList<>();
+		for (Class<?> targetClass : getProxiedClasses()) {
+			List<CodeBlock> classStatements = writeRegistrations(source, targetClass, attributeVariables);
+			if (classStatements != null) {
+				statements.addAll(classStatements);
+			}
+		}
+		if (statements.isEmpty()) {
+			return beanValueWriter;
+		}
+		return new PrecomputedTransactionAttributeSourceWriter(beanValueWriter, statements);
+	}
+
+	private Set<Class<?>> getProxiedClasses() {
+		Set<Class<?>> proxiedClasses = new LinkedHashSet<>();
+		for (String beanName : this.beanFactory.getBeanDefinitionNames()) {
+			Object singleton = this.beanFactory.getSingleton(beanName);
+			if (singleton != null && AopUtils.isAopProxy(singleton)) {
+				proxiedClasses.add(AopProxyUtils.ultimateTargetClass(singleton));
+			}
+		}
+		return proxiedClasses;
+	}
+
+	private List<CodeBlock> writeRegistrations(TransactionAttributeSource source, Class<?> targetClass,
+			Map<String, String> attributeVariables) {
+		if (!TypeHelper.isAccessible(targetClass) || !source.isCandidateClass(targetClass)) {
+			return null;
+		}
+		Method[] methods = ReflectionUtils.getUniqueDeclaredMethods(targetClass, ReflectionUtils.USER_DECLARED_METHODS);
+		Arrays.sort(methods, METHOD_ORDER);
+		Map<String, String> newAttributeVariables = new LinkedHashMap<>();
+		List<CodeBlock> statements = new ArrayList<>();
+		for (Method method : methods) {
+			TransactionAttribute attribute = source.getTransactionAttribute(method, targetClass);
+			if (attribute == null) {
+				continue;
+			}
+			if (attribute.getClass() != RuleBasedTransactionAttribute.class
+					|| !Arrays.stream(method.getParameterTypes()).allMatch(TypeHelper::isAccessible)
+					|| hasEmbeddedValue(targetClass, method)) {
+				return null;
+			}
+			List<CodeBlock> setters = writeAttribute((RuleBasedTransactionAttribute) attribute);
+			String key = setters.toString();
+			String variable = attributeVariables.get(key);
+			if (variable == null) {
+				variable = newAttributeVariables.computeIfAbsent(key, (candidate) -> {
+					String name = "attribute" + (attributeVariables.size() + newAttributeVariables.size());
+					statements.add(CodeBlock.of("$T $L = new $T()", RuleBasedTransactionAttribute.class, name,
+							RuleBasedTransactionAttribute.class));
+					setters.forEach((setter) -> statements.add(CodeBlock.of("$L$L", name, setter)));
+					return name;
+				});
+			}
+			statements.add(writeRegistration(targetClass, variable, method));
+		}
+		attributeVariables.putAll(newAttributeVariables);
+		return statements;
+	}
+
+	private boolean hasEmbeddedValue(Class<?> targetClass, Method method) {
+		return Stream
+				.concat(MergedAnnotations.from(method, SearchStrategy.TYPE_HIERARCHY).stream(Transactional.class),
+						MergedAnnotations.from(targetClass, SearchStrategy.TYPE_HIERARCHY).stream(Transactional.class))
+				.anyMatch((annotation) -> isEmbeddedValue(annotation.getString("value"))
+						|| isEmbeddedValue(annotation.getString("timeoutString"))
+						|| Arrays.stream(annotation.getStringArray("label")).anyMatch(this::isEmbeddedValue));
+	}
+
+	private boolean isEmbeddedValue(String value) {
+		return value.contains("${") || value.contains("#{");
+	}
+
+	private CodeBlock writeRegistration(Class<?> targetClass, String variable, Method method) {
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("source.register($T.class, $L, $S", targetClass, variable, method.getName());
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			code.add(", $T.class", parameterType);
+		}
+		code.add(")");
+		return code.build();
+	}
+
+	private List<CodeBlock> writeAttribute(RuleBasedTransactionAttribute attribute) {
+		List<CodeBlock> statements = new ArrayList<>();
+		if (attribute.getPropagationBehavior() != TransactionDefinition.PROPAGATION_REQUIRED) {
+			statements.add(CodeBlock.of(".setPropagationBehavior($T.$L)", TransactionDefinition.class,
+					TRANSACTION_CONSTANTS.toCode(attribute.getPropagationBehavior(), "PROPAGATION_")));
+		}
+		if (attribute.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT) {
+			statements.add(CodeBlock.of(".setIsolationLevel($T.$L)", TransactionDefinition.class,
+					TRANSACTION_CONSTANTS.toCode(attribute.getIsolationLevel(), "ISOLATION_")));
+		}
+		if (attribute.getTimeout() != TransactionDefinition.TIMEOUT_DEFAULT) {
+			statements.add(CodeBlock.of(".setTimeout($L)", attribute.getTimeout()));
+		}
+		if (attribute.isReadOnly()) {
+			statements.add(CodeBlock.of(".setReadOnly(true)"));
+		}
+		if (StringUtils.hasText(attribute.getQualifier())) {
+			statements.add(CodeBlock.of(".setQualifier($S)", attribute.getQualifier()));
+		}
+		if (!attribute.getLabels().isEmpty()) {
+			statements
+					.add(CodeBlock.of(".setLabels($T.asList($L))", Arrays.class, writeStrings(attribute.getLabels())));
+		}
+		if (!attribute.getRollbackRules().isEmpty()) {
+			List<CodeBlock> rules = new ArrayList<>();
+			for (RollbackRuleAttribute rule : attribute.getRollbackRules()) {
+				Class<?> ruleType = (rule instanceof NoRollbackRuleAttribute) ? NoRollbackRuleAttribute.class
+						: RollbackRuleAttribute.class;
+				rules.add(CodeBlock.of("new $T($S)", ruleType, rule.getExceptionName()));
+			}
+			statements.add(CodeBlock.of(".setRollbackRules($T.asList($L))", Arrays.class, CodeBlock.join(rules, ", ")));
+		}
+		return statements;
+	}
+
+	private CodeBlock writeStrings(Iterable<String> values) {
+		List<CodeBlock> strings = new ArrayList<>();
+		values.forEach((value) -> strings.add(CodeBlock.of("$S", value)));
+		return CodeBlock.join(strings, ", ");
+	}
+
+	private static final class PrecomputedTransactionAttributeSourceWriter implements BeanValueWriter {
+
+		private final BeanValueWriter delegate;
+
+		private final List<CodeBlock> statements;
+
+		PrecomputedTransactionAttributeSourceWriter(BeanValueWriter delegate, List<CodeBlock> statements) {
+			this.delegate = delegate;
+			this.statements = statements;
+		}
+
+		@Override
+		public Class<?> getType() {
+			return this.delegate.getType();
+		}
+
+		@Override
+		public Class<?> getDeclaringType() {
+			return this.delegate.getDeclaringType();
+		}
+
+		@Override
+		public boolean isAccessibleFrom(String packageName) {
+			return this.delegate.isAccessibleFrom(packageName);
+		}
+
+		@Override
+		public void writeValueSupplier(CodeBlock.Builder code) {
+			code.add("$T.of(", PRECOMPUTED_TRANSACTION_ATTRIBUTE_SOURCE);
+			this.delegate.writeValueSupplier(code);
+			code.add(", (source) -> {\n").indent();
+			for (CodeBlock statement : this.statements) {
+				code.add("$L;\n", statement);
+			}
+			code.unindent().add("})");
+		}
+
+	}
+
+}
@@ -16,6 +16,10 @@
 
 package org.springframework.context.bootstrap.generator.bean;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import com.squareup.javapoet.CodeBlock;
@@ -33,6 +37,48 @@ abstract class TypeHelper {
 		generate(code, target, false);
 	}
 
+	/**
+	 * Return the type of the parameter of the specified constructor or method.
+	 * @param executable the constructor or method
+	 * @param index the index of the parameter
+	 * @return the type of the parameter
+	 */
+	static ResolvableType getParameterType(Executable executable, int index) {
+		return (executable instanceof Method) ? ResolvableType.forMethodParameter((Method) executable, index)
+				: ResolvableType.forConstructorParameter((Constructor<?>) executable, index);
+	}
+
+	/**
+	 * Specify if the specified type can be referenced from any package.
+	 * @param target the type to check
+	 * @return {@code true} if the type and its generics are public
+	 */
+	static boolean isAccessible(ResolvableType target) {
+		if (!isAccessible(target.toClass())) {
+			return false;
+		}
+		return Arrays.stream(target.getGenerics()).allMatch(TypeHelper::isAccessible);
+	}
+
+	/**
+	 * Specify if the specified class can be referenced from any package.
+	 * @param target the class to check
+	 * @return {@code true} if the class and its enclosing classes are public
+	 */
+	static boolean isAccessible(Class<?> target) {
+		Class<?> type = target;
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return true;
+		}
+		if (!Modifier.isPublic(type.getModifiers())) {
+			return false;
+		}
+		return type.getDeclaringClass() == null || isAccessible(type.getDeclaringClass());
+	}
+
 	private static void generate(CodeBlock.Builder code, ResolvableType target, boolean forceResolvableType) {
 		Class<?> type = target.toClass();
 		if (!target.hasGenerics()) {
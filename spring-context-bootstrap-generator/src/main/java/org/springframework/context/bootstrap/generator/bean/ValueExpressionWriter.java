@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Write the value of a {@link org.springframework.beans.factory.annotation.Value @Value}
+ * annotation. Placeholders are resolved against the environment, or by the embedded value
+ * resolver of the bean factory if a {@link PropertySourcesPlaceholderConfigurer} is
+ * registered, and the result is converted to the target type using the type converter of
+ * the bean factory. SpEL expressions that do not depend on a placeholder are parsed once
+ * in a constant of the bootstrap class.
+ *
+ * @author Stephane Nicoll
+ */
+public class ValueExpressionWriter {
+
+	private static final ClassName BEAN_EXPRESSIONS = ClassName.get("org.springframework.context.boostrap.invoker",
+			"BeanExpressions");
+
+	private static final ClassName EXPRESSION = ClassName.get("org.springframework.expression", "Expression");
+
+	private final ClassName constantsClassName;
+
+	private final boolean embeddedValueResolver;
+
+	private final ResolvableTypeWriter resolvableTypeWriter;
+
+	private final Map<String, FieldSpec> expressions;
+
+	/**
+	 * Create a new instance.
+	 * @param constantsClassName the class that holds the parsed expressions, or
+	 * {@code null} to parse them when the value is resolved
+	 * @param embeddedValueResolver whether placeholders should be resolved by the
+	 * embedded value resolver of the bean factory rather than against the environment
+	 */
+	public ValueExpressionWriter(ClassName constantsClassName, boolean embeddedValueResolver) {
+		this(constantsClassName, embeddedValueResolver, new ResolvableTypeWriter(null));
+	}
+
+	/**
+	 * Create a new instance.
+	 * @param constantsClassName the class that holds the parsed expressions, or
+	 * {@code null} to parse them when the value is resolved
+	 * @param embeddedValueResolver whether placeholders should be resolved by the
+	 * embedded value resolver of the bean factory rather than against the environment
+	 * @param resolvableTypeWriter the writer of the generic target types
+	 */
+	public ValueExpressionWriter(ClassName constantsClassName, boolean embeddedValueResolver,
+			ResolvableTypeWriter resolvableTypeWriter) {
+		this(constantsClassName, embeddedValueResolver, resolvableTypeWriter, new LinkedHashMap<>());
+	}
+
+	private ValueExpressionWriter(ClassName constantsClassName, boolean embeddedValueResolver,
+			ResolvableTypeWriter resolvableTypeWriter, Map<String, FieldSpec> expressions) {
+		this.constantsClassName = constantsClassName;
+		this.embeddedValueResolver = embeddedValueResolver;
+		this.resolvableTypeWriter = resolvableTypeWriter;
+		this.expressions = expressions;
+	}
+
+	/**
+	 * Create a new instance that matches the placeholder resolution of the specified bean
+	 * factory: placeholders are resolved by its embedded value resolver if a
+	 * {@link PropertySourcesPlaceholderConfigurer} is registered, so that its local
+	 * properties and settings apply.
+	 * @param beanFactory the source bean factory
+	 * @param constantsClassName the class that holds the parsed expressions
+	 * @param resolvableTypeWriter the writer of the generic target types
+	 * @return a new instance
+	 */
+	public static ValueExpressionWriter forBeanFactory(ConfigurableListableBeanFactory beanFactory,
+			ClassName constantsClassName, ResolvableTypeWriter resolvableTypeWriter) {
+		return new ValueExpressionWriter(constantsClassName, hasPlaceholderConfigurer(beanFactory),
+				resolvableTypeWriter);
+	}
+
+	/**
+	 * Return a new instance that matches the placeholder resolution of the specified bean
+	 * factory and shares the parsed expressions of this instance.
+	 * @param beanFactory the source bean factory
+	 * @return a new instance
+	 * @see #forBeanFactory(ConfigurableListableBeanFactory, ClassName,
+	 * ResolvableTypeWriter)
+	 */
+	public ValueExpressionWriter withBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		return new ValueExpressionWriter(this.constantsClassName, hasPlaceholderConfigurer(beanFactory),
+				this.resolvableTypeWriter, this.expressions);
+	}
+
+	private static boolean hasPlaceholderConfigurer(ConfigurableListableBeanFactory beanFactory) {
+		return beanFactory.getBeanNamesForType(PropertySourcesPlaceholderConfigurer.class, true, false).length > 0;
+	}
+
+	/**
+	 * Write the value of the specified {@code @Value} annotation.
+	 * @param code the code to write to
+	 * @param value the value of the annotation
+	 * @param targetType the type to convert the value to
+	 */
+	public void writeValue(CodeBlock.Builder code, String value, ResolvableType targetType) {
+		boolean placeholders = value.contains("${");
+		CodeBlock resolvedValue = CodeBlock.of("$S", value);
+		if (placeholders) {
+			resolvedValue = (this.embeddedValueResolver)
+					? CodeBlock.of("context.getBeanFactory().resolveEmbeddedValue($S)", value)
+					: CodeBlock.of("context.getEnvironment().resolvePlaceholders($S)", value);
+		}
+		boolean expression = value.contains("#{");
+		if (expression) {
+			CodeBlock parsedExpression = (!placeholders && this.constantsClassName != null)
+					? CodeBlock.of("$T.$N", this.constantsClassName, getExpressionField(value))
+					: CodeBlock.of("$T.parse($L)", BEAN_EXPRESSIONS, resolvedValue);
+			resolvedValue = CodeBlock.of("$T.evaluate($L, context)", BEAN_EXPRESSIONS, parsedExpression);
+		}
+		Class<?> targetClass = targetType.toClass();
+		if (targetClass == Object.class || (!expression && targetClass == String.class)) {
+			code.add(resolvedValue);
+		}
+		else if (targetType.hasGenerics()) {
+			code.add("context.getBeanFactory().getTypeConverter().convertIfNecessary($L, $T.class, new $T(",
+					resolvedValue, targetClass, TypeDescriptor.class);
+			this.resolvableTypeWriter.writeResolvableType(code, targetType);
+			code.add(", null, null))");
+		}
+		else {
+			code.add("context.getBeanFactory().getTypeConverter().convertIfNecessary($L, $T.class)", resolvedValue,
+					ClassUtils.resolvePrimitiveIfNecessary(targetClass));
+		}
+	}
+
+	private FieldSpec getExpressionField(String value) {
+		return this.expressions.computeIfAbsent(value,
+				(key) -> FieldSpec.builder(EXPRESSION, "EXPRESSION_" + this.expressions.size())
+						.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+						.initializer("$T.parse($S)", BEAN_EXPRESSIONS, key).build());
+	}
+
+	/**
+	 * Return the constants of the expressions that have been written so far.
+	 * @return the fields to add to the bootstrap class
+	 */
+	public List<FieldSpec> getExpressionFields() {
+		return new ArrayList<>(this.expressions.values());
+	}
+
+}
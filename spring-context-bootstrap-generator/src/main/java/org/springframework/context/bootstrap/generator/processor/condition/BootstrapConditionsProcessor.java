@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.processor.condition;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport.ConditionAndOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport.ConditionAndOutcomes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Record the inputs of the conditions that were evaluated to build the source bean
+ * factory and that can change at deploy time, and write a {@code BootstrapConditions}
+ * guard that verifies them when the bootstrap runs. Covered inputs are the active
+ * profiles and the properties of {@link ConditionalOnProperty} conditions that determined
+ * whether their source was processed, with the outcome recorded in the
+ * {@link ConditionEvaluationReport}. Conditions on the classpath or on other beans are
+ * fixed once the application is packaged and are not recorded.
+ *
+ * @author Stephane Nicoll
+ */
+public class BootstrapConditionsProcessor {
+
+	private static final ClassName BOOTSTRAP_CONDITIONS = ClassName.get("org.springframework.context.boostrap.invoker",
+			"BootstrapConditions");
+
+	private static final String ON_PROPERTY_CONDITION_CLASS_NAME = "org.springframework.boot.autoconfigure.condition.OnPropertyCondition";
+
+	// See ConditionEvaluationReport#get
+	private static final String CONDITION_EVALUATION_REPORT_BEAN_NAME = "autoConfigurationReport";
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	public BootstrapConditionsProcessor(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	public void registerBootstrapConditions(MethodSpec.Builder method) {
+		if (!this.beanFactory.containsBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME)
+				|| !this.beanFactory.containsSingleton(CONDITION_EVALUATION_REPORT_BEAN_NAME)) {
+			return;
+		}
+		ConfigurableEnvironment environment = this.beanFactory
+				.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, ConfigurableEnvironment.class);
+		ConditionEvaluationReport report = ConditionEvaluationReport.get(this.beanFactory);
+		CodeBlock.Builder code = CodeBlock.builder();
+		code.add("$T.of($L)$>", BOOTSTRAP_CONDITIONS, toArguments(environment.getActiveProfiles()));
+		Map<String, ConditionAndOutcomes> outcomesBySource = new TreeMap<>(report.getConditionAndOutcomesBySource());
+		outcomesBySource.forEach((source, outcomes) -> {
+			ConditionAndOutcome propertyOutcome = getDecidingPropertyOutcome(outcomes);
+			if (propertyOutcome != null) {
+				boolean matched = propertyOutcome.getOutcome().isMatch();
+				for (PropertySpec spec : getPropertySpecs(source)) {
+					code.add("\n.onProperty($S, $L, $S, $L, $L)", source, matched, spec.havingValue,
+							spec.matchIfMissing, toArguments(spec.names));
+				}
+			}
+		});
+		code.add("\n.verify(context.getEnvironment())$<");
+		method.addStatement(code.build());
+	}
+
+	/**
+	 * Return the outcome of the {@link ConditionalOnProperty} conditions of a source, if
+	 * the other conditions of the source matched. The outcome covers all the property
+	 * conditions of the source, as evaluated by {@code OnPropertyCondition}.
+	 * @param outcomes the outcomes of the conditions of a source
+	 * @return the outcome of the property conditions, or {@code null} if the source does
+	 * not depend on properties only
+	 */
+	private ConditionAndOutcome getDecidingPropertyOutcome(ConditionAndOutcomes outcomes) {
+		ConditionAndOutcome propertyOutcome = null;
+		for (ConditionAndOutcome outcome : outcomes) {
+			if (outcome.getCondition().getClass().getName().equals(ON_PROPERTY_CONDITION_CLASS_NAME)) {
+				propertyOutcome = outcome;
+			}
+			else if (!outcome.getOutcome().isMatch()) {
+				return null;
+			}
+		}
+		return propertyOutcome;
+	}
+
+	private List<PropertySpec> getPropertySpecs(String source) {
+		int methodIndex = source.indexOf('#');
+		String className = (methodIndex != -1) ? source.substring(0, methodIndex) : source;
+		if (!ClassUtils.isPresent(className, this.beanFactory.getBeanClassLoader())) {
+			return new ArrayList<>();
+		}
+		Class<?> type = ClassUtils.resolveClassName(className, this.beanFactory.getBeanClassLoader());
+		if (methodIndex == -1) {
+			return getPropertySpecs(MergedAnnotations.from(type));
+		}
+		String methodName = source.substring(methodIndex + 1);
+		List<Method> candidates = new ArrayList<>();
+		ReflectionUtils.doWithLocalMethods(type, (method) -> {
+			if (method.getName().equals(methodName)
+					&& MergedAnnotations.from(method).isPresent(ConditionalOnProperty.class)) {
+				candidates.add(method);
+			}
+		});
+		// Overloaded methods can't be told apart from the source
+		return (candidates.size() == 1) ? getPropertySpecs(MergedAnnotations.from(candidates.get(0)))
+				: new ArrayList<>();
+	}
+
+	private List<PropertySpec> getPropertySpecs(MergedAnnotations annotations) {
+		return annotations.stream(ConditionalOnProperty.class).map(PropertySpec::new).collect(Collectors.toList());
+	}
+
+	private CodeBlock toArguments(String[] values) {
+		List<CodeBlock> arguments = new ArrayList<>();
+		for (String value : values) {
+			arguments.add(CodeBlock.of("$S", value));
+		}
+		return CodeBlock.join(arguments, ", ");
+	}
+
+	/**
+	 * The attributes of a {@link ConditionalOnProperty} annotation.
+	 */
+	private static final class PropertySpec {
+
+		private final String[] names;
+
+		private final String havingValue;
+
+		private final boolean matchIfMissing;
+
+		PropertySpec(MergedAnnotation<ConditionalOnProperty> annotation) {
+			String prefix = annotation.getString("prefix").trim();
+			if (StringUtils.hasText(prefix) && !prefix.endsWith(".")) {
+				prefix = prefix + ".";
+			}
+			String[] names = annotation.getStringArray(MergedAnnotation.VALUE);
+			if (ObjectUtils.isEmpty(names)) {
+				names = annotation.getStringArray("name");
+			}
+			this.names = new String[names.length];
+			for (int i = 0; i < names.length; i++) {
+				this.names[i] = prefix + names[i];
+			}
+			this.havingValue = annotation.getString("havingValue");
+			this.matchIfMissing = annotation.getBoolean("matchIfMissing");
+		}
+
+	}
+
+}
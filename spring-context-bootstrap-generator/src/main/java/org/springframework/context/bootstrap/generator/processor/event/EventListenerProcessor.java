@@ -18,6 +18,7 @@ package org.springframework.context.bootstrap.generator.processor.event;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -116,7 +117,7 @@ public class EventListenerProcessor {
 				}
 			}
 		}
-		return null;
+		return Collections.emptyList();
 	}
 
 	private List<EventListenerRegistrationGenerator> processBean(String beanName, Class<?> targetType) {
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2012-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.processor.plan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.MethodIntrospector.MetadataLookup;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Evaluate the {@link BeanPostProcessor} chain of the source bean factory against each
+ * generated bean and write a {@code BeanPostProcessorPlan} with the post-processors that
+ * apply to it. Only post-processors whose effect on a bean can be determined from its
+ * initialized state or from the annotations on its class are covered:
+ * <ul>
+ * <li>Proxy-creating post-processors apply only if the bean is an AOP proxy. Those that
+ * advise beans based on an annotation, such as {@code @Async}, {@code @Validated} or
+ * {@code @Repository}, also require the annotation to be present on the target
+ * class.</li>
+ * <li>Post-processors that handle callback interfaces, such as the
+ * {@code ApplicationContextAwareProcessor}, apply only if the bean implements one of the
+ * interfaces they handle. As callbacks are invoked before the bean is proxied, the target
+ * class of a proxy and the type of the bean definition are checked as well.</li>
+ * <li>The {@code ScheduledAnnotationBeanPostProcessor} applies only if the target class
+ * has {@code @Scheduled} methods, and the
+ * {@code ConfigurationPropertiesBindingPostProcessor} only if the bean is annotated with
+ * {@code @ConfigurationProperties}.</li>
+ * </ul>
+ * Other post-processors, and beans whose singleton instance is not available, are not
+ * part of the plan and go through the regular chain at runtime.
+ *
+ * @author Stephane Nicoll
+ */
+public class BeanPostProcessorPlanProcessor {
+
+	private static final ClassName BEAN_POST_PROCESSOR_PLAN = ClassName
+			.get("org.springframework.context.boostrap.invoker", "BeanPostProcessorPlan");
+
+	private static final Map<String, List<String>> CALLBACK_TYPES = new HashMap<>();
+
+	private static final Map<String, List<String>> ADVISING_ANNOTATION_TYPES = new HashMap<>();
+
+	private static final String SCHEDULED_ANNOTATION_POST_PROCESSOR_CLASS_NAME = "org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor";
+
+	private static final String CONFIGURATION_PROPERTIES_BINDING_POST_PROCESSOR_CLASS_NAME = "org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor";
+
+	static {
+		CALLBACK_TYPES.put("org.springframework.context.support.ApplicationContextAwareProcessor",
+				Arrays.asList("org.springframework.context.EnvironmentAware",
+						"org.springframework.context.EmbeddedValueResolverAware",
+						"org.springframework.context.ResourceLoaderAware",
+						"org.springframework.context.ApplicationEventPublisherAware",
+						"org.springframework.context.MessageSourceAware",
+						"org.springframework.context.ApplicationStartupAware",
+						"org.springframework.context.ApplicationContextAware"));
+		CALLBACK_TYPES.put("org.springframework.context.support.ApplicationListenerDetector",
+				Collections.singletonList("org.springframework.context.ApplicationListener"));
+		CALLBACK_TYPES.put(
+				"org.springframework.context.annotation.ConfigurationClassPostProcessor$ImportAwareBeanPostProcessor",
+				Collections.singletonList("org.springframework.context.annotation.ImportAware"));
+		CALLBACK_TYPES.put("org.springframework.context.weaving.LoadTimeWeaverAwareProcessor",
+				Collections.singletonList("org.springframework.context.weaving.LoadTimeWeaverAware"));
+		CALLBACK_TYPES.put("org.springframework.boot.web.server.WebServerFactoryCustomizerBeanPostProcessor",
+				Collections.singletonList("org.springframework.boot.web.server.WebServerFactory"));
+		CALLBACK_TYPES.put("org.springframework.boot.web.server.ErrorPageRegistrarBeanPostProcessor",
+				Collections.singletonList("org.springframework.boot.web.server.ErrorPageRegistry"));
+		ADVISING_ANNOTATION_TYPES.put("org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor",
+				Arrays.asList("org.springframework.scheduling.annotation.Async", "javax.ejb.Asynchronous"));
+		ADVISING_ANNOTATION_TYPES.put("org.springframework.validation.beanvalidation.MethodValidationPostProcessor",
+				Collections.singletonList("org.springframework.validation.annotation.Validated"));
+		ADVISING_ANNOTATION_TYPES.put("org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor",
+				Collections.singletonList("org.springframework.stereotype.Repository"));
+	}
+
+	private final ConfigurableListableBeanFactory beanFactory;
+
+	public BeanPostProcessorPlanProcessor(ConfigurableListableBeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	public void registerBeanPostProcessorPlan(MethodSpec.Builder method, Collection<String> beanNames) {
+		List<BeanPostProcessor> postProcessors = getPlannedPostProcessors();
+		if (postProcessors.isEmpty()) {
+			return;
+		}
+		Map<Long, List<String>> beanNamesByMask = new TreeMap<>();
+		for (String beanName : beanNames) {
+			Object bean = getSingleton(beanName);
+			if (bean != null) {
+				long mask = 0;
+				for (int i = 0; i < postProcessors.size(); i++) {
+					if (isApplicable(postProcessors.get(i), beanName, bean)) {
+						mask |= (1L << i);
+					}
+				}
+				beanNamesByMask.computeIfAbsent(mask, (key) -> new ArrayList<>()).add(beanName);
+			}
+		}
+		if (beanNamesByMask.isEmpty()) {
+			return;
+		}
+		List<CodeBlock> postProcessorClassNames = new ArrayList<>();
+		postProcessors.forEach(
+				(postProcessor) -> postProcessorClassNames.add(CodeBlock.of("$S", postProcessor.getClass().getName())));
+		method.addStatement("$T beanPostProcessorPlan = $T.of($L)", BEAN_POST_PROCESSOR_PLAN, BEAN_POST_PROCESSOR_PLAN,
+				CodeBlock.join(postProcessorClassNames, ", "));
+		beanNamesByMask.forEach((mask, names) -> {
+			List<CodeBlock> arguments = new ArrayList<>();
+			names.forEach((name) -> arguments.add(CodeBlock.of("$S", name)));
+			method.addStatement("beanPostProcessorPlan.register($LL, $L)", mask, CodeBlock.join(arguments, ", "));
+		});
+		method.addStatement("beanPostProcessorPlan.applyTo(context)");
+	}
+
+	private List<BeanPostProcessor> getPlannedPostProcessors() {
+		if (!(this.beanFactory instanceof AbstractBeanFactory)) {
+			return new ArrayList<>();
+		}
+		Map<String, BeanPostProcessor> postProcessors = new LinkedHashMap<>();
+		for (BeanPostProcessor postProcessor : ((AbstractBeanFactory) this.beanFactory).getBeanPostProcessors()) {
+			if (isPlanned(postProcessor) && postProcessors.size() < Long.SIZE) {
+				postProcessors.putIfAbsent(postProcessor.getClass().getName(), postProcessor);
+			}
+		}
+		return new ArrayList<>(postProcessors.values());
+	}
+
+	private Object getSingleton(String beanName) {
+		if (!this.beanFactory.containsSingleton(beanName)
+				|| !this.beanFactory.getMergedBeanDefinition(beanName).isSingleton()) {
+			return null;
+		}
+		Object singleton = this.beanFactory.getSingleton(beanName);
+		// Post-processors also apply to the objects a FactoryBean creates
+		return (singleton instanceof FactoryBean) ? null : singleton;
+	}
+
+	private boolean isPlanned(BeanPostProcessor postProcessor) {
+		String className = postProcessor.getClass().getName();
+		return postProcessor instanceof ProxyProcessorSupport || CALLBACK_TYPES.containsKey(className)
+				|| className.equals(SCHEDULED_ANNOTATION_POST_PROCESSOR_CLASS_NAME)
+				|| className.equals(CONFIGURATION_PROPERTIES_BINDING_POST_PROCESSOR_CLASS_NAME);
+	}
+
+	private boolean isApplicable(BeanPostProcessor postProcessor, String beanName, Object bean) {
+		String className = postProcessor.getClass().getName();
+		Class<?> targetClass = AopProxyUtils.ultimateTargetClass(bean);
+		if (postProcessor instanceof ProxyProcessorSupport) {
+			List<String> annotationTypes = ADVISING_ANNOTATION_TYPES.get(className);
+			return AopUtils.isAopProxy(bean) && (annotationTypes == null
+					|| annotationTypes.stream().anyMatch((annotationType) -> isAnnotated(targetClass, annotationType)));
+		}
+		if (className.equals(SCHEDULED_ANNOTATION_POST_PROCESSOR_CLASS_NAME)) {
+			return hasAnnotatedMethod(targetClass, Scheduled.class.getName());
+		}
+		if (className.equals(CONFIGURATION_PROPERTIES_BINDING_POST_PROCESSOR_CLASS_NAME)) {
+			return this.beanFactory.findAnnotationOnBean(beanName, ConfigurationProperties.class) != null;
+		}
+		// Callbacks are invoked on the raw bean, before it is wrapped in a proxy
+		Class<?> beanType = this.beanFactory.getMergedBeanDefinition(beanName).getResolvableType().resolve();
+		return CALLBACK_TYPES.get(className).stream().anyMatch((type) -> isAssignable(type, bean.getClass())
+				|| isAssignable(type, targetClass) || (beanType != null && isAssignable(type, beanType)));
+	}
+
+	private boolean isAnnotated(Class<?> targetClass, String annotationType) {
+		return MergedAnnotations.from(targetClass, SearchStrategy.TYPE_HIERARCHY).isPresent(annotationType)
+				|| hasAnnotatedMethod(targetClass, annotationType);
+	}
+
+	private boolean hasAnnotatedMethod(Class<?> targetClass, String annotationType) {
+		return !MethodIntrospector
+				.selectMethods(targetClass,
+						(MetadataLookup<Boolean>) (method) -> MergedAnnotations
+								.from(method, SearchStrategy.TYPE_HIERARCHY).isPresent(annotationType) ? Boolean.TRUE
+										: null)
+				.isEmpty();
+	}
+
+	private boolean isAssignable(String typeName, Class<?> type) {
+		ClassLoader classLoader = type.getClassLoader();
+		return ClassUtils.isPresent(typeName, classLoader)
+				&& ClassUtils.resolveClassName(typeName, classLoader).isAssignableFrom(type);
+	}
+
+}
@@ -16,6 +16,7 @@
 
 package org.springframework.context.bootstrap.infrastructure;
 
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 
@@ -38,8 +39,28 @@ public abstract class BeanDefinitionCustomizers {
 		};
 	}
 
+	public static BeanDefinitionCustomizer lazyInit() {
+		return (beanDefinition) -> beanDefinition.setLazyInit(true);
+	}
+
+	public static BeanDefinitionCustomizer scope(String scope) {
+		return (beanDefinition) -> beanDefinition.setScope(scope);
+	}
+
+	public static BeanDefinitionCustomizer autowireCandidate(boolean autowireCandidate) {
+		return (beanDefinition) -> beanDefinition.setAutowireCandidate(autowireCandidate);
+	}
+
 	public static BeanDefinitionCustomizer role(int role) {
 		return (beanDefinition) -> beanDefinition.setRole(role);
 	}
 
+	public static BeanDefinitionCustomizer objectType(Class<?> objectType) {
+		return (beanDefinition) -> beanDefinition.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, objectType);
+	}
+
+	public static BeanDefinitionCustomizer propertyValue(String name, Object value) {
+		return (beanDefinition) -> beanDefinition.getPropertyValues().add(name, value);
+	}
+
 }
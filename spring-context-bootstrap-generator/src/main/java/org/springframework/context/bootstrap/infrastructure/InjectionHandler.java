@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.infrastructure;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A helper class for bean value suppliers that inject fields that are not accessible from
+ * the bootstrap class. Members are resolved once per declaring class and name.
+ *
+ * @author Stephane Nicoll
+ */
+public final class InjectionHandler {
+
+	private static final Map<Class<?>, Map<String, Field>> fieldCache = new ConcurrentReferenceHashMap<>();
+
+	private static final Map<Class<?>, Map<String, Method>> methodCache = new ConcurrentReferenceHashMap<>();
+
+	private InjectionHandler() {
+	}
+
+	/**
+	 * Set the field with the specified name on the target instance.
+	 * @param target the instance to inject
+	 * @param declaringClass the class that declares the field
+	 * @param fieldName the name of the field
+	 * @param value the value to inject
+	 */
+	public static void setField(Object target, Class<?> declaringClass, String fieldName, Object value) {
+		ReflectionUtils.setField(getField(declaringClass, fieldName), target, value);
+	}
+
+	/**
+	 * Invoke the method with the specified name and no parameter on the target instance.
+	 * @param target the instance to invoke the method on
+	 * @param declaringClass the class that declares the method
+	 * @param methodName the name of the method
+	 */
+	public static void invokeMethod(Object target, Class<?> declaringClass, String methodName) {
+		ReflectionUtils.invokeMethod(getMethod(declaringClass, methodName), target);
+	}
+
+	private static Field getField(Class<?> declaringClass, String fieldName) {
+		return fieldCache.computeIfAbsent(declaringClass, (key) -> new ConcurrentHashMap<>()).computeIfAbsent(fieldName,
+				(key) -> {
+					Field field = ReflectionUtils.findField(declaringClass, fieldName);
+					if (field == null) {
+						throw new IllegalStateException(
+								"No field '" + fieldName + "' found on " + declaringClass.getName());
+					}
+					ReflectionUtils.makeAccessible(field);
+					return field;
+				});
+	}
+
+	private static Method getMethod(Class<?> declaringClass, String methodName) {
+		return methodCache.computeIfAbsent(declaringClass, (key) -> new ConcurrentHashMap<>())
+				.computeIfAbsent(methodName, (key) -> {
+					Method method = ReflectionUtils.findMethod(declaringClass, methodName);
+					if (method == null) {
+						throw new IllegalStateException(
+								"No method '" + methodName + "' found on " + declaringClass.getName());
+					}
+					ReflectionUtils.makeAccessible(method);
+					return method;
+				});
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.bootstrap.generator.BeanReachabilityReport.RemovedBean;
+import org.springframework.context.bootstrap.generator.sample.event.TestEventListener;
+import org.springframework.context.bootstrap.generator.sample.reachability.InitializerConfiguration;
+import org.springframework.context.bootstrap.generator.sample.reachability.ReachabilityConfiguration;
+import org.springframework.context.bootstrap.generator.sample.reachability.ReachabilityConfiguration.UnusedService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanReachability}.
+ *
+ * @author Stephane Nicoll
+ */
+class BeanReachabilityTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner();
+
+	private final BeanDefinitionSelector selector = new DefaultBeanDefinitionSelector(Collections.emptyList());
+
+	@Test
+	void analyzeRemovesUnreachableBean() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots(), (report) -> {
+					assertThat(report.getRemovedBeans()).singleElement().satisfies((removedBean) -> {
+						assertThat(removedBean.getBeanName()).isEqualTo("unusedService");
+						assertThat(removedBean.getType()).isEqualTo(UnusedService.class);
+						assertThat(removedBean.getEstimatedSize()).isEqualTo(16);
+					});
+					assertThat(report.isRemoved("unusedService")).isTrue();
+				});
+	}
+
+	@Test
+	void analyzeKeepsDependenciesOfRoots() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots(), (report) -> {
+					assertThat(report.isRemoved("runner")).isFalse();
+					assertThat(report.isRemoved("usedService")).isFalse();
+					assertThat(report.isRemoved("reachabilityConfiguration")).isFalse();
+				});
+	}
+
+	@Test
+	void analyzeKeepsCandidatesOfObjectProvider() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots(),
+				(report) -> assertThat(report.isRemoved("deferredService")).isFalse());
+	}
+
+	@Test
+	void analyzeWithRootBeanNameKeepsBean() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots().withRootBeanNames("unusedService"),
+				(report) -> assertThat(report.getRemovedBeans()).isEmpty());
+	}
+
+	@Test
+	void analyzeWithRootTypeKeepsBean() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots().withRootTypes(UnusedService.class.getName()),
+				(report) -> assertThat(report.getRemovedBeans()).isEmpty());
+	}
+
+	@Test
+	void analyzeKeepsBeanWithEventListenerMethod() {
+		analyze(this.contextRunner.withUserConfiguration(TestEventListener.class), BeanReachability.withDefaultRoots(),
+				(report) -> assertThat(report.isRemoved("testEventListener")).isFalse());
+	}
+
+	@Test
+	void analyzeKeepsSingletonsWithInitializationCallback() {
+		analyze(this.contextRunner.withUserConfiguration(InitializerConfiguration.class),
+				BeanReachability.withDefaultRoots(), (report) -> {
+					assertThat(report.isRemoved("databaseInitializer")).isFalse();
+					assertThat(report.isRemoved("annotatedInitializer")).isFalse();
+					assertThat(report.isRemoved("customInitializer")).isFalse();
+					assertThat(report.isRemoved("initializerConfiguration")).isFalse();
+				});
+	}
+
+	@Test
+	void analyzeRemovesLazySingletonWithInitializationCallback() {
+		analyze(this.contextRunner.withUserConfiguration(InitializerConfiguration.class),
+				BeanReachability.withDefaultRoots(),
+				(report) -> assertThat(report.isRemoved("lazyDatabaseInitializer")).isTrue());
+	}
+
+	@Test
+	void analyzeWithoutBufferedStartupDoesNotEstimateStartupTime() {
+		analyze(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class),
+				BeanReachability.withDefaultRoots(),
+				(report) -> assertThat(report.getEstimatedStartupTimeSaved()).isNull());
+	}
+
+	@Test
+	void analyzeWithBufferedStartupEstimatesStartupTime() {
+		analyze(this.contextRunner
+				.withInitializer((context) -> context.setApplicationStartup(new BufferingApplicationStartup(1024)))
+				.withUserConfiguration(ReachabilityConfiguration.class), BeanReachability.withDefaultRoots(),
+				(report) -> {
+					assertThat(report.getRemovedBeans()).extracting(RemovedBean::getEstimatedStartupTime)
+							.doesNotContainNull();
+					assertThat(report.getEstimatedStartupTimeSaved()).isNotNull();
+				});
+	}
+
+	private void analyze(ApplicationContextRunner runner, BeanReachability beanReachability,
+			Consumer<BeanReachabilityReport> report) {
+		runner.run((context) -> report.accept(
+				beanReachability.analyze(context.getSourceApplicationContext().getBeanFactory(), this.selector)));
+	}
+
+}
@@ -28,16 +28,42 @@ import org.springframework.boot.autoconfigure.info.ProjectInfoAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.bootstrap.generator.sample.SimpleConfiguration;
 import org.springframework.context.bootstrap.generator.sample.autoconfigure.AutoConfigurationPackagesConfiguration;
+import org.springframework.context.bootstrap.generator.sample.collection.CollectionConfiguration;
+import org.springframework.context.bootstrap.generator.sample.condition.ConditionConfiguration;
 import org.springframework.context.bootstrap.generator.sample.dependency.DependencyConfiguration;
 import org.springframework.context.bootstrap.generator.sample.event.TestEventListener;
 import org.springframework.context.bootstrap.generator.sample.exception.ExceptionConfiguration;
 import org.springframework.context.bootstrap.generator.sample.exception.ExceptionConstructorConfiguration;
+import org.springframework.context.bootstrap.generator.sample.factorybean.FactoryBeanConfiguration;
+import org.springframework.context.bootstrap.generator.sample.factorybean.FactoryBeanConsumerConfiguration;
+import org.springframework.context.bootstrap.generator.sample.factorybean.LazyFactoryBeanConsumerConfiguration;
+import org.springframework.context.bootstrap.generator.sample.family.TenantClientsConfiguration;
 import org.springframework.context.bootstrap.generator.sample.generic.GenericConfiguration;
 import org.springframework.context.bootstrap.generator.sample.generic.GenericObjectProviderConfiguration;
 import org.springframework.context.bootstrap.generator.sample.generic.Repository;
 import org.springframework.context.bootstrap.generator.sample.generic.RepositoryHolder;
 import org.springframework.context.bootstrap.generator.sample.infrastructure.ArgumentValueRegistrarConfiguration;
+import org.springframework.context.bootstrap.generator.sample.infrastructure.UnsupportedArgumentValueRegistrarConfiguration;
+import org.springframework.context.bootstrap.generator.sample.injection.InjectionConfiguration;
+import org.springframework.context.bootstrap.generator.sample.inlining.InliningConfiguration;
+import org.springframework.context.bootstrap.generator.sample.inlining.NonSingletonConsumerConfiguration;
+import org.springframework.context.bootstrap.generator.sample.lazy.LazyClassConfiguration;
+import org.springframework.context.bootstrap.generator.sample.lazy.LazyConfiguration;
+import org.springframework.context.bootstrap.generator.sample.lifecycle.LifecycleConfiguration;
 import org.springframework.context.bootstrap.generator.sample.metadata.MetadataConfiguration;
+import org.springframework.context.bootstrap.generator.sample.plan.AnnotationDrivenConfiguration;
+import org.springframework.context.bootstrap.generator.sample.plan.ContextAwareProxyConfiguration;
+import org.springframework.context.bootstrap.generator.sample.plan.GenericProxyConfiguration;
+import org.springframework.context.bootstrap.generator.sample.plan.ProxyConfiguration;
+import org.springframework.context.bootstrap.generator.sample.profile.ProfileConfiguration;
+import org.springframework.context.bootstrap.generator.sample.properties.PropertiesConfiguration;
+import org.springframework.context.bootstrap.generator.sample.propertyvalue.InnerBeanPropertyValueConfiguration;
+import org.springframework.context.bootstrap.generator.sample.propertyvalue.PropertyValueConfiguration;
+import org.springframework.context.bootstrap.generator.sample.reachability.ReachabilityConfiguration;
+import org.springframework.context.bootstrap.generator.sample.scope.ScopeConfiguration;
+import org.springframework.context.bootstrap.generator.sample.scope.StatefulScopeConfiguration;
+import org.springframework.context.bootstrap.generator.sample.transaction.TransactionConfiguration;
+import org.springframework.context.bootstrap.generator.sample.value.ValueConfiguration;
 import org.springframework.context.bootstrap.generator.sample.visibility.ProtectedConfigurationImport;
 import org.springframework.context.bootstrap.generator.sample.visibility.ProtectedConstructorParameterConfiguration;
 import org.springframework.context.bootstrap.generator.sample.visibility.ProtectedMethodParameterConfiguration;
@@ -46,8 +72,11 @@ import org.springframework.context.bootstrap.generator.sample.visibility.PublicO
 import org.springframework.context.bootstrap.generator.test.ContextBootstrapGeneratorTester;
 import org.springframework.context.bootstrap.generator.test.ContextBootstrapStructure;
 import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.entry;
 
 /**
  * Tests for {@link ContextBootstrapGenerator}.
@@ -73,14 +102,25 @@ class ContextBootstrapGeneratorTests {
 		assertThat(structure).contextBootstrap().contains("import " + GenericApplicationContext.class.getName() + ";");
 	}
 
+	@Test
+	void bootstrapClassRegistersBeansInBulk() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(SimpleConfiguration.class));
+		assertThat(structure).contextBootstrap()
+				.contains("BootstrapRegistry registry = BootstrapRegistry.of(context, ");
+		assertThat(structure).contextBootstrap().lines().containsSubsequence(
+				"    registry.registerBean(\"simpleConfiguration\", SimpleConfiguration.class, SimpleConfiguration::new);",
+				"    registry.register();");
+	}
+
 	@Test
 	void bootstrapClassWithBeanMethodAndNoParameter() {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(SimpleConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"simpleConfiguration\", SimpleConfiguration.class, SimpleConfiguration::new);",
-				"context.registerBean(\"stringBean\", String.class, () -> context.getBean(SimpleConfiguration.class).stringBean());",
-				"context.registerBean(\"integerBean\", Integer.class, () -> context.getBean(SimpleConfiguration.class).integerBean());");
+				"registry.registerBean(\"simpleConfiguration\", SimpleConfiguration.class, SimpleConfiguration::new);",
+				"registry.registerBean(\"stringBean\", String.class, () -> context.getBean(\"simpleConfiguration\", SimpleConfiguration.class).stringBean());",
+				"registry.registerBean(\"integerBean\", Integer.class, () -> context.getBean(\"simpleConfiguration\", SimpleConfiguration.class).integerBean());");
 	}
 
 	@Test
@@ -89,18 +129,18 @@ class ContextBootstrapGeneratorTests {
 				this.contextRunner.withConfiguration(AutoConfigurations.of(ProjectInfoAutoConfiguration.class)));
 		// NOTE: application context runner does not register auto-config as FQNs
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"projectInfoAutoConfiguration\", ProjectInfoAutoConfiguration.class, () -> new ProjectInfoAutoConfiguration(context.getBean(ProjectInfoProperties.class)));",
-				"context.registerBean(\"spring.info-org.springframework.boot.autoconfigure.info.ProjectInfoProperties\", ProjectInfoProperties.class, ProjectInfoProperties::new);");
+				"registry.registerBean(\"projectInfoAutoConfiguration\", ProjectInfoAutoConfiguration.class, () -> new ProjectInfoAutoConfiguration(context.getBean(ProjectInfoProperties.class)));",
+				"registry.registerBean(\"spring.info-org.springframework.boot.autoconfigure.info.ProjectInfoProperties\", ProjectInfoProperties.class, ProjectInfoProperties::new);");
 	}
 
 	@Test
 	void bootstrapClassWithAutoConfigurationPackages() {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(AutoConfigurationPackagesConfiguration.class));
-		assertThat(structure).contextBootstrap()
-				.contains("org.springframework.boot.autoconfigure.ContextBootstrap.registerBasePackages(context)");
+		assertThat(structure).contextBootstrap().contains(
+				"org.springframework.boot.autoconfigure.ContextBootstrap.registerBasePackages(context, registry)");
 		assertThat(structure).source("org.springframework.boot.autoconfigure", "ContextBootstrap")
-				.contains("context.registerBean(\"org.springframework.boot.autoconfigure.AutoConfigurationPackages\", "
+				.contains("registry.registerBean(\"org.springframework.boot.autoconfigure.AutoConfigurationPackages\", "
 						+ "AutoConfigurationPackages.BasePackages.class, "
 						+ "() -> new AutoConfigurationPackages.BasePackages(new String[] { \"org.springframework.context.bootstrap.generator.sample.autoconfigure\" }), "
 						+ "BeanDefinitionCustomizers.role(2));");
@@ -110,18 +150,266 @@ class ContextBootstrapGeneratorTests {
 	void bootstrapClassWithConfigurationProperties() {
 		ContextBootstrapStructure structure = this.generatorTester.generate(this.contextRunner
 				.withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class)));
-		assertThat(structure).contextBootstrap().contains("context.registerBean("
+		assertThat(structure).contextBootstrap().contains("registry.registerBean("
 				+ "\"org.springframework.boot.context.properties.EnableConfigurationPropertiesRegistrar.methodValidationExcludeFilter\", "
 				+ "MethodValidationExcludeFilter.class, "
 				+ "() -> MethodValidationExcludeFilter.byAnnotation(ConfigurationProperties.class), BeanDefinitionCustomizers.role(2));");
 	}
 
+	@Test
+	void bootstrapClassWithConfigurationPropertiesBinding() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(PropertiesConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"sample.app-org.springframework.context.bootstrap.generator.sample.properties.SampleProperties\", SampleProperties.class, BeanInstanceSupplier.<SampleProperties>of(SampleProperties::new).withPropertiesBinding((bean) -> {",
+				"          EnvironmentBinder binder = EnvironmentBinder.of(context.getEnvironment());",
+				"          binder.bind(Integer.class, bean::setCounter, \"sample.app.counter\");",
+				"          binder.bind(String.class, bean::setName, \"sample.app.name\");",
+				"          binder.bindNested(bean::getNested, null, null, (nested1) -> binder.bind(Boolean.class, nested1::setEnabled, \"sample.app.nested.enabled\") | binder.bind(String.class, nested1::setFirstName, \"sample.app.nested.first-name\"));",
+				"          binder.bind(Duration.class, bean::setTimeout, \"sample.app.timeout\");", "        }));");
+	}
+
+	@Test
+	void bootstrapClassWithConfigurationPropertiesCollectionUsesBinder() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(PropertiesConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"sample.collection-org.springframework.context.bootstrap.generator.sample.properties.CollectionProperties\", CollectionProperties.class, CollectionProperties::new);");
+	}
+
+	@Test
+	void bootstrapClassWithValueParameterResolvesPlaceholders() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ValueConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"valueName\", String.class, () -> context.getBean(\"valueConfiguration\", ValueConfiguration.class).valueName(context.getEnvironment().resolvePlaceholders(\"${value.name:test}\")));",
+				"registry.registerBean(\"valueCounter\", Integer.class, () -> context.getBean(\"valueConfiguration\", ValueConfiguration.class).valueCounter(context.getBeanFactory().getTypeConverter().convertIfNecessary(context.getEnvironment().resolvePlaceholders(\"${value.counter:42}\"), Integer.class)));");
+	}
+
+	@Test
+	void bootstrapClassWithValueParameterAndPlaceholderConfigurerUsesEmbeddedValueResolver() {
+		ContextBootstrapStructure structure = this.generatorTester.generate(this.contextRunner
+				.withUserConfiguration(ValueConfiguration.class).withBean(PropertySourcesPlaceholderConfigurer.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"valueName\", String.class, () -> context.getBean(\"valueConfiguration\", ValueConfiguration.class).valueName(context.getBeanFactory().resolveEmbeddedValue(\"${value.name:test}\")));");
+	}
+
+	@Test
+	void bootstrapClassWithValueParameterUsesGenericTargetType() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ValueConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"valueList(context.getBeanFactory().getTypeConverter().convertIfNecessary(context.getEnvironment().resolvePlaceholders(\"${value.names:a,b}\"), List.class, new TypeDescriptor(ContextBootstrap.RESOLVABLE_TYPE_0, null, null)))",
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(List.class, String.class);");
+	}
+
+	@Test
+	void bootstrapClassWithValueParameterParsesExpressionOnce() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ValueConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"public static final Expression EXPRESSION_0 = BeanExpressions.parse(\"#{2 * 21}\");",
+				"valueExpression(context.getBeanFactory().getTypeConverter().convertIfNecessary(BeanExpressions.evaluate(ContextBootstrap.EXPRESSION_0, context), Long.class))",
+				"valueExpressionWithPlaceholder(context.getBeanFactory().getTypeConverter().convertIfNecessary(BeanExpressions.evaluate(BeanExpressions.parse(context.getEnvironment().resolvePlaceholders(\"#{'${value.prefix:x}' + 'y'}\")), context), String.class))");
+	}
+
+	@Test
+	void bootstrapClassWithPropertyConditionsRegistersGuard() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withPropertyValues("sample.condition.feature=true")
+						.withUserConfiguration(ConditionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("BootstrapConditions.of()\n"
+				+ "          .onProperty(\"org.springframework.context.bootstrap.generator.sample.condition.ConditionConfiguration\", true, \"\", true, \"sample.condition.enabled\")\n"
+				+ "          .onProperty(\"org.springframework.context.bootstrap.generator.sample.condition.ConditionConfiguration#advanced\", false, \"advanced\", false, \"sample.condition.mode\")\n"
+				+ "          .onProperty(\"org.springframework.context.bootstrap.generator.sample.condition.ConditionConfiguration#feature\", true, \"\", false, \"sample.condition.feature\")\n"
+				+ "          .verify(context.getEnvironment());");
+	}
+
+	@Test
+	void bootstrapClassWithConditionNotDecidedByPropertiesIsNotGuarded() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withPropertyValues("sample.condition.feature=true")
+						.withUserConfiguration(ConditionConfiguration.class));
+		assertThat(structure).contextBootstrap().doesNotContain("ConditionConfiguration#missingClass");
+	}
+
+	@Test
+	void bootstrapClassWithActiveProfilesRegistersGuard() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withPropertyValues("spring.profiles.active=dev,test")
+						.withUserConfiguration(ConditionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("BootstrapConditions.of(\"dev\", \"test\")");
+	}
+
+	@Test
+	void bootstrapClassesForProfilesShareCommonBeans() {
+		ContextBootstrapStructure structure = this.generatorTester.generateVariants(
+				this.contextRunner.withPropertyValues("spring.profiles.active=kafka")
+						.withUserConfiguration(ProfileConfiguration.class),
+				this.contextRunner.withPropertyValues("spring.profiles.active=rest-only")
+						.withUserConfiguration(ProfileConfiguration.class));
+		assertThat(structure).source("com.example", "ContextBootstrap").contains(
+				"public static void registerProfileConfiguration(GenericApplicationContext context,\n      BootstrapRegistry registry) {",
+				"registry.registerBean(\"profileConfiguration\", ProfileConfiguration.class, ProfileConfiguration::new);",
+				"public static void registerCommon(GenericApplicationContext context, BootstrapRegistry registry) {",
+				"registry.registerBean(\"common\", String.class, () -> context.getBean(\"profileConfiguration\", ProfileConfiguration.class).common());");
+		assertThat(structure).source("com.example", "KafkaContextBootstrap").contains(
+				"ContextBootstrap.registerProfileConfiguration(context, registry);",
+				"ContextBootstrap.registerCommon(context, registry);",
+				"registry.registerBean(\"kafka\", String.class, () -> context.getBean(\"profileConfiguration\", ProfileConfiguration.class).kafka());")
+				.doesNotContain("registry.registerBean(\"common\"").doesNotContain("restOnly()");
+		assertThat(structure).source("com.example", "RestOnlyContextBootstrap").contains(
+				"ContextBootstrap.registerProfileConfiguration(context, registry);",
+				"ContextBootstrap.registerCommon(context, registry);",
+				"registry.registerBean(\"restOnly\", String.class, () -> context.getBean(\"profileConfiguration\", ProfileConfiguration.class).restOnly());")
+				.doesNotContain("registry.registerBean(\"common\"").doesNotContain("kafka()");
+	}
+
+	@Test
+	void bootstrapClassesForProfilesShareBeansReferringToConstants() {
+		ContextBootstrapStructure structure = this.generatorTester.generateVariants(
+				this.contextRunner.withPropertyValues("spring.profiles.active=kafka")
+						.withUserConfiguration(ProfileConfiguration.class),
+				this.contextRunner.withPropertyValues("spring.profiles.active=rest-only")
+						.withUserConfiguration(ProfileConfiguration.class));
+		assertThat(structure).compiles().source("com.example", "ContextBootstrap").contains(
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(List.class, String.class);",
+				"public static void registerNames(GenericApplicationContext context, BootstrapRegistry registry) {",
+				"ContextBootstrap.RESOLVABLE_TYPE_0");
+		assertThat(structure).source("com.example", "KafkaContextBootstrap")
+				.contains("ContextBootstrap.registerNames(context, registry);").doesNotContain("RESOLVABLE_TYPE_");
+		assertThat(structure).source("com.example", "RestOnlyContextBootstrap")
+				.contains("ContextBootstrap.registerNames(context, registry);").doesNotContain("RESOLVABLE_TYPE_");
+	}
+
+	@Test
+	void bootstrapClassesForProfilesKeepRegistrationOrder() {
+		ContextBootstrapStructure structure = this.generatorTester.generateVariants(
+				this.contextRunner.withPropertyValues("spring.profiles.active=kafka")
+						.withUserConfiguration(ProfileConfiguration.class),
+				this.contextRunner.withPropertyValues("spring.profiles.active=rest-only")
+						.withUserConfiguration(ProfileConfiguration.class));
+		assertThat(structure).source("com.example", "KafkaContextBootstrap").containsSubsequence(
+				"ContextBootstrap.registerCommon(context, registry);", "registry.registerBean(\"kafka\"",
+				"ContextBootstrap.registerNames(context, registry);");
+	}
+
+	@Test
+	void bootstrapClassForDefaultProfileIsNamedAccordingly() {
+		ContextBootstrapStructure structure = this.generatorTester.generateVariants(
+				this.contextRunner.withUserConfiguration(ProfileConfiguration.class),
+				this.contextRunner.withPropertyValues("spring.profiles.active=kafka")
+						.withUserConfiguration(ProfileConfiguration.class));
+		assertThat(structure).source("com.example", "DefaultContextBootstrap")
+				.contains("ContextBootstrap.registerProfileConfiguration(context, registry);");
+	}
+
+	@Test
+	void bootstrapClassForProfileStartingWithDigitIsPrefixed() {
+		ContextBootstrapStructure structure = this.generatorTester.generateVariants(
+				this.contextRunner.withPropertyValues("spring.profiles.active=1st-run")
+						.withUserConfiguration(ProfileConfiguration.class),
+				this.contextRunner.withPropertyValues("spring.profiles.active=-kafka_$mq")
+						.withUserConfiguration(ProfileConfiguration.class));
+		assertThat(structure).compiles();
+		assertThat(structure).source("com.example", "Profile1stRunContextBootstrap")
+				.contains("public class Profile1stRunContextBootstrap {");
+		assertThat(structure).source("com.example", "KafkaMqContextBootstrap")
+				.contains("public class KafkaMqContextBootstrap {");
+	}
+
+	@Test
+	void bootstrapClassWithBeanReachabilityDoesNotRegisterUnreachableBeans() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.withBeanReachability(BeanReachability.withDefaultRoots())
+				.generate(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class));
+		assertThat(structure)
+				.contextBootstrap().contains("registry.registerBean(\"runner\"",
+						"registry.registerBean(\"usedService\"", "registry.registerBean(\"deferredService\"")
+				.doesNotContain("\"unusedService\"");
+	}
+
+	@Test
+	void bootstrapClassWithBeanReachabilityKeepsConfigurationPropertiesBinder() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.withBeanReachability(BeanReachability.withDefaultRoots())
+				.generate(this.contextRunner.withUserConfiguration(PropertiesConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"\"org.springframework.boot.context.internalConfigurationPropertiesBinder\"",
+				"\"org.springframework.boot.context.internalConfigurationPropertiesBinderFactory\"",
+				"\"org.springframework.boot.context.properties.BoundConfigurationProperties\"");
+	}
+
+	@Test
+	void bootstrapClassWithoutBeanReachabilityRegistersUnreachableBeans() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ReachabilityConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("registry.registerBean(\"unusedService\"");
+	}
+
+	@Test
+	void bootstrapClassWithInlinedSingleUseBeansCreatesThemInConsumerSupplier() {
+		ContextBootstrapStructure structure = this.generatorTester.withInlineSingleUseBeans()
+				.generate(this.contextRunner.withUserConfiguration(InliningConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"BootstrapRegistry registry = BootstrapRegistry.of(context, 9);",
+				"registry.registerBean(\"consumer\", InliningConfiguration.Consumer.class, () -> context.getBean(\"inliningConfiguration\", InliningConfiguration.class).consumer("
+						+ "context.getBean(\"inliningConfiguration\", InliningConfiguration.class).helper("
+						+ "context.getBean(\"inliningConfiguration\", InliningConfiguration.class).converter()), "
+						+ "context.getBean(InliningConfiguration.SharedHelper.class)));")
+				.doesNotContain("registry.registerBean(\"helper\"", "registry.registerBean(\"converter\"");
+	}
+
+	@Test
+	void bootstrapClassWithInlinedSingleUseBeansRegistersBeansUsedMoreThanOnce() {
+		ContextBootstrapStructure structure = this.generatorTester.withInlineSingleUseBeans()
+				.generate(this.contextRunner.withUserConfiguration(InliningConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("registry.registerBean(\"sharedHelper\"");
+	}
+
+	@Test
+	void bootstrapClassWithInlinedSingleUseBeansRegistersBeansResolvedLazily() {
+		ContextBootstrapStructure structure = this.generatorTester.withInlineSingleUseBeans()
+				.generate(this.contextRunner.withUserConfiguration(InliningConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("registry.registerBean(\"lazyHelper\"");
+	}
+
+	@Test
+	void bootstrapClassWithInlinedSingleUseBeansReportsInlinedBeans() {
+		this.contextRunner.withUserConfiguration(InliningConfiguration.class).run((context) -> {
+			ContextBootstrapGenerator generator = new ContextBootstrapGenerator(context.getClassLoader());
+			generator.setInlineSingleUseBeans(true);
+			generator.generateBootstrapClass(context.getSourceApplicationContext().getBeanFactory(), "com.example");
+			assertThat(generator.getBeanInliningReports()).singleElement().satisfies((report) -> {
+				assertThat(report.getInlinedBeans()).containsOnly(entry("helper", "consumer"),
+						entry("converter", "helper"));
+				assertThat(report.getRemovedRegistrationCount()).isEqualTo(2);
+			});
+		});
+	}
+
+	@Test
+	void bootstrapClassWithInlinedSingleUseBeansRegistersBeansUsedByNonSingletonConsumer() {
+		ContextBootstrapStructure structure = this.generatorTester.withInlineSingleUseBeans()
+				.generate(this.contextRunner.withUserConfiguration(NonSingletonConsumerConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("registry.registerBean(\"prototypeHelper\"",
+				"registry.registerBean(\"lazyHelper\"");
+	}
+
+	@Test
+	void bootstrapClassWithoutInliningRegistersSingleUseBeans() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(InliningConfiguration.class));
+		assertThat(structure).contextBootstrap().contains("registry.registerBean(\"helper\"",
+				"registry.registerBean(\"converter\"");
+	}
+
 	@Test
 	void bootstrapClassWithDependencyOnEnvironment() {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(DependencyConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"injectEnvironment\", String.class, () -> context.getBean(DependencyConfiguration.class).injectEnvironment(context.getEnvironment()));");
+				"registry.registerBean(\"injectEnvironment\", String.class, () -> context.getBean(\"dependencyConfiguration\", DependencyConfiguration.class).injectEnvironment(context.getEnvironment()));");
 	}
 
 	@Test
@@ -129,7 +417,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(DependencyConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"injectContext\", String.class, () -> context.getBean(DependencyConfiguration.class).injectContext(context));");
+				"registry.registerBean(\"injectContext\", String.class, () -> context.getBean(\"dependencyConfiguration\", DependencyConfiguration.class).injectContext(context));");
 	}
 
 	@Test
@@ -137,7 +425,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(DependencyConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"injectBeanFactory\", String.class, () -> context.getBean(DependencyConfiguration.class).injectBeanFactory(context.getBeanFactory()));");
+				"registry.registerBean(\"injectBeanFactory\", String.class, () -> context.getBean(\"dependencyConfiguration\", DependencyConfiguration.class).injectBeanFactory(context.getBeanFactory()));");
 	}
 
 	@Test
@@ -145,7 +433,8 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(DependencyConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"injectObjectProvider\", String.class, () -> context.getBean(DependencyConfiguration.class).injectObjectProvider(context.getBeanProvider(ResolvableType.forClassWithGenerics(Repository.class, Integer.class))));");
+				"registry.registerBean(\"injectObjectProvider\", String.class, () -> context.getBean(\"dependencyConfiguration\", DependencyConfiguration.class).injectObjectProvider(PrecomputedObjectProvider.of(context, ContextBootstrap.RESOLVABLE_TYPE_0, null)));",
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(Repository.class, Integer.class);");
 	}
 
 	@Test
@@ -153,7 +442,266 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(DependencyConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"injectList\", Integer.class, () -> context.getBean(DependencyConfiguration.class).injectList(context.getBeanProvider(String.class).orderedStream().collect(Collectors.toList())));");
+				"registry.registerBean(\"injectList\", Integer.class, () -> context.getBean(\"dependencyConfiguration\", DependencyConfiguration.class).injectList(BeanCollections.list(context, String.class, \"injectEnvironment\", \"injectContext\", \"injectBeanFactory\", \"injectObjectProvider\")));");
+	}
+
+	@Test
+	void bootstrapClassWithDependencyOnListUsesOrderedCandidates() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(CollectionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"handlerList\", Integer.class, () -> context.getBean(\"collectionConfiguration\", CollectionConfiguration.class).handlerList(BeanCollections.list(context, Handler.class, \"firstHandler\", \"lastHandler\")));");
+	}
+
+	@Test
+	void bootstrapClassWithDependencyOnMapUsesCandidates() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(CollectionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"handlerMap\", Integer.class, () -> context.getBean(\"collectionConfiguration\", CollectionConfiguration.class).handlerMap(BeanCollections.map(context, Handler.class, \"lastHandler\", \"firstHandler\")));");
+	}
+
+	@Test
+	void bootstrapClassWithDependencyOnArrayUsesOrderedCandidates() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(CollectionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"handlerArray\", Integer.class, () -> context.getBean(\"collectionConfiguration\", CollectionConfiguration.class).handlerArray(BeanCollections.array(context, Handler.class, \"firstHandler\", \"lastHandler\")));");
+	}
+
+	@Test
+	void bootstrapClassWithDependencyOnObjectProviderUsesOrderedCandidates() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(CollectionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"handlerProvider\", Integer.class, () -> context.getBean(\"collectionConfiguration\", CollectionConfiguration.class).handlerProvider(PrecomputedObjectProvider.of(context, Handler.class, null, \"firstHandler\", \"lastHandler\")));");
+	}
+
+	@Test
+	void bootstrapClassWithFieldInjectionOfListUsesOrderedCandidates() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(CollectionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"InjectionHandler.setField(bean, HandlerRegistry.class, \"handlers\", BeanCollections.list(context, Handler.class, \"firstHandler\", \"lastHandler\"));");
+	}
+
+	@Test
+	void bootstrapClassWithFieldInjection() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(InjectionConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"fieldInjectionComponent\", FieldInjectionComponent.class, BeanInstanceSupplier.<FieldInjectionComponent>of(() -> context.getBean(\"injectionConfiguration\", InjectionConfiguration.class).fieldInjectionComponent()).withInjection((bean) -> {",
+				"          InjectionHandler.setField(bean, FieldInjectionComponent.class, \"injectedService\", context.getBean(\"injectedService\", InjectedService.class));",
+				"          InjectionHandler.setField(bean, FieldInjectionComponent.class, \"service\", context.getBean(\"injectedService\", InjectedService.class));",
+				"          bean.environment = context.getEnvironment();", "        }));");
+	}
+
+	@Test
+	void bootstrapClassWithSetterInjection() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(InjectionConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"setterInjectionComponent\", SetterInjectionComponent.class, BeanInstanceSupplier.<SetterInjectionComponent>of(() -> context.getBean(\"injectionConfiguration\", InjectionConfiguration.class).setterInjectionComponent()).withInjection((bean) -> {",
+				"          bean.setService(context.getBean(\"injectedService\", InjectedService.class));",
+				"        }));");
+	}
+
+	@Test
+	void bootstrapClassWithFactoryBeanRegistersObjectType() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(FactoryBeanConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"widget\", WidgetFactoryBean.class, () -> context.getBean(\"factoryBeanConfiguration\", FactoryBeanConfiguration.class).widget(), BeanDefinitionCustomizers.objectType(Widget.class));");
+	}
+
+	@Test
+	void bootstrapClassWithUnwrappedFactoryBeansRegistersObjectOfSimpleFactoryBean() {
+		ContextBootstrapStructure structure = this.generatorTester.withUnwrapFactoryBeans()
+				.generate(this.contextRunner.withUserConfiguration(FactoryBeanConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"widget\", Widget.class, FactoryBeanObjectSupplier.<Widget>of(() -> context.getBean(\"factoryBeanConfiguration\", FactoryBeanConfiguration.class).widget()));");
+	}
+
+	@Test
+	void bootstrapClassWithUnwrappedFactoryBeansKeepsFactoryBeanWithCallbacks() {
+		ContextBootstrapStructure structure = this.generatorTester.withUnwrapFactoryBeans()
+				.generate(this.contextRunner.withUserConfiguration(FactoryBeanConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"namedWidget\", NamedWidgetFactoryBean.class, BeanInstanceSupplier.<NamedWidgetFactoryBean>of(() -> context.getBean(\"factoryBeanConfiguration\", FactoryBeanConfiguration.class).namedWidget()).withAwareMethods((bean) -> {");
+		assertThat(structure).contextBootstrap().contains("}), BeanDefinitionCustomizers.objectType(Widget.class));");
+	}
+
+	@Test
+	void bootstrapClassWithUnwrappedFactoryBeansKeepsFactoryBeanInjectedByType() {
+		ContextBootstrapStructure structure = this.generatorTester.withUnwrapFactoryBeans()
+				.generate(this.contextRunner.withUserConfiguration(FactoryBeanConsumerConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"widget\", WidgetFactoryBean.class, () -> context.getBean(\"factoryBeanConsumerConfiguration\", FactoryBeanConsumerConfiguration.class).widget(), BeanDefinitionCustomizers.objectType(Widget.class));");
+	}
+
+	@Test
+	void bootstrapClassWithUnwrappedFactoryBeansKeepsFactoryBeanReferencedByNameFromLazyBean() {
+		ContextBootstrapStructure structure = this.generatorTester.withUnwrapFactoryBeans()
+				.generate(this.contextRunner.withUserConfiguration(LazyFactoryBeanConsumerConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"widget\", WidgetFactoryBean.class, () -> context.getBean(\"lazyFactoryBeanConsumerConfiguration\", LazyFactoryBeanConsumerConfiguration.class).widget(), BeanDefinitionCustomizers.objectType(Widget.class));");
+	}
+
+	@Test
+	void bootstrapClassWithLazyInjectionPointInjectsLazyProxy() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(InjectionConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"lazyInjectionComponent\", LazyInjectionComponent.class, BeanInstanceSupplier.<LazyInjectionComponent>of(() -> context.getBean(\"injectionConfiguration\", InjectionConfiguration.class).lazyInjectionComponent()).withInjection((bean) -> {",
+				"          InjectionHandler.setField(bean, LazyInjectionComponent.class, \"service\", new InjectedServiceLazyProxy(() -> context.getBean(\"injectedService\", InjectedService.class)));",
+				"        }));");
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"  public static final class InjectedServiceLazyProxy extends InjectedService {",
+				"    private final Supplier<InjectedService> targetSupplier;", "",
+				"    private volatile InjectedService target;", "",
+				"    public InjectedServiceLazyProxy(Supplier<InjectedService> targetSupplier) {",
+				"      this.targetSupplier = targetSupplier;", "    }", "",
+				"    private InjectedService resolveTarget() {", "      InjectedService target = this.target;",
+				"      if (target == null) {", "        synchronized (this) {", "          target = this.target;",
+				"          if (target == null) {", "            target = this.targetSupplier.get();",
+				"            this.target = target;", "          }", "        }", "      }", "      return target;",
+				"    }", "", "    @Override", "    public String toString() {",
+				"      return resolveTarget().toString();", "    }", "  }");
+	}
+
+	@Test
+	void bootstrapClassWithLazyParameterInjectsLazyProxy() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LazyConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"greeterClient\", GreeterClient.class, () -> context.getBean(\"lazyConfiguration\", LazyConfiguration.class).greeterClient(new GreeterLazyProxy(() -> context.getBean(\"greeter\", Greeter.class))));");
+	}
+
+	@Test
+	void bootstrapClassWithLazyInterfaceParameterGeneratesDelegatingClass() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LazyConfiguration.class));
+		assertThat(structure).contextBootstrap()
+				.contains("  public static final class GreeterLazyProxy implements Greeter {");
+		assertThat(structure).contextBootstrap().lines().containsSequence("    @Override",
+				"    public String greet(String arg0) {", "      return resolveTarget().greet(arg0);", "    }");
+	}
+
+	@Test
+	void bootstrapClassWithLazyBeanRegistersLazyInit() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LazyConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"greeter\", Greeter.class, () -> context.getBean(\"lazyConfiguration\", LazyConfiguration.class).greeter(), BeanDefinitionCustomizers.lazyInit());");
+	}
+
+	@Test
+	void bootstrapClassWithLazyParameterOfClassThatCannotBeProxiedDoesNotGenerateDelegatingClass() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LazyClassConfiguration.class));
+		assertThat(structure).contextBootstrap().doesNotContain("LazyProxy");
+	}
+
+	@Test
+	void bootstrapClassWithScopedBeanRegistersScope() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ScopeConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"prototypeCounter\", Counter.class, () -> context.getBean(\"scopeConfiguration\", ScopeConfiguration.class).prototypeCounter(), BeanDefinitionCustomizers.scope(\"prototype\"));");
+	}
+
+	@Test
+	void bootstrapClassWithScopedProxyRegistersScopedTarget() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ScopeConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"scopedTarget.counter\", Counter.class, () -> context.getBean(\"scopeConfiguration\", ScopeConfiguration.class).counter(), BeanDefinitionCustomizers.scope(\"thread\"), BeanDefinitionCustomizers.autowireCandidate(false));");
+	}
+
+	@Test
+	void bootstrapClassWithClassBasedScopedProxyGeneratesProxyClass() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ScopeConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"counter\", BootstrapScopedProxyFactoryBean.class, () -> BootstrapScopedProxyFactoryBean.of(new CounterScopedProxy(context.getBeanFactory())), BeanDefinitionCustomizers.objectType(CounterScopedProxy.class));");
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"  public static final class CounterScopedProxy extends Counter implements ScopedObject, AopInfrastructureBean {",
+				"    private final ConfigurableBeanFactory beanFactory;", "",
+				"    public CounterScopedProxy(ConfigurableBeanFactory beanFactory) {",
+				"      this.beanFactory = beanFactory;", "    }", "", "    private Counter resolveTarget() {",
+				"      return (Counter) this.beanFactory.getBean(\"scopedTarget.counter\");", "    }", "",
+				"    @Override", "    public Object getTargetObject() {", "      return resolveTarget();", "    }", "",
+				"    @Override", "    public void removeFromScope() {",
+				"      this.beanFactory.destroyScopedBean(\"scopedTarget.counter\");", "    }");
+		assertThat(structure).contextBootstrap().lines().containsSequence("    @Override",
+				"    public int increment() {", "      return resolveTarget().increment();", "    }");
+	}
+
+	@Test
+	void bootstrapClassWithClassBasedScopedProxyOfClassThatCannotBeProxiedDoesNotGenerateProxyClass() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(StatefulScopeConfiguration.class));
+		assertThat(structure).contextBootstrap().doesNotContain("ScopedProxy(");
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"statefulCounter\", ScopedProxyFactoryBean.class, BeanInstanceSupplier.<ScopedProxyFactoryBean>of(ScopedProxyFactoryBean::new)");
+	}
+
+	@Test
+	void bootstrapClassWithInterfaceBasedScopedProxyGeneratesProxyClass() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ScopeConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"  public static final class GreetingScopedProxy implements Greeting, ScopedObject, AopInfrastructureBean {");
+		assertThat(structure).contextBootstrap().lines().containsSequence("    @Override",
+				"    public String greet(String arg0) {", "      return resolveTarget().greet(arg0);", "    }");
+	}
+
+	@Test
+	void bootstrapClassWithAnnotatedLifecycleMethods() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LifecycleConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"annotatedLifecycleComponent\", AnnotatedLifecycleComponent.class, BeanInstanceSupplier.<AnnotatedLifecycleComponent>of(() -> context.getBean(\"lifecycleConfiguration\", LifecycleConfiguration.class).annotatedLifecycleComponent()).withAnnotatedInitMethods((bean) -> {",
+				"          bean.init();",
+				"        }).withAnnotatedDestroyMethods((bean) -> InjectionHandler.invokeMethod(bean, AnnotatedLifecycleComponent.class, \"cleanUp\")));");
+	}
+
+	@Test
+	void bootstrapClassWithInitializingAndDisposableBean() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LifecycleConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"initializingComponent\", InitializingComponent.class, BeanInstanceSupplier.<InitializingComponent>of(() -> context.getBean(\"lifecycleConfiguration\", LifecycleConfiguration.class).initializingComponent()).withInitMethods((bean) -> {",
+				"          bean.afterPropertiesSet();", "        }).withDestroyMethods((bean) -> bean.destroy()));");
+	}
+
+	@Test
+	void bootstrapClassWithCustomInitAndDestroyMethods() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LifecycleConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"customLifecycleComponent\", CustomLifecycleComponent.class, BeanInstanceSupplier.<CustomLifecycleComponent>of(() -> context.getBean(\"lifecycleConfiguration\", LifecycleConfiguration.class).customLifecycleComponent()).withInitMethods((bean) -> {",
+				"          bean.start();", "        }).withDestroyMethods((bean) -> bean.stop()));");
+	}
+
+	@Test
+	void bootstrapClassWithInferredDestroyMethod() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LifecycleConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"closeableComponent\", CloseableComponent.class, BeanInstanceSupplier.<CloseableComponent>of(() -> context.getBean(\"lifecycleConfiguration\", LifecycleConfiguration.class).closeableComponent()).withDestroyMethods((bean) -> bean.close()));");
+	}
+
+	@Test
+	void bootstrapClassWithAwareCallbacks() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(LifecycleConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"awareComponent\", AwareComponent.class, BeanInstanceSupplier.<AwareComponent>of(() -> context.getBean(\"lifecycleConfiguration\", LifecycleConfiguration.class).awareComponent()).withAwareMethods((bean) -> {",
+				"          bean.setBeanName(\"awareComponent\");",
+				"          bean.setBeanFactory(context.getBeanFactory());",
+				"          bean.setEnvironment(context.getEnvironment());",
+				"          bean.setApplicationContext(context);", "        }));");
 	}
 
 	@Test
@@ -161,7 +709,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(MetadataConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"primaryBean\", String.class, () -> context.getBean(MetadataConfiguration.class).primaryBean(), BeanDefinitionCustomizers.primary());");
+				"registry.registerBean(\"primaryBean\", String.class, () -> context.getBean(\"metadataConfiguration\", MetadataConfiguration.class).primaryBean(), BeanDefinitionCustomizers.primary());");
 	}
 
 	@Test
@@ -169,7 +717,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(MetadataConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"infrastructureBean\", String.class, () -> context.getBean(MetadataConfiguration.class).infrastructureBean(), BeanDefinitionCustomizers.role(2));");
+				"registry.registerBean(\"infrastructureBean\", String.class, () -> context.getBean(\"metadataConfiguration\", MetadataConfiguration.class).infrastructureBean(), BeanDefinitionCustomizers.role(2));");
 	}
 
 	@Test
@@ -178,12 +726,13 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(ProtectedConfigurationImport.class));
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
-				.containsSequence("  public static void registerAnotherStringBean(GenericApplicationContext context) {",
-						"    context.registerBean(\"anotherStringBean\", String.class, () -> context.getBean(ProtectedConfiguration.class).anotherStringBean());",
+				.containsSequence("  public static void registerAnotherStringBean(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"anotherStringBean\", String.class, () -> context.getBean(\"org.springframework.context.bootstrap.generator.sample.visibility.ProtectedConfiguration\", ProtectedConfiguration.class).anotherStringBean());",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedConfiguration(context);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerAnotherStringBean(context);");
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedConfiguration(context, registry);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerAnotherStringBean(context, registry);");
 	}
 
 	@Test
@@ -192,13 +741,14 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(PublicInnerClassConfigurationImport.class));
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
-				.containsSequence("  public static void registerInnerBean(GenericApplicationContext context) {",
-						"    context.registerBean(\"innerBean\", String.class, () -> context.getBean(PublicInnerClassConfiguration.InnerConfiguration.class).innerBean());",
+				.containsSequence("  public static void registerInnerBean(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"innerBean\", String.class, () -> context.getBean(\"org.springframework.context.bootstrap.generator.sample.visibility.PublicInnerClassConfiguration$InnerConfiguration\", PublicInnerClassConfiguration.InnerConfiguration.class).innerBean());",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerPublicInnerClassConfiguration(context);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerInnerConfiguration(context);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerInnerBean(context);");
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerPublicInnerClassConfiguration(context, registry);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerInnerConfiguration(context, registry);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerInnerBean(context, registry);");
 	}
 
 	@Test
@@ -207,13 +757,14 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(PublicOuterClassConfiguration.class));
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
-				.containsSequence("  public static void registerAnotherInnerBean(GenericApplicationContext context) {",
-						"    context.registerBean(\"anotherInnerBean\", String.class, () -> context.getBean(PublicOuterClassConfiguration.ProtectedInnerConfiguration.class).anotherInnerBean());",
+				.containsSequence("  public static void registerAnotherInnerBean(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"anotherInnerBean\", String.class, () -> context.getBean(\"org.springframework.context.bootstrap.generator.sample.visibility.PublicOuterClassConfiguration$ProtectedInnerConfiguration\", PublicOuterClassConfiguration.ProtectedInnerConfiguration.class).anotherInnerBean());",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"publicOuterClassConfiguration\", PublicOuterClassConfiguration.class, PublicOuterClassConfiguration::new);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedInnerConfiguration(context);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerAnotherInnerBean(context);");
+				"registry.registerBean(\"publicOuterClassConfiguration\", PublicOuterClassConfiguration.class, PublicOuterClassConfiguration::new);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedInnerConfiguration(context, registry);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerAnotherInnerBean(context, registry);");
 	}
 
 	@Test
@@ -222,13 +773,13 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(ProtectedConstructorParameterConfiguration.class));
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
-				.containsSequence(
-						"  public static void registerProtectedParameter(GenericApplicationContext context) {",
-						"    context.registerBean(\"org.springframework.context.bootstrap.generator.sample.visibility.ProtectedParameter\", ProtectedParameter.class, () -> new ProtectedParameter(context.getBean(ProtectedType.class)));",
+				.containsSequence("  public static void registerProtectedParameter(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"org.springframework.context.bootstrap.generator.sample.visibility.ProtectedParameter\", ProtectedParameter.class, () -> new ProtectedParameter(context.getBean(ProtectedType.class)));",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"protectedConstructorParameterConfiguration\", ProtectedConstructorParameterConfiguration.class, ProtectedConstructorParameterConfiguration::new);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedParameter(context);");
+				"registry.registerBean(\"protectedConstructorParameterConfiguration\", ProtectedConstructorParameterConfiguration.class, ProtectedConstructorParameterConfiguration::new);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedParameter(context, registry);");
 	}
 
 	@Test
@@ -237,13 +788,13 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(ProtectedMethodParameterConfiguration.class));
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
-				.containsSequence(
-						"  public static void registerProtectedParameter(GenericApplicationContext context) {",
-						"    context.registerBean(\"protectedParameter\", ProtectedParameter.class, () -> context.getBean(ProtectedMethodParameterConfiguration.class).protectedParameter(context.getBean(ProtectedType.class)));",
+				.containsSequence("  public static void registerProtectedParameter(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"protectedParameter\", ProtectedParameter.class, () -> context.getBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class).protectedParameter(context.getBean(ProtectedType.class)));",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class, ProtectedMethodParameterConfiguration::new);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedParameter(context);");
+				"registry.registerBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class, ProtectedMethodParameterConfiguration::new);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedParameter(context, registry);");
 	}
 
 	@Test
@@ -253,12 +804,13 @@ class ContextBootstrapGeneratorTests {
 		assertThat(structure)
 				.source("org.springframework.context.bootstrap.generator.sample.visibility", "ContextBootstrap").lines()
 				.containsSequence(
-						"  public static void registerProtectedGenericParameter(GenericApplicationContext context) {",
-						"    context.registerBean(\"protectedGenericParameter\", ProtectedParameter.class, () -> context.getBean(ProtectedMethodParameterConfiguration.class).protectedGenericParameter(context.getBeanProvider(ProtectedType.class)));",
+						"  public static void registerProtectedGenericParameter(GenericApplicationContext context,",
+						"      BootstrapRegistry registry) {",
+						"    registry.registerBean(\"protectedGenericParameter\", ProtectedParameter.class, () -> context.getBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class).protectedGenericParameter(context.getBeanProvider(ProtectedType.class)));",
 						"  }");
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class, ProtectedMethodParameterConfiguration::new);",
-				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedGenericParameter(context);");
+				"registry.registerBean(\"protectedMethodParameterConfiguration\", ProtectedMethodParameterConfiguration.class, ProtectedMethodParameterConfiguration::new);",
+				"org.springframework.context.bootstrap.generator.sample.visibility.ContextBootstrap.registerProtectedGenericParameter(context, registry);");
 	}
 
 	@Test
@@ -267,9 +819,10 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(GenericConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
 				"RootBeanDefinition stringRepositoryBeanDef = new RootBeanDefinition();",
-				"stringRepositoryBeanDef.setTargetType(ResolvableType.forClassWithGenerics(Repository.class, String.class));",
-				"stringRepositoryBeanDef.setInstanceSupplier(() -> context.getBean(GenericConfiguration.class).stringRepository());",
-				"context.registerBeanDefinition(\"stringRepository\", stringRepositoryBeanDef);");
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(Repository.class, String.class);",
+				"stringRepositoryBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_0);",
+				"stringRepositoryBeanDef.setInstanceSupplier(() -> context.getBean(\"genericConfiguration\", GenericConfiguration.class).stringRepository());",
+				"registry.registerBeanDefinition(\"stringRepository\", stringRepositoryBeanDef);");
 	}
 
 	@Test
@@ -278,9 +831,10 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(GenericConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
 				"RootBeanDefinition stringRepositoryHolderBeanDef = new RootBeanDefinition();",
-				"stringRepositoryHolderBeanDef.setTargetType(ResolvableType.forClassWithGenerics(RepositoryHolder.class, ResolvableType.forClass(String.class), ResolvableType.forClassWithGenerics(Repository.class, String.class)));",
-				"stringRepositoryHolderBeanDef.setInstanceSupplier(() -> context.getBean(GenericConfiguration.class).stringRepositoryHolder(context.getBean(Repository.class)));",
-				"context.registerBeanDefinition(\"stringRepositoryHolder\", stringRepositoryHolderBeanDef);");
+				"public static final ResolvableType RESOLVABLE_TYPE_1 = ResolvableType.forClassWithGenerics(RepositoryHolder.class, ResolvableType.forClass(String.class), ResolvableType.forClassWithGenerics(Repository.class, String.class));",
+				"stringRepositoryHolderBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_1);",
+				"stringRepositoryHolderBeanDef.setInstanceSupplier(() -> context.getBean(\"genericConfiguration\", GenericConfiguration.class).stringRepositoryHolder(context.getBean(Repository.class)));",
+				"registry.registerBeanDefinition(\"stringRepositoryHolder\", stringRepositoryHolderBeanDef);");
 	}
 
 	@Test
@@ -289,10 +843,11 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(MetadataConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
 				"RootBeanDefinition primaryGenericBeanBeanDef = new RootBeanDefinition();",
-				"primaryGenericBeanBeanDef.setTargetType(ResolvableType.forClassWithGenerics(Repository.class, String.class));",
-				"primaryGenericBeanBeanDef.setInstanceSupplier(() -> context.getBean(MetadataConfiguration.class).primaryGenericBean());",
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(Repository.class, String.class);",
+				"primaryGenericBeanBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_0);",
+				"primaryGenericBeanBeanDef.setInstanceSupplier(() -> context.getBean(\"metadataConfiguration\", MetadataConfiguration.class).primaryGenericBean());",
 				"BeanDefinitionCustomizers.primary().customize(primaryGenericBeanBeanDef);",
-				"context.registerBeanDefinition(\"primaryGenericBean\", primaryGenericBeanBeanDef);");
+				"registry.registerBeanDefinition(\"primaryGenericBean\", primaryGenericBeanBeanDef);");
 	}
 
 	@Test
@@ -301,10 +856,22 @@ class ContextBootstrapGeneratorTests {
 				.generate(this.contextRunner.withUserConfiguration(MetadataConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
 				"RootBeanDefinition infrastructureGenericBeanBeanDef = new RootBeanDefinition();",
-				"infrastructureGenericBeanBeanDef.setTargetType(ResolvableType.forClassWithGenerics(Repository.class, String.class));",
-				"infrastructureGenericBeanBeanDef.setInstanceSupplier(() -> context.getBean(MetadataConfiguration.class).infrastructureGenericBean());",
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(Repository.class, String.class);",
+				"infrastructureGenericBeanBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_0);",
+				"infrastructureGenericBeanBeanDef.setInstanceSupplier(() -> context.getBean(\"metadataConfiguration\", MetadataConfiguration.class).infrastructureGenericBean());",
 				"BeanDefinitionCustomizers.role(2).customize(infrastructureGenericBeanBeanDef);",
-				"context.registerBeanDefinition(\"infrastructureGenericBean\", infrastructureGenericBeanBeanDef);");
+				"registry.registerBeanDefinition(\"infrastructureGenericBean\", infrastructureGenericBeanBeanDef);");
+	}
+
+	@Test
+	void bootstrapClassWithSameGenericTypeSharesResolvableTypeConstant() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(MetadataConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"public static final ResolvableType RESOLVABLE_TYPE_0 = ResolvableType.forClassWithGenerics(Repository.class, String.class);",
+				"primaryGenericBeanBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_0);",
+				"infrastructureGenericBeanBeanDef.setTargetType(ContextBootstrap.RESOLVABLE_TYPE_0);")
+				.doesNotContain("RESOLVABLE_TYPE_1");
 	}
 
 	@Test
@@ -312,8 +879,8 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester.generate(this.contextRunner
 				.withUserConfiguration(GenericConfiguration.class, GenericObjectProviderConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"repositoryId\", String.class, () -> context.getBean(GenericObjectProviderConfiguration.class).repositoryId("
-						+ "context.getBeanProvider(ResolvableType.forClassWithGenerics(RepositoryHolder.class, ResolvableType.forClass(String.class), ResolvableType.forClassWithGenerics(Repository.class, String.class)))));");
+				"registry.registerBean(\"repositoryId\", String.class, () -> context.getBean(\"genericObjectProviderConfiguration\", GenericObjectProviderConfiguration.class).repositoryId("
+						+ "PrecomputedObjectProvider.of(context, ContextBootstrap.RESOLVABLE_TYPE_0, \"stringRepositoryHolder\", \"stringRepositoryHolder\")));");
 	}
 
 	@Test
@@ -321,7 +888,91 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(ArgumentValueRegistrarConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"argumentValueString\", String.class, () -> new String(new char[] { 'a', ' ', 't', 'e', 's', 't' }, 2, 4));");
+				"registry.registerBean(\"argumentValueString\", String.class, () -> new String(new char[] { 'a', ' ', 't', 'e', 's', 't' }, 2, 4));");
+	}
+
+	@Test
+	void bootstrapClassWithArgumentValuesWritesLiterals() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ArgumentValueRegistrarConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"argumentValueComponent\", ArgumentValueComponent.class, () -> new ArgumentValueComponent(new int[] { 1, 2, 3 }, ArgumentValueMode.SAFE, ArgumentCollections.list(\"one\", \"two\"), ArgumentCollections.map(\"one\", 1, \"two\", 2), new String[][] { new String[] { \"a\", \"b\" }, new String[] { \"c\" } }, ContextBootstrap.ARRAY_0.clone()));");
+	}
+
+	@Test
+	void bootstrapClassWithLargeArrayArgumentValueRegistersConstant() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ArgumentValueRegistrarConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"public static final String[] ARRAY_0 = new String[] { \"com.example.a\", \"com.example.b\", \"com.example.c\", \"com.example.d\", \"com.example.e\", \"com.example.f\", \"com.example.g\", \"com.example.h\" };");
+	}
+
+	@Test
+	void bootstrapClassWithUnsupportedArgumentValueFails() {
+		assertThatIllegalStateException()
+				.isThrownBy(() -> this.generatorTester.generate(
+						this.contextRunner.withUserConfiguration(UnsupportedArgumentValueRegistrarConfiguration.class)))
+				.withMessageContaining("index 2").withMessageContaining("'argumentValueComponent'");
+	}
+
+	@Test
+	void bootstrapClassWithPropertyValuesInvokesSetters() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(PropertyValueConfiguration.class));
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    registry.registerBean(\"propertyValueComponent\", PropertyValueComponent.class, BeanInstanceSupplier.<PropertyValueComponent>of(PropertyValueComponent::new).withInjection((bean) -> {",
+				"          bean.setName(\"test\");", "          bean.setCounter(42);",
+				"          bean.setTimeout(5000L);", "          bean.setMode(PropertyValueMode.SAFE);",
+				"          bean.setType(String.class);",
+				"          bean.setDependency(context.getBean(\"propertyValueDependency\", PropertyValueDependency.class));",
+				"          bean.setTags(ArgumentCollections.list(\"a\", \"b\"));", "        }));");
+	}
+
+	@Test
+	void bootstrapClassWithExpressionPropertyValueRegistersPropertyValues() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(PropertyValueConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"expressionPropertyValueComponent\", PropertyValueComponent.class, PropertyValueComponent::new, "
+						+ "BeanDefinitionCustomizers.propertyValue(\"name\", \"#{'te' + 'st'}\"), "
+						+ "BeanDefinitionCustomizers.propertyValue(\"counter\", 42), "
+						+ "BeanDefinitionCustomizers.propertyValue(\"dependency\", new RuntimeBeanReference(\"propertyValueDependency\")), "
+						+ "BeanDefinitionCustomizers.propertyValue(\"tags\", ArgumentCollections.list(\"c\")));");
+	}
+
+	@Test
+	void bootstrapClassWithInnerBeanPropertyValueFails() {
+		assertThatIllegalStateException()
+				.isThrownBy(() -> this.generatorTester
+						.generate(this.contextRunner.withUserConfiguration(InnerBeanPropertyValueConfiguration.class)))
+				.withMessageContaining("'dependency'").withMessageContaining("'innerBeanPropertyValueComponent'");
+	}
+
+	@Test
+	void bootstrapClassWithBeanFamilyRegistersBeansInLoop() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(TenantClientsConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"public static final String[] BEAN_FAMILY_0_NAMES = { \"acmeClient\", \"globexClient\", \"initechClient\" };",
+				"public static final ResolvableType[] BEAN_FAMILY_0_TYPES = { ContextBootstrap.RESOLVABLE_TYPE_0, ContextBootstrap.RESOLVABLE_TYPE_1, ContextBootstrap.RESOLVABLE_TYPE_2 };",
+				"public static final String[] BEAN_FAMILY_0_ARGUMENTS_0 = { \"acme\", \"globex\", \"initech\" };",
+				"public static final Class[] BEAN_FAMILY_0_ARGUMENTS_1 = { String.class, Integer.class, Long.class };",
+				"BootstrapRegistry registry = BootstrapRegistry.of(context, 6);");
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"    for (int i = 0; i < ContextBootstrap.BEAN_FAMILY_0_NAMES.length; i++) {", "      int index = i;",
+				"      RootBeanDefinition beanDefinition = new RootBeanDefinition();",
+				"      beanDefinition.setTargetType(ContextBootstrap.BEAN_FAMILY_0_TYPES[index]);",
+				"      beanDefinition.setInstanceSupplier(() -> new TenantClient(ContextBootstrap.BEAN_FAMILY_0_ARGUMENTS_0[index], ContextBootstrap.BEAN_FAMILY_0_ARGUMENTS_1[index]));",
+				"      registry.registerBeanDefinition(ContextBootstrap.BEAN_FAMILY_0_NAMES[index], beanDefinition);",
+				"    }");
+		assertThat(structure).contextBootstrap().doesNotContain("acmeClientBeanDef");
+	}
+
+	@Test
+	void bootstrapClassWithGenericBeansBelowFamilySizeRegistersEachBean() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(GenericConfiguration.class));
+		assertThat(structure).contextBootstrap().doesNotContain("BEAN_FAMILY_");
 	}
 
 	@Test
@@ -329,7 +980,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(ExceptionConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"checkedException\", String.class, ExceptionHandler.wrapException(() -> context.getBean(ExceptionConfiguration.class).checkedException()));");
+				"registry.registerBean(\"checkedException\", String.class, ExceptionHandler.wrapException(() -> context.getBean(\"exceptionConfiguration\", ExceptionConfiguration.class).checkedException()));");
 	}
 
 	@Test
@@ -337,7 +988,7 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester
 				.generate(this.contextRunner.withUserConfiguration(ExceptionConstructorConfiguration.class));
 		assertThat(structure).contextBootstrap().contains(
-				"context.registerBean(\"exceptionConstructorConfiguration\", ExceptionConstructorConfiguration.class, ExceptionHandler.wrapException(ExceptionConstructorConfiguration::new));");
+				"registry.registerBean(\"exceptionConstructorConfiguration\", ExceptionConstructorConfiguration.class, ExceptionHandler.wrapException(ExceptionConstructorConfiguration::new));");
 	}
 
 	@Test
@@ -345,10 +996,77 @@ class ContextBootstrapGeneratorTests {
 		ContextBootstrapStructure structure = this.generatorTester.withExcludeTypes(RepositoryHolder.class)
 				.generate(this.contextRunner.withUserConfiguration(Repository.class, RepositoryHolder.class));
 		assertThat(structure).contextBootstrap()
-				.contains("context.registerBeanDefinition(\"repository\", repositoryBeanDef);")
+				.contains("registry.registerBeanDefinition(\"repository\", repositoryBeanDef);")
 				.doesNotContain("RepositoryHolder");
 	}
 
+	@Test
+	void bootstrapClassWithBeanPostProcessorPlan() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ProxyConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"BeanPostProcessorPlan beanPostProcessorPlan = BeanPostProcessorPlan.of(\"org.springframework.context.support.ApplicationContextAwareProcessor\", \"org.springframework.context.annotation.ConfigurationClassPostProcessor$ImportAwareBeanPostProcessor\", \"org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator\", \"org.springframework.context.support.ApplicationListenerDetector\");",
+				"beanPostProcessorPlan.register(4L, \"proxiedService\");", "beanPostProcessorPlan.applyTo(context);");
+	}
+
+	@Test
+	void bootstrapClassWithBeanPostProcessorPlanForProxiedCallbackBean() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ContextAwareProxyConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"BeanPostProcessorPlan beanPostProcessorPlan = BeanPostProcessorPlan.of(\"org.springframework.context.support.ApplicationContextAwareProcessor\", \"org.springframework.context.annotation.ConfigurationClassPostProcessor$ImportAwareBeanPostProcessor\", \"org.springframework.context.bootstrap.generator.sample.plan.SupplierProxyPostProcessor\", \"org.springframework.context.support.ApplicationListenerDetector\");",
+				"beanPostProcessorPlan.register(5L, \"contextAwareProxiedService\");");
+	}
+
+	@Test
+	void bootstrapClassWithBeanPostProcessorPlanForAnnotationDrivenPostProcessors() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(AnnotationDrivenConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"BeanPostProcessorPlan beanPostProcessorPlan = BeanPostProcessorPlan.of(\"org.springframework.context.support.ApplicationContextAwareProcessor\", \"org.springframework.context.annotation.ConfigurationClassPostProcessor$ImportAwareBeanPostProcessor\", \"org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor\", \"org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor\", \"org.springframework.context.support.ApplicationListenerDetector\");",
+				"beanPostProcessorPlan.register(4L, \"asyncService\");",
+				"beanPostProcessorPlan.register(8L, \"scheduledService\");",
+				"beanPostProcessorPlan.register(2L, \"org.springframework.scheduling.annotation.ProxyAsyncConfiguration\");");
+	}
+
+	@Test
+	void bootstrapClassWithJdkProxyPrecomputesInterceptorChains() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(ProxyConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"proxiedService\", ProxiedService.class, BeanInstanceSupplier.<ProxiedService>of(() -> context.getBean(\"proxyConfiguration\", ProxyConfiguration.class).proxiedService()).withProxy((bean) -> PrecomputedProxyFactory.of(bean, context.getBeanFactory(), Supplier.class).withInterceptors(\"sampleInterceptor\").withChain(new int[] { 0 }, \"get\").getProxy()));");
+	}
+
+	@Test
+	void bootstrapClassWithJdkProxyOfGenericInterfaceCompiles() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(GenericProxyConfiguration.class));
+		assertThat(structure).compiles().contextBootstrap().contains(
+				".withProxy((bean) -> PrecomputedProxyFactory.of(bean, context.getBeanFactory(), StringRepository.class).withInterceptors(\"sampleInterceptor\").withChain(new int[] { 0 }, \"find\", String.class).withChain(new int[] { 0 }, \"save\", Object.class).getProxy())");
+	}
+
+	@Test
+	void bootstrapClassWithTransactionAttributeTable() {
+		ContextBootstrapStructure structure = this.generatorTester
+				.generate(this.contextRunner.withUserConfiguration(TransactionConfiguration.class));
+		assertThat(structure).contextBootstrap().contains(
+				"registry.registerBean(\"transactionAttributeSource\", TransactionAttributeSource.class, PrecomputedTransactionAttributeSource.of(() -> context.getBean(\"org.springframework.transaction.annotation.ProxyTransactionManagementConfiguration\", ProxyTransactionManagementConfiguration.class).transactionAttributeSource(), (source) -> {");
+		assertThat(structure).contextBootstrap().lines().containsSequence(
+				"          RuleBasedTransactionAttribute attribute0 = new RuleBasedTransactionAttribute();",
+				"          source.register(TransactionalService.class, attribute0, \"delete\", String.class);",
+				"          RuleBasedTransactionAttribute attribute1 = new RuleBasedTransactionAttribute();",
+				"          attribute1.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);",
+				"          attribute1.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);",
+				"          attribute1.setTimeout(10);", "          attribute1.setReadOnly(true);",
+				"          attribute1.setQualifier(\"secondary\");",
+				"          attribute1.setRollbackRules(Arrays.asList(new RollbackRuleAttribute(\"java.io.IOException\"), new NoRollbackRuleAttribute(\"java.lang.IllegalStateException\")));",
+				"          source.register(TransactionalService.class, attribute1, \"find\", String.class);",
+				"          source.register(TransactionalService.class, attribute0, \"save\", String.class, int.class);",
+				"        }), BeanDefinitionCustomizers.role(2));");
+		assertThat(structure).contextBootstrap().doesNotContain("\"describe\"")
+				.doesNotContain("source.register(PlaceholderTransactionalService.class");
+	}
+
 	@Test
 	void bootstrapClassWithEventListener() {
 		ContextBootstrapStructure structure = this.generatorTester
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.DefaultResourceLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link PropertySourceGenerator}.
+ *
+ * @author Stephane Nicoll
+ */
+class PropertySourceGeneratorTests {
+
+	private static final String LOCATION_ROOT = "classpath:/org/springframework/context/bootstrap/generator/";
+
+	private static final String LOCATION = LOCATION_ROOT + "config/";
+
+	private final PropertySourceGenerator generator = new PropertySourceGenerator(
+			new DefaultResourceLoader(getClass().getClassLoader()), Arrays.asList(LOCATION, LOCATION + "config/"));
+
+	@Test
+	void generatePropertySourceClass() {
+		String content = this.generator.generatePropertySourceClass("com.example").toString();
+		assertThat(content).contains("public class ApplicationPropertySource extends ArrayPropertySource {");
+		assertThat(content).contains("public static final String[] PROFILES = new String[] {  };");
+		assertThat(content).contains("super(\"applicationConfig: [generated]\", "
+				+ "new String[] { \"app.counter\", \"app.description\", \"app.mode\", \"app.name\" }, "
+				+ "new Object[] { \"10\", \"${app.name} application\", \"default\", \"properties\" });");
+	}
+
+	@Test
+	void generatePropertySourceClassWithProfile() {
+		String content = this.generator.generatePropertySourceClass("com.example", "dev").toString();
+		assertThat(content).contains("public static final String[] PROFILES = new String[] { \"dev\" };");
+		assertThat(content).contains("new String[] { \"app.counter\", \"app.debug\", \"app.description\", "
+				+ "\"app.mode\", \"app.name\" }, "
+				+ "new Object[] { \"10\", \"true\", \"${app.name} application\", \"dev\", \"properties\" });");
+	}
+
+	@Test
+	void generatePropertySourceClassWithProfileDocument() {
+		String content = this.generator.generatePropertySourceClass("com.example", "test").toString();
+		assertThat(content).contains("\"default\"").doesNotContain("dev-yaml");
+	}
+
+	@Test
+	void generatePropertySourceClassWithMissingConfiguration() {
+		PropertySourceGenerator generator = new PropertySourceGenerator(
+				new DefaultResourceLoader(getClass().getClassLoader()), Arrays.asList("classpath:/does-not-exist/"));
+		assertThat(generator.generatePropertySourceClass("com.example").toString())
+				.contains("new String[] {  }, new Object[] {  }");
+	}
+
+	@Test
+	void generatePropertySourceClassWithActiveProfilesInConfiguration() {
+		String content = createGenerator("config-active/").generatePropertySourceClass("com.example").toString();
+		assertThat(content).contains("public static final String[] PROFILES = new String[] { \"dev\" };");
+		assertThat(content).contains(
+				"new String[] { \"app.name\", \"spring.profiles.active\" }, " + "new Object[] { \"dev\", \"dev\" });");
+	}
+
+	@Test
+	void generatePropertySourceClassWithExplicitProfilesOverridesActiveProfilesInConfiguration() {
+		String content = createGenerator("config-active/").generatePropertySourceClass("com.example", "test")
+				.toString();
+		assertThat(content).contains("public static final String[] PROFILES = new String[] { \"test\" };");
+		assertThat(content).contains("new Object[] { \"properties\", \"dev\" });");
+	}
+
+	@Test
+	void generatePropertySourceClassWithNoActiveProfileUsesDefaultProfile() {
+		String content = createGenerator("config-default/").generatePropertySourceClass("com.example").toString();
+		assertThat(content).contains("public static final String[] PROFILES = new String[] {  };");
+		assertThat(content).contains("new String[] { \"app.name\" }, new Object[] { \"default\" });");
+	}
+
+	@Test
+	void generatePropertySourceClassWithProfileIncludeIsRejected() {
+		assertThatIllegalStateException()
+				.isThrownBy(() -> createGenerator("config-include/").generatePropertySourceClass("com.example"))
+				.withMessageContaining("profile includes and groups");
+	}
+
+	private PropertySourceGenerator createGenerator(String location) {
+		return new PropertySourceGenerator(new DefaultResourceLoader(getClass().getClassLoader()),
+				Collections.singletonList(LOCATION_ROOT + location));
+	}
+
+}
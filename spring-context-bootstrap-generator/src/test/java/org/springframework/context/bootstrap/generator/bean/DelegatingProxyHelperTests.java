@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.bean;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.bootstrap.generator.sample.lazy.Greeter;
+import org.springframework.context.bootstrap.generator.sample.lazy.PackagePrivateMethodGreeter;
+import org.springframework.context.bootstrap.generator.sample.lazy.SimpleGreeter;
+import org.springframework.context.bootstrap.generator.sample.lazy.StatefulGreeter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DelegatingProxyHelper}.
+ *
+ * @author Stephane Nicoll
+ */
+class DelegatingProxyHelperTests {
+
+	@Test
+	void getDelegatedMethodsWithInterface() {
+		List<Method> methods = getDelegatedMethods(Greeter.class);
+		assertThat(methods).extracting(Method::getName).containsOnly("greet");
+	}
+
+	@Test
+	void getDelegatedMethodsWithClassWithDefaultConstructor() {
+		List<Method> methods = getDelegatedMethods(SimpleGreeter.class);
+		assertThat(methods).extracting(Method::getName).containsOnly("greet", "setPrefix", "toString");
+	}
+
+	@Test
+	void getDelegatedMethodsWithClassWithFieldInitializer() {
+		assertThat(getDelegatedMethods(StatefulGreeter.class)).isNull();
+	}
+
+	@Test
+	void getDelegatedMethodsWithClassWithPackagePrivateMethod() {
+		assertThat(getDelegatedMethods(PackagePrivateMethodGreeter.class)).isNull();
+	}
+
+	@Test
+	void getDelegatedMethodsWithClassWithReservedMethodName() {
+		assertThat(DelegatingProxyHelper.getDelegatedMethods(Collections.singletonList(SimpleGreeter.class),
+				Collections.singleton("toString"))).isNull();
+	}
+
+	private List<Method> getDelegatedMethods(Class<?> type) {
+		return DelegatingProxyHelper.getDelegatedMethods(Collections.singletonList(type),
+				Collections.singleton("resolveTarget"));
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.collection;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.Order;
+
+@Configuration(proxyBeanMethods = false)
+@Import(HandlerRegistry.class)
+public class CollectionConfiguration {
+
+	@Bean
+	@Order(2)
+	public Handler lastHandler() {
+		return new Handler();
+	}
+
+	@Bean
+	@Order(1)
+	public Handler firstHandler() {
+		return new Handler();
+	}
+
+	@Bean
+	public Integer handlerList(List<Handler> handlers) {
+		return handlers.size();
+	}
+
+	@Bean
+	public Integer handlerMap(Map<String, Handler> handlers) {
+		return handlers.size();
+	}
+
+	@Bean
+	public Integer handlerArray(Handler[] handlers) {
+		return handlers.length;
+	}
+
+	@Bean
+	public Integer handlerProvider(ObjectProvider<Handler> handlers) {
+		return 42;
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.condition;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "sample.condition", name = "enabled", matchIfMissing = true)
+public class ConditionConfiguration {
+
+	@Bean
+	@ConditionalOnProperty("sample.condition.feature")
+	public String feature() {
+		return "feature";
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "sample.condition.mode", havingValue = "advanced")
+	public String advanced() {
+		return "advanced";
+	}
+
+	@Bean
+	@ConditionalOnClass(name = "com.example.DoesNotExist")
+	@ConditionalOnProperty("sample.condition.feature")
+	public String missingClass() {
+		return "missingClass";
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.family;
+
+/**
+ * A client bound to a tenant.
+ *
+ * @param <T> the type of the entities of the tenant
+ * @author Stephane Nicoll
+ */
+public class TenantClient<T> {
+
+	private final String tenant;
+
+	private final Class<T> entityType;
+
+	public TenantClient(String tenant, Class<T> entityType) {
+		this.tenant = tenant;
+		this.entityType = entityType;
+	}
+
+	public String getTenant() {
+		return this.tenant;
+	}
+
+	public Class<T> getEntityType() {
+		return this.entityType;
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.family;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.type.AnnotationMetadata;
+
+public class TenantClientsRegistrar implements ImportBeanDefinitionRegistrar {
+
+	@Override
+	public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry,
+			BeanNameGenerator importBeanNameGenerator) {
+		registerTenantClient(registry, "acme", String.class);
+		registerTenantClient(registry, "globex", Integer.class);
+		registerTenantClient(registry, "initech", Long.class);
+	}
+
+	private void registerTenantClient(BeanDefinitionRegistry registry, String tenant, Class<?> entityType) {
+		RootBeanDefinition beanDefinition = new RootBeanDefinition(TenantClient.class);
+		beanDefinition.setTargetType(ResolvableType.forClassWithGenerics(TenantClient.class, entityType));
+		beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, tenant);
+		beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(1, entityType);
+		registry.registerBeanDefinition(tenant + "Client", beanDefinition);
+	}
+
+}
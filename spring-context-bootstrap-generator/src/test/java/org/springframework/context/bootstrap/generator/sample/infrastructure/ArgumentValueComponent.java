@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.infrastructure;
+
+import java.util.List;
+import java.util.Map;
+
+public class ArgumentValueComponent {
+
+	private final int[] numbers;
+
+	private final ArgumentValueMode mode;
+
+	private final List<String> names;
+
+	private final Map<String, Integer> counters;
+
+	private final String[][] matrix;
+
+	private final String[] packages;
+
+	public ArgumentValueComponent(int[] numbers, ArgumentValueMode mode, List<String> names,
+			Map<String, Integer> counters, String[][] matrix, String[] packages) {
+		this.numbers = numbers;
+		this.mode = mode;
+		this.names = names;
+		this.counters = counters;
+		this.matrix = matrix;
+		this.packages = packages;
+	}
+
+	public int[] getNumbers() {
+		return this.numbers;
+	}
+
+	public ArgumentValueMode getMode() {
+		return this.mode;
+	}
+
+	public List<String> getNames() {
+		return this.names;
+	}
+
+	public Map<String, Integer> getCounters() {
+		return this.counters;
+	}
+
+	public String[][] getMatrix() {
+		return this.matrix;
+	}
+
+	public String[] getPackages() {
+		return this.packages;
+	}
+
+}
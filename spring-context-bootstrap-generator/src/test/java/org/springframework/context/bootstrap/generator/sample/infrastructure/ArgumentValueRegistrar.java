@@ -16,6 +16,11 @@
 
 package org.springframework.context.bootstrap.generator.sample.infrastructure;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.beans.factory.support.GenericBeanDefinition;
@@ -33,6 +38,20 @@ public class ArgumentValueRegistrar implements ImportBeanDefinitionRegistrar {
 		beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(1, 2);
 		beanDefinition.getConstructorArgumentValues().addIndexedArgumentValue(2, 4);
 		registry.registerBeanDefinition("argumentValueString", beanDefinition);
+		GenericBeanDefinition componentDefinition = new GenericBeanDefinition();
+		componentDefinition.setBeanClass(ArgumentValueComponent.class);
+		ConstructorArgumentValues argumentValues = componentDefinition.getConstructorArgumentValues();
+		argumentValues.addIndexedArgumentValue(0, new int[] { 1, 2, 3 });
+		argumentValues.addIndexedArgumentValue(1, "SAFE");
+		argumentValues.addIndexedArgumentValue(2, Arrays.asList("one", "two"));
+		Map<String, Integer> counters = new LinkedHashMap<>();
+		counters.put("one", 1);
+		counters.put("two", 2);
+		argumentValues.addIndexedArgumentValue(3, counters);
+		argumentValues.addIndexedArgumentValue(4, new String[][] { { "a", "b" }, { "c" } });
+		argumentValues.addIndexedArgumentValue(5, new String[] { "com.example.a", "com.example.b", "com.example.c",
+				"com.example.d", "com.example.e", "com.example.f", "com.example.g", "com.example.h" });
+		registry.registerBeanDefinition("argumentValueComponent", componentDefinition);
 	}
 
 }
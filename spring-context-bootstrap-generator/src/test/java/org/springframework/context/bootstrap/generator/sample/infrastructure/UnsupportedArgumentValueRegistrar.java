@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.infrastructure;
+
+import java.util.Collections;
+
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.type.AnnotationMetadata;
+
+public class UnsupportedArgumentValueRegistrar implements ImportBeanDefinitionRegistrar {
+
+	@Override
+	public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry,
+			BeanNameGenerator importBeanNameGenerator) {
+		GenericBeanDefinition nameDefinition = new GenericBeanDefinition();
+		nameDefinition.setBeanClass(String.class);
+		nameDefinition.getConstructorArgumentValues().addIndexedArgumentValue(0, "one");
+		registry.registerBeanDefinition("name", nameDefinition);
+		GenericBeanDefinition componentDefinition = new GenericBeanDefinition();
+		componentDefinition.setBeanClass(ArgumentValueComponent.class);
+		ConstructorArgumentValues argumentValues = componentDefinition.getConstructorArgumentValues();
+		argumentValues.addIndexedArgumentValue(0, new int[] { 1 });
+		argumentValues.addIndexedArgumentValue(1, "SAFE");
+		ManagedList<RuntimeBeanReference> names = new ManagedList<>();
+		names.add(new RuntimeBeanReference("name"));
+		argumentValues.addIndexedArgumentValue(2, names);
+		argumentValues.addIndexedArgumentValue(3, Collections.emptyMap());
+		argumentValues.addIndexedArgumentValue(4, new String[0][]);
+		argumentValues.addIndexedArgumentValue(5, new String[0]);
+		registry.registerBeanDefinition("argumentValueComponent", componentDefinition);
+	}
+
+}
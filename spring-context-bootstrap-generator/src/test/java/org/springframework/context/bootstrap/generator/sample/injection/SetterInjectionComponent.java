@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.injection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class SetterInjectionComponent {
+
+	private InjectedService service;
+
+	@Autowired
+	public void setService(InjectedService service) {
+		this.service = service;
+	}
+
+	@Autowired(required = false)
+	public void setMissing(Runnable runnable) {
+		throw new IllegalStateException("Should not be invoked");
+	}
+
+	public InjectedService getService() {
+		return this.service;
+	}
+
+}
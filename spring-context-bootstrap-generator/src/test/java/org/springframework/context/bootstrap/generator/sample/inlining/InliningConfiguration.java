@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.inlining;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class InliningConfiguration {
+
+	@Bean
+	public Consumer consumer(Helper helper, SharedHelper sharedHelper) {
+		return new Consumer(helper, sharedHelper);
+	}
+
+	@Bean
+	public Helper helper(Converter converter) {
+		return new Helper(converter);
+	}
+
+	@Bean
+	public Converter converter() {
+		return new Converter();
+	}
+
+	@Bean
+	public SharedHelper sharedHelper() {
+		return new SharedHelper();
+	}
+
+	@Bean
+	public String sharedHelperUser(SharedHelper sharedHelper) {
+		return sharedHelper.toString();
+	}
+
+	@Bean
+	public LazyHelper lazyHelper() {
+		return new LazyHelper();
+	}
+
+	@Bean
+	public Integer lazyHelperUser(ObjectProvider<LazyHelper> lazyHelper) {
+		return 42;
+	}
+
+	@Bean
+	public Long lazyHelperConsumer(LazyHelper lazyHelper) {
+		return 42L;
+	}
+
+	public static class Consumer {
+
+		public Consumer(Helper helper, SharedHelper sharedHelper) {
+		}
+
+	}
+
+	public static class Helper {
+
+		public Helper(Converter converter) {
+		}
+
+	}
+
+	public static class Converter {
+
+	}
+
+	public static class SharedHelper {
+
+	}
+
+	public static class LazyHelper {
+
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.inlining;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Scope;
+
+@Configuration(proxyBeanMethods = false)
+public class NonSingletonConsumerConfiguration {
+
+	@Bean
+	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+	public PrototypeConsumer prototypeConsumer(PrototypeHelper prototypeHelper) {
+		return new PrototypeConsumer(prototypeHelper);
+	}
+
+	@Bean
+	public PrototypeHelper prototypeHelper() {
+		return new PrototypeHelper();
+	}
+
+	@Bean
+	@Lazy
+	public LazyConsumer lazyConsumer(LazyHelper lazyHelper) {
+		return new LazyConsumer(lazyHelper);
+	}
+
+	@Bean
+	public LazyHelper lazyHelper() {
+		return new LazyHelper();
+	}
+
+	@Bean
+	public String consumerUser(PrototypeConsumer prototypeConsumer, LazyConsumer lazyConsumer) {
+		return "user";
+	}
+
+	public static class PrototypeConsumer {
+
+		public PrototypeConsumer(PrototypeHelper helper) {
+		}
+
+	}
+
+	public static class PrototypeHelper {
+
+	}
+
+	public static class LazyConsumer {
+
+		public LazyConsumer(LazyHelper helper) {
+		}
+
+	}
+
+	public static class LazyHelper {
+
+	}
+
+}
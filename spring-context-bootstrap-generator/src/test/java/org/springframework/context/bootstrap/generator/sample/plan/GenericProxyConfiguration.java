@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.plan;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class GenericProxyConfiguration {
+
+	@Bean
+	public static BeanNameAutoProxyCreator beanNameAutoProxyCreator() {
+		BeanNameAutoProxyCreator proxyCreator = new BeanNameAutoProxyCreator();
+		proxyCreator.setBeanNames("stringRepository");
+		proxyCreator.setInterceptorNames("sampleInterceptor");
+		return proxyCreator;
+	}
+
+	@Bean
+	public MethodInterceptor sampleInterceptor() {
+		return (invocation) -> invocation.proceed();
+	}
+
+	@Bean
+	public StringRepository stringRepository() {
+		return new SimpleStringRepository();
+	}
+
+}
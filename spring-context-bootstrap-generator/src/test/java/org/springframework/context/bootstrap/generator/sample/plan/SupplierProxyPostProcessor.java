@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.plan;
+
+import java.util.function.Supplier;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+
+/**
+ * A post-processor that proxies {@link ContextAwareProxiedService} with a JDK proxy that
+ * only implements {@link Supplier}.
+ */
+public class SupplierProxyPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+	public SupplierProxyPostProcessor() {
+		MethodInterceptor interceptor = (invocation) -> invocation.proceed().toString().toUpperCase();
+		this.advisor = new DefaultPointcutAdvisor(
+				new ComposablePointcut(new RootClassFilter(ContextAwareProxiedService.class)), interceptor);
+	}
+
+	@Override
+	protected void customizeProxyFactory(ProxyFactory proxyFactory) {
+		proxyFactory.setInterfaces(Supplier.class);
+	}
+
+}
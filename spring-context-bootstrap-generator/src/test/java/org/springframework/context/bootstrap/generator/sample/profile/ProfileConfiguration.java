@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.profile;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration(proxyBeanMethods = false)
+public class ProfileConfiguration {
+
+	@Bean
+	public String common() {
+		return "common";
+	}
+
+	@Bean
+	@Profile("kafka")
+	public String kafka() {
+		return "kafka";
+	}
+
+	@Bean
+	@Profile("rest-only")
+	public String restOnly() {
+		return "rest-only";
+	}
+
+	@Bean
+	public List<String> names() {
+		return Collections.singletonList("common");
+	}
+
+}
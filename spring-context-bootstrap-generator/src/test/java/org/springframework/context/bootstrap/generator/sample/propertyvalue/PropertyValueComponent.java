@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.propertyvalue;
+
+import java.util.List;
+
+public class PropertyValueComponent {
+
+	private String name;
+
+	private int counter;
+
+	private long timeout;
+
+	private PropertyValueMode mode;
+
+	private Class<?> type;
+
+	private PropertyValueDependency dependency;
+
+	private List<String> tags;
+
+	public String getName() {
+		return this.name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public int getCounter() {
+		return this.counter;
+	}
+
+	public void setCounter(int counter) {
+		this.counter = counter;
+	}
+
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public PropertyValueMode getMode() {
+		return this.mode;
+	}
+
+	public void setMode(PropertyValueMode mode) {
+		this.mode = mode;
+	}
+
+	public Class<?> getType() {
+		return this.type;
+	}
+
+	public void setType(Class<?> type) {
+		this.type = type;
+	}
+
+	public PropertyValueDependency getDependency() {
+		return this.dependency;
+	}
+
+	public void setDependency(PropertyValueDependency dependency) {
+		this.dependency = dependency;
+	}
+
+	public List<String> getTags() {
+		return this.tags;
+	}
+
+	public void setTags(List<String> tags) {
+		this.tags = tags;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.propertyvalue;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.type.AnnotationMetadata;
+
+public class PropertyValueRegistrar implements ImportBeanDefinitionRegistrar {
+
+	@Override
+	public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry,
+			BeanNameGenerator importBeanNameGenerator) {
+		GenericBeanDefinition dependency = new GenericBeanDefinition();
+		dependency.setBeanClass(PropertyValueDependency.class);
+		registry.registerBeanDefinition("propertyValueDependency", dependency);
+		GenericBeanDefinition component = new GenericBeanDefinition();
+		component.setBeanClass(PropertyValueComponent.class);
+		MutablePropertyValues propertyValues = component.getPropertyValues();
+		propertyValues.add("name", new TypedStringValue("test"));
+		propertyValues.add("counter", new TypedStringValue("42"));
+		propertyValues.add("timeout", "5000");
+		propertyValues.add("mode", new TypedStringValue("SAFE"));
+		propertyValues.add("type", "java.lang.String");
+		propertyValues.add("dependency", new RuntimeBeanReference("propertyValueDependency"));
+		propertyValues.add("tags", tags("a", "b"));
+		registry.registerBeanDefinition("propertyValueComponent", component);
+		GenericBeanDefinition expression = new GenericBeanDefinition();
+		expression.setBeanClass(PropertyValueComponent.class);
+		MutablePropertyValues expressionPropertyValues = expression.getPropertyValues();
+		expressionPropertyValues.add("name", new TypedStringValue("#{'te' + 'st'}"));
+		expressionPropertyValues.add("counter", 42);
+		expressionPropertyValues.add("dependency", new RuntimeBeanReference("propertyValueDependency"));
+		expressionPropertyValues.add("tags", tags("c"));
+		registry.registerBeanDefinition("expressionPropertyValueComponent", expression);
+	}
+
+	private ManagedList<TypedStringValue> tags(String... tags) {
+		ManagedList<TypedStringValue> values = new ManagedList<>();
+		for (String tag : tags) {
+			values.add(new TypedStringValue(tag));
+		}
+		return values;
+	}
+
+}
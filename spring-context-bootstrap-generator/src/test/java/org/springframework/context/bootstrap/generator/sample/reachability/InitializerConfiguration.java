@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.reachability;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration(proxyBeanMethods = false)
+public class InitializerConfiguration {
+
+	@Bean
+	public DatabaseInitializer databaseInitializer() {
+		return new DatabaseInitializer();
+	}
+
+	@Bean
+	public AnnotatedInitializer annotatedInitializer() {
+		return new AnnotatedInitializer();
+	}
+
+	@Bean(initMethod = "initialize")
+	public CustomInitializer customInitializer() {
+		return new CustomInitializer();
+	}
+
+	@Bean
+	@Lazy
+	public DatabaseInitializer lazyDatabaseInitializer() {
+		return new DatabaseInitializer();
+	}
+
+	public static class DatabaseInitializer implements InitializingBean {
+
+		@Override
+		public void afterPropertiesSet() {
+
+		}
+
+	}
+
+	public static class AnnotatedInitializer {
+
+		@PostConstruct
+		void initialize() {
+
+		}
+
+	}
+
+	public static class CustomInitializer {
+
+		public void initialize() {
+
+		}
+
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.reachability;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class ReachabilityConfiguration {
+
+	@Bean
+	public Runner runner(UsedService usedService, ObjectProvider<DeferredService> deferredService) {
+		return new Runner(usedService, deferredService);
+	}
+
+	@Bean
+	public UsedService usedService() {
+		return new UsedService();
+	}
+
+	@Bean
+	public DeferredService deferredService() {
+		return new DeferredService();
+	}
+
+	@Bean
+	public UnusedService unusedService(UsedService usedService) {
+		return new UnusedService(usedService);
+	}
+
+	public static class Runner implements SmartInitializingSingleton {
+
+		private final UsedService usedService;
+
+		private final ObjectProvider<DeferredService> deferredService;
+
+		public Runner(UsedService usedService, ObjectProvider<DeferredService> deferredService) {
+			this.usedService = usedService;
+			this.deferredService = deferredService;
+		}
+
+		@Override
+		public void afterSingletonsInstantiated() {
+
+		}
+
+	}
+
+	public static class UsedService {
+
+	}
+
+	public static class DeferredService {
+
+	}
+
+	public static class UnusedService {
+
+		private final UsedService usedService;
+
+		public UnusedService(UsedService usedService) {
+			this.usedService = usedService;
+		}
+
+	}
+
+}
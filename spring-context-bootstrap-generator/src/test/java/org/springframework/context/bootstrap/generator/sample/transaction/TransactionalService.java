@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.transaction;
+
+import java.io.IOException;
+
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public class TransactionalService {
+
+	@Transactional
+	public void save(String name, int counter) {
+	}
+
+	@Transactional
+	public void delete(String name) {
+	}
+
+	@Transactional(value = "secondary", propagation = Propagation.REQUIRES_NEW, isolation = Isolation.SERIALIZABLE,
+			timeout = 10, readOnly = true, rollbackFor = IOException.class, noRollbackFor = IllegalStateException.class)
+	public String find(String name) {
+		return name;
+	}
+
+	public String describe() {
+		return "transactional";
+	}
+
+}
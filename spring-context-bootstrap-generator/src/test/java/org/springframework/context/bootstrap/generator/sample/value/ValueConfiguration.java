@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.bootstrap.generator.sample.value;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class ValueConfiguration {
+
+	@Bean
+	public String valueName(@Value("${value.name:test}") String name) {
+		return name;
+	}
+
+	@Bean
+	public Integer valueCounter(@Value("${value.counter:42}") int counter) {
+		return counter;
+	}
+
+	@Bean
+	public Long valueExpression(@Value("#{2 * 21}") long answer) {
+		return answer;
+	}
+
+	@Bean
+	public String valueExpressionWithPlaceholder(@Value("#{'${value.prefix:x}' + 'y'}") String value) {
+		return value;
+	}
+
+	@Bean
+	public List<String> valueList(@Value("${value.names:a,b}") List<String> names) {
+		return names;
+	}
+
+}
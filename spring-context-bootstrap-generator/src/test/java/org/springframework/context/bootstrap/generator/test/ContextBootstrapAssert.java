@@ -16,11 +16,19 @@
 
 package org.springframework.context.bootstrap.generator.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 import org.assertj.core.api.AbstractPathAssert;
 import org.assertj.core.api.PathAssert;
@@ -49,6 +57,35 @@ public class ContextBootstrapAssert extends AbstractPathAssert<ContextBootstrapA
 		return this.myself;
 	}
 
+	public ContextBootstrapAssert compiles() {
+		List<String> sources = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(this.actual)) {
+			paths.filter((path) -> path.toString().endsWith(".java"))
+					.forEach((path) -> sources.add(path.toAbsolutePath().toString()));
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertThat(compiler).as("Java compiler").isNotNull();
+		List<String> arguments = new ArrayList<>(Arrays.asList("-proc:none", "-classpath",
+				System.getProperty("java.class.path"), "-d", createOutputDirectory().toString()));
+		arguments.addAll(sources);
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		int status = compiler.run(null, null, errors, arguments.toArray(new String[0]));
+		assertThat(status).as("Compilation of %s failed:%n%s", this.actual, errors).isZero();
+		return this.myself;
+	}
+
+	private Path createOutputDirectory() {
+		try {
+			return Files.createTempDirectory("bootstrap-classes-");
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 	public TextAssert contextBootstrap() {
 		return source(this.packageName, "ContextBootstrap");
 	}
@@ -22,10 +22,15 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import com.squareup.javapoet.JavaFile;
 
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.test.context.runner.AbstractApplicationContextRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.bootstrap.generator.BeanReachability;
 import org.springframework.context.bootstrap.generator.ContextBootstrapGenerator;
 import org.springframework.util.ObjectUtils;
 
@@ -42,10 +47,24 @@ public class ContextBootstrapGeneratorTester {
 
 	private final List<Class<?>> excludeTypes;
 
+	private final BeanReachability beanReachability;
+
+	private final boolean inlineSingleUseBeans;
+
+	private final boolean unwrapFactoryBeans;
+
 	public ContextBootstrapGeneratorTester(Path directory, String packageName, List<Class<?>> excludeTypes) {
+		this(directory, packageName, excludeTypes, null, false, false);
+	}
+
+	private ContextBootstrapGeneratorTester(Path directory, String packageName, List<Class<?>> excludeTypes,
+			BeanReachability beanReachability, boolean inlineSingleUseBeans, boolean unwrapFactoryBeans) {
 		this.directory = directory;
 		this.packageName = packageName;
 		this.excludeTypes = (!ObjectUtils.isEmpty(excludeTypes)) ? new ArrayList<>(excludeTypes) : new ArrayList<>();
+		this.beanReachability = beanReachability;
+		this.inlineSingleUseBeans = inlineSingleUseBeans;
+		this.unwrapFactoryBeans = unwrapFactoryBeans;
 	}
 
 	public ContextBootstrapGeneratorTester(Path directory) {
@@ -53,21 +72,39 @@ public class ContextBootstrapGeneratorTester {
 	}
 
 	public ContextBootstrapGeneratorTester withDirectory(Path directory) {
-		return new ContextBootstrapGeneratorTester(directory, this.packageName, this.excludeTypes);
+		return new ContextBootstrapGeneratorTester(directory, this.packageName, this.excludeTypes,
+				this.beanReachability, this.inlineSingleUseBeans, this.unwrapFactoryBeans);
 	}
 
 	public ContextBootstrapGeneratorTester withPackage(String packageName) {
-		return new ContextBootstrapGeneratorTester(this.directory, packageName, this.excludeTypes);
+		return new ContextBootstrapGeneratorTester(this.directory, packageName, this.excludeTypes,
+				this.beanReachability, this.inlineSingleUseBeans, this.unwrapFactoryBeans);
 	}
 
 	public ContextBootstrapGeneratorTester withExcludeTypes(Class<?>... excludeTypes) {
-		return new ContextBootstrapGeneratorTester(this.directory, this.packageName, Arrays.asList(excludeTypes));
+		return new ContextBootstrapGeneratorTester(this.directory, this.packageName, Arrays.asList(excludeTypes),
+				this.beanReachability, this.inlineSingleUseBeans, this.unwrapFactoryBeans);
+	}
+
+	public ContextBootstrapGeneratorTester withBeanReachability(BeanReachability beanReachability) {
+		return new ContextBootstrapGeneratorTester(this.directory, this.packageName, this.excludeTypes,
+				beanReachability, this.inlineSingleUseBeans, this.unwrapFactoryBeans);
+	}
+
+	public ContextBootstrapGeneratorTester withInlineSingleUseBeans() {
+		return new ContextBootstrapGeneratorTester(this.directory, this.packageName, this.excludeTypes,
+				this.beanReachability, true, this.unwrapFactoryBeans);
+	}
+
+	public ContextBootstrapGeneratorTester withUnwrapFactoryBeans() {
+		return new ContextBootstrapGeneratorTester(this.directory, this.packageName, this.excludeTypes,
+				this.beanReachability, this.inlineSingleUseBeans, true);
 	}
 
 	public ContextBootstrapStructure generate(AbstractApplicationContextRunner<?, ?, ?> runner) {
 		Path srcDirectory = generateSrcDirectory();
 		runner.run((context) -> {
-			List<JavaFile> javaFiles = new ContextBootstrapGenerator(context.getClassLoader()).generateBootstrapClass(
+			List<JavaFile> javaFiles = createGenerator(context.getClassLoader()).generateBootstrapClass(
 					context.getSourceApplicationContext().getBeanFactory(), this.packageName,
 					this.excludeTypes.toArray(new Class<?>[0]));
 			writeSources(srcDirectory, javaFiles);
@@ -75,6 +112,39 @@ public class ContextBootstrapGeneratorTester {
 		return new ContextBootstrapStructure(srcDirectory, this.packageName);
 	}
 
+	public ContextBootstrapStructure generateVariants(AbstractApplicationContextRunner<?, ?, ?>... runners) {
+		Path srcDirectory = generateSrcDirectory();
+		runAll(Arrays.asList(runners), new ArrayList<>(), (contexts) -> {
+			List<ConfigurableListableBeanFactory> beanFactories = contexts.stream()
+					.map(ConfigurableApplicationContext::getBeanFactory).collect(Collectors.toList());
+			List<JavaFile> javaFiles = createGenerator(contexts.get(0).getClassLoader()).generateBootstrapClasses(
+					beanFactories, this.packageName, this.excludeTypes.toArray(new Class<?>[0]));
+			writeSources(srcDirectory, javaFiles);
+		});
+		return new ContextBootstrapStructure(srcDirectory, this.packageName);
+	}
+
+	private ContextBootstrapGenerator createGenerator(ClassLoader classLoader) {
+		ContextBootstrapGenerator generator = new ContextBootstrapGenerator(classLoader);
+		generator.setBeanReachability(this.beanReachability);
+		generator.setInlineSingleUseBeans(this.inlineSingleUseBeans);
+		generator.setUnwrapFactoryBeans(this.unwrapFactoryBeans);
+		return generator;
+	}
+
+	private void runAll(List<AbstractApplicationContextRunner<?, ?, ?>> runners,
+			List<ConfigurableApplicationContext> contexts, Consumer<List<ConfigurableApplicationContext>> action) {
+		if (runners.isEmpty()) {
+			action.accept(contexts);
+			return;
+		}
+		runners.get(0).run((context) -> {
+			List<ConfigurableApplicationContext> allContexts = new ArrayList<>(contexts);
+			allContexts.add(context.getSourceApplicationContext());
+			runAll(runners.subList(1, runners.size()), allContexts, action);
+		});
+	}
+
 	private Path generateSrcDirectory() {
 		try {
 			return Files.createTempDirectory(this.directory, "bootstrap-");
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Create the collections that a generated bootstrap passes as constructor or factory
+ * method arguments, using literal elements. As for the conversion of a managed collection
+ * by the container, the collections are modifiable and keep the order of the elements.
+ *
+ * @author Stephane Nicoll
+ */
+public final class ArgumentCollections {
+
+	private ArgumentCollections() {
+	}
+
+	/**
+	 * Return a list with the specified elements.
+	 * @param elements the elements
+	 * @param <T> the type of the elements
+	 * @return a new list
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> list(Object... elements) {
+		List<T> list = new ArrayList<>(elements.length);
+		for (Object element : elements) {
+			list.add((T) element);
+		}
+		return list;
+	}
+
+	/**
+	 * Return a set with the specified elements.
+	 * @param elements the elements
+	 * @param <T> the type of the elements
+	 * @return a new set
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Set<T> set(Object... elements) {
+		Set<T> set = new LinkedHashSet<>(elements.length * 2);
+		for (Object element : elements) {
+			set.add((T) element);
+		}
+		return set;
+	}
+
+	/**
+	 * Return a map with the specified entries.
+	 * @param keysAndValues the key and the value of each entry
+	 * @param <K> the type of the keys
+	 * @param <V> the type of the values
+	 * @return a new map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> Map<K, V> map(Object... keysAndValues) {
+		Assert.isTrue(keysAndValues.length % 2 == 0, "KeysAndValues must have an even number of elements");
+		Map<K, V> map = new LinkedHashMap<>(keysAndValues.length);
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put((K) keysAndValues[i], (V) keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Arrays;
+
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.util.Assert;
+
+/**
+ * An immutable {@link EnumerablePropertySource} backed by a sorted array of property
+ * names and the array of their values. Lookups use a binary search and do not allocate.
+ * Typically extended by a generated class that holds the pre-parsed configuration files
+ * of the application.
+ *
+ * @author Stephane Nicoll
+ * @see BootstrapApplication#withPropertySource(java.util.function.Supplier, String...)
+ */
+public class ArrayPropertySource extends EnumerablePropertySource<Object[]> {
+
+	private final String[] names;
+
+	/**
+	 * Create a new instance.
+	 * @param name the name of the property source
+	 * @param names the property names, sorted in natural order
+	 * @param values the property values, in the same order as their names
+	 */
+	public ArrayPropertySource(String name, String[] names, Object[] values) {
+		super(name, values);
+		Assert.isTrue(names.length == values.length, "Names and values must have the same length");
+		for (int i = 1; i < names.length; i++) {
+			Assert.isTrue(names[i - 1].compareTo(names[i]) < 0, "Names must be sorted and unique");
+		}
+		this.names = names;
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		int index = Arrays.binarySearch(this.names, name);
+		return (index >= 0) ? this.source[index] : null;
+	}
+
+	@Override
+	public boolean containsProperty(String name) {
+		return Arrays.binarySearch(this.names, name) >= 0;
+	}
+
+	@Override
+	public String[] getPropertyNames() {
+		return this.names.clone();
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Create the collections that are injected in a bean using the candidates, and their
+ * order, that a generated bootstrap has determined. The candidates are only used if the
+ * beans of the element type are exactly the ones that were available when the bootstrap
+ * was generated; otherwise the beans are looked up by type, as the container would.
+ * <p>
+ * Collections created from the candidates are pre-sized and unmodifiable. Once the
+ * configuration of the bean factory is frozen, the outcome of the check of the candidates
+ * is cached so that an injection point does not look up the beans of its element type
+ * again.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BeanCollections {
+
+	private static final Map<DefaultListableBeanFactory, Map<Candidates, Boolean>> candidatesCache = new ConcurrentReferenceHashMap<>();
+
+	private BeanCollections() {
+	}
+
+	/**
+	 * Return the beans of the specified type, in the specified order.
+	 * @param context the context to use
+	 * @param type the type of the elements
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the elements
+	 * @return the beans
+	 */
+	public static <T> List<T> list(GenericApplicationContext context, Class<T> type, String... beanNames) {
+		return list(context, ResolvableType.forClass(type), beanNames);
+	}
+
+	/**
+	 * Return the beans of the specified type, in the specified order.
+	 * @param context the context to use
+	 * @param type the type of the elements
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the elements
+	 * @return the beans
+	 */
+	public static <T> List<T> list(GenericApplicationContext context, ResolvableType type, String... beanNames) {
+		if (!hasCandidates(context, type, beanNames)) {
+			return context.<T>getBeanProvider(type).orderedStream().collect(Collectors.toList());
+		}
+		List<T> beans = new ArrayList<>(beanNames.length);
+		for (String beanName : beanNames) {
+			beans.add(getBean(context, beanName));
+		}
+		return Collections.unmodifiableList(beans);
+	}
+
+	/**
+	 * Return the beans of the specified type, in the specified order.
+	 * @param context the context to use
+	 * @param type the type of the elements
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the elements
+	 * @return the beans
+	 */
+	public static <T> Set<T> set(GenericApplicationContext context, Class<T> type, String... beanNames) {
+		return set(context, ResolvableType.forClass(type), beanNames);
+	}
+
+	/**
+	 * Return the beans of the specified type, in the specified order.
+	 * @param context the context to use
+	 * @param type the type of the elements
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the elements
+	 * @return the beans
+	 */
+	public static <T> Set<T> set(GenericApplicationContext context, ResolvableType type, String... beanNames) {
+		if (!hasCandidates(context, type, beanNames)) {
+			return context.<T>getBeanProvider(type).orderedStream()
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+		}
+		Set<T> beans = new LinkedHashSet<>(beanNames.length * 2);
+		for (String beanName : beanNames) {
+			beans.add(getBean(context, beanName));
+		}
+		return Collections.unmodifiableSet(beans);
+	}
+
+	/**
+	 * Return the beans of the specified type, by bean name.
+	 * @param context the context to use
+	 * @param type the type of the values
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the values
+	 * @return the beans, by bean name
+	 */
+	public static <T> Map<String, T> map(GenericApplicationContext context, Class<T> type, String... beanNames) {
+		return map(context, ResolvableType.forClass(type), beanNames);
+	}
+
+	/**
+	 * Return the beans of the specified type, by bean name.
+	 * @param context the context to use
+	 * @param type the type of the values
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the values
+	 * @return the beans, by bean name
+	 */
+	public static <T> Map<String, T> map(GenericApplicationContext context, ResolvableType type, String... beanNames) {
+		String[] candidates = (hasCandidates(context, type, beanNames)) ? beanNames
+				: getCandidates(context.getDefaultListableBeanFactory(), type);
+		Map<String, T> beans = new LinkedHashMap<>(candidates.length * 2);
+		for (String beanName : candidates) {
+			beans.put(beanName, getBean(context, beanName));
+		}
+		return Collections.unmodifiableMap(beans);
+	}
+
+	/**
+	 * Return the beans of the specified type, in the specified order.
+	 * @param context the context to use
+	 * @param type the type of the elements
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the elements
+	 * @return the beans
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T[] array(GenericApplicationContext context, Class<T> type, String... beanNames) {
+		List<T> beans = list(context, type, beanNames);
+		return beans.toArray((T[]) Array.newInstance(type, beans.size()));
+	}
+
+	static boolean hasCandidates(GenericApplicationContext context, ResolvableType type, String[] beanNames) {
+		DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+		if (!beanFactory.isConfigurationFrozen()) {
+			return matchCandidates(beanFactory, type, beanNames);
+		}
+		// Bean definitions can no longer change once the configuration is frozen
+		return candidatesCache.computeIfAbsent(beanFactory, (key) -> new ConcurrentHashMap<>()).computeIfAbsent(
+				new Candidates(type, beanNames), (key) -> matchCandidates(beanFactory, type, beanNames));
+	}
+
+	private static boolean matchCandidates(DefaultListableBeanFactory beanFactory, ResolvableType type,
+			String[] beanNames) {
+		String[] candidates = getCandidates(beanFactory, type);
+		return candidates.length == beanNames.length
+				&& new HashSet<>(Arrays.asList(candidates)).containsAll(Arrays.asList(beanNames));
+	}
+
+	private static String[] getCandidates(DefaultListableBeanFactory beanFactory, ResolvableType type) {
+		return Arrays.stream(beanFactory.getBeanNamesForType(type, true, false))
+				.filter((beanName) -> isAutowireCandidate(beanFactory, beanName)).toArray(String[]::new);
+	}
+
+	private static boolean isAutowireCandidate(DefaultListableBeanFactory beanFactory, String beanName) {
+		return !beanFactory.containsBeanDefinition(beanName)
+				|| beanFactory.getMergedBeanDefinition(beanName).isAutowireCandidate();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T getBean(GenericApplicationContext context, String beanName) {
+		return (T) context.getBean(beanName);
+	}
+
+	private static final class Candidates {
+
+		private final ResolvableType type;
+
+		private final List<String> beanNames;
+
+		Candidates(ResolvableType type, String[] beanNames) {
+			this.type = type;
+			this.beanNames = Arrays.asList(beanNames);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Candidates other = (Candidates) obj;
+			return this.type.equals(other.type) && this.beanNames.equals(other.beanNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.type.hashCode() + this.beanNames.hashCode();
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.expression.BeanExpressionContextAccessor;
+import org.springframework.context.expression.BeanFactoryAccessor;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.EnvironmentAccessor;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.support.StandardTypeConverter;
+import org.springframework.expression.spel.support.StandardTypeLocator;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Parse and evaluate the SpEL expressions of {@code @Value} annotations the same way as
+ * {@link org.springframework.context.expression.StandardBeanExpressionResolver}. A
+ * generated bootstrap parses each expression once and keeps it in a constant, and the
+ * evaluation context of a bean factory is created once.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BeanExpressions {
+
+	private static final ExpressionParser parser = new SpelExpressionParser();
+
+	private static final ParserContext parserContext = new TemplateParserContext("#{", "}");
+
+	private static final Map<ConfigurableListableBeanFactory, StandardEvaluationContext> evaluationContexts = new ConcurrentReferenceHashMap<>();
+
+	private BeanExpressions() {
+	}
+
+	/**
+	 * Parse the specified {@code #{...}} template.
+	 * @param expressionString the value of a {@code @Value} annotation, with its
+	 * placeholders resolved
+	 * @return the parsed expression
+	 */
+	public static Expression parse(String expressionString) {
+		return parser.parseExpression(expressionString, parserContext);
+	}
+
+	/**
+	 * Evaluate the specified expression against the bean factory of the specified
+	 * context.
+	 * @param expression the expression to evaluate
+	 * @param context the context to use
+	 * @return the result of the evaluation
+	 */
+	public static Object evaluate(Expression expression, GenericApplicationContext context) {
+		return expression.getValue(getEvaluationContext(context.getBeanFactory()));
+	}
+
+	static StandardEvaluationContext getEvaluationContext(ConfigurableListableBeanFactory beanFactory) {
+		return evaluationContexts.computeIfAbsent(beanFactory, BeanExpressions::createEvaluationContext);
+	}
+
+	private static StandardEvaluationContext createEvaluationContext(ConfigurableListableBeanFactory beanFactory) {
+		StandardEvaluationContext evaluationContext = new StandardEvaluationContext(
+				new BeanExpressionContext(beanFactory, null));
+		evaluationContext.addPropertyAccessor(new BeanExpressionContextAccessor());
+		evaluationContext.addPropertyAccessor(new BeanFactoryAccessor());
+		evaluationContext.addPropertyAccessor(new MapAccessor());
+		evaluationContext.addPropertyAccessor(new EnvironmentAccessor());
+		evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+		evaluationContext.setTypeLocator(new StandardTypeLocator(beanFactory.getBeanClassLoader()));
+		ConversionService conversionService = beanFactory.getConversionService();
+		if (conversionService != null) {
+			evaluationContext.setTypeConverter(new StandardTypeConverter(conversionService));
+		}
+		return evaluationContext;
+	}
+
+}
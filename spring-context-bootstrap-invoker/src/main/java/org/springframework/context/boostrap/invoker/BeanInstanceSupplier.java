@@ -0,0 +1,326 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bean instance {@link Supplier} that applies the callbacks a generated bootstrap has
+ * determined for a bean. Injection callbacks are applied as soon as the bean has been
+ * instantiated, while lifecycle callbacks are invoked by the {@link BootstrapBeanFactory}
+ * at the same stage as the runtime processing they replace. As for the runtime
+ * processing, each destroy callback is invoked even if a previous one failed.
+ *
+ * @param <T> the type of the bean
+ * @author Stephane Nicoll
+ */
+public final class BeanInstanceSupplier<T> implements Supplier<T> {
+
+	private static final Log logger = LogFactory.getLog(BeanInstanceSupplier.class);
+
+	private final Supplier<T> instanceSupplier;
+
+	private InstanceCallback<T> injection;
+
+	private InstanceCallback<T> awareMethods;
+
+	private InstanceCallback<T> propertiesBinding;
+
+	private InstanceCallback<T> annotatedInitMethods;
+
+	private InstanceCallback<T> initMethods;
+
+	private List<InstanceCallback<T>> annotatedDestroyMethods;
+
+	private List<InstanceCallback<T>> destroyMethods;
+
+	private UnaryOperator<Object> proxy;
+
+	private BeanInstanceSupplier(Supplier<T> instanceSupplier) {
+		this.instanceSupplier = instanceSupplier;
+	}
+
+	private BeanInstanceSupplier(BeanInstanceSupplier<T> source) {
+		this.instanceSupplier = source.instanceSupplier;
+		this.injection = source.injection;
+		this.awareMethods = source.awareMethods;
+		this.propertiesBinding = source.propertiesBinding;
+		this.annotatedInitMethods = source.annotatedInitMethods;
+		this.initMethods = source.initMethods;
+		this.annotatedDestroyMethods = source.annotatedDestroyMethods;
+		this.destroyMethods = source.destroyMethods;
+		this.proxy = source.proxy;
+	}
+
+	/**
+	 * Create a new instance using the specified {@link Supplier} to instantiate the bean.
+	 * @param instanceSupplier the supplier of the raw bean instance
+	 * @param <T> the type of the bean
+	 * @return a new instance
+	 */
+	public static <T> BeanInstanceSupplier<T> of(Supplier<T> instanceSupplier) {
+		Assert.notNull(instanceSupplier, "InstanceSupplier must not be null");
+		return new BeanInstanceSupplier<>(instanceSupplier);
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callback to inject the fields and
+	 * methods of the bean once it has been instantiated.
+	 * @param injection the callback that injects the bean
+	 * @return a new instance
+	 */
+	public BeanInstanceSupplier<T> withInjection(InstanceCallback<T> injection) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.injection = injection;
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callback in place of the
+	 * {@link org.springframework.beans.factory.Aware} callbacks of the bean factory and
+	 * the application context.
+	 * @param awareMethods the callback that invokes the {@code Aware} setters
+	 * @return a new instance
+	 */
+	public BeanInstanceSupplier<T> withAwareMethods(InstanceCallback<T> awareMethods) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.awareMethods = awareMethods;
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callback in place of the binding
+	 * of the {@code @ConfigurationProperties} bean.
+	 * @param propertiesBinding the callback that binds the properties of the bean
+	 * @return a new instance
+	 * @see EnvironmentBinder
+	 */
+	public BeanInstanceSupplier<T> withPropertiesBinding(InstanceCallback<T> propertiesBinding) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.propertiesBinding = propertiesBinding;
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callback in place of the annotated
+	 * init methods of the bean, such as {@code @PostConstruct}.
+	 * @param annotatedInitMethods the callback that invokes the annotated init methods
+	 * @return a new instance
+	 */
+	public BeanInstanceSupplier<T> withAnnotatedInitMethods(InstanceCallback<T> annotatedInitMethods) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.annotatedInitMethods = annotatedInitMethods;
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callback in place of
+	 * {@code afterPropertiesSet} and the custom init method of the bean.
+	 * @param initMethods the callback that invokes the init methods
+	 * @return a new instance
+	 */
+	public BeanInstanceSupplier<T> withInitMethods(InstanceCallback<T> initMethods) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.initMethods = initMethods;
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callbacks in place of the
+	 * annotated destroy methods of the bean, such as {@code @PreDestroy}. A callback that
+	 * fails is logged and does not prevent the next ones from being invoked.
+	 * @param annotatedDestroyMethods the callbacks that invoke the annotated destroy
+	 * methods, one per method
+	 * @return a new instance
+	 */
+	@SafeVarargs
+	public final BeanInstanceSupplier<T> withAnnotatedDestroyMethods(InstanceCallback<T>... annotatedDestroyMethods) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.annotatedDestroyMethods = Arrays.asList(annotatedDestroyMethods);
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that invokes the specified callbacks in place of
+	 * {@code destroy} and the custom destroy method of the bean. A callback that fails is
+	 * logged and does not prevent the next ones from being invoked.
+	 * @param destroyMethods the callbacks that invoke the destroy methods, one per method
+	 * @return a new instance
+	 */
+	@SafeVarargs
+	public final BeanInstanceSupplier<T> withDestroyMethods(InstanceCallback<T>... destroyMethods) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.destroyMethods = Arrays.asList(destroyMethods);
+		return supplier;
+	}
+
+	/**
+	 * Return a new instance that uses the specified callback to create the AOP proxy of
+	 * the bean in place of the proxy-creating post-processors.
+	 * @param proxy the callback that creates a proxy for the initialized bean
+	 * @return a new instance
+	 * @see PrecomputedProxyFactory
+	 */
+	public BeanInstanceSupplier<T> withProxy(UnaryOperator<Object> proxy) {
+		BeanInstanceSupplier<T> supplier = new BeanInstanceSupplier<>(this);
+		supplier.proxy = proxy;
+		return supplier;
+	}
+
+	/**
+	 * Specify if this instance injects the fields and methods of the bean.
+	 * @return {@code true} if annotation-based injection is handled by this instance
+	 */
+	public boolean isInjectionHandled() {
+		return this.injection != null;
+	}
+
+	/**
+	 * Specify if this instance invokes the {@code Aware} callbacks of the bean.
+	 * @return {@code true} if {@code Aware} callbacks are handled by this instance
+	 */
+	public boolean isAwareHandled() {
+		return this.awareMethods != null;
+	}
+
+	/**
+	 * Specify if this instance binds the {@code @ConfigurationProperties} bean.
+	 * @return {@code true} if properties binding is handled by this instance
+	 */
+	public boolean isPropertiesBindingHandled() {
+		return this.propertiesBinding != null;
+	}
+
+	/**
+	 * Specify if this instance invokes the init and destroy methods of the bean. If so,
+	 * the bean has no other lifecycle methods.
+	 * @return {@code true} if lifecycle methods are handled by this instance
+	 */
+	public boolean isLifecycleHandled() {
+		return this.annotatedInitMethods != null || this.initMethods != null || this.annotatedDestroyMethods != null
+				|| this.destroyMethods != null;
+	}
+
+	/**
+	 * Specify if this instance creates the AOP proxy of the bean.
+	 * @return {@code true} if the AOP proxy is created by this instance
+	 */
+	public boolean isProxyHandled() {
+		return this.proxy != null;
+	}
+
+	@Override
+	public T get() {
+		T instance = this.instanceSupplier.get();
+		invoke(this.injection, instance);
+		return instance;
+	}
+
+	void invokeAwareMethods(Object instance) {
+		invoke(this.awareMethods, instance);
+	}
+
+	void invokePropertiesBinding(Object instance) {
+		invoke(this.propertiesBinding, instance);
+	}
+
+	void invokeAnnotatedInitMethods(Object instance) {
+		invoke(this.annotatedInitMethods, instance);
+	}
+
+	void invokeInitMethods(Object instance) {
+		invoke(this.initMethods, instance);
+	}
+
+	boolean hasAnnotatedDestroyMethods() {
+		return this.annotatedDestroyMethods != null;
+	}
+
+	void invokeAnnotatedDestroyMethods(String beanName, Object instance) {
+		invokeDestroyCallbacks(this.annotatedDestroyMethods, beanName, instance);
+	}
+
+	boolean hasDestroyMethods() {
+		return this.destroyMethods != null;
+	}
+
+	void invokeDestroyMethods(String beanName, Object instance) {
+		invokeDestroyCallbacks(this.destroyMethods, beanName, instance);
+	}
+
+	Object createProxy(Object instance) {
+		return this.proxy.apply(instance);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void invoke(InstanceCallback<T> callback, Object instance) {
+		if (callback == null) {
+			return;
+		}
+		try {
+			callback.invoke((T) instance);
+		}
+		catch (RuntimeException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex.getMessage(), ex);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void invokeDestroyCallbacks(List<InstanceCallback<T>> callbacks, String beanName, Object instance) {
+		if (callbacks == null) {
+			return;
+		}
+		for (InstanceCallback<T> callback : callbacks) {
+			try {
+				callback.invoke((T) instance);
+			}
+			catch (Throwable ex) {
+				String message = "Invocation of destroy method failed on bean with name '" + beanName + "'";
+				if (logger.isDebugEnabled()) {
+					logger.warn(message, ex);
+				}
+				else {
+					logger.warn(message + ": " + ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Callback for a bean instance that may throw a checked exception.
+	 *
+	 * @param <T> the type of the bean
+	 */
+	@FunctionalInterface
+	public interface InstanceCallback<T> {
+
+		void invoke(T instance) throws Exception;
+
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.Assert;
+
+/**
+ * The {@link BeanPostProcessor} instances that apply to each generated bean, as evaluated
+ * against the context the bootstrap was generated from. A plan covers a fixed list of
+ * post-processor types and records, for each bean, a bitmask of the ones that apply.
+ * Post-processors that are not covered by the plan, or beans that were not evaluated,
+ * always go through the regular chain.
+ *
+ * @author Stephane Nicoll
+ * @see BootstrapBeanFactory#setBeanPostProcessorPlan(BeanPostProcessorPlan)
+ */
+public final class BeanPostProcessorPlan {
+
+	private static final Log logger = LogFactory.getLog(BeanPostProcessorPlan.class);
+
+	private final Map<String, Long> postProcessorBits;
+
+	private final Map<String, Long> masks = new HashMap<>();
+
+	private BeanPostProcessorPlan(String[] postProcessorClassNames) {
+		this.postProcessorBits = new HashMap<>();
+		for (int i = 0; i < postProcessorClassNames.length; i++) {
+			this.postProcessorBits.put(postProcessorClassNames[i], 1L << i);
+		}
+	}
+
+	/**
+	 * Create a plan for the specified post-processor types. The index of each type is the
+	 * bit that represents it in a bean mask.
+	 * @param postProcessorClassNames the fully qualified names of the post-processor
+	 * types covered by the plan
+	 * @return a new plan
+	 */
+	public static BeanPostProcessorPlan of(String... postProcessorClassNames) {
+		Assert.isTrue(postProcessorClassNames.length <= Long.SIZE,
+				() -> "A plan can't cover more than " + Long.SIZE + " post-processors");
+		return new BeanPostProcessorPlan(postProcessorClassNames);
+	}
+
+	/**
+	 * Register the post-processors that apply to the specified beans.
+	 * @param mask the bitmask of the post-processors that apply
+	 * @param beanNames the names of the beans
+	 * @return this instance
+	 */
+	public BeanPostProcessorPlan register(long mask, String... beanNames) {
+		for (String beanName : beanNames) {
+			this.masks.put(beanName, mask);
+		}
+		return this;
+	}
+
+	/**
+	 * Apply this plan to the bean factory of the specified context, if it is a
+	 * {@link BootstrapBeanFactory}.
+	 * @param context the context to configure
+	 */
+	public void applyTo(GenericApplicationContext context) {
+		if (context.getDefaultListableBeanFactory() instanceof BootstrapBeanFactory) {
+			((BootstrapBeanFactory) context.getDefaultListableBeanFactory()).setBeanPostProcessorPlan(this);
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug("Ignoring bean post-processor plan as the bean factory is not a BootstrapBeanFactory");
+		}
+	}
+
+	/**
+	 * Specify if the specified {@link BeanPostProcessor} applies to the bean with the
+	 * specified name.
+	 * @param beanName the name of the bean
+	 * @param postProcessor the post-processor to check
+	 * @return {@code false} if the plan guarantees that the post-processor does not
+	 * change or wrap the bean, {@code true} otherwise
+	 */
+	public boolean isApplicable(String beanName, BeanPostProcessor postProcessor) {
+		Long mask = this.masks.get(beanName);
+		if (mask == null) {
+			return true;
+		}
+		Long bit = this.postProcessorBits.get(postProcessor.getClass().getName());
+		return bit == null || (mask & bit) != 0;
+	}
+
+}
@@ -16,56 +16,163 @@
 
 package org.springframework.context.boostrap.invoker;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.logging.ConditionEvaluationReportLoggingListener;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.EnvironmentPostProcessorApplicationListener;
+import org.springframework.boot.web.reactive.context.ConfigurableReactiveWebEnvironment;
 import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
 import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.ConfigurablePropertyResolver;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.context.support.StandardServletEnvironment;
 
 /**
- * A helper class that bootstraps an application using a {@code BootstrapContext}.
+ * A helper class that bootstraps an application using a {@code BootstrapContext}. The
+ * application context uses a {@link BootstrapBeanFactory} and the environment caches
+ * property lookups until the context has been refreshed, see
+ * {@link CachingPropertyResolver}.
  *
  * @param <C> the {@link ApplicationContext} implementation type.
  * @author Stephane Nicoll
  */
 public final class BootstrapApplication<C extends GenericApplicationContext> {
 
-	private final Class<C> contextClass;
+	private final Function<DefaultListableBeanFactory, C> contextFactory;
+
+	private final Supplier<CachingEnvironment> environmentFactory;
 
 	private final ApplicationContextInitializer<C> bootstraper;
 
-	private BootstrapApplication(Class<C> contextClass, ApplicationContextInitializer<C> bootstraper) {
-		this.contextClass = contextClass;
+	private final Map<Set<String>, ApplicationContextInitializer<C>> variants;
+
+	private final Supplier<? extends PropertySource<?>> propertySource;
+
+	private final List<String> propertySourceProfiles;
+
+	private BootstrapApplication(Function<DefaultListableBeanFactory, C> contextFactory,
+			Supplier<CachingEnvironment> environmentFactory, ApplicationContextInitializer<C> bootstraper) {
+		this(contextFactory, environmentFactory, bootstraper, Collections.emptyMap(), null, Collections.emptyList());
+	}
+
+	private BootstrapApplication(Function<DefaultListableBeanFactory, C> contextFactory,
+			Supplier<CachingEnvironment> environmentFactory, ApplicationContextInitializer<C> bootstraper,
+			Map<Set<String>, ApplicationContextInitializer<C>> variants,
+			Supplier<? extends PropertySource<?>> propertySource, List<String> propertySourceProfiles) {
+		this.contextFactory = contextFactory;
+		this.environmentFactory = environmentFactory;
 		this.bootstraper = bootstraper;
+		this.variants = Collections.unmodifiableMap(variants);
+		this.propertySource = propertySource;
+		this.propertySourceProfiles = Collections.unmodifiableList(propertySourceProfiles);
+	}
+
+	/**
+	 * Return a new instance that uses the specified {@link PropertySource} in place of
+	 * locating and loading the configuration files of the application. Typically a
+	 * generated {@link ArrayPropertySource} that holds the packaged configuration.
+	 * <p>
+	 * The configuration files are located and loaded as usual if the active profiles
+	 * don't match the specified ones, or if configuration files outside of the
+	 * application may apply.
+	 * @param propertySource the supplier of the property source to use
+	 * @param profiles the active profiles the property source was generated with
+	 * @return a new instance
+	 */
+	public BootstrapApplication<C> withPropertySource(Supplier<? extends PropertySource<?>> propertySource,
+			String... profiles) {
+		return new BootstrapApplication<>(this.contextFactory, this.environmentFactory, this.bootstraper, this.variants,
+				propertySource, Arrays.asList(profiles));
+	}
+
+	/**
+	 * Return a new instance that uses the specified bootstrap if the active profiles
+	 * match the specified ones, regardless of their order. The bootstrap this instance
+	 * was created with is used if no variant matches the active profiles. As a generated
+	 * bootstrap verifies that the active profiles are the ones it was generated with, the
+	 * application then fails to start unless that bootstrap was generated for the active
+	 * profiles: a variant must be generated for each set of profiles the application runs
+	 * with.
+	 * @param bootstraper the bootstrap generated for the specified profiles
+	 * @param profiles the active profiles the bootstrap was generated with
+	 * @return a new instance
+	 */
+	public BootstrapApplication<C> withVariant(ApplicationContextInitializer<C> bootstraper, String... profiles) {
+		Map<Set<String>, ApplicationContextInitializer<C>> variants = new LinkedHashMap<>(this.variants);
+		variants.put(new LinkedHashSet<>(Arrays.asList(profiles)), bootstraper);
+		return new BootstrapApplication<>(this.contextFactory, this.environmentFactory, this.bootstraper, variants,
+				this.propertySource, this.propertySourceProfiles);
 	}
 
 	public void run(String[] args) {
 		SpringApplication application = new BootstrapSpringApplication();
-		application.setApplicationContextClass(this.contextClass);
-		application.setInitializers(Arrays.asList(this.bootstraper, new ConditionEvaluationReportLoggingListener()));
+		application.setApplicationContextFactory(
+				(webApplicationType) -> this.contextFactory.apply(new BootstrapBeanFactory()));
+		CachingEnvironment environment = this.environmentFactory.get();
+		application.setEnvironment((ConfigurableEnvironment) environment);
+		if (this.propertySource != null) {
+			application.setListeners(replaceConfigData(application));
+		}
+		application.addListeners(new PropertyCachingListener(environment.getCachingPropertyResolver()));
+		ApplicationContextInitializer<C> bootstraper = (!this.variants.isEmpty())
+				? new VariantSelector<>(this.bootstraper, this.variants) : this.bootstraper;
+		application.setInitializers(Collections.singletonList(bootstraper));
 		application.run(args);
 	}
 
+	private List<ApplicationListener<?>> replaceConfigData(SpringApplication application) {
+		List<ApplicationListener<?>> listeners = new ArrayList<>();
+		for (ApplicationListener<?> listener : application.getListeners()) {
+			listeners.add((listener instanceof EnvironmentPostProcessorApplicationListener)
+					? new EnvironmentPostProcessorApplicationListener(
+							PropertySourceEnvironmentPostProcessor.replaceConfigData(application.getClassLoader(),
+									this.propertySource, this.propertySourceProfiles))
+					: listener);
+		}
+		return listeners;
+	}
+
 	public static BootstrapApplication<GenericApplicationContext> forNonWebApplication(
 			ApplicationContextInitializer<GenericApplicationContext> bootstraper) {
-		return new BootstrapApplication<>(GenericApplicationContext.class, bootstraper);
+		return new BootstrapApplication<>(GenericApplicationContext::new, BootstrapEnvironment::new, bootstraper);
 	}
 
 	public static BootstrapApplication<ReactiveWebServerApplicationContext> forReactiveWebApplication(
 			ApplicationContextInitializer<ReactiveWebServerApplicationContext> bootstraper) {
-		return new BootstrapApplication<>(ReactiveWebServerApplicationContext.class, bootstraper);
+		return new BootstrapApplication<>(ReactiveWebServerApplicationContext::new,
+				BootstrapReactiveWebEnvironment::new, bootstraper);
 	}
 
 	public static BootstrapApplication<ServletWebServerApplicationContext> forServletWebApplication(
 			ApplicationContextInitializer<ServletWebServerApplicationContext> bootstraper) {
-		return new BootstrapApplication<>(ServletWebServerApplicationContext.class, bootstraper);
+		return new BootstrapApplication<>(ServletWebServerApplicationContext::new, BootstrapServletEnvironment::new,
+				bootstraper);
+	}
+
+	private static CachingPropertyResolver createPropertyResolver(MutablePropertySources propertySources) {
+		return new CachingPropertyResolver(ConfigurationPropertySources.createPropertyResolver(propertySources),
+				(TrackingPropertySources) propertySources);
 	}
 
 	/**
@@ -95,4 +202,134 @@ public final class BootstrapApplication<C extends GenericApplicationContext> {
 
 	}
 
+	/**
+	 * An environment that resolves properties using a {@link CachingPropertyResolver}.
+	 */
+	interface CachingEnvironment {
+
+		CachingPropertyResolver getCachingPropertyResolver();
+
+	}
+
+	/**
+	 * A {@link StandardEnvironment} that caches property lookups. Similarly to the
+	 * environment {@link SpringApplication} creates by default, profiles are handled by
+	 * Spring Boot.
+	 * <p>
+	 * Also used as the base class of the environments of web applications, when the
+	 * regular web environment does not add property sources of its own.
+	 */
+	static class BootstrapEnvironment extends StandardEnvironment implements CachingEnvironment {
+
+		BootstrapEnvironment() {
+			super(new TrackingPropertySources());
+		}
+
+		@Override
+		public CachingPropertyResolver getCachingPropertyResolver() {
+			return (CachingPropertyResolver) getPropertyResolver();
+		}
+
+		@Override
+		protected String doGetActiveProfilesProperty() {
+			return null;
+		}
+
+		@Override
+		protected String doGetDefaultProfilesProperty() {
+			return null;
+		}
+
+		@Override
+		protected ConfigurablePropertyResolver createPropertyResolver(MutablePropertySources propertySources) {
+			return BootstrapApplication.createPropertyResolver(propertySources);
+		}
+
+	}
+
+	/**
+	 * A {@link ConfigurableReactiveWebEnvironment} that caches property lookups.
+	 */
+	static class BootstrapReactiveWebEnvironment extends BootstrapEnvironment
+			implements ConfigurableReactiveWebEnvironment {
+
+	}
+
+	/**
+	 * A {@link StandardServletEnvironment} that caches property lookups. As it requires
+	 * the property sources of a servlet environment, it can't extend
+	 * {@link BootstrapEnvironment} and handles profiles the same way.
+	 */
+	static class BootstrapServletEnvironment extends StandardServletEnvironment implements CachingEnvironment {
+
+		BootstrapServletEnvironment() {
+			super(new TrackingPropertySources());
+		}
+
+		@Override
+		public CachingPropertyResolver getCachingPropertyResolver() {
+			return (CachingPropertyResolver) getPropertyResolver();
+		}
+
+		@Override
+		protected String doGetActiveProfilesProperty() {
+			return null;
+		}
+
+		@Override
+		protected String doGetDefaultProfilesProperty() {
+			return null;
+		}
+
+		@Override
+		protected ConfigurablePropertyResolver createPropertyResolver(MutablePropertySources propertySources) {
+			return BootstrapApplication.createPropertyResolver(propertySources);
+		}
+
+	}
+
+	/**
+	 * Invoke the bootstrap that was generated for the active profiles.
+	 *
+	 * @param <C> the type of the application context
+	 */
+	static class VariantSelector<C extends GenericApplicationContext> implements ApplicationContextInitializer<C> {
+
+		private final ApplicationContextInitializer<C> defaultBootstraper;
+
+		private final Map<Set<String>, ApplicationContextInitializer<C>> variants;
+
+		VariantSelector(ApplicationContextInitializer<C> defaultBootstraper,
+				Map<Set<String>, ApplicationContextInitializer<C>> variants) {
+			this.defaultBootstraper = defaultBootstraper;
+			this.variants = variants;
+		}
+
+		@Override
+		public void initialize(C context) {
+			Set<String> activeProfiles = new LinkedHashSet<>(
+					Arrays.asList(context.getEnvironment().getActiveProfiles()));
+			this.variants.getOrDefault(activeProfiles, this.defaultBootstraper).initialize(context);
+		}
+
+	}
+
+	/**
+	 * Stop caching property lookups once the context has been refreshed.
+	 */
+	static class PropertyCachingListener implements ApplicationListener<ContextRefreshedEvent> {
+
+		private final CachingPropertyResolver propertyResolver;
+
+		PropertyCachingListener(CachingPropertyResolver propertyResolver) {
+			this.propertyResolver = propertyResolver;
+		}
+
+		@Override
+		public void onApplicationEvent(ContextRefreshedEvent event) {
+			this.propertyResolver.stopCaching();
+		}
+
+	}
+
 }
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionValidationException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.CommonAnnotationBeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A {@link DefaultListableBeanFactory} that takes advantage of the metadata that a
+ * generated bootstrap provides via {@link BeanInstanceSupplier}: annotation-based
+ * injection and {@code @ConfigurationProperties} binding are skipped for beans whose
+ * supplier handles them already, and lifecycle methods are invoked using the callbacks of
+ * the supplier rather than being discovered at runtime. The bean definitions of a
+ * bootstrap can also be {@link #registerBeanDefinitions(Map) registered at once}.
+ *
+ * @author Stephane Nicoll
+ */
+public class BootstrapBeanFactory extends DefaultListableBeanFactory {
+
+	/**
+	 * System property that instructs the bean factory to verify its
+	 * {@link BeanPostProcessorPlan} against the full post-processor chain.
+	 */
+	public static final String VERIFY_BEAN_POST_PROCESSOR_PLAN_PROPERTY_NAME = "spring.context.bootstrap.verify-bean-post-processor-plan";
+
+	private static final String APPLICATION_CONTEXT_AWARE_PROCESSOR_CLASS_NAME = "org.springframework.context.support.ApplicationContextAwareProcessor";
+
+	private static final String CONFIGURATION_PROPERTIES_BINDING_POST_PROCESSOR_CLASS_NAME = "org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor";
+
+	private static final Field beanDefinitionMapField = ReflectionUtils.findField(DefaultListableBeanFactory.class,
+			"beanDefinitionMap", Map.class);
+
+	private static final Field beanDefinitionNamesField = ReflectionUtils.findField(DefaultListableBeanFactory.class,
+			"beanDefinitionNames", List.class);
+
+	static {
+		if (beanDefinitionMapField != null && beanDefinitionNamesField != null) {
+			ReflectionUtils.makeAccessible(beanDefinitionMapField);
+			ReflectionUtils.makeAccessible(beanDefinitionNamesField);
+		}
+	}
+
+	private final Map<String, Object> earlyProxyReferences = new ConcurrentHashMap<>(16);
+
+	private BeanPostProcessorPlan beanPostProcessorPlan;
+
+	private boolean verifyBeanPostProcessorPlan = SpringProperties
+			.getFlag(VERIFY_BEAN_POST_PROCESSOR_PLAN_PROPERTY_NAME);
+
+	/**
+	 * Set the {@link BeanPostProcessorPlan} to use to skip post-processors that do not
+	 * apply to a bean.
+	 * @param beanPostProcessorPlan the plan to use
+	 */
+	public void setBeanPostProcessorPlan(BeanPostProcessorPlan beanPostProcessorPlan) {
+		this.beanPostProcessorPlan = beanPostProcessorPlan;
+	}
+
+	/**
+	 * Specify whether all post-processors should be invoked to verify that those the
+	 * {@link BeanPostProcessorPlan} skips do not change or wrap beans.
+	 * @param verifyBeanPostProcessorPlan whether to verify the plan
+	 */
+	public void setVerifyBeanPostProcessorPlan(boolean verifyBeanPostProcessorPlan) {
+		this.verifyBeanPostProcessorPlan = verifyBeanPostProcessorPlan;
+	}
+
+	/**
+	 * Register the specified bean definitions at once. If none of them overrides a bean
+	 * definition or a singleton, and bean creation has not started yet, each bean
+	 * definition is validated and the registry structures of the bean factory are grown
+	 * once for all of them. Otherwise, they are registered one by one using
+	 * {@link #registerBeanDefinition(String, BeanDefinition)} so that override semantics
+	 * apply.
+	 * @param beanDefinitions the bean definitions to register, in registration order
+	 */
+	@SuppressWarnings("unchecked")
+	public void registerBeanDefinitions(Map<String, BeanDefinition> beanDefinitions) {
+		if (!canRegisterAtOnce(beanDefinitions)) {
+			beanDefinitions.forEach(this::registerBeanDefinition);
+			return;
+		}
+		beanDefinitions.forEach(this::validateBeanDefinition);
+		// Both structures are grown once for all bean definitions
+		((Map<String, BeanDefinition>) ReflectionUtils.getField(beanDefinitionMapField, this)).putAll(beanDefinitions);
+		((List<String>) ReflectionUtils.getField(beanDefinitionNamesField, this)).addAll(beanDefinitions.keySet());
+	}
+
+	private boolean canRegisterAtOnce(Map<String, BeanDefinition> beanDefinitions) {
+		if (beanDefinitionMapField == null || beanDefinitionNamesField == null || hasBeanCreationStarted()
+				|| isConfigurationFrozen()) {
+			return false;
+		}
+		for (String beanName : beanDefinitions.keySet()) {
+			if (containsBeanDefinition(beanName) || containsSingleton(beanName)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void validateBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+		if (beanDefinition instanceof AbstractBeanDefinition) {
+			try {
+				((AbstractBeanDefinition) beanDefinition).validate();
+			}
+			catch (BeanDefinitionValidationException ex) {
+				throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+						"Validation of bean definition failed", ex);
+			}
+		}
+	}
+
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(adapt(beanPostProcessor));
+	}
+
+	@Override
+	public void addBeanPostProcessors(Collection<? extends BeanPostProcessor> beanPostProcessors) {
+		List<BeanPostProcessor> adapted = beanPostProcessors.stream().map(this::adapt).collect(Collectors.toList());
+		super.addBeanPostProcessors(adapted);
+	}
+
+	private BeanPostProcessor adapt(BeanPostProcessor beanPostProcessor) {
+		if (beanPostProcessor instanceof AutowiredAnnotationBeanPostProcessor
+				|| beanPostProcessor instanceof CommonAnnotationBeanPostProcessor) {
+			return new AnnotationPostProcessorAdapter(beanPostProcessor);
+		}
+		return beanPostProcessor;
+	}
+
+	@Override
+	protected Object initializeBean(String beanName, Object bean, RootBeanDefinition mbd) {
+		BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(mbd);
+		if (instanceSupplier == null || !instanceSupplier.isAwareHandled()) {
+			return super.initializeBean(beanName, bean, mbd);
+		}
+		instanceSupplier.invokeAwareMethods(bean);
+		Object wrappedBean = bean;
+		if (!mbd.isSynthetic()) {
+			wrappedBean = applyBeanPostProcessors(wrappedBean, beanName,
+					(postProcessor) -> !isApplicationContextAwareProcessor(postProcessor),
+					this::postProcessBeforeInitialization);
+		}
+		try {
+			invokeInitMethods(beanName, wrappedBean, mbd);
+		}
+		catch (Throwable ex) {
+			throw new BeanCreationException(mbd.getResourceDescription(), beanName, "Invocation of init method failed",
+					ex);
+		}
+		if (!mbd.isSynthetic()) {
+			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+		}
+		return wrappedBean;
+	}
+
+	@Override
+	public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName) {
+		return applyBeanPostProcessors(existingBean, beanName, (postProcessor) -> true,
+				this::postProcessBeforeInitialization);
+	}
+
+	private Object postProcessBeforeInitialization(BeanPostProcessor postProcessor, Object bean, String beanName) {
+		if (postProcessor.getClass().getName().equals(CONFIGURATION_PROPERTIES_BINDING_POST_PROCESSOR_CLASS_NAME)) {
+			BeanInstanceSupplier<?> instanceSupplier = (beanName != null) ? getBeanInstanceSupplier(beanName) : null;
+			if (instanceSupplier != null && instanceSupplier.isPropertiesBindingHandled()) {
+				instanceSupplier.invokePropertiesBinding(bean);
+				return bean;
+			}
+		}
+		return postProcessor.postProcessBeforeInitialization(bean, beanName);
+	}
+
+	@Override
+	public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName) {
+		BeanInstanceSupplier<?> instanceSupplier = (beanName != null) ? getBeanInstanceSupplier(beanName) : null;
+		if (instanceSupplier == null || !instanceSupplier.isProxyHandled()) {
+			return applyBeanPostProcessors(existingBean, beanName, (postProcessor) -> true,
+					BeanPostProcessor::postProcessAfterInitialization);
+		}
+		// The proxy is created at the position of the first proxy-creating post-processor
+		AtomicBoolean proxied = new AtomicBoolean(this.earlyProxyReferences.remove(beanName) == existingBean);
+		return applyBeanPostProcessors(existingBean, beanName, (postProcessor) -> true, (postProcessor, bean, name) -> {
+			if (postProcessor instanceof ProxyProcessorSupport) {
+				return (proxied.getAndSet(true)) ? bean : instanceSupplier.createProxy(bean);
+			}
+			return postProcessor.postProcessAfterInitialization(bean, name);
+		});
+	}
+
+	@Override
+	protected Object getEarlyBeanReference(String beanName, RootBeanDefinition mbd, Object bean) {
+		BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(mbd);
+		if (instanceSupplier == null || !instanceSupplier.isProxyHandled() || mbd.isSynthetic()) {
+			return super.getEarlyBeanReference(beanName, mbd, bean);
+		}
+		Object exposedObject = bean;
+		for (BeanPostProcessor postProcessor : getBeanPostProcessors()) {
+			if (postProcessor instanceof SmartInstantiationAwareBeanPostProcessor
+					&& !(postProcessor instanceof ProxyProcessorSupport)) {
+				exposedObject = ((SmartInstantiationAwareBeanPostProcessor) postProcessor)
+						.getEarlyBeanReference(exposedObject, beanName);
+			}
+		}
+		this.earlyProxyReferences.put(beanName, bean);
+		return instanceSupplier.createProxy(exposedObject);
+	}
+
+	private Object applyBeanPostProcessors(Object existingBean, String beanName,
+			Predicate<BeanPostProcessor> candidates, PostProcessorCallback callback) {
+		Object result = existingBean;
+		for (BeanPostProcessor postProcessor : getBeanPostProcessors()) {
+			if (!candidates.test(postProcessor)) {
+				continue;
+			}
+			boolean applicable = this.beanPostProcessorPlan == null || beanName == null
+					|| this.beanPostProcessorPlan.isApplicable(beanName, postProcessor);
+			if (!applicable && !this.verifyBeanPostProcessorPlan) {
+				continue;
+			}
+			Object current = callback.invoke(postProcessor, result, beanName);
+			if (current == null) {
+				return result;
+			}
+			if (!applicable && current != result) {
+				throw new IllegalStateException("Bean post-processor plan skips " + postProcessor.getClass().getName()
+						+ " for bean '" + beanName + "' but it changed the bean instance");
+			}
+			result = current;
+		}
+		return result;
+	}
+
+	private boolean isApplicationContextAwareProcessor(BeanPostProcessor postProcessor) {
+		return postProcessor.getClass().getName().equals(APPLICATION_CONTEXT_AWARE_PROCESSOR_CLASS_NAME);
+	}
+
+	@Override
+	protected void invokeInitMethods(String beanName, Object bean, RootBeanDefinition mbd) throws Throwable {
+		BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(mbd);
+		if (instanceSupplier != null && instanceSupplier.isLifecycleHandled()) {
+			instanceSupplier.invokeInitMethods(bean);
+		}
+		else {
+			super.invokeInitMethods(beanName, bean, mbd);
+		}
+	}
+
+	@Override
+	protected void registerDisposableBeanIfNecessary(String beanName, Object bean, RootBeanDefinition mbd) {
+		BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(mbd);
+		if (instanceSupplier == null || !instanceSupplier.isLifecycleHandled() || !mbd.isSingleton()) {
+			super.registerDisposableBeanIfNecessary(beanName, bean, mbd);
+			return;
+		}
+		List<DestructionAwareBeanPostProcessor> postProcessors = new ArrayList<>();
+		for (BeanPostProcessor postProcessor : getBeanPostProcessors()) {
+			if (postProcessor instanceof AnnotationPostProcessorAdapter
+					&& ((AnnotationPostProcessorAdapter) postProcessor).handlesLifecycle()) {
+				if (instanceSupplier.hasAnnotatedDestroyMethods()) {
+					postProcessors.add((DestructionAwareBeanPostProcessor) postProcessor);
+				}
+			}
+			else if (postProcessor instanceof DestructionAwareBeanPostProcessor
+					&& ((DestructionAwareBeanPostProcessor) postProcessor).requiresDestruction(bean)) {
+				postProcessors.add((DestructionAwareBeanPostProcessor) postProcessor);
+			}
+		}
+		if (!postProcessors.isEmpty() || instanceSupplier.hasDestroyMethods()) {
+			registerDisposableBean(beanName, () -> {
+				for (DestructionAwareBeanPostProcessor postProcessor : postProcessors) {
+					postProcessor.postProcessBeforeDestruction(bean, beanName);
+				}
+				instanceSupplier.invokeDestroyMethods(beanName, bean);
+			});
+		}
+	}
+
+	private BeanInstanceSupplier<?> getBeanInstanceSupplier(RootBeanDefinition beanDefinition) {
+		Supplier<?> instanceSupplier = (beanDefinition != null) ? beanDefinition.getInstanceSupplier() : null;
+		return (instanceSupplier instanceof BeanInstanceSupplier) ? (BeanInstanceSupplier<?>) instanceSupplier : null;
+	}
+
+	private BeanInstanceSupplier<?> getBeanInstanceSupplier(String beanName) {
+		return (containsBeanDefinition(beanName)) ? getBeanInstanceSupplier(getMergedLocalBeanDefinition(beanName))
+				: null;
+	}
+
+	@FunctionalInterface
+	private interface PostProcessorCallback {
+
+		Object invoke(BeanPostProcessor postProcessor, Object bean, String beanName);
+
+	}
+
+	/**
+	 * Adapt an annotation post-processor so that it does not process beans whose
+	 * injection or lifecycle methods are handled by their {@link BeanInstanceSupplier}.
+	 */
+	private class AnnotationPostProcessorAdapter implements SmartInstantiationAwareBeanPostProcessor,
+			MergedBeanDefinitionPostProcessor, DestructionAwareBeanPostProcessor, PriorityOrdered {
+
+		private final BeanPostProcessor delegate;
+
+		AnnotationPostProcessorAdapter(BeanPostProcessor delegate) {
+			this.delegate = delegate;
+		}
+
+		boolean handlesLifecycle() {
+			return this.delegate instanceof CommonAnnotationBeanPostProcessor;
+		}
+
+		private boolean isHandled(BeanInstanceSupplier<?> instanceSupplier) {
+			if (instanceSupplier == null || !instanceSupplier.isInjectionHandled()) {
+				return false;
+			}
+			return !handlesLifecycle() || instanceSupplier.isLifecycleHandled();
+		}
+
+		private boolean isLifecycleHandled(BeanInstanceSupplier<?> instanceSupplier) {
+			return handlesLifecycle() && instanceSupplier != null && instanceSupplier.isLifecycleHandled();
+		}
+
+		@Override
+		public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType,
+				String beanName) {
+			if (!isHandled(getBeanInstanceSupplier(beanDefinition))) {
+				((MergedBeanDefinitionPostProcessor) this.delegate).postProcessMergedBeanDefinition(beanDefinition,
+						beanType, beanName);
+			}
+		}
+
+		@Override
+		public void resetBeanDefinition(String beanName) {
+			((MergedBeanDefinitionPostProcessor) this.delegate).resetBeanDefinition(beanName);
+		}
+
+		@Override
+		public Class<?> predictBeanType(Class<?> beanClass, String beanName) throws BeansException {
+			return (this.delegate instanceof SmartInstantiationAwareBeanPostProcessor)
+					? ((SmartInstantiationAwareBeanPostProcessor) this.delegate).predictBeanType(beanClass, beanName)
+					: null;
+		}
+
+		@Override
+		public Constructor<?>[] determineCandidateConstructors(Class<?> beanClass, String beanName)
+				throws BeansException {
+			return (this.delegate instanceof SmartInstantiationAwareBeanPostProcessor)
+					? ((SmartInstantiationAwareBeanPostProcessor) this.delegate)
+							.determineCandidateConstructors(beanClass, beanName)
+					: null;
+		}
+
+		@Override
+		public Object getEarlyBeanReference(Object bean, String beanName) throws BeansException {
+			return (this.delegate instanceof SmartInstantiationAwareBeanPostProcessor)
+					? ((SmartInstantiationAwareBeanPostProcessor) this.delegate).getEarlyBeanReference(bean, beanName)
+					: bean;
+		}
+
+		@Override
+		public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+			return ((InstantiationAwareBeanPostProcessor) this.delegate).postProcessBeforeInstantiation(beanClass,
+					beanName);
+		}
+
+		@Override
+		public boolean postProcessAfterInstantiation(Object bean, String beanName) throws BeansException {
+			return ((InstantiationAwareBeanPostProcessor) this.delegate).postProcessAfterInstantiation(bean, beanName);
+		}
+
+		@Override
+		public PropertyValues postProcessProperties(PropertyValues pvs, Object bean, String beanName)
+				throws BeansException {
+			BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(beanName);
+			if (instanceSupplier != null && instanceSupplier.isInjectionHandled()) {
+				return pvs;
+			}
+			return ((InstantiationAwareBeanPostProcessor) this.delegate).postProcessProperties(pvs, bean, beanName);
+		}
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+			BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(beanName);
+			if (isLifecycleHandled(instanceSupplier)) {
+				instanceSupplier.invokeAnnotatedInitMethods(bean);
+				return bean;
+			}
+			return this.delegate.postProcessBeforeInitialization(bean, beanName);
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+			return this.delegate.postProcessAfterInitialization(bean, beanName);
+		}
+
+		@Override
+		public void postProcessBeforeDestruction(Object bean, String beanName) throws BeansException {
+			BeanInstanceSupplier<?> instanceSupplier = getBeanInstanceSupplier(beanName);
+			if (isLifecycleHandled(instanceSupplier)) {
+				instanceSupplier.invokeAnnotatedDestroyMethods(beanName, bean);
+			}
+			else if (this.delegate instanceof DestructionAwareBeanPostProcessor) {
+				((DestructionAwareBeanPostProcessor) this.delegate).postProcessBeforeDestruction(bean, beanName);
+			}
+		}
+
+		@Override
+		public boolean requiresDestruction(Object bean) {
+			return (this.delegate instanceof DestructionAwareBeanPostProcessor)
+					&& ((DestructionAwareBeanPostProcessor) this.delegate).requiresDestruction(bean);
+		}
+
+		@Override
+		public int getOrder() {
+			return (this.delegate instanceof Ordered) ? ((Ordered) this.delegate).getOrder()
+					: Ordered.LOWEST_PRECEDENCE;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other) || (other instanceof AnnotationPostProcessorAdapter
+					&& this.delegate.equals(((AnnotationPostProcessorAdapter) other).delegate));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.delegate.hashCode();
+		}
+
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.util.StringUtils;
+
+/**
+ * The inputs of the conditions a generated bootstrap depends on that can change at deploy
+ * time, with the outcome they had when the bootstrap was generated. Other inputs, such as
+ * the presence of a class, are fixed once the application is packaged and are not checked
+ * again.
+ * <p>
+ * {@link #verify(ConfigurableEnvironment)} fails if the environment the bootstrap runs
+ * against leads to a different outcome, as the generated bean definitions would no longer
+ * match what the regular condition evaluation would have produced.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BootstrapConditions {
+
+	private final Set<String> profiles;
+
+	private final Map<String, List<PropertyCondition>> propertyConditions = new LinkedHashMap<>();
+
+	private BootstrapConditions(String[] profiles) {
+		this.profiles = new LinkedHashSet<>(Arrays.asList(profiles));
+	}
+
+	/**
+	 * Create a new instance for a bootstrap that was generated with the specified active
+	 * profiles.
+	 * @param profiles the active profiles
+	 * @return a new instance
+	 */
+	public static BootstrapConditions of(String... profiles) {
+		return new BootstrapConditions(profiles);
+	}
+
+	/**
+	 * Register a property condition, with the same semantics as
+	 * {@code @ConditionalOnProperty}. As for {@code OnPropertyCondition}, the conditions
+	 * of a source match if all of them match.
+	 * @param source the class or method the condition applies to
+	 * @param matched whether the property conditions of the source matched when the
+	 * bootstrap was generated
+	 * @param havingValue the expected value of the properties, or an empty string if any
+	 * value but {@code false} matches
+	 * @param matchIfMissing whether the condition matches if a property is not set
+	 * @param names the fully qualified names of the properties
+	 * @return this instance
+	 */
+	public BootstrapConditions onProperty(String source, boolean matched, String havingValue, boolean matchIfMissing,
+			String... names) {
+		this.propertyConditions.computeIfAbsent(source, (key) -> new ArrayList<>())
+				.add(new PropertyCondition(source, matched, havingValue, matchIfMissing, names));
+		return this;
+	}
+
+	/**
+	 * Verify that the specified environment leads to the same outcome as the one the
+	 * bootstrap was generated with.
+	 * @param environment the environment to check
+	 * @throws IllegalStateException if the outcome of at least one condition differs
+	 */
+	public void verify(ConfigurableEnvironment environment) {
+		List<String> mismatches = new ArrayList<>();
+		Set<String> activeProfiles = new LinkedHashSet<>(Arrays.asList(environment.getActiveProfiles()));
+		if (!activeProfiles.equals(this.profiles)) {
+			mismatches.add("active profiles " + activeProfiles + " differ from " + this.profiles);
+		}
+		for (List<PropertyCondition> conditions : this.propertyConditions.values()) {
+			boolean matches = conditions.stream().allMatch((condition) -> condition.matches(environment));
+			if (matches != conditions.get(0).matched) {
+				conditions.forEach((condition) -> mismatches.add(condition.toString()));
+			}
+		}
+		if (!mismatches.isEmpty()) {
+			throw new IllegalStateException("Bootstrap was generated for a different environment: "
+					+ StringUtils.collectionToDelimitedString(mismatches, ", "));
+		}
+	}
+
+	private static final class PropertyCondition {
+
+		private final String source;
+
+		private final boolean matched;
+
+		private final String havingValue;
+
+		private final boolean matchIfMissing;
+
+		private final String[] names;
+
+		PropertyCondition(String source, boolean matched, String havingValue, boolean matchIfMissing, String[] names) {
+			this.source = source;
+			this.matched = matched;
+			this.havingValue = havingValue;
+			this.matchIfMissing = matchIfMissing;
+			this.names = names;
+		}
+
+		boolean matches(PropertyResolver resolver) {
+			for (String name : this.names) {
+				if (resolver.containsProperty(name)) {
+					if (!isMatch(resolver.getProperty(name))) {
+						return false;
+					}
+				}
+				else if (!this.matchIfMissing) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean isMatch(String value) {
+			if (StringUtils.hasLength(this.havingValue)) {
+				return this.havingValue.equalsIgnoreCase(value);
+			}
+			return !"false".equalsIgnoreCase(value);
+		}
+
+		@Override
+		public String toString() {
+			return "property condition " + Arrays.toString(this.names) + " on " + this.source + " was "
+					+ ((this.matched) ? "matching" : "not matching");
+		}
+
+	}
+
+}
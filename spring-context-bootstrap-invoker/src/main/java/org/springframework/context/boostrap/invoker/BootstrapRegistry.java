@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Register the bean definitions of a generated bootstrap. Bean definitions are buffered
+ * and published at once on {@link #register()}, and a bean name that is registered twice
+ * by the bootstrap is rejected. With a {@link BootstrapBeanFactory}, the registry
+ * structures of the bean factory are grown once for all bean definitions.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BootstrapRegistry {
+
+	private static final Log logger = LogFactory.getLog(BootstrapRegistry.class);
+
+	private final GenericApplicationContext context;
+
+	private final Map<String, BeanDefinition> beanDefinitions;
+
+	private BootstrapRegistry(GenericApplicationContext context, int beanDefinitionCount) {
+		this.context = context;
+		this.beanDefinitions = new LinkedHashMap<>((int) (beanDefinitionCount / 0.75f) + 1);
+	}
+
+	/**
+	 * Create a registry for the specified {@link GenericApplicationContext}.
+	 * @param context the context to register bean definitions against
+	 * @param beanDefinitionCount the number of bean definitions to expect
+	 * @return a new registry
+	 */
+	public static BootstrapRegistry of(GenericApplicationContext context, int beanDefinitionCount) {
+		return new BootstrapRegistry(context, beanDefinitionCount);
+	}
+
+	/**
+	 * Register a bean with the specified instance {@link Supplier}. This is the
+	 * equivalent of
+	 * {@link GenericApplicationContext#registerBean(String, Class, Supplier, BeanDefinitionCustomizer...)},
+	 * except that the bean definition is only published on {@link #register()}.
+	 * @param beanName the name of the bean
+	 * @param beanClass the class of the bean
+	 * @param supplier a callback for creating an instance of the bean
+	 * @param customizers one or more callbacks for customizing the bean definition
+	 * @param <T> the type of the bean
+	 */
+	public <T> void registerBean(String beanName, Class<T> beanClass, Supplier<T> supplier,
+			BeanDefinitionCustomizer... customizers) {
+		RootBeanDefinition beanDefinition = new RootBeanDefinition(beanClass, supplier);
+		for (BeanDefinitionCustomizer customizer : customizers) {
+			customizer.customize(beanDefinition);
+		}
+		registerBeanDefinition(beanName, beanDefinition);
+	}
+
+	/**
+	 * Register the specified {@link BeanDefinition}. The bean definition is only
+	 * published on {@link #register()}.
+	 * @param beanName the name of the bean
+	 * @param beanDefinition the bean definition
+	 */
+	public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+		if (this.beanDefinitions.putIfAbsent(beanName, beanDefinition) != null) {
+			throw new IllegalStateException("Bean definition with name '" + beanName + "' already registered");
+		}
+	}
+
+	/**
+	 * Publish all bean definitions registered so far, in registration order. With a
+	 * {@link BootstrapBeanFactory}, they are
+	 * {@link BootstrapBeanFactory#registerBeanDefinitions(Map) registered at once};
+	 * otherwise the regular
+	 * {@link DefaultListableBeanFactory#registerBeanDefinition(String, BeanDefinition)
+	 * registration method} is used for each of them.
+	 */
+	public void register() {
+		DefaultListableBeanFactory beanFactory = this.context.getDefaultListableBeanFactory();
+		if (beanFactory instanceof BootstrapBeanFactory) {
+			((BootstrapBeanFactory) beanFactory).registerBeanDefinitions(this.beanDefinitions);
+		}
+		else {
+			this.beanDefinitions.forEach(beanFactory::registerBeanDefinition);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + this.beanDefinitions.size() + " bean definitions");
+		}
+		this.beanDefinitions.clear();
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.springframework.aop.framework.AopInfrastructureBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link FactoryBean} that exposes a scoped proxy generated by a bootstrap. As for
+ * {@link org.springframework.aop.scope.ScopedProxyFactoryBean}, the proxy is the object
+ * of a factory bean so that it is not processed as a regular bean.
+ *
+ * @param <T> the type of the proxy
+ * @author Stephane Nicoll
+ */
+public final class BootstrapScopedProxyFactoryBean<T> implements FactoryBean<T>, AopInfrastructureBean {
+
+	private final T proxy;
+
+	private BootstrapScopedProxyFactoryBean(T proxy) {
+		this.proxy = proxy;
+	}
+
+	/**
+	 * Create a new instance for the specified scoped proxy.
+	 * @param proxy the scoped proxy
+	 * @param <T> the type of the proxy
+	 * @return a new instance
+	 */
+	public static <T> BootstrapScopedProxyFactoryBean<T> of(T proxy) {
+		Assert.notNull(proxy, "Proxy must not be null");
+		return new BootstrapScopedProxyFactoryBean<>(proxy);
+	}
+
+	@Override
+	public T getObject() {
+		return this.proxy;
+	}
+
+	@Override
+	public Class<?> getObjectType() {
+		return this.proxy.getClass();
+	}
+
+	@Override
+	public boolean isSingleton() {
+		return true;
+	}
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.core.env.ConfigurablePropertyResolver;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ConfigurablePropertyResolver} that memoizes the lookups of a delegate while an
+ * application context is being bootstrapped. Both values and misses are cached, and the
+ * cache is invalidated as soon as a property source is added, removed or replaced.
+ * Changes to the content of an existing property source are not detected, and keys of the
+ * {@code random} property source are never cached.
+ * <p>
+ * Once the context has been refreshed, {@link #stopCaching()} restores the regular
+ * behavior of the delegate.
+ *
+ * @author Stephane Nicoll
+ */
+public class CachingPropertyResolver implements ConfigurablePropertyResolver {
+
+	private static final Log logger = LogFactory.getLog(CachingPropertyResolver.class);
+
+	private static final String RANDOM_PROPERTY_PREFIX = "random.";
+
+	private static final Object NO_VALUE = new Object();
+
+	private static final Object CONTAINS = new Object();
+
+	private static final Object PLACEHOLDERS = new Object();
+
+	private static final Object REQUIRED_PLACEHOLDERS = new Object();
+
+	private final ConfigurablePropertyResolver delegate;
+
+	private final TrackingPropertySources propertySources;
+
+	private final Map<CacheKey, Object> cache = new ConcurrentHashMap<>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private volatile boolean caching = true;
+
+	private volatile long modificationCount;
+
+	/**
+	 * Create a new instance.
+	 * @param delegate the resolver to delegate to
+	 * @param propertySources the property sources the delegate resolves against
+	 */
+	public CachingPropertyResolver(ConfigurablePropertyResolver delegate, TrackingPropertySources propertySources) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.notNull(propertySources, "PropertySources must not be null");
+		this.delegate = delegate;
+		this.propertySources = propertySources;
+		this.modificationCount = propertySources.getModificationCount();
+	}
+
+	/**
+	 * Stop caching lookups and clear the cache. Subsequent lookups are handled by the
+	 * delegate directly.
+	 */
+	public void stopCaching() {
+		if (!this.caching) {
+			return;
+		}
+		this.caching = false;
+		this.cache.clear();
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("Property lookups during bootstrap: %d hits, %d misses (%.1f%% hit rate)",
+					getHitCount(), getMissCount(), getHitRate() * 100));
+		}
+	}
+
+	/**
+	 * Return the number of lookups that were served from the cache.
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of lookups that were delegated while caching.
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the ratio of lookups that were served from the cache.
+	 * @return the hit rate, between {@code 0} and {@code 1}
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return (total != 0) ? (double) hits / total : 0;
+	}
+
+	@Override
+	public boolean containsProperty(String key) {
+		return cached(key, CONTAINS, () -> this.delegate.containsProperty(key));
+	}
+
+	@Override
+	public String getProperty(String key) {
+		return getProperty(key, String.class);
+	}
+
+	@Override
+	public String getProperty(String key, String defaultValue) {
+		String value = getProperty(key);
+		return (value != null) ? value : defaultValue;
+	}
+
+	@Override
+	public <T> T getProperty(String key, Class<T> targetType) {
+		return cached(key, targetType, () -> this.delegate.getProperty(key, targetType));
+	}
+
+	@Override
+	public <T> T getProperty(String key, Class<T> targetType, T defaultValue) {
+		T value = getProperty(key, targetType);
+		return (value != null) ? value : defaultValue;
+	}
+
+	@Override
+	public String getRequiredProperty(String key) throws IllegalStateException {
+		return getRequiredProperty(key, String.class);
+	}
+
+	@Override
+	public <T> T getRequiredProperty(String key, Class<T> targetType) throws IllegalStateException {
+		T value = getProperty(key, targetType);
+		if (value == null) {
+			throw new IllegalStateException("Required key '" + key + "' not found");
+		}
+		return value;
+	}
+
+	@Override
+	public String resolvePlaceholders(String text) {
+		return cached(text, PLACEHOLDERS, () -> this.delegate.resolvePlaceholders(text));
+	}
+
+	@Override
+	public String resolveRequiredPlaceholders(String text) throws IllegalArgumentException {
+		return cached(text, REQUIRED_PLACEHOLDERS, () -> this.delegate.resolveRequiredPlaceholders(text));
+	}
+
+	@Override
+	public ConfigurableConversionService getConversionService() {
+		return this.delegate.getConversionService();
+	}
+
+	@Override
+	public void setConversionService(ConfigurableConversionService conversionService) {
+		this.delegate.setConversionService(conversionService);
+		this.cache.clear();
+	}
+
+	@Override
+	public void setPlaceholderPrefix(String placeholderPrefix) {
+		this.delegate.setPlaceholderPrefix(placeholderPrefix);
+		this.cache.clear();
+	}
+
+	@Override
+	public void setPlaceholderSuffix(String placeholderSuffix) {
+		this.delegate.setPlaceholderSuffix(placeholderSuffix);
+		this.cache.clear();
+	}
+
+	@Override
+	public void setValueSeparator(String valueSeparator) {
+		this.delegate.setValueSeparator(valueSeparator);
+		this.cache.clear();
+	}
+
+	@Override
+	public void setIgnoreUnresolvableNestedPlaceholders(boolean ignoreUnresolvableNestedPlaceholders) {
+		this.delegate.setIgnoreUnresolvableNestedPlaceholders(ignoreUnresolvableNestedPlaceholders);
+		this.cache.clear();
+	}
+
+	@Override
+	public void setRequiredProperties(String... requiredProperties) {
+		this.delegate.setRequiredProperties(requiredProperties);
+	}
+
+	@Override
+	public void validateRequiredProperties() {
+		this.delegate.validateRequiredProperties();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T cached(String key, Object kind, Supplier<T> lookup) {
+		if (!this.caching || key == null || key.contains(RANDOM_PROPERTY_PREFIX)) {
+			return lookup.get();
+		}
+		invalidateIfNecessary();
+		CacheKey cacheKey = new CacheKey(key, kind);
+		Object value = this.cache.get(cacheKey);
+		if (value != null) {
+			this.hitCount.incrementAndGet();
+			return (value != NO_VALUE) ? (T) value : null;
+		}
+		this.missCount.incrementAndGet();
+		T result = lookup.get();
+		this.cache.put(cacheKey, (result != null) ? result : NO_VALUE);
+		return result;
+	}
+
+	private void invalidateIfNecessary() {
+		long modificationCount = this.propertySources.getModificationCount();
+		if (modificationCount != this.modificationCount) {
+			synchronized (this.cache) {
+				if (modificationCount != this.modificationCount) {
+					this.cache.clear();
+					this.modificationCount = modificationCount;
+				}
+			}
+		}
+	}
+
+	private static final class CacheKey {
+
+		private final String key;
+
+		private final Object kind;
+
+		CacheKey(String key, Object kind) {
+			this.key = key;
+			this.kind = kind;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return this.key.equals(other.key) && this.kind.equals(other.kind);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.key.hashCode() + this.kind.hashCode();
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.source.ConfigurationProperty;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.util.Assert;
+
+/**
+ * Bind the properties of a {@code @ConfigurationProperties} bean using the names that a
+ * generated bootstrap has computed for each property, rather than the reflective
+ * {@link org.springframework.boot.context.properties.bind.Binder}. The canonical name of
+ * a property is looked up in the {@link ConfigurationPropertySources} of the environment,
+ * so that relaxed binding rules apply as they do for the {@code Binder}. String values
+ * have their placeholders resolved before being converted.
+ *
+ * @author Stephane Nicoll
+ * @see BeanInstanceSupplier#withPropertiesBinding(BeanInstanceSupplier.InstanceCallback)
+ */
+public final class EnvironmentBinder {
+
+	private final ConfigurableEnvironment environment;
+
+	private final Iterable<ConfigurationPropertySource> propertySources;
+
+	private final ConversionService conversionService;
+
+	private EnvironmentBinder(ConfigurableEnvironment environment, ConversionService conversionService) {
+		this.environment = environment;
+		this.propertySources = ConfigurationPropertySources.get(environment);
+		this.conversionService = conversionService;
+	}
+
+	/**
+	 * Create a new instance for the specified {@link ConfigurableEnvironment}.
+	 * @param environment the environment to bind from
+	 * @return a new instance
+	 */
+	public static EnvironmentBinder of(ConfigurableEnvironment environment) {
+		Assert.notNull(environment, "Environment must not be null");
+		return new EnvironmentBinder(environment, ApplicationConversionService.getSharedInstance());
+	}
+
+	/**
+	 * Bind the value of a property, if any, using the specified setter.
+	 * @param type the type of the property
+	 * @param setter the setter of the property
+	 * @param name the canonical name of the property
+	 * @param <T> the type of the property
+	 * @return {@code true} if a value was bound
+	 */
+	public <T> boolean bind(Class<T> type, Consumer<? super T> setter, String name) {
+		Object value = getProperty(ConfigurationPropertyName.of(name));
+		if (value == null) {
+			return false;
+		}
+		if (value instanceof String) {
+			value = this.environment.resolvePlaceholders((String) value);
+		}
+		T convertedValue;
+		try {
+			convertedValue = this.conversionService.convert(value, type);
+		}
+		catch (ConversionException ex) {
+			throw new IllegalStateException("Failed to bind property '" + name + "' to " + type.getName(), ex);
+		}
+		if (convertedValue == null) {
+			return false;
+		}
+		setter.accept(convertedValue);
+		return true;
+	}
+
+	/**
+	 * Bind the properties of a nested object. If the getter returns {@code null}, a new
+	 * instance is created and set only if one of its properties was bound.
+	 * @param getter the getter of the nested object
+	 * @param factory the factory of the nested object, or {@code null} if it can't be
+	 * created
+	 * @param setter the setter of the nested object, or {@code null} if the property is
+	 * read-only
+	 * @param properties the callback that binds the properties of the nested object and
+	 * returns whether any of them was bound
+	 * @param <T> the type of the nested object
+	 * @return {@code true} if a value was bound
+	 */
+	public <T> boolean bindNested(Supplier<T> getter, Supplier<T> factory, Consumer<? super T> setter,
+			Predicate<? super T> properties) {
+		T instance = getter.get();
+		if (instance == null) {
+			if (factory == null || setter == null) {
+				return false;
+			}
+			instance = factory.get();
+		}
+		if (!properties.test(instance)) {
+			return false;
+		}
+		if (setter != null) {
+			setter.accept(instance);
+		}
+		return true;
+	}
+
+	private Object getProperty(ConfigurationPropertyName name) {
+		for (ConfigurationPropertySource propertySource : this.propertySources) {
+			ConfigurationProperty property = propertySource.getConfigurationProperty(name);
+			if (property != null) {
+				return property.getValue();
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.util.Assert;
+
+/**
+ * A bean instance {@link Supplier} that creates a {@link FactoryBean} and returns the
+ * object it creates. Used by a generated bootstrap to register the object of a simple
+ * singleton factory bean directly, rather than the factory bean itself.
+ *
+ * @param <T> the type of the object
+ * @author Stephane Nicoll
+ */
+public final class FactoryBeanObjectSupplier<T> implements Supplier<T> {
+
+	private final Supplier<? extends FactoryBean<T>> factoryBeanSupplier;
+
+	private FactoryBeanObjectSupplier(Supplier<? extends FactoryBean<T>> factoryBeanSupplier) {
+		this.factoryBeanSupplier = factoryBeanSupplier;
+	}
+
+	/**
+	 * Create a new instance using the specified {@link Supplier} to instantiate the
+	 * factory bean.
+	 * @param factoryBeanSupplier the supplier of the factory bean
+	 * @param <T> the type of the object
+	 * @return a new instance
+	 */
+	public static <T> FactoryBeanObjectSupplier<T> of(Supplier<? extends FactoryBean<T>> factoryBeanSupplier) {
+		Assert.notNull(factoryBeanSupplier, "FactoryBeanSupplier must not be null");
+		return new FactoryBeanObjectSupplier<>(factoryBeanSupplier);
+	}
+
+	@Override
+	public T get() {
+		FactoryBean<T> factoryBean = this.factoryBeanSupplier.get();
+		try {
+			return factoryBean.getObject();
+		}
+		catch (RuntimeException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex.getMessage(), ex);
+		}
+	}
+
+}
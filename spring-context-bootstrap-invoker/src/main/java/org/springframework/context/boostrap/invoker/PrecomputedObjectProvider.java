@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ResolvableType;
+
+/**
+ * An {@link ObjectProvider} bound to the candidates that were resolved for an injection
+ * point when the bootstrap was generated: the candidates in the order they are injected,
+ * and the unique candidate, if any. Beans are only retrieved, by name, when the provider
+ * is used.
+ * <p>
+ * The candidates are only used if the beans of the element type are exactly the ones that
+ * were available when the bootstrap was generated; otherwise the provider delegates to
+ * {@link GenericApplicationContext#getBeanProvider(ResolvableType)}. As for
+ * {@link BeanCollections}, the outcome of the check is cached once the configuration is
+ * frozen, and shared by the providers of the same candidates.
+ *
+ * @param <T> the type of the bean
+ * @author Stephane Nicoll
+ * @see BeanCollections
+ */
+public final class PrecomputedObjectProvider<T> implements ObjectProvider<T> {
+
+	private final GenericApplicationContext context;
+
+	private final ResolvableType type;
+
+	private final String uniqueBeanName;
+
+	private final String[] beanNames;
+
+	private PrecomputedObjectProvider(GenericApplicationContext context, ResolvableType type, String uniqueBeanName,
+			String[] beanNames) {
+		this.context = context;
+		this.type = type;
+		this.uniqueBeanName = uniqueBeanName;
+		this.beanNames = beanNames;
+	}
+
+	/**
+	 * Create a provider for the specified candidates.
+	 * @param context the context to use
+	 * @param type the type of the bean
+	 * @param uniqueBeanName the name of the unique candidate, or {@code null} if there is
+	 * none
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the bean
+	 * @return a new provider
+	 */
+	public static <T> PrecomputedObjectProvider<T> of(GenericApplicationContext context, Class<T> type,
+			String uniqueBeanName, String... beanNames) {
+		return of(context, ResolvableType.forClass(type), uniqueBeanName, beanNames);
+	}
+
+	/**
+	 * Create a provider for the specified candidates.
+	 * @param context the context to use
+	 * @param type the type of the bean
+	 * @param uniqueBeanName the name of the unique candidate, or {@code null} if there is
+	 * none
+	 * @param beanNames the ordered names of the candidates
+	 * @param <T> the type of the bean
+	 * @return a new provider
+	 */
+	public static <T> PrecomputedObjectProvider<T> of(GenericApplicationContext context, ResolvableType type,
+			String uniqueBeanName, String... beanNames) {
+		return new PrecomputedObjectProvider<>(context, type, uniqueBeanName, beanNames);
+	}
+
+	@Override
+	public T getObject() throws BeansException {
+		if (!isCandidatesMatch()) {
+			return getDelegate().getObject();
+		}
+		if (this.uniqueBeanName != null) {
+			return getBean(this.uniqueBeanName);
+		}
+		if (this.beanNames.length == 0) {
+			throw new NoSuchBeanDefinitionException(this.type);
+		}
+		throw new NoUniqueBeanDefinitionException(this.type, this.beanNames);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getObject(Object... args) throws BeansException {
+		if (!isCandidatesMatch() || this.uniqueBeanName == null) {
+			return getDelegate().getObject(args);
+		}
+		return (T) this.context.getBean(this.uniqueBeanName, args);
+	}
+
+	@Override
+	public T getIfAvailable() throws BeansException {
+		if (!isCandidatesMatch()) {
+			return getDelegate().getIfAvailable();
+		}
+		if (this.uniqueBeanName != null) {
+			return getBean(this.uniqueBeanName);
+		}
+		if (this.beanNames.length == 0) {
+			return null;
+		}
+		throw new NoUniqueBeanDefinitionException(this.type, this.beanNames);
+	}
+
+	@Override
+	public T getIfUnique() throws BeansException {
+		if (!isCandidatesMatch()) {
+			return getDelegate().getIfUnique();
+		}
+		return (this.uniqueBeanName != null) ? getBean(this.uniqueBeanName) : null;
+	}
+
+	@Override
+	public Stream<T> stream() {
+		if (!isCandidatesMatch()) {
+			return getDelegate().stream();
+		}
+		return Arrays.stream(this.beanNames).map(this::getBean);
+	}
+
+	@Override
+	public Stream<T> orderedStream() {
+		if (!isCandidatesMatch()) {
+			return getDelegate().orderedStream();
+		}
+		return Arrays.stream(this.beanNames).map(this::getBean);
+	}
+
+	private boolean isCandidatesMatch() {
+		return BeanCollections.hasCandidates(this.context, this.type, this.beanNames);
+	}
+
+	private ObjectProvider<T> getDelegate() {
+		return this.context.getBeanProvider(this.type);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T getBean(String beanName) {
+		return (T) this.context.getBean(beanName);
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AdvisorChainFactory;
+import org.springframework.aop.framework.DefaultAdvisorChainFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Create the JDK dynamic proxy of a bean that was proxied in the source context. The
+ * interceptor chain of each proxied method has been determined at build time so that no
+ * advisor matching happens at runtime. The proxy is a regular AOP proxy: it implements
+ * {@link Advised} and falls back to the regular advisor chain if its configuration
+ * changes.
+ *
+ * @author Stephane Nicoll
+ */
+public final class PrecomputedProxyFactory {
+
+	private final ProxyFactory proxyFactory;
+
+	private final BeanFactory beanFactory;
+
+	private final List<MethodInterceptor> interceptors = new ArrayList<>();
+
+	private final List<MethodChain> chains = new ArrayList<>();
+
+	private PrecomputedProxyFactory(Object target, BeanFactory beanFactory, Class<?>[] interfaces) {
+		this.proxyFactory = new ProxyFactory();
+		this.proxyFactory.setTarget(target);
+		this.proxyFactory.setInterfaces(interfaces);
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Create a factory for the proxy of the specified target.
+	 * @param target the target instance
+	 * @param beanFactory the bean factory to use to resolve interceptors
+	 * @param interfaces the proxied interfaces
+	 * @return a new factory
+	 */
+	public static PrecomputedProxyFactory of(Object target, BeanFactory beanFactory, Class<?>... interfaces) {
+		return new PrecomputedProxyFactory(target, beanFactory, interfaces);
+	}
+
+	/**
+	 * Register the interceptors of the proxy, in the order of the advisors of the source
+	 * proxy.
+	 * @param interceptorNames the names of the {@link Advisor} or
+	 * {@link MethodInterceptor} beans that provide the interceptors
+	 * @return this instance
+	 */
+	public PrecomputedProxyFactory withInterceptors(String... interceptorNames) {
+		for (String interceptorName : interceptorNames) {
+			Object bean = this.beanFactory.getBean(interceptorName);
+			Object advice = (bean instanceof Advisor) ? ((Advisor) bean).getAdvice() : bean;
+			Assert.state(advice instanceof MethodInterceptor,
+					() -> "Bean '" + interceptorName + "' does not provide a MethodInterceptor");
+			if (bean instanceof Advisor) {
+				this.proxyFactory.addAdvisor((Advisor) bean);
+			}
+			else {
+				this.proxyFactory.addAdvice((MethodInterceptor) advice);
+			}
+			this.interceptors.add((MethodInterceptor) advice);
+		}
+		return this;
+	}
+
+	/**
+	 * Register the interceptor chain of the proxied method with the specified signature.
+	 * @param interceptorIndices the indices of the interceptors that apply to the method
+	 * @param methodName the name of the method
+	 * @param parameterTypes the parameter types of the method
+	 * @return this instance
+	 */
+	public PrecomputedProxyFactory withChain(int[] interceptorIndices, String methodName, Class<?>... parameterTypes) {
+		List<Object> chain = new ArrayList<>(interceptorIndices.length);
+		for (int index : interceptorIndices) {
+			chain.add(this.interceptors.get(index));
+		}
+		this.chains.add(new MethodChain(methodName, parameterTypes, chain));
+		return this;
+	}
+
+	/**
+	 * Freeze the configuration of the proxy, as the source proxy was.
+	 * @return this instance
+	 */
+	public PrecomputedProxyFactory frozen() {
+		this.proxyFactory.setFrozen(true);
+		return this;
+	}
+
+	/**
+	 * Create the proxy.
+	 * @return the proxy
+	 */
+	public Object getProxy() {
+		this.proxyFactory.setAdvisorChainFactory(
+				new PrecomputedAdvisorChainFactory(this.proxyFactory.getAdvisors(), this.chains));
+		ClassLoader classLoader = (this.beanFactory instanceof ConfigurableBeanFactory)
+				? ((ConfigurableBeanFactory) this.beanFactory).getBeanClassLoader()
+				: ClassUtils.getDefaultClassLoader();
+		return this.proxyFactory.getProxy(classLoader);
+	}
+
+	/**
+	 * An {@link AdvisorChainFactory} that returns the precomputed chain of a method as
+	 * long as the advisors of the proxy are those the chains have been computed for.
+	 */
+	@SuppressWarnings("serial")
+	private static final class PrecomputedAdvisorChainFactory implements AdvisorChainFactory, Serializable {
+
+		private final AdvisorChainFactory fallback = new DefaultAdvisorChainFactory();
+
+		private final Advisor[] advisors;
+
+		private final List<MethodChain> chains;
+
+		PrecomputedAdvisorChainFactory(Advisor[] advisors, List<MethodChain> chains) {
+			this.advisors = advisors;
+			this.chains = new ArrayList<>(chains);
+		}
+
+		@Override
+		public List<Object> getInterceptorsAndDynamicInterceptionAdvice(Advised config, Method method,
+				Class<?> targetClass) {
+			if (Arrays.equals(config.getAdvisors(), this.advisors)) {
+				for (MethodChain chain : this.chains) {
+					if (chain.matches(method)) {
+						return chain.interceptors;
+					}
+				}
+			}
+			return this.fallback.getInterceptorsAndDynamicInterceptionAdvice(config, method, targetClass);
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	private static final class MethodChain implements Serializable {
+
+		private final String methodName;
+
+		private final Class<?>[] parameterTypes;
+
+		private final List<Object> interceptors;
+
+		MethodChain(String methodName, Class<?>[] parameterTypes, List<Object> interceptors) {
+			this.methodName = methodName;
+			this.parameterTypes = parameterTypes;
+			this.interceptors = interceptors;
+		}
+
+		boolean matches(Method method) {
+			return method.getName().equals(this.methodName)
+					&& Arrays.equals(method.getParameterTypes(), this.parameterTypes);
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.MethodClassKey;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.StringValueResolver;
+
+/**
+ * A {@link TransactionAttributeSource} backed by the transaction attributes that were
+ * resolved when the bootstrap was generated. Classes that are registered with this
+ * instance are never introspected at runtime: a method that has no registered attribute
+ * is not transactional. Other classes are handled by the fallback source, which also
+ * receives the {@link EmbeddedValueResolverAware} callback of this instance.
+ *
+ * @author Stephane Nicoll
+ */
+public final class PrecomputedTransactionAttributeSource
+		implements TransactionAttributeSource, EmbeddedValueResolverAware {
+
+	private static final TransactionAttribute NULL_TRANSACTION_ATTRIBUTE = new DefaultTransactionAttribute();
+
+	private final TransactionAttributeSource fallback;
+
+	private final Map<Class<?>, Map<String, TransactionAttribute>> attributes = new HashMap<>();
+
+	private final Map<Object, TransactionAttribute> cache = new ConcurrentHashMap<>(1024);
+
+	private PrecomputedTransactionAttributeSource(TransactionAttributeSource fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Return a {@link Supplier} of a {@link TransactionAttributeSource} that uses the
+	 * specified precomputed attributes, and the source provided by the specified
+	 * {@code fallback} for classes that have not been registered.
+	 * @param fallback the supplier of the source to use for unregistered classes
+	 * @param attributes the callback that registers the precomputed attributes
+	 * @return a supplier of the transaction attribute source
+	 */
+	public static Supplier<TransactionAttributeSource> of(Supplier<? extends TransactionAttributeSource> fallback,
+			Consumer<PrecomputedTransactionAttributeSource> attributes) {
+		return () -> {
+			PrecomputedTransactionAttributeSource source = new PrecomputedTransactionAttributeSource(fallback.get());
+			attributes.accept(source);
+			return source;
+		};
+	}
+
+	/**
+	 * Register the transaction attribute of the specified method.
+	 * @param targetClass the target class
+	 * @param attribute the transaction attribute of the method
+	 * @param methodName the name of the method
+	 * @param parameterTypes the parameter types of the method
+	 * @return this instance
+	 */
+	public PrecomputedTransactionAttributeSource register(Class<?> targetClass, TransactionAttribute attribute,
+			String methodName, Class<?>... parameterTypes) {
+		this.attributes.computeIfAbsent(targetClass, (key) -> new HashMap<>())
+				.put(getSignature(methodName, parameterTypes), attribute);
+		return this;
+	}
+
+	@Override
+	public void setEmbeddedValueResolver(StringValueResolver resolver) {
+		if (this.fallback instanceof EmbeddedValueResolverAware) {
+			((EmbeddedValueResolverAware) this.fallback).setEmbeddedValueResolver(resolver);
+		}
+	}
+
+	@Override
+	public boolean isCandidateClass(Class<?> targetClass) {
+		return this.attributes.containsKey(targetClass) || this.fallback.isCandidateClass(targetClass);
+	}
+
+	@Override
+	public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+		Map<String, TransactionAttribute> classAttributes = (targetClass != null) ? this.attributes.get(targetClass)
+				: null;
+		if (classAttributes == null) {
+			return this.fallback.getTransactionAttribute(method, targetClass);
+		}
+		if (method.getDeclaringClass() == Object.class) {
+			return null;
+		}
+		TransactionAttribute attribute = this.cache.computeIfAbsent(new MethodClassKey(method, targetClass), (key) -> {
+			Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			TransactionAttribute candidate = classAttributes
+					.get(getSignature(specificMethod.getName(), specificMethod.getParameterTypes()));
+			return (candidate != null) ? candidate : NULL_TRANSACTION_ATTRIBUTE;
+		});
+		return (attribute != NULL_TRANSACTION_ATTRIBUTE) ? attribute : null;
+	}
+
+	private static String getSignature(String methodName, Class<?>[] parameterTypes) {
+		return methodName + Arrays.toString(parameterTypes);
+	}
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.boot.DefaultPropertiesPropertySource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyState;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessorsFactory;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.util.StringUtils;
+
+/**
+ * An {@link EnvironmentPostProcessor} that adds a pre-built {@link PropertySource} in
+ * place of the configuration files that {@link ConfigDataEnvironmentPostProcessor}
+ * locates and loads. The property source only holds the configuration files packaged with
+ * the application for a given set of profiles: the regular post-processor is used instead
+ * if other configuration files may apply, that is if configuration files are present in
+ * the working directory, if the locations, imports or profiles are customized externally,
+ * or if the active profiles differ.
+ *
+ * @author Stephane Nicoll
+ */
+class PropertySourceEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+	private static final Log logger = LogFactory.getLog(PropertySourceEnvironmentPostProcessor.class);
+
+	private static final String CONFIG_NAME = "application";
+
+	private static final List<String> UNSUPPORTED_PROPERTIES = Arrays.asList("spring.config.name",
+			"spring.config.location", "spring.config.additional-location", "spring.config.import",
+			"spring.profiles.include", "spring.profiles.group", AbstractEnvironment.DEFAULT_PROFILES_PROPERTY_NAME);
+
+	private final Supplier<? extends PropertySource<?>> propertySource;
+
+	private final List<String> profiles;
+
+	private final EnvironmentPostProcessor fallback;
+
+	private final File directory;
+
+	private final Set<String> fileExtensions;
+
+	PropertySourceEnvironmentPostProcessor(Supplier<? extends PropertySource<?>> propertySource, List<String> profiles,
+			EnvironmentPostProcessor fallback, ClassLoader classLoader, File directory) {
+		this.propertySource = propertySource;
+		this.profiles = profiles;
+		this.fallback = fallback;
+		this.directory = directory;
+		this.fileExtensions = SpringFactoriesLoader.loadFactories(PropertySourceLoader.class, classLoader).stream()
+				.flatMap((loader) -> Arrays.stream(loader.getFileExtensions())).collect(Collectors.toSet());
+	}
+
+	@Override
+	public int getOrder() {
+		return ConfigDataEnvironmentPostProcessor.ORDER;
+	}
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		PropertySource<?> propertySource = this.propertySource.get();
+		String reason = getFallbackReason(environment, application, propertySource);
+		if (reason != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loading configuration files as " + reason);
+			}
+			this.fallback.postProcessEnvironment(environment, application);
+			return;
+		}
+		environment.getPropertySources().addLast(propertySource);
+		DefaultPropertiesPropertySource.moveToEnd(environment);
+		if (!this.profiles.isEmpty()) {
+			environment.setActiveProfiles(StringUtils.toStringArray(this.profiles));
+		}
+	}
+
+	private String getFallbackReason(ConfigurableEnvironment environment, SpringApplication application,
+			PropertySource<?> propertySource) {
+		for (String name : UNSUPPORTED_PROPERTIES) {
+			if (isSet(environment, ConfigurationPropertyName.of(name))) {
+				return "'" + name + "' is set";
+			}
+		}
+		if (environment.getActiveProfiles().length > 0 || !application.getAdditionalProfiles().isEmpty()) {
+			return "profiles are set programmatically";
+		}
+		List<String> activeProfiles = Binder.get(environment)
+				.bind(AbstractEnvironment.ACTIVE_PROFILES_PROPERTY_NAME, String[].class).map(Arrays::asList)
+				.orElseGet(() -> getActiveProfiles(propertySource));
+		if (!activeProfiles.equals(this.profiles)) {
+			return "active profiles " + activeProfiles + " differ from " + this.profiles;
+		}
+		File location = findConfigLocation();
+		if (location != null) {
+			return "configuration files are present in " + location;
+		}
+		return null;
+	}
+
+	private boolean isSet(ConfigurableEnvironment environment, ConfigurationPropertyName name) {
+		for (ConfigurationPropertySource source : ConfigurationPropertySources.get(environment)) {
+			if (source.getConfigurationProperty(name) != null
+					|| source.containsDescendantOf(name) == ConfigurationPropertyState.PRESENT) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<String> getActiveProfiles(PropertySource<?> propertySource) {
+		Object activeProfiles = propertySource.getProperty(AbstractEnvironment.ACTIVE_PROFILES_PROPERTY_NAME);
+		return (activeProfiles != null)
+				? Arrays.asList(StringUtils.tokenizeToStringArray(activeProfiles.toString(), ","))
+				: Collections.emptyList();
+	}
+
+	private File findConfigLocation() {
+		List<File> locations = new ArrayList<>();
+		locations.add(this.directory);
+		File config = new File(this.directory, "config");
+		locations.add(config);
+		File[] configDirectories = config.listFiles(File::isDirectory);
+		if (configDirectories != null) {
+			locations.addAll(Arrays.asList(configDirectories));
+		}
+		for (File location : locations) {
+			File[] files = location.listFiles(this::isConfigFile);
+			if (files != null && files.length > 0) {
+				return location;
+			}
+		}
+		return null;
+	}
+
+	private boolean isConfigFile(File file) {
+		String name = file.getName();
+		return file.isFile() && name.startsWith(CONFIG_NAME)
+				&& this.fileExtensions.contains(StringUtils.getFilenameExtension(name));
+	}
+
+	/**
+	 * Create an {@link EnvironmentPostProcessorsFactory} that uses the post-processors
+	 * registered in {@code spring.factories}, replacing
+	 * {@link ConfigDataEnvironmentPostProcessor} by an instance of this class that falls
+	 * back to it if necessary.
+	 * @param classLoader the class loader to use
+	 * @param propertySource the property source to add
+	 * @param profiles the profiles the property source was generated for
+	 * @return a factory for the environment post-processors
+	 */
+	static EnvironmentPostProcessorsFactory replaceConfigData(ClassLoader classLoader,
+			Supplier<? extends PropertySource<?>> propertySource, List<String> profiles) {
+		EnvironmentPostProcessorsFactory delegate = EnvironmentPostProcessorsFactory.fromSpringFactories(classLoader);
+		return (logFactory, bootstrapContext) -> {
+			List<EnvironmentPostProcessor> postProcessors = new ArrayList<>(
+					delegate.getEnvironmentPostProcessors(logFactory, bootstrapContext));
+			postProcessors.replaceAll((postProcessor) -> (postProcessor instanceof ConfigDataEnvironmentPostProcessor)
+					? new PropertySourceEnvironmentPostProcessor(propertySource, profiles, postProcessor, classLoader,
+							new File("."))
+					: postProcessor);
+			return postProcessors;
+		};
+	}
+
+}
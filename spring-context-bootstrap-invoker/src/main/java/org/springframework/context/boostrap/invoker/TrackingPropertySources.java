@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+/**
+ * A {@link MutablePropertySources} that keeps track of structural modifications so that a
+ * cache derived from the chain can be invalidated without walking it on every lookup.
+ *
+ * @author Stephane Nicoll
+ * @see CachingPropertyResolver
+ */
+public class TrackingPropertySources extends MutablePropertySources {
+
+	private final AtomicLong modificationCount = new AtomicLong();
+
+	/**
+	 * Return the number of times a property source has been added, removed or replaced.
+	 * @return the modification count
+	 */
+	public long getModificationCount() {
+		return this.modificationCount.get();
+	}
+
+	@Override
+	public void addFirst(PropertySource<?> propertySource) {
+		super.addFirst(propertySource);
+		this.modificationCount.incrementAndGet();
+	}
+
+	@Override
+	public void addLast(PropertySource<?> propertySource) {
+		super.addLast(propertySource);
+		this.modificationCount.incrementAndGet();
+	}
+
+	@Override
+	public void addBefore(String relativePropertySourceName, PropertySource<?> propertySource) {
+		super.addBefore(relativePropertySourceName, propertySource);
+		this.modificationCount.incrementAndGet();
+	}
+
+	@Override
+	public void addAfter(String relativePropertySourceName, PropertySource<?> propertySource) {
+		super.addAfter(relativePropertySourceName, propertySource);
+		this.modificationCount.incrementAndGet();
+	}
+
+	@Override
+	public PropertySource<?> remove(String name) {
+		PropertySource<?> propertySource = super.remove(name);
+		if (propertySource != null) {
+			this.modificationCount.incrementAndGet();
+		}
+		return propertySource;
+	}
+
+	@Override
+	public void replace(String name, PropertySource<?> propertySource) {
+		super.replace(name, propertySource);
+		this.modificationCount.incrementAndGet();
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link ArgumentCollections}.
+ *
+ * @author Stephane Nicoll
+ */
+class ArgumentCollectionsTests {
+
+	@Test
+	void listReturnsModifiableListInOrder() {
+		List<String> list = ArgumentCollections.list("b", "a");
+		assertThat(list).containsExactly("b", "a");
+		list.add("c");
+		assertThat(list).containsExactly("b", "a", "c");
+	}
+
+	@Test
+	void setReturnsModifiableSetInOrder() {
+		Set<Integer> set = ArgumentCollections.set(2, 1, 2);
+		assertThat(set).containsExactly(2, 1);
+		set.add(3);
+		assertThat(set).containsExactly(2, 1, 3);
+	}
+
+	@Test
+	void mapReturnsModifiableMapInOrder() {
+		Map<String, Integer> map = ArgumentCollections.map("two", 2, "one", 1);
+		assertThat(map).containsExactly(entry("two", 2), entry("one", 1));
+		map.put("three", 3);
+		assertThat(map).hasSize(3);
+	}
+
+	@Test
+	void mapWithOddNumberOfElementsThrowsException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> ArgumentCollections.map("one", 1, "two"))
+				.withMessageContaining("even number");
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link ArrayPropertySource}.
+ *
+ * @author Stephane Nicoll
+ */
+class ArrayPropertySourceTests {
+
+	private final ArrayPropertySource propertySource = new ArrayPropertySource("test",
+			new String[] { "app.counter", "app.name" }, new Object[] { "42", "test" });
+
+	@Test
+	void getProperty() {
+		assertThat(this.propertySource.getProperty("app.name")).isEqualTo("test");
+		assertThat(this.propertySource.getProperty("app.counter")).isEqualTo("42");
+	}
+
+	@Test
+	void getPropertyWithUnknownName() {
+		assertThat(this.propertySource.getProperty("app.description")).isNull();
+		assertThat(this.propertySource.containsProperty("app.description")).isFalse();
+	}
+
+	@Test
+	void getPropertyNames() {
+		assertThat(this.propertySource.getPropertyNames()).containsExactly("app.counter", "app.name");
+	}
+
+	@Test
+	void createWithUnsortedNames() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new ArrayPropertySource("test", new String[] { "b", "a" }, new Object[] { "1", "2" }))
+				.withMessage("Names must be sorted and unique");
+	}
+
+	@Test
+	void createWithMismatchedValues() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new ArrayPropertySource("test", new String[] { "a" }, new Object[0]))
+				.withMessage("Names and values must have the same length");
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests for {@link BeanCollections}.
+ *
+ * @author Stephane Nicoll
+ */
+class BeanCollectionsTests {
+
+	@Test
+	void listWithMatchingCandidatesUsesSpecifiedOrder() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		List<Number> numbers = BeanCollections.list(context, Number.class, "two", "one");
+		assertThat(numbers).containsExactly(2, 1);
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> numbers.add(3));
+	}
+
+	@Test
+	void listWithAdditionalBeanFallsBackToOrderedLookup() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("three", OrderedNumber.class, () -> new OrderedNumber(3));
+		context.refresh();
+		List<Number> numbers = BeanCollections.list(context, Number.class, "two", "one");
+		assertThat(numbers).hasSize(3).first().isInstanceOf(OrderedNumber.class);
+	}
+
+	@Test
+	void listWithResolvableType() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		List<Number> numbers = BeanCollections.list(context, ResolvableType.forClass(Integer.class), "one", "two");
+		assertThat(numbers).containsExactly(1, 2);
+	}
+
+	@Test
+	void setWithMatchingCandidatesUsesSpecifiedOrder() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		Set<Number> numbers = BeanCollections.set(context, Number.class, "two", "one");
+		assertThat(numbers).containsExactly(2, 1);
+	}
+
+	@Test
+	void setWithAdditionalBeanFallsBackToOrderedLookup() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("three", OrderedNumber.class, () -> new OrderedNumber(3));
+		context.refresh();
+		Set<Number> numbers = BeanCollections.set(context, Number.class, "two", "one");
+		assertThat(numbers).hasSize(3).first().isInstanceOf(OrderedNumber.class);
+	}
+
+	@Test
+	void listIgnoresBeanThatIsNotAnAutowireCandidate() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("three", Integer.class, () -> 3, (bd) -> bd.setAutowireCandidate(false));
+		context.refresh();
+		List<Number> numbers = BeanCollections.list(context, Number.class, "two", "one");
+		assertThat(numbers).containsExactly(2, 1);
+	}
+
+	@Test
+	void hasCandidatesIsCachedOnceConfigurationIsFrozen() {
+		CountingBeanFactory beanFactory = new CountingBeanFactory();
+		GenericApplicationContext context = createContext(beanFactory);
+		context.refresh();
+		ResolvableType type = ResolvableType.forClassWithGenerics(Comparable.class, Integer.class);
+		int count = beanFactory.lookups;
+		assertThat(BeanCollections.hasCandidates(context, type, new String[] { "two", "one" })).isTrue();
+		assertThat(BeanCollections.hasCandidates(context, type, new String[] { "two", "one" })).isTrue();
+		assertThat(beanFactory.lookups).isEqualTo(count + 1);
+	}
+
+	@Test
+	void hasCandidatesIsNotCachedBeforeConfigurationIsFrozen() {
+		GenericApplicationContext context = createContext();
+		ResolvableType type = ResolvableType.forClass(Number.class);
+		assertThat(BeanCollections.hasCandidates(context, type, new String[] { "two", "one" })).isTrue();
+		context.registerBean("three", Integer.class, () -> 3);
+		assertThat(BeanCollections.hasCandidates(context, type, new String[] { "two", "one" })).isFalse();
+	}
+
+	@Test
+	void mapWithMatchingCandidatesUsesSpecifiedOrder() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		Map<String, Number> numbers = BeanCollections.map(context, Number.class, "two", "one");
+		assertThat(numbers).containsExactly(entry("two", 2), entry("one", 1));
+	}
+
+	@Test
+	void mapWithMissingBeanFallsBackToLookup() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		Map<String, Number> numbers = BeanCollections.map(context, Number.class, "two", "one", "three");
+		assertThat(numbers).containsExactly(entry("one", 1), entry("two", 2));
+	}
+
+	@Test
+	void mapWithAdditionalBeanIgnoresBeanThatIsNotAnAutowireCandidate() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("three", Integer.class, () -> 3, (bd) -> bd.setAutowireCandidate(false));
+		context.registerBean("four", Integer.class, () -> 4);
+		context.refresh();
+		Map<String, Number> numbers = BeanCollections.map(context, Number.class, "two", "one");
+		assertThat(numbers).containsOnlyKeys("one", "two", "four");
+	}
+
+	@Test
+	void arrayWithMatchingCandidatesUsesSpecifiedOrder() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		Integer[] numbers = BeanCollections.array(context, Integer.class, "two", "one");
+		assertThat(numbers).containsExactly(2, 1);
+	}
+
+	private GenericApplicationContext createContext() {
+		return createContext(new BootstrapBeanFactory());
+	}
+
+	private GenericApplicationContext createContext(BootstrapBeanFactory beanFactory) {
+		GenericApplicationContext context = new GenericApplicationContext(beanFactory);
+		context.registerBean("one", Integer.class, () -> 1);
+		context.registerBean("two", Integer.class, () -> 2);
+		return context;
+	}
+
+	@SuppressWarnings("serial")
+	static class CountingBeanFactory extends BootstrapBeanFactory {
+
+		private int lookups;
+
+		@Override
+		public String[] getBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+			this.lookups++;
+			return super.getBeanNamesForType(type, includeNonSingletons, allowEagerInit);
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	static class OrderedNumber extends Number implements Ordered {
+
+		private final int value;
+
+		OrderedNumber(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public int getOrder() {
+			return 0;
+		}
+
+		@Override
+		public int intValue() {
+			return this.value;
+		}
+
+		@Override
+		public long longValue() {
+			return this.value;
+		}
+
+		@Override
+		public float floatValue() {
+			return this.value;
+		}
+
+		@Override
+		public double doubleValue() {
+			return this.value;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.expression.Expression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanExpressions}.
+ *
+ * @author Stephane Nicoll
+ */
+class BeanExpressionsTests {
+
+	@Test
+	void evaluateLiteralExpression() {
+		GenericApplicationContext context = createContext();
+		assertThat(BeanExpressions.evaluate(BeanExpressions.parse("#{2 * 21}"), context)).isEqualTo(42);
+	}
+
+	@Test
+	void evaluateTemplateWithLiteralText() {
+		GenericApplicationContext context = createContext();
+		assertThat(BeanExpressions.evaluate(BeanExpressions.parse("prefix-#{'test'}"), context))
+				.isEqualTo("prefix-test");
+	}
+
+	@Test
+	void evaluateBeanReference() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("counter", Integer.class, () -> 10);
+		context.refresh();
+		assertThat(BeanExpressions.evaluate(BeanExpressions.parse("#{counter + 1}"), context)).isEqualTo(11);
+	}
+
+	@Test
+	void evaluateEnvironmentProperty() {
+		GenericApplicationContext context = createContext();
+		TestPropertyValues.of("test.name=John").applyTo(context);
+		context.refresh();
+		assertThat(BeanExpressions.evaluate(BeanExpressions.parse("#{environment['test.name']}"), context))
+				.isEqualTo("John");
+	}
+
+	@Test
+	void evaluateSameExpressionSeveralTimes() {
+		GenericApplicationContext context = createContext();
+		TestPropertyValues.of("test.name=John").applyTo(context);
+		context.refresh();
+		Expression expression = BeanExpressions.parse("#{environment['test.name'].toUpperCase()}");
+		assertThat(BeanExpressions.evaluate(expression, context)).isEqualTo("JOHN");
+		assertThat(BeanExpressions.evaluate(expression, context)).isEqualTo("JOHN");
+	}
+
+	@Test
+	void evaluateReusesEvaluationContextOfBeanFactory() {
+		GenericApplicationContext context = createContext();
+		GenericApplicationContext anotherContext = createContext();
+		assertThat(BeanExpressions.getEvaluationContext(context.getBeanFactory()))
+				.isSameAs(BeanExpressions.getEvaluationContext(context.getBeanFactory()))
+				.isNotSameAs(BeanExpressions.getEvaluationContext(anotherContext.getBeanFactory()));
+	}
+
+	private GenericApplicationContext createContext() {
+		return new GenericApplicationContext(new BootstrapBeanFactory());
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanPostProcessorPlan}.
+ *
+ * @author Stephane Nicoll
+ */
+class BeanPostProcessorPlanTests {
+
+	private final BeanPostProcessorPlan plan = BeanPostProcessorPlan
+			.of(FirstPostProcessor.class.getName(), SecondPostProcessor.class.getName()).register(0L, "none")
+			.register(2L, "second");
+
+	@Test
+	void isApplicableWithBeanNotInPlan() {
+		assertThat(this.plan.isApplicable("unknown", new FirstPostProcessor())).isTrue();
+	}
+
+	@Test
+	void isApplicableWithPostProcessorNotInPlan() {
+		assertThat(this.plan.isApplicable("none", new BeanPostProcessor() {
+		})).isTrue();
+	}
+
+	@Test
+	void isApplicableWithPostProcessorInMask() {
+		assertThat(this.plan.isApplicable("second", new SecondPostProcessor())).isTrue();
+	}
+
+	@Test
+	void isApplicableWithPostProcessorNotInMask() {
+		assertThat(this.plan.isApplicable("second", new FirstPostProcessor())).isFalse();
+		assertThat(this.plan.isApplicable("none", new SecondPostProcessor())).isFalse();
+	}
+
+	@Test
+	void applyToWithRegularBeanFactoryIsIgnored() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		this.plan.applyTo(context);
+		context.refresh();
+	}
+
+	static class FirstPostProcessor implements BeanPostProcessor {
+
+	}
+
+	static class SecondPostProcessor implements BeanPostProcessor {
+
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.web.reactive.context.ConfigurableReactiveWebEnvironment;
+import org.springframework.context.boostrap.invoker.BootstrapApplication.BootstrapEnvironment;
+import org.springframework.context.boostrap.invoker.BootstrapApplication.BootstrapReactiveWebEnvironment;
+import org.springframework.context.boostrap.invoker.BootstrapApplication.BootstrapServletEnvironment;
+import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.context.support.StandardServletEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BootstrapApplication}.
+ *
+ * @author Stephane Nicoll
+ */
+class BootstrapApplicationTests {
+
+	@Test
+	void environmentDoesNotReadProfilesProperties() {
+		assertProfilesPropertiesAreIgnored(new BootstrapEnvironment());
+	}
+
+	@Test
+	void reactiveWebEnvironmentDoesNotReadProfilesProperties() {
+		BootstrapReactiveWebEnvironment environment = new BootstrapReactiveWebEnvironment();
+		assertThat(environment).isInstanceOf(ConfigurableReactiveWebEnvironment.class);
+		assertProfilesPropertiesAreIgnored(environment);
+	}
+
+	@Test
+	void servletEnvironmentDoesNotReadProfilesProperties() {
+		BootstrapServletEnvironment environment = new BootstrapServletEnvironment();
+		assertThat(environment.getPropertySources()
+				.contains(StandardServletEnvironment.SERVLET_CONTEXT_PROPERTY_SOURCE_NAME)).isTrue();
+		assertProfilesPropertiesAreIgnored(environment);
+	}
+
+	private void assertProfilesPropertiesAreIgnored(ConfigurableEnvironment environment) {
+		environment.getPropertySources().addFirst(new MapPropertySource("test",
+				Collections.singletonMap(AbstractEnvironment.ACTIVE_PROFILES_PROPERTY_NAME, "test")));
+		environment.getPropertySources().addFirst(new MapPropertySource("default",
+				Collections.singletonMap(AbstractEnvironment.DEFAULT_PROFILES_PROPERTY_NAME, "custom")));
+		assertThat(environment.getActiveProfiles()).isEmpty();
+		assertThat(environment.getDefaultProfiles()).containsExactly("default");
+		assertThat(((BootstrapApplication.CachingEnvironment) environment).getCachingPropertyResolver()).isNotNull();
+	}
+
+}
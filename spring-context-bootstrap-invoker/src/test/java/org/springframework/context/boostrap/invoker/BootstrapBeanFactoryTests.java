@@ -0,0 +1,372 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BootstrapBeanFactory}.
+ *
+ * @author Stephane Nicoll
+ */
+class BootstrapBeanFactoryTests {
+
+	@Test
+	void registerBeanDefinitionsRegistersThemInOrder() {
+		BootstrapBeanFactory beanFactory = new BootstrapBeanFactory();
+		beanFactory.registerBeanDefinition("existing", new RootBeanDefinition(Integer.class, () -> 42));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		beanDefinitions.put("second", new RootBeanDefinition(String.class, () -> "two"));
+		beanDefinitions.put("first", new RootBeanDefinition(String.class, () -> "one"));
+		beanFactory.registerBeanDefinitions(beanDefinitions);
+		assertThat(beanFactory.getBeanDefinitionNames()).containsExactly("existing", "second", "first");
+		assertThat(beanFactory.getBeanNamesForType(String.class)).containsExactly("second", "first");
+		assertThat(beanFactory.getBean("first")).isEqualTo("one");
+	}
+
+	@Test
+	void registerBeanDefinitionsWithExistingBeanDefinitionOverridesIt() {
+		BootstrapBeanFactory beanFactory = new BootstrapBeanFactory();
+		beanFactory.registerBeanDefinition("test", new RootBeanDefinition(String.class, () -> "original"));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		beanDefinitions.put("another", new RootBeanDefinition(String.class, () -> "another"));
+		beanDefinitions.put("test", new RootBeanDefinition(String.class, () -> "override"));
+		beanFactory.registerBeanDefinitions(beanDefinitions);
+		assertThat(beanFactory.getBeanDefinitionNames()).containsExactly("test", "another");
+		assertThat(beanFactory.getBean("test")).isEqualTo("override");
+	}
+
+	@Test
+	void registerBeanDefinitionsWithInvalidBeanDefinitionFails() {
+		BootstrapBeanFactory beanFactory = new BootstrapBeanFactory();
+		RootBeanDefinition beanDefinition = new RootBeanDefinition(String.class);
+		beanDefinition.setFactoryMethodName("valueOf");
+		beanDefinition.getMethodOverrides().addOverride(new LookupOverride("toString", null));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		beanDefinitions.put("test", beanDefinition);
+		assertThatExceptionOfType(BeanDefinitionStoreException.class)
+				.isThrownBy(() -> beanFactory.registerBeanDefinitions(beanDefinitions)).withMessageContaining("'test'");
+		assertThat(beanFactory.containsBeanDefinition("test")).isFalse();
+	}
+
+	@Test
+	void beanWithInjectionHandledBySupplierIsNotProcessed() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("sample", SampleBean.class,
+				BeanInstanceSupplier.<SampleBean>of(SampleBean::new).withInjection((bean) -> bean.setName("supplier")));
+		context.refresh();
+		SampleBean bean = context.getBean(SampleBean.class);
+		assertThat(bean.name).isEqualTo("supplier");
+		assertThat(bean.invocations).isEqualTo(1);
+	}
+
+	@Test
+	void beanWithoutInjectionHandledBySupplierIsProcessed() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("sample", SampleBean.class, BeanInstanceSupplier.of(SampleBean::new));
+		context.refresh();
+		SampleBean bean = context.getBean(SampleBean.class);
+		assertThat(bean.name).isEqualTo("context");
+		assertThat(bean.invocations).isEqualTo(1);
+	}
+
+	@Test
+	void beanWithLifecycleHandledBySupplierInvokesCallbacksInOrder() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("lifecycle", LifecycleBean.class, BeanInstanceSupplier
+				.<LifecycleBean>of(LifecycleBean::new).withAnnotatedInitMethods(LifecycleBean::postConstruct)
+				.withInitMethods(LifecycleBean::afterPropertiesSet)
+				.withAnnotatedDestroyMethods(LifecycleBean::preDestroy).withDestroyMethods(LifecycleBean::destroy));
+		context.refresh();
+		LifecycleBean bean = context.getBean(LifecycleBean.class);
+		assertThat(bean.events).containsExactly("postConstruct", "afterPropertiesSet");
+		context.close();
+		assertThat(bean.events).containsExactly("postConstruct", "afterPropertiesSet", "preDestroy", "destroy");
+	}
+
+	@Test
+	void beanWithLifecycleHandledBySupplierInvokesDestroyCallbacksThatFollowAFailure() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("lifecycle", LifecycleBean.class,
+				BeanInstanceSupplier.<LifecycleBean>of(LifecycleBean::new)
+						.withAnnotatedDestroyMethods(LifecycleBean::fail, LifecycleBean::preDestroy)
+						.withDestroyMethods(LifecycleBean::fail, LifecycleBean::destroy));
+		context.refresh();
+		LifecycleBean bean = context.getBean(LifecycleBean.class);
+		context.close();
+		assertThat(bean.events).containsExactly("fail", "preDestroy", "fail", "destroy");
+	}
+
+	@Test
+	void beanWithoutLifecycleHandledBySupplierIsProcessed() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("lifecycle", LifecycleBean.class, BeanInstanceSupplier.of(LifecycleBean::new));
+		context.refresh();
+		LifecycleBean bean = context.getBean(LifecycleBean.class);
+		assertThat(bean.events).containsExactly("postConstruct", "afterPropertiesSet");
+		context.close();
+		assertThat(bean.events).containsExactly("postConstruct", "afterPropertiesSet", "preDestroy", "destroy");
+	}
+
+	@Test
+	void beanWithAwareMethodsHandledBySupplierIsNotProcessed() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("aware", AwareBean.class, BeanInstanceSupplier.<AwareBean>of(AwareBean::new)
+				.withAwareMethods((bean) -> bean.setApplicationContext(context)));
+		context.refresh();
+		AwareBean bean = context.getBean(AwareBean.class);
+		assertThat(bean.applicationContext).isSameAs(context);
+		assertThat(bean.beanName).isNull();
+		assertThat(bean.invocations).isEqualTo(1);
+	}
+
+	@Test
+	void beanWithoutAwareMethodsHandledBySupplierIsProcessed() {
+		GenericApplicationContext context = createContext();
+		context.registerBean("aware", AwareBean.class, BeanInstanceSupplier.of(AwareBean::new));
+		context.refresh();
+		AwareBean bean = context.getBean(AwareBean.class);
+		assertThat(bean.applicationContext).isSameAs(context);
+		assertThat(bean.beanName).isEqualTo("aware");
+		assertThat(bean.invocations).isEqualTo(2);
+	}
+
+	@Test
+	void beanPostProcessorNotApplicableAccordingToPlanIsSkipped() {
+		GenericApplicationContext context = createContext();
+		context.registerBean(WrappingPostProcessor.class, WrappingPostProcessor::new);
+		context.registerBean("sample", SampleBean.class, SampleBean::new);
+		BeanPostProcessorPlan.of(WrappingPostProcessor.class.getName()).register(0L, "sample").applyTo(context);
+		context.refresh();
+		assertThat(context.getBean("sample")).isInstanceOf(SampleBean.class);
+	}
+
+	@Test
+	void beanPostProcessorApplicableAccordingToPlanIsInvoked() {
+		GenericApplicationContext context = createContext();
+		context.registerBean(WrappingPostProcessor.class, WrappingPostProcessor::new);
+		context.registerBean("sample", SampleBean.class, SampleBean::new);
+		BeanPostProcessorPlan.of(WrappingPostProcessor.class.getName()).register(1L, "sample").applyTo(context);
+		context.refresh();
+		assertThat(context.getBean("sample")).isInstanceOf(Wrapper.class);
+	}
+
+	@Test
+	void beanPostProcessorPlanVerificationDetectsInvalidPlan() {
+		GenericApplicationContext context = createContext();
+		((BootstrapBeanFactory) context.getDefaultListableBeanFactory()).setVerifyBeanPostProcessorPlan(true);
+		context.registerBean(WrappingPostProcessor.class, WrappingPostProcessor::new);
+		context.registerBean("sample", SampleBean.class, SampleBean::new);
+		BeanPostProcessorPlan.of(WrappingPostProcessor.class.getName()).register(0L, "sample").applyTo(context);
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(context::refresh)
+				.withMessageContaining(WrappingPostProcessor.class.getName()).withMessageContaining("'sample'");
+	}
+
+	@Test
+	void beanWithProxyHandledBySupplierIsNotProxiedByPostProcessor() {
+		GenericApplicationContext context = createContext();
+		context.registerBean(ProxyingPostProcessor.class, ProxyingPostProcessor::new);
+		context.registerBean("sample", SampleBean.class,
+				BeanInstanceSupplier.<SampleBean>of(SampleBean::new).withProxy(Wrapper::new));
+		context.refresh();
+		assertThat(context.getBean("sample")).isInstanceOf(Wrapper.class);
+	}
+
+	@Test
+	void beanWithPropertiesBindingHandledBySupplierIsNotBoundByPostProcessor() {
+		GenericApplicationContext context = createContext();
+		TestPropertyValues.of("test.name=binder").applyTo(context);
+		ConfigurationPropertiesBindingPostProcessor.register(context);
+		context.registerBean("properties", TestProperties.class, BeanInstanceSupplier
+				.<TestProperties>of(TestProperties::new).withPropertiesBinding((bean) -> bean.setName("supplier")));
+		context.refresh();
+		assertThat(context.getBean(TestProperties.class).getName()).isEqualTo("supplier");
+	}
+
+	@Test
+	void beanWithoutPropertiesBindingHandledBySupplierIsBoundByPostProcessor() {
+		GenericApplicationContext context = createContext();
+		TestPropertyValues.of("test.name=binder").applyTo(context);
+		ConfigurationPropertiesBindingPostProcessor.register(context);
+		context.registerBean("properties", TestProperties.class, BeanInstanceSupplier.of(TestProperties::new));
+		context.refresh();
+		assertThat(context.getBean(TestProperties.class).getName()).isEqualTo("binder");
+	}
+
+	@Test
+	void annotationPostProcessorsAreRegisteredOnce() {
+		GenericApplicationContext context = createContext();
+		context.refresh();
+		int count = context.getDefaultListableBeanFactory().getBeanPostProcessorCount();
+		context.getBeanFactory()
+				.addBeanPostProcessor(context.getBean(AnnotationConfigUtils.AUTOWIRED_ANNOTATION_PROCESSOR_BEAN_NAME,
+						AutowiredAnnotationBeanPostProcessor.class));
+		assertThat(context.getDefaultListableBeanFactory().getBeanPostProcessorCount()).isEqualTo(count);
+	}
+
+	private GenericApplicationContext createContext() {
+		GenericApplicationContext context = new GenericApplicationContext(new BootstrapBeanFactory());
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+		context.registerBean("name", String.class, () -> "context");
+		return context;
+	}
+
+	static class SampleBean {
+
+		private String name;
+
+		private int invocations;
+
+		@Autowired
+		void setName(String name) {
+			this.name = name;
+			this.invocations++;
+		}
+
+	}
+
+	@ConfigurationProperties("test")
+	static class TestProperties {
+
+		private String name;
+
+		String getName() {
+			return this.name;
+		}
+
+		void setName(String name) {
+			this.name = name;
+		}
+
+	}
+
+	static class AwareBean implements BeanNameAware, ApplicationContextAware {
+
+		private String beanName;
+
+		private ApplicationContext applicationContext;
+
+		private int invocations;
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+			this.invocations++;
+		}
+
+		@Override
+		public void setApplicationContext(ApplicationContext applicationContext) {
+			this.applicationContext = applicationContext;
+			this.invocations++;
+		}
+
+	}
+
+	static class WrappingPostProcessor implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			return (bean instanceof SampleBean) ? new Wrapper(bean) : bean;
+		}
+
+	}
+
+	static class ProxyingPostProcessor extends ProxyProcessorSupport implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) {
+			if (bean instanceof SampleBean) {
+				throw new IllegalStateException("Should not be invoked");
+			}
+			return bean;
+		}
+
+	}
+
+	static class Wrapper {
+
+		private final Object target;
+
+		Wrapper(Object target) {
+			this.target = target;
+		}
+
+	}
+
+	static class LifecycleBean implements InitializingBean, DisposableBean {
+
+		private final List<String> events = new ArrayList<>();
+
+		@PostConstruct
+		void postConstruct() {
+			this.events.add("postConstruct");
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			this.events.add("afterPropertiesSet");
+		}
+
+		@PreDestroy
+		void preDestroy() {
+			this.events.add("preDestroy");
+		}
+
+		@Override
+		public void destroy() {
+			this.events.add("destroy");
+		}
+
+		void fail() throws Exception {
+			this.events.add("fail");
+			throw new Exception("failure");
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+/**
+ * Tests for {@link BootstrapConditions}.
+ *
+ * @author Stephane Nicoll
+ */
+class BootstrapConditionsTests {
+
+	private final MockEnvironment environment = new MockEnvironment();
+
+	@Test
+	void verifyWithSameProfiles() {
+		this.environment.setActiveProfiles("dev", "test");
+		assertThatNoException().isThrownBy(() -> BootstrapConditions.of("dev", "test").verify(this.environment));
+	}
+
+	@Test
+	void verifyWithDifferentProfiles() {
+		this.environment.setActiveProfiles("prod");
+		assertThatIllegalStateException().isThrownBy(() -> BootstrapConditions.of("dev").verify(this.environment))
+				.withMessageContaining("active profiles [prod] differ from [dev]");
+	}
+
+	@Test
+	void verifyWithMatchingPropertyCondition() {
+		this.environment.setProperty("test.enabled", "true");
+		assertThatNoException().isThrownBy(() -> BootstrapConditions.of()
+				.onProperty("com.example.Test", true, "", false, "test.enabled").verify(this.environment));
+	}
+
+	@Test
+	void verifyWithPropertyConditionNoLongerMatching() {
+		this.environment.setProperty("test.enabled", "false");
+		assertThatIllegalStateException()
+				.isThrownBy(() -> BootstrapConditions.of()
+						.onProperty("com.example.Test", true, "", false, "test.enabled").verify(this.environment))
+				.withMessageContaining("property condition [test.enabled] on com.example.Test was matching");
+	}
+
+	@Test
+	void verifyWithPropertyConditionNowMatching() {
+		this.environment.setProperty("test.mode", "ADVANCED");
+		assertThatIllegalStateException()
+				.isThrownBy(() -> BootstrapConditions.of()
+						.onProperty("com.example.Test#advanced", false, "advanced", false, "test.mode")
+						.verify(this.environment))
+				.withMessageContaining("property condition [test.mode] on com.example.Test#advanced was not matching");
+	}
+
+	@Test
+	void verifyWithPropertyConditionsOfSameSourceCombined() {
+		this.environment.setProperty("test.enabled", "true");
+		assertThatNoException().isThrownBy(
+				() -> BootstrapConditions.of().onProperty("com.example.Test", false, "", false, "test.enabled")
+						.onProperty("com.example.Test", false, "", false, "test.feature").verify(this.environment));
+	}
+
+	@Test
+	void verifyWithPropertyConditionsOfSameSourceNowMatching() {
+		this.environment.setProperty("test.enabled", "true");
+		this.environment.setProperty("test.feature", "true");
+		assertThatIllegalStateException()
+				.isThrownBy(() -> BootstrapConditions.of()
+						.onProperty("com.example.Test", false, "", false, "test.enabled")
+						.onProperty("com.example.Test", false, "", false, "test.feature").verify(this.environment))
+				.withMessageContaining("property condition [test.enabled] on com.example.Test was not matching")
+				.withMessageContaining("property condition [test.feature] on com.example.Test was not matching");
+	}
+
+	@Test
+	void verifyWithMissingPropertyAndMatchIfMissing() {
+		assertThatNoException().isThrownBy(() -> BootstrapConditions.of()
+				.onProperty("com.example.Test", true, "", true, "test.enabled").verify(this.environment));
+	}
+
+}
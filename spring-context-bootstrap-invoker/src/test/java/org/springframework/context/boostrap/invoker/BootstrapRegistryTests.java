@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BootstrapRegistry}.
+ *
+ * @author Stephane Nicoll
+ */
+class BootstrapRegistryTests {
+
+	@Test
+	void registerPublishesBeanDefinitionsInOrder() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean("existing", Integer.class, () -> 42);
+		BootstrapRegistry registry = BootstrapRegistry.of(context, 2);
+		registry.registerBean("first", String.class, () -> "one");
+		registry.registerBeanDefinition("second", new RootBeanDefinition(StringBuilder.class));
+		assertThat(context.getBeanDefinitionNames()).containsExactly("existing");
+		registry.register();
+		assertThat(context.getBeanDefinitionNames()).containsExactly("existing", "first", "second");
+		context.refresh();
+		assertThat(context.getBean("first")).isEqualTo("one");
+		assertThat(context.getBeanNamesForType(CharSequence.class)).containsExactly("first", "second");
+	}
+
+	@Test
+	void registerAppliesCustomizers() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		BootstrapRegistry registry = BootstrapRegistry.of(context, 1);
+		registry.registerBean("test", String.class, () -> "test",
+				(beanDefinition) -> beanDefinition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE));
+		registry.register();
+		assertThat(context.getBeanDefinition("test").getRole()).isEqualTo(BeanDefinition.ROLE_INFRASTRUCTURE);
+	}
+
+	@Test
+	void registerWithExistingBeanDefinitionOverridesIt() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean("test", String.class, () -> "original");
+		BootstrapRegistry registry = BootstrapRegistry.of(context, 1);
+		registry.registerBean("test", String.class, () -> "override");
+		registry.register();
+		context.refresh();
+		assertThat(context.getBeanDefinitionNames()).containsExactly("test");
+		assertThat(context.getBean("test")).isEqualTo("override");
+	}
+
+	@Test
+	void registerWithDuplicateBeanNameFails() {
+		BootstrapRegistry registry = BootstrapRegistry.of(new GenericApplicationContext(), 2);
+		registry.registerBean("test", String.class, () -> "test");
+		assertThatIllegalStateException().isThrownBy(() -> registry.registerBean("test", String.class, () -> "test"))
+				.withMessageContaining("'test'");
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BootstrapScopedProxyFactoryBean}.
+ *
+ * @author Stephane Nicoll
+ */
+class BootstrapScopedProxyFactoryBeanTests {
+
+	@Test
+	void getObjectReturnsProxy() {
+		SampleProxy proxy = new SampleProxy();
+		BootstrapScopedProxyFactoryBean<SampleProxy> factoryBean = BootstrapScopedProxyFactoryBean.of(proxy);
+		assertThat(factoryBean.getObject()).isSameAs(proxy);
+		assertThat(factoryBean.getObjectType()).isEqualTo(SampleProxy.class);
+		assertThat(factoryBean.isSingleton()).isTrue();
+	}
+
+	@Test
+	void proxyIsExposedByTypeAndIsNotProcessed() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+		context.registerBean("name", String.class, () -> "context");
+		context.registerBean("sample", BootstrapScopedProxyFactoryBean.class,
+				() -> BootstrapScopedProxyFactoryBean.of(new SampleProxy()),
+				(definition) -> definition.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, SampleProxy.class));
+		context.refresh();
+		assertThat(context.getBeanNamesForType(SampleProxy.class, true, false)).containsExactly("sample");
+		assertThat(context.getBean(SampleProxy.class).name).isNull();
+	}
+
+	static class SampleProxy {
+
+		private String name;
+
+		@Autowired
+		void setName(String name) {
+			this.name = name;
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.env.RandomValuePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link CachingPropertyResolver}.
+ *
+ * @author Stephane Nicoll
+ */
+class CachingPropertyResolverTests {
+
+	private final Map<String, Object> properties = new HashMap<>();
+
+	private final TrackingPropertySources propertySources = new TrackingPropertySources();
+
+	private final CachingPropertyResolver resolver;
+
+	CachingPropertyResolverTests() {
+		this.propertySources.addLast(new MapPropertySource("test", this.properties));
+		this.resolver = new CachingPropertyResolver(new PropertySourcesPropertyResolver(this.propertySources),
+				this.propertySources);
+	}
+
+	@Test
+	void getPropertyIsCached() {
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+		this.properties.put("test.name", "Jane");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+		assertThat(this.resolver.getHitCount()).isEqualTo(1);
+		assertThat(this.resolver.getMissCount()).isEqualTo(1);
+		assertThat(this.resolver.getHitRate()).isEqualTo(0.5);
+	}
+
+	@Test
+	void getPropertyWithMissingKeyIsCached() {
+		assertThat(this.resolver.getProperty("test.name")).isNull();
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.getProperty("test.name")).isNull();
+		assertThat(this.resolver.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getPropertyWithDefaultValueUsesCache() {
+		assertThat(this.resolver.getProperty("test.name", "fallback")).isEqualTo("fallback");
+		assertThat(this.resolver.getProperty("test.name", "other")).isEqualTo("other");
+		assertThat(this.resolver.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getPropertyWithTargetTypeIsCachedPerType() {
+		this.properties.put("test.counter", "42");
+		assertThat(this.resolver.getProperty("test.counter", Integer.class)).isEqualTo(42);
+		assertThat(this.resolver.getProperty("test.counter", Long.class)).isEqualTo(42L);
+		assertThat(this.resolver.getProperty("test.counter", Integer.class)).isEqualTo(42);
+		assertThat(this.resolver.getHitCount()).isEqualTo(1);
+		assertThat(this.resolver.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void getRequiredPropertyWithMissingKey() {
+		assertThatIllegalStateException().isThrownBy(() -> this.resolver.getRequiredProperty("test.name"))
+				.withMessage("Required key 'test.name' not found");
+	}
+
+	@Test
+	void resolvePlaceholdersIsCached() {
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.resolvePlaceholders("Hello ${test.name}")).isEqualTo("Hello John");
+		this.properties.put("test.name", "Jane");
+		assertThat(this.resolver.resolvePlaceholders("Hello ${test.name}")).isEqualTo("Hello John");
+	}
+
+	@Test
+	void resolveRequiredPlaceholdersWithMissingKeyIsNotCached() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> this.resolver.resolveRequiredPlaceholders("Hello ${test.name}"));
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.resolveRequiredPlaceholders("Hello ${test.name}")).isEqualTo("Hello John");
+	}
+
+	@Test
+	void propertySourceAdditionInvalidatesCache() {
+		assertThat(this.resolver.getProperty("test.name")).isNull();
+		this.propertySources.addFirst(new MapPropertySource("first", Collections.singletonMap("test.name", "John")));
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+	}
+
+	@Test
+	void propertySourceReplacementInvalidatesCache() {
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+		this.propertySources.replace("test",
+				new MapPropertySource("test", Collections.singletonMap("test.name", "Jane")));
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("Jane");
+	}
+
+	@Test
+	void propertySourceRemovalInvalidatesCache() {
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+		this.propertySources.remove("test");
+		assertThat(this.resolver.getProperty("test.name")).isNull();
+	}
+
+	@Test
+	void randomPropertyIsNotCached() {
+		this.propertySources.addLast(new RandomValuePropertySource());
+		String value = this.resolver.getProperty("random.uuid");
+		assertThat(this.resolver.getProperty("random.uuid")).isNotEqualTo(value);
+		assertThat(this.resolver.getHitCount()).isEqualTo(0);
+	}
+
+	@Test
+	void stopCachingDelegatesLookups() {
+		this.properties.put("test.name", "John");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("John");
+		this.resolver.stopCaching();
+		this.properties.put("test.name", "Jane");
+		assertThat(this.resolver.getProperty("test.name")).isEqualTo("Jane");
+		assertThat(this.resolver.getHitCount()).isEqualTo(0);
+	}
+
+}
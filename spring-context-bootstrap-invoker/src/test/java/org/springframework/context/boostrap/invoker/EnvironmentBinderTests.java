@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.env.SystemEnvironmentPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link EnvironmentBinder}.
+ *
+ * @author Stephane Nicoll
+ */
+class EnvironmentBinderTests {
+
+	private final MockEnvironment environment = new MockEnvironment();
+
+	private final EnvironmentBinder binder = EnvironmentBinder.of(this.environment);
+
+	@Test
+	void bindWithCanonicalName() {
+		this.environment.setProperty("test.first-name", "John");
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(String.class, bean::setFirstName, "test.first-name")).isTrue();
+		assertThat(bean.firstName).isEqualTo("John");
+	}
+
+	@Test
+	void bindWithCamelCaseName() {
+		this.environment.setProperty("test.firstName", "John");
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(String.class, bean::setFirstName, "test.first-name")).isTrue();
+		assertThat(bean.firstName).isEqualTo("John");
+	}
+
+	@Test
+	void bindWithCamelCasePrefix() {
+		this.environment.setProperty("app.myService.timeout", "10s");
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(Duration.class, bean::setTimeout, "app.my-service.timeout")).isTrue();
+		assertThat(bean.timeout).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void bindWithUpperCaseName() {
+		this.environment.setProperty("APP.MY-SERVICE.NAME", "John");
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(String.class, bean::setFirstName, "app.my-service.name")).isTrue();
+		assertThat(bean.firstName).isEqualTo("John");
+	}
+
+	@Test
+	void bindWithSystemEnvironmentName() {
+		this.environment.getPropertySources().addFirst(
+				new SystemEnvironmentPropertySource(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+						Collections.singletonMap("APP_MYSERVICE_NAME", "John")));
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(String.class, bean::setFirstName, "app.my-service.name")).isTrue();
+		assertThat(bean.firstName).isEqualTo("John");
+	}
+
+	@Test
+	void bindWithNoValue() {
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bind(String.class, bean::setFirstName, "test.first-name")).isFalse();
+		assertThat(bean.firstName).isNull();
+	}
+
+	@Test
+	void bindUsesPropertySourceOrderFirst() {
+		this.environment.setProperty("test.firstName", "John");
+		this.environment.getPropertySources()
+				.addLast(new MapPropertySource("low", Collections.singletonMap("test.first-name", "Jane")));
+		SampleBean bean = new SampleBean();
+		this.binder.bind(String.class, bean::setFirstName, "test.first-name");
+		assertThat(bean.firstName).isEqualTo("John");
+	}
+
+	@Test
+	void bindResolvesPlaceholdersAndConverts() {
+		this.environment.setProperty("test.timeout", "${base.timeout}");
+		this.environment.setProperty("base.timeout", "10s");
+		SampleBean bean = new SampleBean();
+		this.binder.bind(Duration.class, bean::setTimeout, "test.timeout");
+		assertThat(bean.timeout).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void bindWithInvalidValue() {
+		this.environment.setProperty("test.counter", "not-a-number");
+		SampleBean bean = new SampleBean();
+		assertThatIllegalStateException()
+				.isThrownBy(() -> this.binder.bind(Integer.class, bean::setCounter, "test.counter"))
+				.withMessageContaining("test.counter");
+	}
+
+	@Test
+	void bindNestedCreatesInstanceWhenPropertyIsBound() {
+		this.environment.setProperty("test.nested.counter", "42");
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bindNested(bean::getNested, SampleBean::new, bean::setNested,
+				(nested) -> this.binder.bind(Integer.class, nested::setCounter, "test.nested.counter"))).isTrue();
+		assertThat(bean.nested.counter).isEqualTo(42);
+	}
+
+	@Test
+	void bindNestedDoesNotCreateInstanceWhenNoPropertyIsBound() {
+		SampleBean bean = new SampleBean();
+		assertThat(this.binder.bindNested(bean::getNested, SampleBean::new, bean::setNested,
+				(nested) -> this.binder.bind(Integer.class, nested::setCounter, "test.nested.counter"))).isFalse();
+		assertThat(bean.nested).isNull();
+	}
+
+	static class SampleBean {
+
+		private String firstName;
+
+		private int counter;
+
+		private Duration timeout;
+
+		private SampleBean nested;
+
+		void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		void setCounter(int counter) {
+			this.counter = counter;
+		}
+
+		void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		SampleBean getNested() {
+			return this.nested;
+		}
+
+		void setNested(SampleBean nested) {
+			this.nested = nested;
+		}
+
+	}
+
+}
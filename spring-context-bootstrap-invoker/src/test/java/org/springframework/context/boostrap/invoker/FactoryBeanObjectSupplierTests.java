@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link FactoryBeanObjectSupplier}.
+ *
+ * @author Stephane Nicoll
+ */
+class FactoryBeanObjectSupplierTests {
+
+	@Test
+	void getReturnsObjectOfFactoryBean() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBean("greeting", String.class,
+				FactoryBeanObjectSupplier.<String>of(() -> new GreetingFactoryBean("Hello")));
+		context.refresh();
+		assertThat(context.getBean("greeting")).isEqualTo("Hello");
+		assertThat(context.getBeanNamesForType(String.class)).containsExactly("greeting");
+	}
+
+	@Test
+	void getWithCheckedExceptionThrowsIllegalStateException() {
+		FactoryBeanObjectSupplier<String> supplier = FactoryBeanObjectSupplier.of(() -> new GreetingFactoryBean(null));
+		assertThatIllegalStateException().isThrownBy(supplier::get).withMessage("No greeting")
+				.withCauseInstanceOf(IOException.class);
+	}
+
+	static class GreetingFactoryBean implements FactoryBean<String> {
+
+		private final String greeting;
+
+		GreetingFactoryBean(String greeting) {
+			this.greeting = greeting;
+		}
+
+		@Override
+		public String getObject() throws IOException {
+			if (this.greeting == null) {
+				throw new IOException("No greeting");
+			}
+			return this.greeting;
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return String.class;
+		}
+
+	}
+
+}
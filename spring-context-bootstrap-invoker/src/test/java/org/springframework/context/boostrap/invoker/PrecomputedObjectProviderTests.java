@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link PrecomputedObjectProvider}.
+ *
+ * @author Stephane Nicoll
+ */
+class PrecomputedObjectProviderTests {
+
+	@Test
+	void getObjectWithUniqueCandidate() {
+		GenericApplicationContext context = createContext();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, "one", "two", "one");
+		assertThat(provider.getObject()).isEqualTo(1);
+		assertThat(provider.getIfAvailable()).isEqualTo(1);
+		assertThat(provider.getIfUnique()).isEqualTo(1);
+	}
+
+	@Test
+	void getObjectWithSeveralCandidates() {
+		GenericApplicationContext context = createContext();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, null, "two", "one");
+		assertThatExceptionOfType(NoUniqueBeanDefinitionException.class).isThrownBy(provider::getObject);
+		assertThatExceptionOfType(NoUniqueBeanDefinitionException.class).isThrownBy(provider::getIfAvailable);
+		assertThat(provider.getIfUnique()).isNull();
+	}
+
+	@Test
+	void getObjectWithNoCandidate() {
+		GenericApplicationContext context = createContext();
+		ObjectProvider<Long> provider = PrecomputedObjectProvider.of(context, Long.class, null);
+		assertThatExceptionOfType(NoSuchBeanDefinitionException.class).isThrownBy(provider::getObject);
+		assertThat(provider.getIfAvailable()).isNull();
+		assertThat(provider.getIfUnique()).isNull();
+	}
+
+	@Test
+	void orderedStreamUsesSpecifiedOrder() {
+		GenericApplicationContext context = createContext();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, null, "two", "one");
+		assertThat(provider.orderedStream()).containsExactly(2, 1);
+		assertThat(provider.stream()).containsExactly(2, 1);
+	}
+
+	@Test
+	void providerDoesNotRetrieveBeansUntilUsed() {
+		GenericApplicationContext context = new GenericApplicationContext(new BootstrapBeanFactory());
+		context.registerBean("one", Integer.class, () -> {
+			throw new IllegalStateException("Not available");
+		}, (beanDefinition) -> beanDefinition.setLazyInit(true));
+		context.refresh();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, "one", "one");
+		assertThatExceptionOfType(BeanCreationException.class).isThrownBy(provider::getObject)
+				.withMessageContaining("Not available");
+	}
+
+	@Test
+	void providerWithAdditionalBeanDelegatesToContext() {
+		GenericApplicationContext context = new GenericApplicationContext(new BootstrapBeanFactory());
+		context.registerBean("one", Integer.class, () -> 1);
+		context.registerBean("two", Integer.class, () -> 2);
+		context.registerBean("three", Integer.class, () -> 3);
+		context.refresh();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, null, "two", "one");
+		assertThat(provider.stream()).containsExactly(1, 2, 3);
+	}
+
+	@Test
+	void providerIgnoresBeanThatIsNotAnAutowireCandidate() {
+		GenericApplicationContext context = new GenericApplicationContext(new BootstrapBeanFactory());
+		context.registerBean("one", Integer.class, () -> 1);
+		context.registerBean("two", Integer.class, () -> 2, (bd) -> bd.setAutowireCandidate(false));
+		context.refresh();
+		ObjectProvider<Integer> provider = PrecomputedObjectProvider.of(context, Integer.class, "one", "one");
+		assertThat(provider.getObject()).isEqualTo(1);
+		assertThat(provider.stream()).containsExactly(1);
+	}
+
+	private GenericApplicationContext createContext() {
+		GenericApplicationContext context = new GenericApplicationContext(new BootstrapBeanFactory());
+		context.registerBean("one", Integer.class, () -> 1);
+		context.registerBean("two", Integer.class, () -> 2);
+		context.refresh();
+		return context;
+	}
+
+}
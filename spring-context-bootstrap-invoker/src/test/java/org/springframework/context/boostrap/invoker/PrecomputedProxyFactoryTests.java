@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.function.Function;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PrecomputedProxyFactory}.
+ *
+ * @author Stephane Nicoll
+ */
+class PrecomputedProxyFactoryTests {
+
+	private final Function<Object, Object> target = (input) -> input;
+
+	private final DefaultListableBeanFactory beanFactory = createBeanFactory();
+
+	@Test
+	void invokeAppliesInterceptorChain() {
+		Function<?, ?> proxy = createProxy(new int[] { 1, 0 });
+		assertThat(apply(proxy, "test")).isEqualTo("21test");
+	}
+
+	@Test
+	void invokeWithEmptyChainInvokesTarget() {
+		Function<?, ?> proxy = createProxy(new int[0]);
+		assertThat(apply(proxy, "test")).isEqualTo("test");
+	}
+
+	@Test
+	void invokeWithUnregisteredMethodUsesRegularChain() {
+		Function<?, ?> proxy = (Function<?, ?>) PrecomputedProxyFactory
+				.of(this.target, this.beanFactory, Function.class).withInterceptors("first").getProxy();
+		assertThat(apply(proxy, "test")).isEqualTo("1test");
+	}
+
+	@Test
+	void invokeAfterAdvisorChangeUsesRegularChain() {
+		Function<?, ?> proxy = createProxy(new int[0]);
+		((Advised) proxy).removeAdvice(this.beanFactory.getBean("second", MethodInterceptor.class));
+		assertThat(apply(proxy, "test")).isEqualTo("1test");
+	}
+
+	@Test
+	void proxyIsJdkDynamicProxy() {
+		Function<?, ?> proxy = createProxy(new int[0]);
+		assertThat(AopUtils.isJdkDynamicProxy(proxy)).isTrue();
+		assertThat(AopUtils.getTargetClass(proxy)).isEqualTo(this.target.getClass());
+		assertThat(((Advised) proxy).getAdvisors()).hasSize(2);
+		assertThat(((Advised) proxy).isFrozen()).isFalse();
+	}
+
+	@Test
+	void proxyWithFrozenConfiguration() {
+		Function<?, ?> proxy = (Function<?, ?>) PrecomputedProxyFactory
+				.of(this.target, this.beanFactory, Function.class).withInterceptors("first").frozen().getProxy();
+		assertThat(((Advised) proxy).isFrozen()).isTrue();
+	}
+
+	@Test
+	void proxiesOfSameTargetAreEqual() {
+		Function<?, ?> proxy = createProxy(new int[0]);
+		Function<?, ?> anotherProxy = createProxy(new int[] { 0 });
+		assertThat(proxy).isEqualTo(anotherProxy);
+		assertThat(proxy.hashCode()).isEqualTo(anotherProxy.hashCode());
+	}
+
+	private Function<?, ?> createProxy(int[] chain) {
+		return (Function<?, ?>) PrecomputedProxyFactory.of(this.target, this.beanFactory, Function.class)
+				.withInterceptors("first", "second").withChain(chain, "apply", Object.class).getProxy();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object apply(Function<?, ?> proxy, Object input) {
+		return ((Function<Object, Object>) proxy).apply(input);
+	}
+
+	private static DefaultListableBeanFactory createBeanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("first", (MethodInterceptor) (invocation) -> "1" + invocation.proceed());
+		beanFactory.registerSingleton("second", (MethodInterceptor) (invocation) -> "2" + invocation.proceed());
+		return beanFactory;
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringValueResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link PrecomputedTransactionAttributeSource}.
+ *
+ * @author Stephane Nicoll
+ */
+class PrecomputedTransactionAttributeSourceTests {
+
+	private final TransactionAttributeSource fallback = mock(TransactionAttributeSource.class);
+
+	private final RuleBasedTransactionAttribute attribute = new RuleBasedTransactionAttribute();
+
+	private final TransactionAttributeSource source = PrecomputedTransactionAttributeSource.of(() -> this.fallback,
+			(table) -> table.register(SampleService.class, this.attribute, "save", String.class)).get();
+
+	@Test
+	void getTransactionAttributeWithRegisteredMethod() {
+		assertThat(this.source.getTransactionAttribute(method(SampleService.class, "save", String.class),
+				SampleService.class)).isSameAs(this.attribute);
+		verifyNoInteractions(this.fallback);
+	}
+
+	@Test
+	void getTransactionAttributeWithInterfaceMethod() {
+		assertThat(
+				this.source.getTransactionAttribute(method(Service.class, "save", String.class), SampleService.class))
+						.isSameAs(this.attribute);
+		verifyNoInteractions(this.fallback);
+	}
+
+	@Test
+	void getTransactionAttributeWithMethodNotRegistered() {
+		assertThat(this.source.getTransactionAttribute(method(SampleService.class, "describe"), SampleService.class))
+				.isNull();
+		verifyNoInteractions(this.fallback);
+	}
+
+	@Test
+	void getTransactionAttributeWithClassNotRegisteredUsesFallback() {
+		TransactionAttribute fallbackAttribute = new RuleBasedTransactionAttribute();
+		Method method = method(Object.class, "toString");
+		given(this.fallback.getTransactionAttribute(method, Object.class)).willReturn(fallbackAttribute);
+		assertThat(this.source.getTransactionAttribute(method, Object.class)).isSameAs(fallbackAttribute);
+	}
+
+	@Test
+	void isCandidateClassWithRegisteredClass() {
+		assertThat(this.source.isCandidateClass(SampleService.class)).isTrue();
+		verifyNoInteractions(this.fallback);
+	}
+
+	@Test
+	void isCandidateClassWithClassNotRegisteredUsesFallback() {
+		given(this.fallback.isCandidateClass(any())).willReturn(false);
+		assertThat(this.source.isCandidateClass(Object.class)).isFalse();
+		verify(this.fallback).isCandidateClass(Object.class);
+	}
+
+	@Test
+	void setEmbeddedValueResolverIsForwardedToFallback() {
+		ResolverAwareTransactionAttributeSource fallback = mock(ResolverAwareTransactionAttributeSource.class);
+		PrecomputedTransactionAttributeSource source = (PrecomputedTransactionAttributeSource) PrecomputedTransactionAttributeSource
+				.of(() -> fallback, (table) -> {
+				}).get();
+		StringValueResolver resolver = (value) -> value;
+		source.setEmbeddedValueResolver(resolver);
+		verify(fallback).setEmbeddedValueResolver(resolver);
+	}
+
+	private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+		return ReflectionUtils.findMethod(type, name, parameterTypes);
+	}
+
+	interface Service {
+
+		void save(String name);
+
+	}
+
+	static class SampleService implements Service {
+
+		@Override
+		public void save(String name) {
+		}
+
+		String describe() {
+			return "sample";
+		}
+
+	}
+
+	interface ResolverAwareTransactionAttributeSource extends TransactionAttributeSource, EmbeddedValueResolverAware {
+
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.env.MockPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PropertySourceEnvironmentPostProcessor}.
+ *
+ * @author Stephane Nicoll
+ */
+class PropertySourceEnvironmentPostProcessorTests {
+
+	@TempDir
+	File directory;
+
+	private final StandardEnvironment environment = new StandardEnvironment();
+
+	private final SpringApplication application = new SpringApplication();
+
+	private boolean fallback;
+
+	@Test
+	void postProcessEnvironmentAddsPropertySource() {
+		postProcess(new MockPropertySource("generated").withProperty("app.name", "generated"));
+		assertThat(this.fallback).isFalse();
+		assertThat(this.environment.getProperty("app.name")).isEqualTo("generated");
+		assertThat(this.environment.getActiveProfiles()).isEmpty();
+	}
+
+	@Test
+	void postProcessEnvironmentActivatesProfiles() {
+		postProcess(new MockPropertySource("generated").withProperty("spring.profiles.active", "p1,p2"), "p1", "p2");
+		assertThat(this.fallback).isFalse();
+		assertThat(this.environment.getActiveProfiles()).containsExactly("p1", "p2");
+	}
+
+	@Test
+	void postProcessEnvironmentWithDifferentActiveProfilesFallsBack() {
+		this.environment.getPropertySources()
+				.addFirst(new MockPropertySource("external").withProperty("spring.profiles.active", "prod"));
+		postProcess(new MockPropertySource("generated").withProperty("spring.profiles.active", "dev"), "dev");
+		assertThat(this.fallback).isTrue();
+		assertThat(this.environment.getPropertySources().contains("generated")).isFalse();
+	}
+
+	@Test
+	void postProcessEnvironmentWithProfilesNotActivatedByPropertySourceFallsBack() {
+		postProcess(new MockPropertySource("generated"), "dev");
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithAdditionalProfilesFallsBack() {
+		this.application.setAdditionalProfiles("dev");
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithConfigLocationFallsBack() {
+		this.environment.getPropertySources().addFirst(
+				new MockPropertySource("external").withProperty("spring.config.additional-location", "file:/tmp/"));
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithProfileGroupFallsBack() {
+		this.environment.getPropertySources()
+				.addFirst(new MockPropertySource("external").withProperty("spring.profiles.group.prod", "db"));
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithConfigFileInWorkingDirectoryFallsBack() throws IOException {
+		Files.createFile(new File(this.directory, "application.properties").toPath());
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithConfigFileInConfigSubDirectoryFallsBack() throws IOException {
+		File config = new File(this.directory, "config/test");
+		assertThat(config.mkdirs()).isTrue();
+		Files.createFile(new File(config, "application-dev.yml").toPath());
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isTrue();
+	}
+
+	@Test
+	void postProcessEnvironmentWithUnrelatedFileInWorkingDirectory() throws IOException {
+		Files.createFile(new File(this.directory, "application.txt").toPath());
+		postProcess(new MockPropertySource("generated"));
+		assertThat(this.fallback).isFalse();
+	}
+
+	private void postProcess(MockPropertySource propertySource, String... profiles) {
+		List<String> activeProfiles = (profiles.length > 0) ? Arrays.asList(profiles) : Collections.emptyList();
+		new PropertySourceEnvironmentPostProcessor(() -> propertySource, activeProfiles,
+				(environment, application) -> this.fallback = true, getClass().getClassLoader(), this.directory)
+						.postProcessEnvironment(this.environment, this.application);
+	}
+
+}
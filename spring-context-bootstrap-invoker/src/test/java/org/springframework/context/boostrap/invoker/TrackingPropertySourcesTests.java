@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.boostrap.invoker;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.env.MapPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TrackingPropertySources}.
+ *
+ * @author Stephane Nicoll
+ */
+class TrackingPropertySourcesTests {
+
+	private final TrackingPropertySources propertySources = new TrackingPropertySources();
+
+	@Test
+	void modificationCountIsInitiallyZero() {
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(0);
+	}
+
+	@Test
+	void additionsAreTracked() {
+		this.propertySources.addFirst(createPropertySource("first"));
+		this.propertySources.addLast(createPropertySource("last"));
+		this.propertySources.addBefore("last", createPropertySource("before"));
+		this.propertySources.addAfter("first", createPropertySource("after"));
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(4);
+	}
+
+	@Test
+	void replacementIsTracked() {
+		this.propertySources.addLast(createPropertySource("test"));
+		this.propertySources.replace("test", createPropertySource("test"));
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(2);
+	}
+
+	@Test
+	void removalIsTracked() {
+		this.propertySources.addLast(createPropertySource("test"));
+		this.propertySources.remove("test");
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(2);
+	}
+
+	@Test
+	void removalOfUnknownPropertySourceIsNotTracked() {
+		this.propertySources.addLast(createPropertySource("test"));
+		assertThat(this.propertySources.remove("another")).isNull();
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(1);
+	}
+
+	@Test
+	void lookupIsNotTracked() {
+		this.propertySources.addLast(createPropertySource("test"));
+		this.propertySources.get("test");
+		this.propertySources.contains("test");
+		this.propertySources.stream().count();
+		assertThat(this.propertySources.getModificationCount()).isEqualTo(1);
+	}
+
+	private MapPropertySource createPropertySource(String name) {
+		return new MapPropertySource(name, Collections.singletonMap("test.name", name));
+	}
+
+}
@@ -28,6 +28,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.boostrap.invoker.BootstrapApplication;
 import org.springframework.context.bootstrap.generator.ContextBootstrapGenerator;
+import org.springframework.context.bootstrap.generator.PropertySourceGenerator;
 
 @SpringBootApplication
 public class SimpleApplication {
@@ -45,6 +46,8 @@ public class SimpleApplication {
 		for (JavaFile javaFile : javaFiles) {
 			javaFile.writeTo(srcDirectory);
 		}
+		new PropertySourceGenerator(context.getClassLoader()).generatePropertySourceClass("sample.generator")
+				.writeTo(srcDirectory);
 	}
 
 	private static void startWithBootstrap(String[] args) {